@@ -36,6 +36,7 @@ import java.util.logging.Logger;
 
 import io.netty.channel.Channel;
 
+import org.spout.api.ai.pathfinder.PathfindingService;
 import org.spout.api.command.CommandManager;
 import org.spout.api.command.CommandSource;
 import org.spout.api.entity.Entity;
@@ -252,6 +253,13 @@ public interface Engine extends Named {
 	 */
 	public ServiceManager getServiceManager();
 
+	/**
+	 * Gets the service which computes paths off the tick threads
+	 *
+	 * @return the pathfinding service
+	 */
+	public PathfindingService getPathfindingService();
+
 	/**
 	 * Gets the recipe manager
 	 *
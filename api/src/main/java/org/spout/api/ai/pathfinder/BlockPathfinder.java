@@ -0,0 +1,294 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.ai.pathfinder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.spout.math.vector.Vector3f;
+
+/**
+ * An A* pathfinder specialized for the block grid.<br> It finds the same kind of paths as an {@link org.spout.api.ai.AStarMachine} running {@link VectorNode}s, but nodes are stored in primitive
+ * arrays of a per-thread {@link SearchArena} which is reused between searches, and each block is only examined once per search.
+ */
+public class BlockPathfinder {
+	private static final float TIEBREAKER = 1.001f;
+	private static final ThreadLocal<SearchArena> ARENAS = new ThreadLocal<SearchArena>() {
+		@Override
+		protected SearchArena initialValue() {
+			return new SearchArena();
+		}
+	};
+	private final BlockExaminer[] examiners;
+
+	public BlockPathfinder(BlockExaminer... examiners) {
+		this.examiners = examiners == null ? new BlockExaminer[] {} : examiners.clone();
+	}
+
+	/**
+	 * Finds a path from the start to within two blocks of the goal. The points of the path are offset from the start by whole blocks.
+	 *
+	 * @param source the source of the blocks
+	 * @param start the start of the path
+	 * @param goal the goal of the path
+	 * @param maxIterations the maximum number of nodes to expand, or -1 for no limit
+	 * @return the path, or null if no path was found
+	 */
+	public Path find(BlockSource source, Vector3f start, Vector3f goal, int maxIterations) {
+		SearchArena arena = ARENAS.get();
+		if (arena.inUse) {
+			// A search started by an examiner of another search on this thread
+			arena = new SearchArena();
+		}
+		arena.inUse = true;
+		try {
+			final Search search = new Search(arena, source, start, goal, maxIterations);
+			search.run(-1);
+			return search.getPath();
+		} finally {
+			arena.reset();
+			arena.inUse = false;
+		}
+	}
+
+	/**
+	 * Starts a search which can be run over several calls of {@link Search#run(int)}. The search keeps its own storage until it is finished.
+	 *
+	 * @param source the source of the blocks
+	 * @param start the start of the path
+	 * @param goal the goal of the path
+	 * @param maxIterations the maximum number of nodes to expand, or -1 for no limit
+	 * @return the search
+	 */
+	public Search startSearch(BlockSource source, Vector3f start, Vector3f goal, int maxIterations) {
+		return startSearch(source, start, goal, maxIterations, new SearchArena());
+	}
+
+	Search startSearch(BlockSource source, Vector3f start, Vector3f goal, int maxIterations, SearchArena arena) {
+		return new Search(arena, source, start, goal, maxIterations);
+	}
+
+	/**
+	 * The state of a search, which can be continued across several calls
+	 */
+	public class Search {
+		private SearchArena arena;
+		private final BlockSource source;
+		private final Vector3f start;
+		private final Vector3f goal;
+		private final int maxIterations;
+		private final GridPoint point;
+		private int iterations = 0;
+		private boolean finished = false;
+		private Path path;
+
+		private Search(SearchArena arena, BlockSource source, Vector3f start, Vector3f goal, int maxIterations) {
+			this.arena = arena;
+			this.source = source;
+			this.start = start;
+			this.goal = goal;
+			this.maxIterations = maxIterations;
+			this.point = new GridPoint(arena, start);
+			final int startNode = arena.create(0, 0, 0);
+			point.set(startNode);
+			arena.g[startNode] = 0;
+			arena.h[startNode] = heuristic(source, point, goal);
+			arena.f[startNode] = arena.h[startNode];
+			arena.open(startNode);
+		}
+
+		/**
+		 * Expands up to the given number of nodes
+		 *
+		 * @param steps the maximum number of nodes to expand in this call, or -1 to run until the search is finished
+		 * @return true if the search is finished
+		 */
+		public boolean run(int steps) {
+			while (!finished && steps-- != 0) {
+				step();
+			}
+			return finished;
+		}
+
+		/**
+		 * Gets if the search is finished
+		 *
+		 * @return true if finished
+		 */
+		public boolean isFinished() {
+			return finished;
+		}
+
+		/**
+		 * Gets the path found by the search
+		 *
+		 * @return the path, or null if the search is not finished or no path was found
+		 */
+		public Path getPath() {
+			return path;
+		}
+
+		/**
+		 * Gets the storage of this search, the storage is only returned once the search is finished
+		 *
+		 * @return the storage, or null if the search is not finished or the storage was already released
+		 */
+		SearchArena release() {
+			if (!finished) {
+				return null;
+			}
+			final SearchArena released = arena;
+			arena = null;
+			return released;
+		}
+
+		private void finish(Path path) {
+			this.path = path;
+			this.finished = true;
+		}
+
+		private void step() {
+			final SearchArena arena = this.arena;
+			final int node = arena.poll();
+			if (node < 0) {
+				finish(null);
+				return;
+			}
+			final int x = arena.xs[node];
+			final int y = arena.ys[node];
+			final int z = arena.zs[node];
+			if (goal.distanceSquared(start.getX() + x, start.getY() + y, start.getZ() + z) <= 4) {
+				finish(buildPath(arena, start, node));
+				return;
+			}
+			final float g = arena.g[node];
+			for (int dx = -1; dx <= 1; dx++) {
+				for (int dy = -1; dy <= 1; dy++) {
+					for (int dz = -1; dz <= 1; dz++) {
+						if (dx == 0 && dy == 0 && dz == 0) {
+							continue;
+						}
+						int neighbour = arena.find(x + dx, y + dy, z + dz);
+						if (neighbour < 0) {
+							neighbour = arena.create(x + dx, y + dy, z + dz);
+							point.set(neighbour);
+							if (!isPassable(source, point)) {
+								arena.states[neighbour] = SearchArena.BLOCKED;
+								continue;
+							}
+							arena.h[neighbour] = heuristic(source, point, goal);
+						} else if (arena.states[neighbour] == SearchArena.BLOCKED) {
+							continue;
+						}
+						final float neighbourG = g + dx * dx + dy * dy + dz * dz;
+						if (neighbourG >= arena.g[neighbour]) {
+							continue;
+						}
+						arena.g[neighbour] = neighbourG;
+						arena.f[neighbour] = neighbourG + arena.h[neighbour];
+						arena.parents[neighbour] = node;
+						arena.open(neighbour);
+					}
+				}
+			}
+			if (maxIterations >= 0 && iterations++ >= maxIterations) {
+				finish(null);
+			}
+		}
+	}
+
+	private float heuristic(BlockSource source, GridPoint point, Vector3f goal) {
+		float blockCost = 0;
+		for (BlockExaminer examiner : examiners) {
+			blockCost += examiner.getCost(source, point);
+		}
+		return (point.getVector().distance(goal) + blockCost) * TIEBREAKER;
+	}
+
+	private boolean isPassable(BlockSource source, GridPoint point) {
+		for (BlockExaminer examiner : examiners) {
+			if (!examiner.isPassable(source, point)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@SuppressWarnings ("unchecked")
+	private Path buildPath(SearchArena arena, Vector3f start, int last) {
+		int length = 0;
+		for (int node = last; node >= 0; node = arena.parents[node]) {
+			length++;
+		}
+		final Vector3f[] points = new Vector3f[length];
+		final List<PathPoint.PathCallback>[] callbacks = new List[length];
+		for (int node = last; node >= 0; node = arena.parents[node]) {
+			length--;
+			points[length] = start.add(arena.xs[node], arena.ys[node], arena.zs[node]);
+			callbacks[length] = arena.callbacks[node];
+		}
+		return new Path(points, callbacks);
+	}
+
+	/**
+	 * The point given to the examiners, moved to each examined node
+	 */
+	private static class GridPoint implements PathPoint {
+		private final SearchArena arena;
+		private final Vector3f start;
+		private int node;
+		private Vector3f vector;
+
+		private GridPoint(SearchArena arena, Vector3f start) {
+			this.arena = arena;
+			this.start = start;
+		}
+
+		private void set(int node) {
+			this.node = node;
+			this.vector = null;
+		}
+
+		@Override
+		public void addCallback(PathCallback callback) {
+			List<PathCallback> list = arena.callbacks[node];
+			if (list == null) {
+				list = new ArrayList<>();
+				arena.callbacks[node] = list;
+			}
+			list.add(callback);
+		}
+
+		@Override
+		public Vector3f getVector() {
+			if (vector == null) {
+				vector = start.add(arena.xs[node], arena.ys[node], arena.zs[node]);
+			}
+			return vector;
+		}
+	}
+}
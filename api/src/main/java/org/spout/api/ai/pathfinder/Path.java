@@ -45,6 +45,55 @@ public class Path implements Plan<Entity> {
 		this.path = cull(unfiltered);
 	}
 
+	/**
+	 * Creates a path which visits every given point in order.<br> <br> Unlike {@link #Path(Iterable)}, no points are culled. The node based path drops every node which has callbacks, so those
+	 * callbacks are never run. Here points with callbacks are kept, and their callbacks are run when the entity reaches them. Paths found by {@link BlockPathfinder} can therefore contain more
+	 * points than the equivalent {@link VectorNode} path.
+	 *
+	 * @param points the points of the path
+	 * @param callbacks the callbacks of each point, or null for a point without callbacks
+	 */
+	Path(Vector3f[] points, List<PathCallback>[] callbacks) {
+		this.path = new PathEntry[points.length];
+		for (int i = 0; i < points.length; i++) {
+			path[i] = new PathEntry(points[i], callbacks[i]);
+		}
+	}
+
+	private Path(PathEntry[] path) {
+		this.path = path;
+	}
+
+	/**
+	 * Creates a copy of the path which starts from the beginning, with all of its points moved by the given offset.
+	 *
+	 * @param offset the offset of the points
+	 * @return the copy
+	 */
+	Path copy(Vector3f offset) {
+		final PathEntry[] entries = new PathEntry[path.length];
+		for (int i = 0; i < entries.length; i++) {
+			entries[i] = new PathEntry(path[i].point.add(offset), path[i].callbacks);
+		}
+		return new Path(entries);
+	}
+
+	/**
+	 * Gets the points of this path
+	 *
+	 * @return the points
+	 */
+	Vector3f[] getPoints() {
+		final Vector3f[] points = new Vector3f[path.length];
+		for (int i = 0; i < points.length; i++) {
+			points[i] = path[i].point;
+		}
+		return points;
+	}
+
+	/**
+	 * Culls the nodes of a node based path, dropping every node which has callbacks
+	 */
 	private PathEntry[] cull(Iterable<VectorNode> unfiltered) {
 		// TODO: possibly expose cullability in an API
 		List<PathEntry> path = Lists.newArrayList();
@@ -86,7 +135,7 @@ public class Path implements Plan<Entity> {
 		final Iterable<PathCallback> callbacks;
 		final Vector3f point;
 
-		private PathEntry(Vector3f point, List<PathCallback> callbacks) {
+		private PathEntry(Vector3f point, Iterable<PathCallback> callbacks) {
 			this.point = point;
 			this.callbacks = callbacks;
 		}
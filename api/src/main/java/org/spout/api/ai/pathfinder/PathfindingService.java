@@ -0,0 +1,580 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.ai.pathfinder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.hash.TLongHashSet;
+
+import org.spout.api.event.EventHandler;
+import org.spout.api.event.Listener;
+import org.spout.api.event.Order;
+import org.spout.api.event.block.BlockChangeEvent;
+import org.spout.api.geo.World;
+import org.spout.api.geo.cuboid.Block;
+import org.spout.api.geo.cuboid.Chunk;
+import org.spout.api.util.hashing.Int21TripleHashed;
+import org.spout.math.vector.Vector3f;
+
+/**
+ * Computes paths off the tick threads.<br> Searches read the blocks from chunk snapshots and are run in slices of a fixed number of iterations, so a long search does not hold back the others.
+ * Identical requests, with the same pathfinder and iteration limit, in the same world and between the same start and goal blocks, share a single search. Found paths are cached for a limited time,
+ * and are removed from the cache when a {@link BlockChangeEvent} occurs in a chunk next to them. A search is dropped once every future waiting for it has been cancelled.<br> This class must be
+ * registered as a {@link Listener} for the cache to be invalidated.
+ */
+public class PathfindingService implements Listener {
+	private static final int CHANGE_STRIPES = 4096;
+	private final Executor executor;
+	private final int sliceIterations;
+	private final int parallelism;
+	private final int maxCachedPaths;
+	private final long cacheTime;
+	private final ConcurrentLinkedQueue<Job> queue = new ConcurrentLinkedQueue<>();
+	private final ConcurrentHashMap<RequestKey, Job> pending = new ConcurrentHashMap<>();
+	private final ConcurrentLinkedQueue<SearchArena> arenas = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger workers = new AtomicInteger(0);
+	private final AtomicLong completed = new AtomicLong(0);
+	private final AtomicLong cacheHits = new AtomicLong(0);
+	private final AtomicLong joined = new AtomicLong(0);
+	// Per chunk stripe, the value of the change clock at the last block change
+	private final AtomicLong changeClock = new AtomicLong(0);
+	private final AtomicLongArray changeStamps = new AtomicLongArray(CHANGE_STRIPES);
+	private final ReentrantLock cacheLock = new ReentrantLock();
+	private final LinkedHashMap<RequestKey, CachedPath> cache = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<World, TLongObjectHashMap<Set<RequestKey>>> chunkIndex = new HashMap<>();
+	private final Runnable worker = new Runnable() {
+		@Override
+		public void run() {
+			drain();
+		}
+	};
+
+	/**
+	 * Creates a new pathfinding service.
+	 *
+	 * @param executor the executor which runs the searches
+	 * @param parallelism the maximum number of searches running at the same time
+	 * @param sliceIterations the number of nodes a search expands before giving the other searches a turn
+	 * @param maxCachedPaths the maximum number of cached paths
+	 * @param cacheTime the time a path is cached for, in ms
+	 */
+	public PathfindingService(Executor executor, int parallelism, int sliceIterations, int maxCachedPaths, long cacheTime) {
+		if (parallelism <= 0 || sliceIterations <= 0) {
+			throw new IllegalArgumentException("Parallelism and slice iterations must be positive");
+		}
+		this.executor = executor;
+		this.parallelism = parallelism;
+		this.sliceIterations = sliceIterations;
+		this.maxCachedPaths = maxCachedPaths;
+		this.cacheTime = cacheTime;
+	}
+
+	/**
+	 * Finds a path from the start to within two blocks of the goal, using a {@link SnapshotBlockSource} for the world.<br> Every call gets its own {@link Path}, with points offset from the given
+	 * start by whole blocks.
+	 *
+	 * @param pathfinder the pathfinder, which holds the examiners to use
+	 * @param world the world
+	 * @param start the start of the path
+	 * @param goal the goal of the path
+	 * @param maxIterations the maximum number of nodes to expand, or -1 for no limit
+	 * @return the future path, the future is set to null if no path was found
+	 */
+	public ListenableFuture<Path> find(BlockPathfinder pathfinder, World world, Vector3f start, Vector3f goal, int maxIterations) {
+		final RequestKey key = new RequestKey(pathfinder, world, start, goal, maxIterations);
+		final SettableFuture<Path> future = SettableFuture.create();
+		final CachedPath cached = getCached(key);
+		if (cached != null) {
+			cacheHits.incrementAndGet();
+			future.set(cached.path.copy(start.sub(cached.start)));
+			return future;
+		}
+		while (true) {
+			Job job = pending.get(key);
+			if (job == null) {
+				final Job created = new Job(key, start, goal);
+				job = pending.putIfAbsent(key, created);
+				if (job == null) {
+					created.addWaiter(future, start);
+					queue.add(created);
+					startWorker();
+					return future;
+				}
+			}
+			if (job.addWaiter(future, start)) {
+				joined.incrementAndGet();
+				return future;
+			}
+			// Every request for the search was cancelled, so it was dropped
+			pending.remove(key, job);
+		}
+	}
+
+	/**
+	 * Gets the number of searches which are queued or running
+	 *
+	 * @return the number of searches
+	 */
+	public int getPendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * Gets the number of searches completed by this service
+	 *
+	 * @return the number of searches
+	 */
+	public long getCompletedCount() {
+		return completed.get();
+	}
+
+	/**
+	 * Gets the number of requests answered from the cache
+	 *
+	 * @return the number of requests
+	 */
+	public long getCacheHitCount() {
+		return cacheHits.get();
+	}
+
+	/**
+	 * Gets the number of requests which joined an identical search already in progress
+	 *
+	 * @return the number of requests
+	 */
+	public long getJoinedCount() {
+		return joined.get();
+	}
+
+	/**
+	 * Gets the number of cached paths
+	 *
+	 * @return the number of paths
+	 */
+	public int getCachedCount() {
+		cacheLock.lock();
+		try {
+			return cache.size();
+		} finally {
+			cacheLock.unlock();
+		}
+	}
+
+	/**
+	 * Removes all the cached paths
+	 */
+	public void clearCache() {
+		cacheLock.lock();
+		try {
+			cache.clear();
+			chunkIndex.clear();
+		} finally {
+			cacheLock.unlock();
+		}
+	}
+
+	@EventHandler (order = Order.MONITOR)
+	public void onBlockChange(BlockChangeEvent event) {
+		final Block block = event.getBlock();
+		blockChanged(block.getWorld(), block.getX(), block.getY(), block.getZ());
+	}
+
+	/**
+	 * Invalidates the paths next to a block
+	 *
+	 * @param world the world of the block
+	 * @param x coordinate of the block
+	 * @param y coordinate of the block
+	 * @param z coordinate of the block
+	 */
+	public void blockChanged(World world, int x, int y, int z) {
+		final long chunkKey = Int21TripleHashed.key(x >> Chunk.BLOCKS.BITS, y >> Chunk.BLOCKS.BITS, z >> Chunk.BLOCKS.BITS);
+		changeStamps.set(getStripe(world, chunkKey), changeClock.incrementAndGet());
+		cacheLock.lock();
+		try {
+			final TLongObjectHashMap<Set<RequestKey>> worldIndex = chunkIndex.get(world);
+			if (worldIndex == null) {
+				return;
+			}
+			final Set<RequestKey> keys = worldIndex.get(chunkKey);
+			if (keys == null) {
+				return;
+			}
+			for (RequestKey key : new ArrayList<>(keys)) {
+				final CachedPath removed = cache.remove(key);
+				if (removed != null) {
+					unindex(key, removed);
+				}
+			}
+		} finally {
+			cacheLock.unlock();
+		}
+	}
+
+	private static int getStripe(World world, long chunkKey) {
+		final long hash = (chunkKey ^ world.hashCode()) * 0x9E3779B97F4A7C15L;
+		return (int) (hash >>> 52) & (CHANGE_STRIPES - 1);
+	}
+
+	private CachedPath getCached(RequestKey key) {
+		cacheLock.lock();
+		try {
+			final CachedPath cached = cache.get(key);
+			if (cached == null) {
+				return null;
+			}
+			if (cached.expiry < System.currentTimeMillis()) {
+				cache.remove(key);
+				unindex(key, cached);
+				return null;
+			}
+			return cached;
+		} finally {
+			cacheLock.unlock();
+		}
+	}
+
+	private void cache(Job job, Path path) {
+		if (maxCachedPaths <= 0) {
+			return;
+		}
+		final TLongHashSet chunks = new TLongHashSet();
+		for (Vector3f point : path.getPoints()) {
+			// The examiners may look at the blocks around the points
+			for (int x = point.getFloorX() - 1; x <= point.getFloorX() + 1; x += 2) {
+				for (int y = point.getFloorY() - 1; y <= point.getFloorY() + 1; y += 2) {
+					for (int z = point.getFloorZ() - 1; z <= point.getFloorZ() + 1; z += 2) {
+						chunks.add(Int21TripleHashed.key(x >> Chunk.BLOCKS.BITS, y >> Chunk.BLOCKS.BITS, z >> Chunk.BLOCKS.BITS));
+					}
+				}
+			}
+		}
+		final World world = job.key.world;
+		for (long chunkKey : chunks.toArray()) {
+			if (changeStamps.get(getStripe(world, chunkKey)) > job.clock) {
+				// A block changed while the path was searched
+				return;
+			}
+		}
+		final CachedPath cached = new CachedPath(path, job.start, chunks.toArray(), System.currentTimeMillis() + cacheTime);
+		cacheLock.lock();
+		try {
+			final CachedPath previous = cache.put(job.key, cached);
+			if (previous != null) {
+				unindex(job.key, previous);
+			}
+			TLongObjectHashMap<Set<RequestKey>> worldIndex = chunkIndex.get(world);
+			if (worldIndex == null) {
+				worldIndex = new TLongObjectHashMap<>();
+				chunkIndex.put(world, worldIndex);
+			}
+			for (long chunkKey : cached.chunks) {
+				Set<RequestKey> keys = worldIndex.get(chunkKey);
+				if (keys == null) {
+					keys = new HashSet<>();
+					worldIndex.put(chunkKey, keys);
+				}
+				keys.add(job.key);
+			}
+			if (cache.size() > maxCachedPaths) {
+				final Iterator<Map.Entry<RequestKey, CachedPath>> i = cache.entrySet().iterator();
+				final Map.Entry<RequestKey, CachedPath> eldest = i.next();
+				i.remove();
+				unindex(eldest.getKey(), eldest.getValue());
+			}
+		} finally {
+			cacheLock.unlock();
+		}
+	}
+
+	private void unindex(RequestKey key, CachedPath cached) {
+		final TLongObjectHashMap<Set<RequestKey>> worldIndex = chunkIndex.get(key.world);
+		if (worldIndex == null) {
+			return;
+		}
+		for (long chunkKey : cached.chunks) {
+			final Set<RequestKey> keys = worldIndex.get(chunkKey);
+			if (keys != null && keys.remove(key) && keys.isEmpty()) {
+				worldIndex.remove(chunkKey);
+			}
+		}
+		if (worldIndex.isEmpty()) {
+			chunkIndex.remove(key.world);
+		}
+	}
+
+	/**
+	 * Creates the block source a search reads the blocks of the world from
+	 *
+	 * @param world the world
+	 * @return the block source
+	 */
+	protected BlockSource createBlockSource(World world) {
+		return new SnapshotBlockSource(world);
+	}
+
+	private void startWorker() {
+		while (true) {
+			final int current = workers.get();
+			if (current >= parallelism || queue.isEmpty()) {
+				return;
+			}
+			if (workers.compareAndSet(current, current + 1)) {
+				try {
+					executor.execute(worker);
+				} catch (RejectedExecutionException e) {
+					// The queued searches are picked up by the next request
+					workers.decrementAndGet();
+				}
+				return;
+			}
+		}
+	}
+
+	private void drain() {
+		try {
+			Job job;
+			while ((job = queue.poll()) != null) {
+				try {
+					if (job.isCancelled()) {
+						pending.remove(job.key, job);
+						if (job.abandon()) {
+							releaseArena(job);
+							continue;
+						}
+						// A request joined before the search left the pending map, so the search goes on for it
+					}
+					if (job.search == null) {
+						SearchArena arena = arenas.poll();
+						if (arena == null) {
+							arena = new SearchArena();
+						}
+						job.search = job.key.pathfinder.startSearch(createBlockSource(job.key.world), job.start, job.goal, job.key.maxIterations, arena);
+					}
+					if (!job.search.run(sliceIterations)) {
+						queue.add(job);
+						continue;
+					}
+					releaseArena(job);
+					final Path path = job.search.getPath();
+					if (path != null) {
+						cache(job, path);
+					}
+					pending.remove(job.key, job);
+					completed.incrementAndGet();
+					job.complete(path, null);
+				} catch (RuntimeException | Error e) {
+					pending.remove(job.key, job);
+					job.complete(null, e);
+				}
+			}
+		} finally {
+			workers.decrementAndGet();
+			startWorker();
+		}
+	}
+
+	private void releaseArena(Job job) {
+		if (job.search != null) {
+			final SearchArena arena = job.search.release();
+			arena.reset();
+			arenas.add(arena);
+		}
+	}
+
+	private static class RequestKey {
+		private final BlockPathfinder pathfinder;
+		private final World world;
+		private final int startX, startY, startZ;
+		private final int goalX, goalY, goalZ;
+		private final int maxIterations;
+		private final int hash;
+
+		public RequestKey(BlockPathfinder pathfinder, World world, Vector3f start, Vector3f goal, int maxIterations) {
+			this.pathfinder = pathfinder;
+			this.world = world;
+			this.startX = start.getFloorX();
+			this.startY = start.getFloorY();
+			this.startZ = start.getFloorZ();
+			this.goalX = goal.getFloorX();
+			this.goalY = goal.getFloorY();
+			this.goalZ = goal.getFloorZ();
+			this.maxIterations = maxIterations;
+			int h = System.identityHashCode(pathfinder);
+			h = 31 * h + world.hashCode();
+			h = 31 * h + startX;
+			h = 31 * h + startY;
+			h = 31 * h + startZ;
+			h = 31 * h + goalX;
+			h = 31 * h + goalY;
+			h = 31 * h + goalZ;
+			this.hash = 31 * h + maxIterations;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof RequestKey)) {
+				return false;
+			}
+			final RequestKey other = (RequestKey) obj;
+			return pathfinder == other.pathfinder && world.equals(other.world) && startX == other.startX && startY == other.startY && startZ == other.startZ && goalX == other.goalX
+					&& goalY == other.goalY && goalZ == other.goalZ && maxIterations == other.maxIterations;
+		}
+	}
+
+	private static class CachedPath {
+		private final Path path;
+		private final Vector3f start;
+		private final long[] chunks;
+		private final long expiry;
+
+		public CachedPath(Path path, Vector3f start, long[] chunks, long expiry) {
+			this.path = path;
+			this.start = start;
+			this.chunks = chunks;
+			this.expiry = expiry;
+		}
+	}
+
+	private class Job {
+		private final RequestKey key;
+		private final Vector3f start;
+		private final Vector3f goal;
+		private final long clock;
+		private final List<SettableFuture<Path>> futures = new ArrayList<>(1);
+		private final List<Vector3f> starts = new ArrayList<>(1);
+		private BlockPathfinder.Search search;
+		private boolean done = false;
+		private boolean abandoned = false;
+		private Path path;
+		private Throwable failure;
+
+		public Job(RequestKey key, Vector3f start, Vector3f goal) {
+			this.key = key;
+			this.start = start;
+			this.goal = goal;
+			this.clock = changeClock.get();
+		}
+
+		/**
+		 * Adds a future to set when the search completes
+		 *
+		 * @return false if the search was abandoned, and the future was not added
+		 */
+		public synchronized boolean addWaiter(SettableFuture<Path> future, Vector3f start) {
+			if (abandoned) {
+				return false;
+			}
+			if (done) {
+				set(future, start);
+			} else {
+				futures.add(future);
+				starts.add(start);
+			}
+			return true;
+		}
+
+		/**
+		 * Checks if every future waiting for the search has been cancelled
+		 *
+		 * @return true if the search is no longer needed
+		 */
+		public synchronized boolean isCancelled() {
+			if (futures.isEmpty()) {
+				return false;
+			}
+			for (SettableFuture<Path> future : futures) {
+				if (!future.isCancelled()) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Abandons the search if every future waiting for it is still cancelled. No futures can be added to an abandoned search.
+		 *
+		 * @return true if the search was abandoned
+		 */
+		public synchronized boolean abandon() {
+			if (!isCancelled()) {
+				return false;
+			}
+			abandoned = true;
+			futures.clear();
+			starts.clear();
+			return true;
+		}
+
+		public synchronized void complete(Path path, Throwable failure) {
+			this.done = true;
+			this.path = path;
+			this.failure = failure;
+			for (int i = 0; i < futures.size(); i++) {
+				set(futures.get(i), starts.get(i));
+			}
+			futures.clear();
+			starts.clear();
+		}
+
+		private void set(SettableFuture<Path> future, Vector3f start) {
+			if (failure != null) {
+				future.setException(failure);
+			} else if (path == null) {
+				future.set(null);
+			} else {
+				future.set(path.copy(start.sub(this.start)));
+			}
+		}
+	}
+}
@@ -0,0 +1,263 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.ai.pathfinder;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.spout.api.ai.pathfinder.PathPoint.PathCallback;
+import org.spout.api.util.hashing.Int21TripleHashed;
+
+/**
+ * The reusable storage of a {@link BlockPathfinder} search.<br> Nodes are identified by an index into parallel primitive arrays, and looked up by their packed block offset from the start of the
+ * search. The open set is an indexed binary heap ordered by the estimated total cost, which supports decreasing the cost of a queued node in place.
+ */
+final class SearchArena {
+	static final byte OPEN = 1;
+	static final byte CLOSED = 2;
+	static final byte BLOCKED = 3;
+	private static final int INITIAL_NODES = 256;
+	private static final int MAX_RETAINED_NODES = 1 << 16;
+	// Node storage
+	int count;
+	int[] xs;
+	int[] ys;
+	int[] zs;
+	float[] g;
+	float[] h;
+	float[] f;
+	int[] parents;
+	byte[] states;
+	List<PathCallback>[] callbacks;
+	private long[] keys;
+	private int[] heapIndex;
+	// Open addressing table from packed offset to node index, entries are only valid if their stamp matches
+	private long[] tableKeys;
+	private int[] tableValues;
+	private int[] tableStamps;
+	private int stamp;
+	private int mask;
+	// Open set
+	private int[] heap;
+	private int heapSize;
+	boolean inUse;
+
+	SearchArena() {
+		allocate(INITIAL_NODES);
+	}
+
+	@SuppressWarnings ("unchecked")
+	private void allocate(int nodes) {
+		xs = new int[nodes];
+		ys = new int[nodes];
+		zs = new int[nodes];
+		g = new float[nodes];
+		h = new float[nodes];
+		f = new float[nodes];
+		parents = new int[nodes];
+		states = new byte[nodes];
+		callbacks = new List[nodes];
+		keys = new long[nodes];
+		heapIndex = new int[nodes];
+		heap = new int[nodes];
+		tableKeys = new long[nodes << 1];
+		tableValues = new int[nodes << 1];
+		tableStamps = new int[nodes << 1];
+		mask = (nodes << 1) - 1;
+		stamp = 1;
+		count = 0;
+		heapSize = 0;
+	}
+
+	/**
+	 * Clears all the nodes, keeping the allocated storage unless it grew above the retained limit
+	 */
+	void reset() {
+		if (xs.length > MAX_RETAINED_NODES) {
+			allocate(INITIAL_NODES);
+			return;
+		}
+		Arrays.fill(callbacks, 0, count, null);
+		count = 0;
+		heapSize = 0;
+		if (++stamp == 0) {
+			Arrays.fill(tableStamps, 0);
+			stamp = 1;
+		}
+	}
+
+	/**
+	 * Gets the node at the given offset from the start
+	 *
+	 * @return the node index, or -1 if there is no node at that offset
+	 */
+	int find(int x, int y, int z) {
+		final long key = Int21TripleHashed.key(x, y, z);
+		int slot = slot(key);
+		while (tableStamps[slot] == stamp) {
+			if (tableKeys[slot] == key) {
+				return tableValues[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Creates a new node at the given offset from the start. The node must not already exist.
+	 *
+	 * @return the node index
+	 */
+	int create(int x, int y, int z) {
+		if (count == xs.length) {
+			grow();
+		}
+		final int node = count++;
+		final long key = Int21TripleHashed.key(x, y, z);
+		xs[node] = x;
+		ys[node] = y;
+		zs[node] = z;
+		g[node] = Float.POSITIVE_INFINITY;
+		parents[node] = -1;
+		states[node] = 0;
+		keys[node] = key;
+		insert(key, node);
+		return node;
+	}
+
+	private int slot(long key) {
+		key *= 0x9E3779B97F4A7C15L;
+		return (int) (key ^ (key >>> 32)) & mask;
+	}
+
+	private void insert(long key, int node) {
+		int slot = slot(key);
+		while (tableStamps[slot] == stamp) {
+			slot = (slot + 1) & mask;
+		}
+		tableStamps[slot] = stamp;
+		tableKeys[slot] = key;
+		tableValues[slot] = node;
+	}
+
+	private void grow() {
+		final int nodes = xs.length << 1;
+		xs = Arrays.copyOf(xs, nodes);
+		ys = Arrays.copyOf(ys, nodes);
+		zs = Arrays.copyOf(zs, nodes);
+		g = Arrays.copyOf(g, nodes);
+		h = Arrays.copyOf(h, nodes);
+		f = Arrays.copyOf(f, nodes);
+		parents = Arrays.copyOf(parents, nodes);
+		states = Arrays.copyOf(states, nodes);
+		callbacks = Arrays.copyOf(callbacks, nodes);
+		keys = Arrays.copyOf(keys, nodes);
+		heapIndex = Arrays.copyOf(heapIndex, nodes);
+		heap = Arrays.copyOf(heap, nodes);
+		tableKeys = new long[nodes << 1];
+		tableValues = new int[nodes << 1];
+		tableStamps = new int[nodes << 1];
+		mask = (nodes << 1) - 1;
+		stamp = 1;
+		for (int i = 0; i < count; i++) {
+			insert(keys[i], i);
+		}
+	}
+
+	/**
+	 * Adds a node to the open set, or moves it up if its cost was decreased while it was already open
+	 *
+	 * @param node the node
+	 */
+	void open(int node) {
+		if (states[node] != OPEN) {
+			states[node] = OPEN;
+			heapIndex[node] = heapSize;
+			heap[heapSize++] = node;
+		}
+		siftUp(heapIndex[node]);
+	}
+
+	/**
+	 * Removes the node with the lowest estimated total cost from the open set
+	 *
+	 * @return the node index, or -1 if the open set is empty
+	 */
+	int poll() {
+		if (heapSize == 0) {
+			return -1;
+		}
+		final int first = heap[0];
+		final int last = heap[--heapSize];
+		if (heapSize > 0) {
+			heap[0] = last;
+			heapIndex[last] = 0;
+			siftDown(0);
+		}
+		states[first] = CLOSED;
+		return first;
+	}
+
+	private void siftUp(int i) {
+		final int node = heap[i];
+		final float cost = f[node];
+		while (i > 0) {
+			final int parent = (i - 1) >>> 1;
+			final int parentNode = heap[parent];
+			if (f[parentNode] <= cost) {
+				break;
+			}
+			heap[i] = parentNode;
+			heapIndex[parentNode] = i;
+			i = parent;
+		}
+		heap[i] = node;
+		heapIndex[node] = i;
+	}
+
+	private void siftDown(int i) {
+		final int node = heap[i];
+		final float cost = f[node];
+		final int half = heapSize >>> 1;
+		while (i < half) {
+			int child = (i << 1) + 1;
+			final int right = child + 1;
+			if (right < heapSize && f[heap[right]] < f[heap[child]]) {
+				child = right;
+			}
+			final int childNode = heap[child];
+			if (cost <= f[childNode]) {
+				break;
+			}
+			heap[i] = childNode;
+			heapIndex[childNode] = i;
+			i = child;
+		}
+		heap[i] = node;
+		heapIndex[node] = i;
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.ai.pathfinder;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+import org.spout.api.geo.LoadOption;
+import org.spout.api.geo.World;
+import org.spout.api.geo.cuboid.Chunk;
+import org.spout.api.geo.cuboid.ChunkSnapshot;
+import org.spout.api.geo.cuboid.ChunkSnapshot.EntityType;
+import org.spout.api.geo.cuboid.ChunkSnapshot.ExtraData;
+import org.spout.api.geo.cuboid.ChunkSnapshot.SnapshotType;
+import org.spout.api.geo.discrete.Point;
+import org.spout.api.material.BlockMaterial;
+import org.spout.api.material.Material;
+import org.spout.api.util.hashing.Int21TripleHashed;
+import org.spout.math.vector.Vector3f;
+
+/**
+ * A block source which reads the block ids from snapshots of the chunks, taken the first time a chunk is accessed.<br> Chunks which are not loaded are not loaded by this source, their blocks are
+ * reported as {@link BlockMaterial#UNGENERATED}.<br> This class is not thread safe, a new source should be used for each search.
+ */
+public class SnapshotBlockSource extends AbstractBlockSource {
+	private static final short[] MISSING = new short[0];
+	private final World world;
+	private final TLongObjectHashMap<short[]> chunks = new TLongObjectHashMap<>();
+	private long lastKey;
+	private short[] lastIds;
+
+	public SnapshotBlockSource(Point root) {
+		this(root.getWorld());
+	}
+
+	public SnapshotBlockSource(World world) {
+		this.world = world;
+	}
+
+	@Override
+	public int getBlockTypeIdAt(int x, int y, int z) {
+		final short[] ids = getBlockIds(x >> Chunk.BLOCKS.BITS, y >> Chunk.BLOCKS.BITS, z >> Chunk.BLOCKS.BITS);
+		if (ids == MISSING) {
+			return BlockMaterial.UNGENERATED.getId();
+		}
+		return ids[(y & Chunk.BLOCKS.MASK) << Chunk.BLOCKS.DOUBLE_BITS | (z & Chunk.BLOCKS.MASK) << Chunk.BLOCKS.BITS | x & Chunk.BLOCKS.MASK];
+	}
+
+	@Override
+	public int getBlockTypeIdAt(Vector3f pos) {
+		return getBlockTypeIdAt(pos.getFloorX(), pos.getFloorY(), pos.getFloorZ());
+	}
+
+	@Override
+	public Material getMaterialAt(Vector3f pos) {
+		return getMaterialAt(pos.getFloorX(), pos.getFloorY(), pos.getFloorZ());
+	}
+
+	/**
+	 * Gets the number of chunks read by this source
+	 *
+	 * @return the number of chunks
+	 */
+	public int getChunkCount() {
+		return chunks.size();
+	}
+
+	private short[] getBlockIds(int cx, int cy, int cz) {
+		final long key = Int21TripleHashed.key(cx, cy, cz);
+		if (lastIds != null && key == lastKey) {
+			return lastIds;
+		}
+		short[] ids = chunks.get(key);
+		if (ids == null) {
+			ids = MISSING;
+			final Chunk chunk = world.getChunk(cx, cy, cz, LoadOption.NO_LOAD);
+			if (chunk != null) {
+				final ChunkSnapshot snapshot = chunk.getSnapshot(SnapshotType.BLOCK_IDS_ONLY, EntityType.NO_ENTITIES, ExtraData.NO_EXTRA_DATA);
+				final short[] snapshotIds = snapshot.getBlockIds();
+				if (snapshotIds != null) {
+					ids = snapshotIds;
+				}
+			}
+			chunks.put(key, ids);
+		}
+		lastKey = key;
+		lastIds = ids;
+		return ids;
+	}
+}
@@ -26,30 +26,37 @@
  */
 package org.spout.api.ai.pathfinder;
 
-import org.spout.api.geo.World;
+import org.spout.api.geo.cuboid.BlockCursor;
 import org.spout.api.geo.discrete.Point;
 import org.spout.api.material.Material;
+import org.spout.api.material.block.BlockFullState;
 import org.spout.math.vector.Vector3f;
 
 public class SpoutBlockSource extends AbstractBlockSource {
-	private final World world;
+	// Path searches query neighbouring blocks, so the cursor rarely needs to look up a new chunk. This makes the source unsafe to share between threads.
+	private final BlockCursor cursor;
 
 	public SpoutBlockSource(Point root) {
-		this.world = root.getWorld();
+		this.cursor = new BlockCursor(root.getWorld());
 	}
 
 	@Override
 	public int getBlockTypeIdAt(int x, int y, int z) {
-		return world.getBlockMaterial(x, y, z).getId();
+		return BlockFullState.getId(cursor.move(x, y, z).getFullState());
 	}
 
 	@Override
 	public int getBlockTypeIdAt(Vector3f pos) {
-		return getMaterialAt(pos).getId();
+		return getBlockTypeIdAt(pos.getFloorX(), pos.getFloorY(), pos.getFloorZ());
+	}
+
+	@Override
+	public Material getMaterialAt(int x, int y, int z) {
+		return cursor.move(x, y, z).getMaterial();
 	}
 
 	@Override
 	public Material getMaterialAt(Vector3f pos) {
-		return world.getBlockMaterial(pos.getFloorX(), pos.getFloorY(), pos.getFloorZ());
+		return getMaterialAt(pos.getFloorX(), pos.getFloorY(), pos.getFloorZ());
 	}
 }
@@ -50,6 +50,7 @@ public final class Command implements Named {
 	private final String name;
 	private final List<String> aliases = new ArrayList<>();
 	private final Set<Command> children = new HashSet<>();
+	private final CommandAliasIndex childIndex = new CommandAliasIndex(children);
 	private String help, usage, permission;
 	private Executor executor;
 	private List<CommandFlags.Flag> flags = new ArrayList<>();
@@ -171,17 +172,14 @@ public final class Command implements Named {
 	 * @return new child or existing child
 	 */
 	public Command getChild(String name, boolean createIfAbsent) {
-		for (Command child : children) {
-			for (String alias : child.getAliases()) {
-				if (alias.equalsIgnoreCase(name)) {
-					return child;
-				}
-			}
+		Command command = childIndex.get(name);
+		if (command != null) {
+			return command;
 		}
 
-		Command command = null;
 		if (createIfAbsent) {
 			children.add(command = new Command(name));
+			CommandAliasIndex.invalidate();
 		}
 
 		return command;
@@ -214,6 +212,7 @@ public final class Command implements Named {
 	 */
 	public Command addAlias(String... alias) {
 		aliases.addAll(Arrays.asList(alias));
+		CommandAliasIndex.invalidate();
 		return this;
 	}
 
@@ -225,6 +224,7 @@ public final class Command implements Named {
 	 */
 	public Command removeAlias(String... alias) {
 		aliases.removeAll(Arrays.asList(alias));
+		CommandAliasIndex.invalidate();
 		return this;
 	}
 
@@ -0,0 +1,110 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.command;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A case insensitive lookup of {@link Command}s by alias.<br> <br> The lookup is rebuilt lazily after any command is registered or has its aliases changed, so dispatching a command does not need to
+ * scan every registered command.
+ */
+final class CommandAliasIndex {
+	/**
+	 * Incremented whenever a command is registered or its aliases change
+	 */
+	private static final AtomicInteger modifications = new AtomicInteger(0);
+	private final Collection<Command> commands;
+	private volatile Snapshot snapshot = null;
+
+	CommandAliasIndex(Collection<Command> commands) {
+		this.commands = commands;
+	}
+
+	/**
+	 * Marks all alias indexes as out of date
+	 */
+	static void invalidate() {
+		modifications.incrementAndGet();
+	}
+
+	/**
+	 * Gets the command with the given alias, ignoring case
+	 *
+	 * @param alias the alias
+	 * @return the command, or null if no command has the alias
+	 */
+	Command get(String alias) {
+		int version = modifications.get();
+		Snapshot s = snapshot;
+		if (s == null || s.version != version) {
+			s = new Snapshot(version, commands);
+			snapshot = s;
+		}
+		return s.aliases.get(fold(alias));
+	}
+
+	/**
+	 * Folds the case of an alias so that two aliases have the same key if and only if {@link String#equalsIgnoreCase(String)} is true for them
+	 *
+	 * @param alias the alias
+	 * @return the key for the alias
+	 */
+	private static String fold(String alias) {
+		int length = alias.length();
+		for (int i = 0; i < length; i++) {
+			char c = alias.charAt(i);
+			if (Character.toLowerCase(Character.toUpperCase(c)) != c) {
+				char[] folded = alias.toCharArray();
+				for (int j = i; j < length; j++) {
+					folded[j] = Character.toLowerCase(Character.toUpperCase(folded[j]));
+				}
+				return new String(folded);
+			}
+		}
+		return alias;
+	}
+
+	private static class Snapshot {
+		private final int version;
+		private final Map<String, Command> aliases = new HashMap<>();
+
+		private Snapshot(int version, Collection<Command> commands) {
+			this.version = version;
+			for (Command command : commands) {
+				for (String alias : command.getAliases()) {
+					String key = fold(alias);
+					if (!aliases.containsKey(key)) {
+						aliases.put(key, command);
+					}
+				}
+			}
+		}
+	}
+}
@@ -211,6 +211,10 @@ public class CommandArguments {
 
 		// Quoted argument parsing -- comparts and removes unnecessary arguments
 		String current = args.get(index);
+		if (!isQuoteStart(current)) { // Plain arguments need no further handling
+			return current;
+		}
+
 		Matcher start = QUOTE_START_REGEX.matcher(current);
 		if (start.find()) { // We've found a quoted string
 			boolean foundEnd = false;
@@ -243,21 +247,19 @@ public class CommandArguments {
 				throw failure(argName, "Unmatched quoted string!", false, quoteChar);
 			}
 			args.set(index, (current = quotedBuilder.toString()));
-		} else {
-			Matcher escape = QUOTE_ESCAPE_REGEX.matcher(current);
-			if (escape.find()) {
-				StringBuffer replace = new StringBuffer(current.length() - 1);
-				escape.appendReplacement(replace, escape.group(1));
-				while (escape.find()) {
-					escape.appendReplacement(replace, escape.group(1));
-				}
-				escape.appendTail(replace);
-			}
 		}
 
 		return current;
 	}
 
+	private static boolean isQuoteStart(String arg) {
+		if (arg.isEmpty()) {
+			return false;
+		}
+		char c = arg.charAt(0);
+		return c == '\'' || c == '"';
+	}
+
 	boolean setArgOverride(String name, String value) {
 		if (!this.argOverrides.containsKey(name)) {
 			this.argOverrides.put(name, value);
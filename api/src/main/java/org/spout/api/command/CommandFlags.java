@@ -26,8 +26,6 @@
  */
 package org.spout.api.command;
 
-import java.text.NumberFormat;
-import java.text.ParseException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -129,17 +127,19 @@ public class CommandFlags {
 	 */
 	protected boolean tryExtractFlags(Iterator<String> it) throws ArgumentParseException {
 		String arg = it.next();
+		if (arg.length() < 2 || arg.charAt(0) != '-') { // Most arguments are not flags
+			return false;
+		}
+
 		Matcher match = FLAG_REGEX.matcher(arg);
 		if (!match.matches()) {
 			return false;
 		}
 
 		String rawFlag = match.group("key");
-		try {
-			NumberFormat.getInstance().parse(rawFlag);
+		if (isNumber(rawFlag)) {
 			// If it's a number, it's not a flag
 			return false;
-		} catch (ParseException ex) {
 		}
 
 		it.remove();
@@ -193,6 +193,21 @@ public class CommandFlags {
 		}
 	}
 
+	/**
+	 * Gets if the key of a flag starts with a number, such as the key {@code 5} of the negative number {@code -5}
+	 *
+	 * @param rawFlag the flag key
+	 * @return true if the key is a number
+	 */
+	private static boolean isNumber(String rawFlag) {
+		int i = rawFlag.startsWith("-") ? 1 : 0;
+		if (i >= rawFlag.length()) {
+			return false;
+		}
+		char c = rawFlag.charAt(i);
+		return c >= '0' && c <= '9';
+	}
+
 	public boolean hasFlag(String flag) {
 		Flag f = flags.get(flag);
 		if (f == null) {
@@ -35,6 +35,7 @@ import java.util.Set;
  */
 public final class CommandManager {
 	private final Set<Command> commands = new HashSet<>();
+	private final CommandAliasIndex index = new CommandAliasIndex(commands);
 
 	/**
 	 * Returns a set of all commands.
@@ -53,17 +54,14 @@ public final class CommandManager {
 	 * @return command with specified name
 	 */
 	public Command getCommand(String cmd, boolean createIfAbsent) {
-		for (Command c : commands) {
-			for (String alias : c.getAliases()) {
-				if (cmd.equalsIgnoreCase(alias)) {
-					return c;
-				}
-			}
+		Command command = index.get(cmd);
+		if (command != null) {
+			return command;
 		}
 
-		Command command = null;
 		if (createIfAbsent) {
 			commands.add(command = new Command(cmd));
+			CommandAliasIndex.invalidate();
 		}
 
 		return command;
@@ -26,8 +26,12 @@
  */
 package org.spout.api.command.annotated;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 import org.spout.api.command.Command;
@@ -41,35 +45,46 @@ import org.spout.api.exception.WrappedCommandException;
  * Allows for method-registration of commands.
  */
 public final class AnnotatedCommandExecutor implements Executor {
-	private final Object instance;
-	private final Map<Command, Method> cmdMap;
+	private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, CommandSource.class, CommandArguments.class);
+	/**
+	 * Invokers for each command, resolved when the executor is created.  Each invoker is bound to the instance and takes the source and arguments in that order.
+	 */
+	private final Map<Command, MethodHandle> invokers = new IdentityHashMap<>();
 
 	protected AnnotatedCommandExecutor(Object instance, Map<Command, Method> cmdMap) {
-		this.instance = instance;
-		this.cmdMap = cmdMap;
+		for (Map.Entry<Command, Method> e : cmdMap.entrySet()) {
+			invokers.put(e.getKey(), createInvoker(instance, e.getValue()));
+		}
+	}
+
+	private static MethodHandle createInvoker(Object instance, Method method) {
+		method.setAccessible(true);
+		MethodHandle handle;
+		try {
+			handle = MethodHandles.lookup().unreflect(method);
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException("Unable to access command method " + method.getName(), e);
+		}
+		if (!Modifier.isStatic(method.getModifiers())) {
+			handle = handle.bindTo(instance);
+		}
+		//Support backwards arguments
+		if (!CommandSource.class.isAssignableFrom(method.getParameterTypes()[0])) {
+			handle = MethodHandles.permuteArguments(handle, MethodType.methodType(handle.type().returnType(), handle.type().parameterType(1), handle.type().parameterType(0)), 1, 0);
+		}
+		return handle.asType(INVOKER_TYPE);
 	}
 
 	@Override
 	public void execute(CommandSource source, Command command, CommandArguments args) throws CommandException {
-		Method method = cmdMap.get(command);
-		if (method != null) {
-			method.setAccessible(true);
+		MethodHandle invoker = invokers.get(command);
+		if (invoker != null) {
 			try {
-				//Support backwards arguments
-				if (CommandSource.class.isAssignableFrom(method.getParameterTypes()[0])) {
-					method.invoke(instance, source, args);
-				} else {
-					method.invoke(instance, args, source);
-				}
-			} catch (InvocationTargetException e) {
-				Throwable cause = e.getCause();
-				if (cause instanceof CommandException) {
-					throw (CommandException) cause;
-				}
-
-				throw new WrappedCommandException(e);
-			} catch (Exception e) {
-				throw new WrappedCommandException(e);
+				invoker.invokeExact(source, args);
+			} catch (CommandException e) {
+				throw e;
+			} catch (Throwable t) {
+				throw new WrappedCommandException(t);
 			}
 		}
 	}
@@ -27,14 +27,17 @@
 package org.spout.api.component.entity;
 
 import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.locks.Lock;
+import java.util.logging.Level;
 
-import org.spout.api.ai.AStarMachine;
+import org.spout.api.Spout;
 import org.spout.api.ai.pathfinder.BlockExaminer;
+import org.spout.api.ai.pathfinder.BlockPathfinder;
 import org.spout.api.ai.pathfinder.Path;
-import org.spout.api.ai.pathfinder.SpoutBlockSource;
-import org.spout.api.ai.pathfinder.VectorGoal;
-import org.spout.api.ai.pathfinder.VectorNode;
+import org.spout.api.ai.pathfinder.PathfindingService;
+import org.spout.api.ai.pathfinder.SnapshotBlockSource;
 import org.spout.api.entity.Entity;
 import org.spout.api.geo.discrete.Point;
 import org.spout.api.geo.discrete.Transform;
@@ -42,41 +45,86 @@ import org.spout.math.vector.Vector3f;
 import org.spout.api.util.concurrent.SpinLock;
 
 public class NavigationComponent extends EntityComponent {
-	private final AStarMachine<VectorNode, Path> astar = AStarMachine.createWithDefaultStorage();
 	private final Lock lock = new SpinLock();
 	private Path plan;
+	private Future<Path> pendingPlan;
 	private Vector3f vector;
-	private BlockExaminer[] defaultExaminers;
+	private BlockPathfinder pathfinder = new BlockPathfinder();
 
 	public void setDefaultExaminers(BlockExaminer... blockExaminers) {
-		this.defaultExaminers = Arrays.copyOf(blockExaminers, blockExaminers.length);
+		this.pathfinder = new BlockPathfinder(Arrays.copyOf(blockExaminers, blockExaminers.length));
 	}
 
+	/**
+	 * Sets the destination of the entity. If the engine has a {@link PathfindingService}, the path is computed asynchronously and the entity starts moving once it is found.
+	 *
+	 * @param dest the destination
+	 */
 	public void setDestination(Point dest) {
 		lock.lock();
 		try {
 			Point current = getOwner().getPhysics().getPosition();
-			plan = astar.runFully(new VectorGoal(dest), new VectorNode(current, new SpoutBlockSource(current),
-					defaultExaminers), 10000);
-			if (plan == null || plan.isComplete()) {
-				// failed TODO: add an event
+			cancelPendingPlan();
+			PathfindingService service = Spout.getEngine().getPathfindingService();
+			if (service != null) {
 				plan = null;
+				pendingPlan = service.find(pathfinder, current.getWorld(), current, dest, 10000);
 			} else {
-				vector = plan.getCurrentVector();
+				setPlan(pathfinder.find(new SnapshotBlockSource(current), current, dest, 10000));
 			}
 		} finally {
 			lock.unlock();
 		}
 	}
 
+	private void setPlan(Path newPlan) {
+		if (newPlan == null || newPlan.isComplete()) {
+			// failed TODO: add an event
+			plan = null;
+		} else {
+			plan = newPlan;
+			vector = plan.getCurrentVector();
+		}
+	}
+
+	private void cancelPendingPlan() {
+		if (pendingPlan != null) {
+			pendingPlan.cancel(false);
+			pendingPlan = null;
+		}
+	}
+
+	private void updatePendingPlan() {
+		if (pendingPlan == null || !pendingPlan.isDone()) {
+			return;
+		}
+		Path newPlan = null;
+		try {
+			newPlan = pendingPlan.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			Spout.getLogger().log(Level.WARNING, "Unable to compute a path", e.getCause());
+		}
+		pendingPlan = null;
+		setPlan(newPlan);
+	}
+
 	public void stop() {
-		plan = null;
+		lock.lock();
+		try {
+			cancelPendingPlan();
+			plan = null;
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	@Override
 	public void onTick(float dt) {
 		lock.lock();
 		try {
+			updatePendingPlan();
 			if (plan == null || plan.isComplete()) {
 				plan = null;
 				return;
@@ -105,7 +153,7 @@ public class NavigationComponent extends EntityComponent {
 	public boolean isNavigating() {
 		lock.lock();
 		try {
-			return plan != null;
+			return plan != null || pendingPlan != null;
 		} finally {
 			lock.unlock();
 		}
@@ -52,6 +52,7 @@ public class DeltaMap extends SerializableHashMap {
 	// If we have a parent, we aren't going to serialize it
 	protected transient final DeltaMap parent;
 	protected transient List<WeakReference<DeltaMap>> children = new ArrayList<>();
+	private transient volatile Runnable listener;
 
 	public DeltaMap(DeltaType type) {
 		this.type = type;
@@ -127,7 +128,9 @@ public class DeltaMap extends SerializableHashMap {
 		if (value == null) {
 			value = NILTYPE;
 		}
-		return map.putIfAbsent(key, value);
+		Serializable old = map.putIfAbsent(key, value);
+		notifyListener();
+		return old;
 	}
 
 	@Override
@@ -136,7 +139,9 @@ public class DeltaMap extends SerializableHashMap {
 		if (value == null) {
 			value = NILTYPE;
 		}
-		return map.put(key, value);
+		Serializable old = map.put(key, value);
+		notifyListener();
+		return old;
 	}
 
 	@Override
@@ -144,6 +149,7 @@ public class DeltaMap extends SerializableHashMap {
 		updateParent();
 		setType(DeltaMap.DeltaType.REPLACE);
 		map.clear();
+		notifyListener();
 	}
 
 	@Override
@@ -153,6 +159,23 @@ public class DeltaMap extends SerializableHashMap {
 			setType(DeltaType.REPLACE);
 		}
 		super.deserialize(data, wipe);
+		notifyListener();
+	}
+
+	/**
+	 * Sets the listener which is notified after every modification of this map, or of any of its children. The listener is only notified for root maps, and is not serialized.
+	 *
+	 * @param listener the listener, or null to remove it
+	 */
+	public void setModificationListener(Runnable listener) {
+		this.listener = listener;
+	}
+
+	private void notifyListener() {
+		Runnable listener = this.listener;
+		if (listener != null && parent == null) {
+			listener.run();
+		}
 	}
 
 	private void updateParent() {
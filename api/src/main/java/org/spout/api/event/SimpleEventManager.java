@@ -42,12 +42,24 @@ import java.util.logging.Logger;
 import org.spout.api.Spout;
 import org.spout.api.exception.EventException;
 import org.spout.api.exception.IllegalPluginAccessException;
+import org.spout.api.util.profiler.ProfilerSection;
+import org.spout.api.util.profiler.TickProfiler;
 
 /**
  * A simple implementation of the {@link EventManager} that handles all {@link Event}s for the engine.
  */
 public class SimpleEventManager implements EventManager {
 	private static final Logger LOGGER = Logger.getLogger(SimpleEventManager.class.getCanonicalName());
+	private volatile ProfilerSection profilerSection = null;
+
+	/**
+	 * Sets the profiler which records the time spent in each handler, grouped by event and owner
+	 *
+	 * @param profiler the profiler, or null to disable profiling
+	 */
+	public void setProfiler(TickProfiler profiler) {
+		profilerSection = profiler == null ? null : profiler.getSection("Events");
+	}
 
 	@Override
 	public <T extends Event> void callDelayedEvent(final T event) {
@@ -65,10 +77,21 @@ public class SimpleEventManager implements EventManager {
 		ListenerRegistration[] listeners = handlers.getRegisteredListeners();
 
 		if (listeners != null) {
+			final ProfilerSection eventSection = profilerSection == null ? null : profilerSection.getChild(event.getClass().getName());
 			for (ListenerRegistration listener : listeners) {
 				try {
 					if (!event.isCancelled() || listener.getOrder().ignoresCancelled()) {
-						listener.getExecutor().execute(event);
+						if (eventSection == null) {
+							listener.getExecutor().execute(event);
+						} else {
+							final long start = System.nanoTime();
+							try {
+								listener.getExecutor().execute(event);
+							} finally {
+								// Keyed by name, so the profiler does not keep disabled plugins alive
+								eventSection.getChild(listener.getOwner() == null ? "Engine" : ProfilerSection.nameOf(listener.getOwner())).add(System.nanoTime() - start);
+							}
+						}
 					}
 				} catch (Throwable ex) {
 					LOGGER.log(Level.SEVERE, "Could not pass event " + event.getEventName() + " to " + listener.getOwner().getClass().getName(), ex);
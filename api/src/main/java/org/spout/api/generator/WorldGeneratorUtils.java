@@ -339,4 +339,160 @@ public class WorldGeneratorUtils {
 		}
 		return noiseArray;
 	}
+
+	/**
+	 * Fills a flat 1D noise map using reduced sampling and linear interpolation. This is the allocation free version of {@link #fastNoise(Module, int, int, int, int, int)}.
+	 *
+	 * The noise map must have a length of at least xSize + 1, the value for x + xx is stored at index xx.
+	 *
+	 * @param noiseGenerator The noise generator module
+	 * @param noise The noise map to fill
+	 * @param xSize The size of the 1D map
+	 * @param samplingRate The sampling rate to use. xSize % samplingRate must return 0.
+	 * @param x The x coord
+	 * @param y The y coord
+	 * @param z The z coord
+	 * @throws IllegalArgumentException if the noise generator is null, the sampling rate is zero, xSize % samplingRate doesn't return 0 or the noise map is too small
+	 */
+	public static void fastNoise(Module noiseGenerator, double[] noise, int xSize, int samplingRate, int x, int y, int z) {
+		checkNoiseArguments(noiseGenerator, noise, xSize + 1, samplingRate);
+		if (xSize % samplingRate != 0) {
+			throw new IllegalArgumentException("xSize % samplingRate must return 0");
+		}
+		for (int xx = 0; xx <= xSize; xx += samplingRate) {
+			noise[xx] = noiseGenerator.GetValue(xx + x, y, z);
+		}
+		if (samplingRate > 1) {
+			lerpRun(noise, 0, 1, xSize, samplingRate);
+		}
+	}
+
+	/**
+	 * Fills a flat 2D noise map using reduced sampling and bilinear interpolation. This is the allocation free version of {@link #fastNoise(Module, int, int, int, int, int, int)}.
+	 *
+	 * The noise map must have a length of at least (xSize + 1) * (zSize + 1), the value for (x + xx, z + zz) is stored at index zz * (xSize + 1) + xx.
+	 *
+	 * @param noiseGenerator The noise generator module
+	 * @param noise The noise map to fill
+	 * @param xSize The x size of the 2D map
+	 * @param zSize The z size of the 2D map
+	 * @param samplingRate The sampling rate to use. xSize % samplingRate and zSize % samplingRate must return 0.
+	 * @param x The x coord
+	 * @param y The y coord
+	 * @param z The z coord
+	 * @throws IllegalArgumentException if the noise generator is null, the sampling rate is zero, xSize % samplingRate or zSize % samplingRate doesn't return 0 or the noise map is too small
+	 */
+	public static void fastNoise(Module noiseGenerator, double[] noise, int xSize, int zSize, int samplingRate, int x, int y, int z) {
+		final int xLength = xSize + 1;
+		checkNoiseArguments(noiseGenerator, noise, xLength * (zSize + 1), samplingRate);
+		if (xSize % samplingRate != 0) {
+			throw new IllegalArgumentException("xSize % samplingRate must return 0");
+		}
+		if (zSize % samplingRate != 0) {
+			throw new IllegalArgumentException("zSize % samplingRate must return 0");
+		}
+		for (int zz = 0; zz <= zSize; zz += samplingRate) {
+			final int row = zz * xLength;
+			for (int xx = 0; xx <= xSize; xx += samplingRate) {
+				noise[row + xx] = noiseGenerator.GetValue(xx + x, y, z + zz);
+			}
+		}
+		if (samplingRate == 1) {
+			return;
+		}
+		// Interpolation is separable: first along x on the sampled rows, then along z for every column
+		for (int zz = 0; zz <= zSize; zz += samplingRate) {
+			lerpRun(noise, zz * xLength, 1, xSize, samplingRate);
+		}
+		for (int xx = 0; xx <= xSize; xx++) {
+			lerpRun(noise, xx, xLength, zSize, samplingRate);
+		}
+	}
+
+	/**
+	 * Fills a flat 3D noise map using reduced sampling and trilinear interpolation. This is the allocation free version of {@link #fastNoise(Module, int, int, int, int, int, int, int)}.
+	 *
+	 * The noise map must have a length of at least (xSize + 1) * (ySize + 1) * (zSize + 1). The values are stored in the same order as a {@link org.spout.api.util.cuboid.CuboidBuffer}, the value for
+	 * (x + xx, y + yy, z + zz) is stored at index (yy * (zSize + 1) + zz) * (xSize + 1) + xx.
+	 *
+	 * @param noiseGenerator The noise generator module
+	 * @param noise The noise map to fill
+	 * @param xSize The x size of the 3D map
+	 * @param ySize The y size of the 3D map
+	 * @param zSize The z size of the 3D map
+	 * @param samplingRate The sampling rate to use. xSize % samplingRate, ySize % samplingRate and zSize % samplingRate must return 0.
+	 * @param x The x coord
+	 * @param y The y coord
+	 * @param z The z coord
+	 * @throws IllegalArgumentException if the noise generator is null, the sampling rate is zero, xSize % samplingRate, ySize % samplingRate or zSize % samplingRate doesn't return 0 or the noise
+	 * map is too small
+	 */
+	public static void fastNoise(Module noiseGenerator, double[] noise, int xSize, int ySize, int zSize,
+								 int samplingRate, int x, int y, int z) {
+		final int xLength = xSize + 1;
+		final int zLength = zSize + 1;
+		final int planeLength = xLength * zLength;
+		checkNoiseArguments(noiseGenerator, noise, planeLength * (ySize + 1), samplingRate);
+		if (xSize % samplingRate != 0) {
+			throw new IllegalArgumentException("xSize % samplingRate must return 0");
+		}
+		if (ySize % samplingRate != 0) {
+			throw new IllegalArgumentException("ySize % samplingRate must return 0");
+		}
+		if (zSize % samplingRate != 0) {
+			throw new IllegalArgumentException("zSize % samplingRate must return 0");
+		}
+		for (int yy = 0; yy <= ySize; yy += samplingRate) {
+			for (int zz = 0; zz <= zSize; zz += samplingRate) {
+				final int row = yy * planeLength + zz * xLength;
+				for (int xx = 0; xx <= xSize; xx += samplingRate) {
+					noise[row + xx] = noiseGenerator.GetValue(xx + x, y + yy, z + zz);
+				}
+			}
+		}
+		if (samplingRate == 1) {
+			return;
+		}
+		// Interpolation is separable: along x on the sampled rows, along z on the sampled planes, then along y everywhere
+		for (int yy = 0; yy <= ySize; yy += samplingRate) {
+			final int plane = yy * planeLength;
+			for (int zz = 0; zz <= zSize; zz += samplingRate) {
+				lerpRun(noise, plane + zz * xLength, 1, xSize, samplingRate);
+			}
+			for (int xx = 0; xx <= xSize; xx++) {
+				lerpRun(noise, plane + xx, xLength, zSize, samplingRate);
+			}
+		}
+		for (int i = 0; i < planeLength; i++) {
+			lerpRun(noise, i, planeLength, ySize, samplingRate);
+		}
+	}
+
+	private static void checkNoiseArguments(Module noiseGenerator, double[] noise, int length, int samplingRate) {
+		if (noiseGenerator == null) {
+			throw new IllegalArgumentException("noiseGenerator cannot be null");
+		}
+		if (samplingRate == 0) {
+			throw new IllegalArgumentException("samplingRate cannot be 0");
+		}
+		if (noise == null || noise.length < length) {
+			throw new IllegalArgumentException("noise must have a length of at least " + length);
+		}
+	}
+
+	/**
+	 * Linearly interpolates the unsampled values of a run in place. The run starts at the offset and has size + 1 values separated by the stride. Every samplingRate-th value must already be set.
+	 */
+	private static void lerpRun(double[] noise, int offset, int stride, int size, int samplingRate) {
+		final double step = 1d / samplingRate;
+		for (int n = 0; n < size; n += samplingRate) {
+			final int start = offset + n * stride;
+			final double q0 = noise[start];
+			final double delta = noise[start + samplingRate * stride] - q0;
+			int index = start + stride;
+			for (int i = 1; i < samplingRate; i++, index += stride) {
+				noise[index] = q0 + delta * (i * step);
+			}
+		}
+	}
 }
@@ -112,15 +112,18 @@ public abstract class BiomeGenerator implements WorldGenerator {
 	}
 
 	public BiomeManager generateBiomes(int chunkX, int chunkZ, World world) {
+		final BiomeTileCache cache = world.getBiomeTileCache();
+		if (cache != null) {
+			return cache.getBiomeManager(chunkX, chunkZ);
+		}
 		final int x = chunkX << Chunk.BLOCKS.BITS;
 		final int z = chunkZ << Chunk.BLOCKS.BITS;
 		final Simple2DBiomeManager biomeManager = new Simple2DBiomeManager(chunkX, chunkZ);
+		final Biome[] picked = new Biome[Chunk.BLOCKS.AREA];
+		biomes.getBiomes(picked, x, 0, z, Chunk.BLOCKS.SIZE, Chunk.BLOCKS.SIZE, world.getSeed());
 		byte[] biomeData = new byte[Chunk.BLOCKS.AREA];
-		for (int dx = x; dx < x + Chunk.BLOCKS.SIZE; ++dx) {
-			for (int dz = z; dz < z + Chunk.BLOCKS.SIZE; ++dz) {
-				biomeData[(dz & Chunk.BLOCKS.MASK) << 4 | (dx & Chunk.BLOCKS.MASK)] =
-						(byte) biomes.getBiome(dx, dz, world.getSeed()).getId();
-			}
+		for (int i = 0; i < biomeData.length; i++) {
+			biomeData[i] = (byte) picked[i].getId();
 		}
 		biomeManager.deserialize(biomeData);
 		return biomeManager;
@@ -149,6 +152,10 @@ public abstract class BiomeGenerator implements WorldGenerator {
 		return biomes.getBiome(x, z, seed);
 	}
 
+	public void getBiomes(Biome[] picked, int x, int z, int xSize, int zSize, long seed) {
+		biomes.getBiomes(picked, x, 0, z, xSize, zSize, seed);
+	}
+
 	public Set<Biome> getBiomes() {
 		return biomes.getBiomes();
 	}
@@ -72,6 +72,24 @@ public final class BiomeMap {
 		return selector.pickBiome(x, y, z, seed);
 	}
 
+	/**
+	 * Gets the biomes for a whole area at the given y. The biome for (x + xx, z + zz) is stored at index zz * xSize + xx.
+	 *
+	 * @param biomes The array to fill with the biomes, of length at least xSize * zSize.
+	 * @param x The x coordinate of the area.
+	 * @param y The y coordinate of the area.
+	 * @param z The z coordinate of the area.
+	 * @param xSize The x size of the area.
+	 * @param zSize The z size of the area.
+	 * @param seed The seed from which should be used to pick the biomes.
+	 */
+	public void getBiomes(Biome[] biomes, int x, int y, int z, int xSize, int zSize, long seed) {
+		if (selector == null) {
+			throw new IllegalStateException("Biome Selector is null and cannot set a selector");
+		}
+		selector.pickBiomes(biomes, x, y, z, xSize, zSize, seed);
+	}
+
 	public Set<Biome> getBiomes() {
 		return new HashSet<>(map.getValues());
 	}
@@ -44,4 +44,37 @@ public abstract class BiomeSelector {
 	 * @return the biome between 0 and maxBiomes
 	 */
 	public abstract Biome pickBiome(int x, int y, int z, long seed);
+
+	/**
+	 * Returns true if the biome picked by this selector never depends on the y coordinate. Biomes picked by such a selector can be served from a 2D cache for any height.
+	 *
+	 * @return Whether the picked biomes are independent of y.
+	 */
+	public boolean isYIndependent() {
+		return false;
+	}
+
+	/**
+	 * Picks the biomes for a whole area at the given y. The biome for (x + xx, z + zz) is stored at index zz * xSize + xx. Selectors which can pick an area more efficiently than one block at a time
+	 * should override this.
+	 *
+	 * @param biomes The array to fill with the picked biomes, of length at least xSize * zSize.
+	 * @param x The x coordinate of the area.
+	 * @param y The y coordinate of the area.
+	 * @param z The z coordinate of the area.
+	 * @param xSize The x size of the area.
+	 * @param zSize The z size of the area.
+	 * @param seed The seed from which should be used to pick the biomes.
+	 */
+	public void pickBiomes(Biome[] biomes, int x, int y, int z, int xSize, int zSize, long seed) {
+		if (biomes.length < xSize * zSize) {
+			throw new IllegalArgumentException("biomes must have a length of at least " + xSize * zSize);
+		}
+		int index = 0;
+		for (int zz = 0; zz < zSize; zz++) {
+			for (int xx = 0; xx < xSize; xx++) {
+				biomes[index++] = pickBiome(x + xx, y, z + zz, seed);
+			}
+		}
+	}
 }
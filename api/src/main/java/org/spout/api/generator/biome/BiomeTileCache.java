@@ -0,0 +1,386 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.generator.biome;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.spout.api.geo.cuboid.Chunk;
+import org.spout.api.util.hashing.IntPairHashed;
+import org.spout.math.GenericMath;
+
+/**
+ * A world level cache of the biomes picked by a {@link BiomeGenerator}. The world is split into square tiles of a fixed number of chunks, which are computed as a whole and kept in a bounded least
+ * recently used cache.<br> Tiles are computed one chunk row per task, so several threads of the executor can work on a single tile. The thread requesting the tile also picks up rows, so the
+ * computation always progresses even if the executor is saturated.
+ */
+public class BiomeTileCache {
+	private final BiomeGenerator generator;
+	private final long seed;
+	private final Executor executor;
+	private final int tileChunks;
+	private final int tileShift;
+	private final int tileBlockShift;
+	private final int tileBlockMask;
+	private final int maxTiles;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final LinkedHashMap<Long, Tile> tiles;
+	private final AtomicInteger computed = new AtomicInteger(0);
+
+	/**
+	 * Constructs a new biome tile cache.
+	 *
+	 * @param generator The generator which picks the biomes.
+	 * @param seed The seed of the world.
+	 * @param tileChunks The width of a tile in chunks, must be a power of two.
+	 * @param maxMemory The maximum memory used by the cached tiles, in bytes. At least one tile is always cached.
+	 * @param executor The executor used to compute the tiles, or null to compute them on the requesting thread.
+	 */
+	public BiomeTileCache(BiomeGenerator generator, long seed, int tileChunks, long maxMemory, Executor executor) {
+		if (tileChunks <= 0 || !GenericMath.isPowerOfTwo(tileChunks)) {
+			throw new IllegalArgumentException("Tile width must be a positive power of two");
+		}
+		this.generator = generator;
+		this.seed = seed;
+		this.executor = executor;
+		this.tileChunks = tileChunks;
+		this.tileShift = GenericMath.multiplyToShift(tileChunks);
+		this.tileBlockShift = tileShift + Chunk.BLOCKS.BITS;
+		this.tileBlockMask = (1 << tileBlockShift) - 1;
+		this.maxTiles = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxMemory / getTileMemory()));
+		this.tiles = new LinkedHashMap<Long, Tile>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Tile> eldest) {
+				return size() > maxTiles;
+			}
+		};
+	}
+
+	/**
+	 * Gets the biome at the given block coordinates.
+	 *
+	 * @param x The x block coordinate.
+	 * @param z The z block coordinate.
+	 * @return The biome.
+	 */
+	public Biome getBiome(int x, int z) {
+		final byte[] biomes = getTile(x >> tileBlockShift, z >> tileBlockShift);
+		return BiomeRegistry.getBiome(biomes[(z & tileBlockMask) << tileBlockShift | (x & tileBlockMask)]);
+	}
+
+	/**
+	 * Gets the biome at the given block coordinates, if the tile containing it is cached or being computed. This never
+	 * starts computing a tile.
+	 *
+	 * @param x The x block coordinate.
+	 * @param z The z block coordinate.
+	 * @return The biome, or null if its tile is not cached.
+	 */
+	public Biome getCachedBiome(int x, int z) {
+		final Long key = IntPairHashed.key(x >> tileBlockShift, z >> tileBlockShift);
+		final Tile tile;
+		lock.lock();
+		try {
+			tile = tiles.get(key);
+		} finally {
+			lock.unlock();
+		}
+		if (tile == null) {
+			return null;
+		}
+		return BiomeRegistry.getBiome(tile.get()[(z & tileBlockMask) << tileBlockShift | (x & tileBlockMask)]);
+	}
+
+	/**
+	 * Copies the biome ids of a chunk column into the given array. The biome at (x, z) in the chunk is stored at index z << 4 | x.
+	 *
+	 * @param chunkX The x chunk coordinate.
+	 * @param chunkZ The z chunk coordinate.
+	 * @param biomes The array to fill, of length at least {@link Chunk.BLOCKS#AREA}.
+	 */
+	public void getBiomes(int chunkX, int chunkZ, byte[] biomes) {
+		final byte[] tile = getTile(chunkX >> tileShift, chunkZ >> tileShift);
+		final int tileWidth = 1 << tileBlockShift;
+		final int baseX = (chunkX & (tileChunks - 1)) << Chunk.BLOCKS.BITS;
+		final int baseZ = (chunkZ & (tileChunks - 1)) << Chunk.BLOCKS.BITS;
+		for (int z = 0; z < Chunk.BLOCKS.SIZE; z++) {
+			System.arraycopy(tile, (baseZ + z) * tileWidth + baseX, biomes, z << Chunk.BLOCKS.BITS, Chunk.BLOCKS.SIZE);
+		}
+	}
+
+	/**
+	 * Creates a new biome manager for a chunk column, backed by a copy of the cached biomes.
+	 *
+	 * @param chunkX The x chunk coordinate.
+	 * @param chunkZ The z chunk coordinate.
+	 * @return The biome manager.
+	 */
+	public Simple2DBiomeManager getBiomeManager(int chunkX, int chunkZ) {
+		final Simple2DBiomeManager manager = new Simple2DBiomeManager(chunkX, chunkZ);
+		final byte[] biomes = new byte[Chunk.BLOCKS.AREA];
+		getBiomes(chunkX, chunkZ, biomes);
+		manager.deserialize(biomes);
+		return manager;
+	}
+
+	/**
+	 * Gets the width of the tiles, in chunks.
+	 *
+	 * @return The tile width.
+	 */
+	public int getTileChunks() {
+		return tileChunks;
+	}
+
+	/**
+	 * Gets the memory used by a single tile, in bytes.
+	 *
+	 * @return The memory per tile.
+	 */
+	public int getTileMemory() {
+		return 1 << (tileBlockShift << 1);
+	}
+
+	/**
+	 * Gets the maximum number of tiles kept in the cache.
+	 *
+	 * @return The maximum tile count.
+	 */
+	public int getMaxTiles() {
+		return maxTiles;
+	}
+
+	/**
+	 * Gets the number of tiles currently in the cache.
+	 *
+	 * @return The tile count.
+	 */
+	public int getTileCount() {
+		lock.lock();
+		try {
+			return tiles.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the total number of tiles computed by this cache, including evicted ones.
+	 *
+	 * @return The computed tile count.
+	 */
+	public int getComputedTileCount() {
+		return computed.get();
+	}
+
+	/**
+	 * Removes all the tiles from the cache.
+	 */
+	public void clear() {
+		lock.lock();
+		try {
+			tiles.clear();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the least recently used tiles until at most the given number of tiles remain.
+	 *
+	 * @param maxTiles The number of tiles to keep.
+	 * @return The number of tiles removed.
+	 */
+	public int trim(int maxTiles) {
+		lock.lock();
+		try {
+			int removed = 0;
+			final Iterator<Tile> i = tiles.values().iterator();
+			while (tiles.size() > maxTiles && i.hasNext()) {
+				i.next();
+				i.remove();
+				removed++;
+			}
+			return removed;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private byte[] getTile(int tileX, int tileZ) {
+		final Long key = IntPairHashed.key(tileX, tileZ);
+		final Tile tile;
+		final boolean owner;
+		lock.lock();
+		try {
+			final Tile cached = tiles.get(key);
+			if (cached != null) {
+				tile = cached;
+				owner = false;
+			} else {
+				tile = new Tile(tileX, tileZ);
+				tiles.put(key, tile);
+				owner = true;
+			}
+		} finally {
+			lock.unlock();
+		}
+		if (owner) {
+			try {
+				tile.compute();
+				computed.incrementAndGet();
+			} catch (RuntimeException | Error e) {
+				lock.lock();
+				try {
+					if (tiles.get(key) == tile) {
+						tiles.remove(key);
+					}
+				} finally {
+					lock.unlock();
+				}
+				tile.fail(e);
+				throw e;
+			}
+		}
+		return tile.get();
+	}
+
+	private class Tile {
+		private final int baseX;
+		private final int baseZ;
+		private final byte[] biomes;
+		private final AtomicInteger nextRow = new AtomicInteger(0);
+		private final CountDownLatch rowsDone;
+		private final CountDownLatch done = new CountDownLatch(1);
+		private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		public Tile(int tileX, int tileZ) {
+			this.baseX = tileX << tileBlockShift;
+			this.baseZ = tileZ << tileBlockShift;
+			this.biomes = new byte[getTileMemory()];
+			this.rowsDone = new CountDownLatch(tileChunks);
+		}
+
+		public void compute() {
+			if (executor != null) {
+				for (int i = 1; i < tileChunks; i++) {
+					try {
+						executor.execute(new Runnable() {
+							@Override
+							public void run() {
+								computeRows();
+							}
+						});
+					} catch (RejectedExecutionException e) {
+						break;
+					}
+				}
+			}
+			computeRows();
+			boolean interrupted = false;
+			try {
+				while (true) {
+					try {
+						rowsDone.await();
+						break;
+					} catch (InterruptedException e) {
+						interrupted = true;
+					}
+				}
+			} finally {
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			final Throwable t = failure.get();
+			if (t instanceof RuntimeException) {
+				throw (RuntimeException) t;
+			} else if (t instanceof Error) {
+				throw (Error) t;
+			}
+			done.countDown();
+		}
+
+		private void computeRows() {
+			int row;
+			while ((row = nextRow.getAndIncrement()) < tileChunks) {
+				try {
+					final int tileWidth = 1 << tileBlockShift;
+					final int startZ = row << Chunk.BLOCKS.BITS;
+					// The rows of a chunk row are contiguous in the tile, so the whole chunk row is picked as one area
+					final Biome[] picked = new Biome[tileWidth << Chunk.BLOCKS.BITS];
+					generator.getBiomes(picked, baseX, baseZ + startZ, tileWidth, Chunk.BLOCKS.SIZE, seed);
+					final int offset = startZ * tileWidth;
+					for (int i = 0; i < picked.length; i++) {
+						biomes[offset + i] = (byte) picked[i].getId();
+					}
+				} catch (RuntimeException | Error e) {
+					failure.compareAndSet(null, e);
+				} finally {
+					rowsDone.countDown();
+				}
+			}
+		}
+
+		public void fail(Throwable t) {
+			failure.compareAndSet(null, t);
+			done.countDown();
+		}
+
+		public byte[] get() {
+			boolean interrupted = false;
+			try {
+				while (true) {
+					try {
+						done.await();
+						break;
+					} catch (InterruptedException e) {
+						interrupted = true;
+					}
+				}
+			} finally {
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			final Throwable t = failure.get();
+			if (t != null) {
+				throw new IllegalStateException("Unable to compute biome tile", t);
+			}
+			return biomes;
+		}
+	}
+}
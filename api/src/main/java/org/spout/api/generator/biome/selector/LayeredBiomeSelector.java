@@ -26,6 +26,7 @@
  */
 package org.spout.api.generator.biome.selector;
 
+import java.util.Arrays;
 import java.util.logging.Level;
 
 import org.spout.api.Spout;
@@ -38,6 +39,12 @@ import org.spout.api.generator.biome.BiomeSelector;
  * element is found, the fallback biome will be returned.
  */
 public class LayeredBiomeSelector extends BiomeSelector {
+	private static final ThreadLocal<Scratch> SCRATCH = new ThreadLocal<Scratch>() {
+		@Override
+		protected Scratch initialValue() {
+			return new Scratch();
+		}
+	};
 	private final BiomeSelectorLayer start;
 	private final Biome fallback;
 
@@ -68,4 +75,92 @@ public class LayeredBiomeSelector extends BiomeSelector {
 		}
 		return (Biome) current;
 	}
+
+	/**
+	 * {@inheritDoc}<br> <br> Each layer is resolved for all the columns which reached it at once. Noise range and voronoi layers which are reached by at least half of the area pick the whole area in a
+	 * single batch, other layers pick one column at a time.
+	 */
+	@Override
+	public void pickBiomes(Biome[] biomes, int x, int y, int z, int xSize, int zSize, long seed) {
+		final int length = xSize * zSize;
+		if (biomes.length < length) {
+			throw new IllegalArgumentException("biomes must have a length of at least " + length);
+		}
+		final Scratch scratch = SCRATCH.get();
+		scratch.ensureCapacity(length);
+		final LayeredBiomeSelectorElement[] current = scratch.current;
+		final LayeredBiomeSelectorElement[] picked = scratch.picked;
+		Arrays.fill(current, 0, length, start);
+		boolean resolved = false;
+		while (!resolved) {
+			resolved = true;
+			for (int i = 0; i < length; i++) {
+				if (current[i] instanceof Biome) {
+					continue;
+				}
+				final BiomeSelectorLayer layer = (BiomeSelectorLayer) current[i];
+				int count = 0;
+				for (int j = i; j < length; j++) {
+					if (current[j] == layer) {
+						count++;
+					}
+				}
+				final boolean batch = count << 1 >= length;
+				if (batch && layer instanceof NoiseRangeLayer) {
+					((NoiseRangeLayer) layer).pick(picked, scratch.noise, x, y, z, xSize, zSize, seed);
+				} else if (batch && layer instanceof VoronoiLayer) {
+					((VoronoiLayer) layer).pick(picked, x, y, z, xSize, zSize, seed);
+				} else {
+					for (int j = i; j < length; j++) {
+						if (current[j] == layer) {
+							picked[j] = layer.pick(x + j % xSize, y, z + j / xSize, seed);
+						}
+					}
+				}
+				boolean warned = false;
+				for (int j = i; j < length; j++) {
+					if (current[j] != layer) {
+						continue;
+					}
+					final LayeredBiomeSelectorElement next = picked[j];
+					if (next == null) {
+						if (!warned) {
+							Spout.getLogger().log(Level.WARNING, "Got a null element in biome selector."
+									+ " Check your ranges in layer: " + layer + "."
+									+ " Using " + fallback.getName() + " as a fallback biome for now.");
+							warned = true;
+						}
+						current[j] = fallback;
+					} else {
+						current[j] = next;
+						if (!(next instanceof Biome)) {
+							resolved = false;
+						}
+					}
+				}
+			}
+		}
+		for (int i = 0; i < length; i++) {
+			biomes[i] = (Biome) current[i];
+		}
+		Arrays.fill(current, 0, length, null);
+		Arrays.fill(picked, 0, length, null);
+	}
+
+	/**
+	 * Per thread buffers for {@link #pickBiomes(Biome[], int, int, int, int, int, long)}, grown to the largest area picked so far.
+	 */
+	private static class Scratch {
+		private LayeredBiomeSelectorElement[] current = new LayeredBiomeSelectorElement[0];
+		private LayeredBiomeSelectorElement[] picked = new LayeredBiomeSelectorElement[0];
+		private float[] noise = new float[0];
+
+		private void ensureCapacity(int length) {
+			if (current.length < length) {
+				current = new LayeredBiomeSelectorElement[length];
+				picked = new LayeredBiomeSelectorElement[length];
+				noise = new float[length];
+			}
+		}
+	}
 }
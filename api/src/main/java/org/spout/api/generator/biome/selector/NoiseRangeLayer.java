@@ -105,10 +105,58 @@ public abstract class NoiseRangeLayer implements BiomeSelectorLayer {
 	 */
 	protected abstract float getNoiseValue(int x, int y, int z, int seed);
 
+	/**
+	 * Fills the values with the noise of an area at the specified height using the provided seed. The value for (x + xx, z + zz) is stored at index zz * xSize + xx. Extending classes should override
+	 * this to seed their noise source once for the whole area instead of once per value.
+	 *
+	 * @param values The array to fill, of length at least xSize * zSize.
+	 * @param x The x coordinate of the area.
+	 * @param y The y coordinate of the area.
+	 * @param z The z coordinate of the area.
+	 * @param xSize The x size of the area.
+	 * @param zSize The z size of the area.
+	 * @param seed The seed for the noise source.
+	 */
+	protected void getNoiseValues(float[] values, int x, int y, int z, int xSize, int zSize, int seed) {
+		int index = 0;
+		for (int zz = 0; zz < zSize; zz++) {
+			for (int xx = 0; xx < xSize; xx++) {
+				values[index++] = getNoiseValue(x + xx, y, z + zz, seed);
+			}
+		}
+	}
+
 	@Override
 	public LayeredBiomeSelectorElement pick(int x, int y, int z, long seed) {
-		final float value = getNoiseValue(x, y, z, (int) seed);
-		for (ElementRange range : ranges) {
+		return pick(getNoiseValue(x, y, z, (int) seed));
+	}
+
+	/**
+	 * Picks the elements for a whole area at the specified height. The element for (x + xx, z + zz) is stored at index zz * xSize + xx.
+	 *
+	 * @param elements The array to fill with the picked elements, of length at least xSize * zSize.
+	 * @param noise A buffer for the noise values, of length at least xSize * zSize.
+	 * @param x The x coordinate of the area.
+	 * @param y The y coordinate of the area.
+	 * @param z The z coordinate of the area.
+	 * @param xSize The x size of the area.
+	 * @param zSize The z size of the area.
+	 * @param seed The seed from which should be used to determine what elements to pick.
+	 */
+	public void pick(LayeredBiomeSelectorElement[] elements, float[] noise, int x, int y, int z, int xSize, int zSize, long seed) {
+		final int length = xSize * zSize;
+		if (elements.length < length || noise.length < length) {
+			throw new IllegalArgumentException("elements and noise must have a length of at least " + length);
+		}
+		getNoiseValues(noise, x, y, z, xSize, zSize, (int) seed);
+		for (int i = 0; i < length; i++) {
+			elements[i] = pick(noise[i]);
+		}
+	}
+
+	private LayeredBiomeSelectorElement pick(float value) {
+		for (int i = 0; i < ranges.size(); i++) {
+			final ElementRange range = ranges.get(i);
 			if (range.isInRange(value)) {
 				return range.getElement();
 			}
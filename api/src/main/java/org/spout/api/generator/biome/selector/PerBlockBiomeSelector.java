@@ -40,4 +40,9 @@ public class PerBlockBiomeSelector extends BiomeSelector {
 	public Biome pickBiome(int x, int y, int z, long seed) {
 		return biome;
 	}
+
+	@Override
+	public boolean isYIndependent() {
+		return true;
+	}
 }
@@ -30,6 +30,8 @@ import net.royawesome.jlibnoise.NoiseQuality;
 import net.royawesome.jlibnoise.module.modifier.Clamp;
 import net.royawesome.jlibnoise.module.source.Perlin;
 
+import org.spout.math.GenericMath;
+
 /**
  * A layer split into several ranges of values calculated using a {@link net.royawesome.jlibnoise.module.source.Perlin}. Useful for land. This layer has a value range of 1 to -1 (inclusive).
  */
@@ -57,6 +59,18 @@ public class PerlinRangeLayer extends NoiseRangeLayer implements Cloneable {
 		return (float) clamp.GetValue(x, y, z);
 	}
 
+	@Override
+	protected void getNoiseValues(float[] values, int x, int y, int z, int xSize, int zSize, int seed) {
+		// Seed once for the area and apply the clamp inline rather than through the module graph
+		perlin.setSeed(seed * uniquenessValue);
+		int index = 0;
+		for (int zz = 0; zz < zSize; zz++) {
+			for (int xx = 0; xx < xSize; xx++) {
+				values[index++] = (float) GenericMath.clamp(perlin.GetValue(x + xx, y, z + zz), -1, 1);
+			}
+		}
+	}
+
 	/**
 	 * Sets the perlin frequency.
 	 *
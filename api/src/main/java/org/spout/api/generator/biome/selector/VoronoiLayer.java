@@ -65,6 +65,33 @@ public class VoronoiLayer implements BiomeSelectorLayer, Cloneable {
 		return selectorElements.get(GenericMath.floor(turbulence.GetValue(x, y, z) * size + size));
 	}
 
+	/**
+	 * Picks the elements for a whole area at the specified height. The element for (x + xx, z + zz) is stored at index zz * xSize + xx. The voronoi and turbulence sources are seeded once for the
+	 * whole area.
+	 *
+	 * @param elements The array to fill with the picked elements, of length at least xSize * zSize.
+	 * @param x The x coordinate of the area.
+	 * @param y The y coordinate of the area.
+	 * @param z The z coordinate of the area.
+	 * @param xSize The x size of the area.
+	 * @param zSize The z size of the area.
+	 * @param seed The seed from which should be used to determine what elements to pick.
+	 */
+	public void pick(LayeredBiomeSelectorElement[] elements, int x, int y, int z, int xSize, int zSize, long seed) {
+		if (elements.length < xSize * zSize) {
+			throw new IllegalArgumentException("elements must have a length of at least " + xSize * zSize);
+		}
+		voronoi.setSeed((int) seed * uniquenessValue);
+		turbulence.setSeed((int) seed * uniquenessValue * uniquenessValue);
+		final float size = selectorElements.size() / 2f;
+		int index = 0;
+		for (int zz = 0; zz < zSize; zz++) {
+			for (int xx = 0; xx < xSize; xx++) {
+				elements[index++] = selectorElements.get(GenericMath.floor(turbulence.GetValue(x + xx, y, z + zz) * size + size));
+			}
+		}
+	}
+
 	/**
 	 * Adds multiple ranged elements to the layer.
 	 *
@@ -43,6 +43,7 @@ import org.spout.api.entity.spawn.SpawnArrangement;
 import org.spout.api.event.Cause;
 import org.spout.api.generator.WorldGenerator;
 import org.spout.api.generator.biome.BiomeManager;
+import org.spout.api.generator.biome.BiomeTileCache;
 import org.spout.api.geo.discrete.Point;
 import org.spout.api.geo.discrete.Transform;
 import org.spout.api.lighting.LightingManager;
@@ -136,6 +137,14 @@ public interface World extends AreaRegionAccess, AreaPhysicsAccess, Named, Compo
 	@LiveRead
 	public BiomeManager getBiomeManager(int x, int z, LoadOption loadopt);
 
+	/**
+	 * Gets the cache of the biomes picked by the world generator, or null if the world generator is not a {@link org.spout.api.generator.biome.BiomeGenerator}.
+	 *
+	 * @return the biome tile cache
+	 */
+	@Threadsafe
+	public BiomeTileCache getBiomeTileCache();
+
 	/**
 	 * Gets the entity with the matching unique id <p> Performs a search on each region for the entity, stopping when it is found, or after all the worlds have been searched upon failure.
 	 *
@@ -0,0 +1,224 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.geo.cuboid;
+
+import org.spout.api.geo.LoadOption;
+import org.spout.api.geo.World;
+import org.spout.api.material.BlockMaterial;
+import org.spout.api.material.block.BlockFace;
+import org.spout.api.material.block.BlockFullState;
+import org.spout.api.math.IntVector3;
+
+/**
+ * A mutable position in a world, which can be used to read blocks without allocating a {@link Block} for each position.<br> <br> The cursor keeps the chunk containing its position, so moving to
+ * a neighbouring block only looks up the chunk again when the move crosses a chunk boundary, or the chunk has been unloaded.<br> <br> A cursor must only be used by one thread at a time.
+ */
+public class BlockCursor {
+	private static final ThreadLocal<BlockCursor> LOCAL_CURSOR = new ThreadLocal<BlockCursor>() {
+		@Override
+		protected BlockCursor initialValue() {
+			return new BlockCursor(null);
+		}
+	};
+	private final LoadOption loadOption;
+	private World world;
+	private int x, y, z;
+	private Chunk chunk;
+
+	/**
+	 * Creates a cursor which loads or generates chunks as required
+	 *
+	 * @param world the world
+	 */
+	public BlockCursor(World world) {
+		this(world, LoadOption.LOAD_GEN);
+	}
+
+	/**
+	 * Creates a cursor
+	 *
+	 * @param world the world
+	 * @param loadOption whether chunks should be loaded or generated when the cursor moves into them
+	 */
+	public BlockCursor(World world, LoadOption loadOption) {
+		this.world = world;
+		this.loadOption = loadOption;
+	}
+
+	/**
+	 * Gets the cursor of the current thread, set to the given world. The cursor loads or generates chunks as required.<br> <br> The same cursor is returned for every call on a thread, so it must
+	 * not be kept across calls to code which might also use it.
+	 *
+	 * @param world the world
+	 * @return the cursor
+	 */
+	public static BlockCursor get(World world) {
+		BlockCursor cursor = LOCAL_CURSOR.get();
+		cursor.setWorld(world);
+		return cursor;
+	}
+
+	/**
+	 * Sets the world of this cursor
+	 *
+	 * @param world the world
+	 * @return this cursor
+	 */
+	public BlockCursor setWorld(World world) {
+		if (this.world != world) {
+			this.world = world;
+			this.chunk = null;
+		}
+		return this;
+	}
+
+	/**
+	 * Moves the cursor to the given block
+	 *
+	 * @param x the x coordinate of the block
+	 * @param y the y coordinate of the block
+	 * @param z the z coordinate of the block
+	 * @return this cursor
+	 */
+	public BlockCursor move(int x, int y, int z) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		Chunk current = chunk;
+		if (current == null || !current.isLoaded() || current.getX() != x >> Chunk.BLOCKS.BITS || current.getY() != y >> Chunk.BLOCKS.BITS || current.getZ() != z >> Chunk.BLOCKS.BITS) {
+			chunk = world.getChunkFromBlock(x, y, z, loadOption);
+		}
+		return this;
+	}
+
+	/**
+	 * Moves the cursor by the given offset
+	 *
+	 * @param dx the offset along the x axis
+	 * @param dy the offset along the y axis
+	 * @param dz the offset along the z axis
+	 * @return this cursor
+	 */
+	public BlockCursor moveBy(int dx, int dy, int dz) {
+		return move(x + dx, y + dy, z + dz);
+	}
+
+	/**
+	 * Moves the cursor to the neighbouring block on the given face
+	 *
+	 * @param face the face
+	 * @return this cursor
+	 */
+	public BlockCursor move(BlockFace face) {
+		IntVector3 offset = face.getIntOffset();
+		return move(x + offset.getX(), y + offset.getY(), z + offset.getZ());
+	}
+
+	/**
+	 * Gets the chunk containing the cursor, looking it up again if the chunk has been unloaded since the cursor moved
+	 */
+	private Chunk resolve() {
+		Chunk current = chunk;
+		if (current != null && !current.isLoaded()) {
+			current = world.getChunkFromBlock(x, y, z, loadOption);
+			chunk = current;
+		}
+		return current;
+	}
+
+	/**
+	 * Gets if the chunk containing the cursor is loaded. When it is not, the cursor reads every block as {@link BlockMaterial#UNGENERATED}.
+	 *
+	 * @return true if the chunk is loaded
+	 */
+	public boolean isLoaded() {
+		return resolve() != null;
+	}
+
+	/**
+	 * Gets the packed full state of the block at the cursor. Handler methods are provided by the BlockFullState class.
+	 *
+	 * @return the full state
+	 */
+	public int getFullState() {
+		Chunk current = resolve();
+		return current == null ? BlockFullState.getPacked(BlockMaterial.UNGENERATED) : current.getBlockFullState(x, y, z);
+	}
+
+	/**
+	 * Gets the material of the block at the cursor
+	 *
+	 * @return the material
+	 */
+	public BlockMaterial getMaterial() {
+		return BlockFullState.getMaterial(getFullState());
+	}
+
+	/**
+	 * Gets the data of the block at the cursor
+	 *
+	 * @return the data
+	 */
+	public short getData() {
+		return BlockFullState.getData(getFullState());
+	}
+
+	/**
+	 * Gets a block object for the position of the cursor. This allocates a new block, which is not affected when the cursor moves.
+	 *
+	 * @return the block
+	 */
+	public Block getBlock() {
+		Chunk current = resolve();
+		return current == null ? world.getBlock(x, y, z) : current.getBlock(x, y, z);
+	}
+
+	/**
+	 * Gets the chunk containing the cursor
+	 *
+	 * @return the chunk, or null if it is not loaded
+	 */
+	public Chunk getChunk() {
+		return resolve();
+	}
+
+	public World getWorld() {
+		return world;
+	}
+
+	public int getX() {
+		return x;
+	}
+
+	public int getY() {
+		return y;
+	}
+
+	public int getZ() {
+		return z;
+	}
+}
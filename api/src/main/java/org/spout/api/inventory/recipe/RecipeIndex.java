@@ -0,0 +1,110 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.inventory.recipe;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An index from the canonical signatures of the ingredients of recipes to the recipes.<br> Shapeless recipes which include data are indexed by their exact ingredients, the others are looked up
+ * with the root materials of the ingredients.
+ */
+final class RecipeIndex {
+	private final ConcurrentHashMap<RecipeKey, ShapedRecipe> shaped = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<RecipeKey, ShapelessRecipe> shapelessExact = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<RecipeKey, ShapelessRecipe> shapelessParents = new ConcurrentHashMap<>();
+
+	public void add(ShapedRecipe recipe) {
+		final RecipeKey key = RecipeKey.shaped(recipe.getIngredientRows(), false);
+		if (key != null) {
+			shaped.put(key, recipe);
+		}
+	}
+
+	public void remove(ShapedRecipe recipe) {
+		final RecipeKey key = RecipeKey.shaped(recipe.getIngredientRows(), false);
+		if (key != null) {
+			shaped.remove(key, recipe);
+		}
+	}
+
+	public void add(ShapelessRecipe recipe) {
+		final RecipeKey key = RecipeKey.shapeless(recipe.getIngredients(), false);
+		if (recipe.getIncludeData()) {
+			shapelessExact.put(key, recipe);
+		} else {
+			shapelessParents.put(key, recipe);
+		}
+	}
+
+	public void remove(ShapelessRecipe recipe) {
+		final RecipeKey key = RecipeKey.shapeless(recipe.getIngredients(), false);
+		if (recipe.getIncludeData()) {
+			shapelessExact.remove(key, recipe);
+		} else {
+			shapelessParents.remove(key, recipe);
+		}
+	}
+
+	/**
+	 * Matches a shaped recipe. Any recipe matches the exact materials, only the recipes which do not include data match the root materials.
+	 *
+	 * @param exact the signature of the materials
+	 * @param parents the signature of the root materials
+	 * @return the recipe, or null if none matches
+	 */
+	public ShapedRecipe matchShaped(RecipeKey exact, RecipeKey parents) {
+		ShapedRecipe recipe = shaped.get(exact);
+		if (recipe == null) {
+			recipe = shaped.get(parents);
+			if (recipe != null && recipe.getIncludeData()) {
+				return null;
+			}
+		}
+		return recipe;
+	}
+
+	/**
+	 * Matches a shapeless recipe. The recipes which include data match the exact materials, the others match the root materials.
+	 *
+	 * @param exact the signature of the materials
+	 * @param parents the signature of the root materials
+	 * @return the recipe, or null if none matches
+	 */
+	public ShapelessRecipe matchShapeless(RecipeKey exact, RecipeKey parents) {
+		final ShapelessRecipe recipe = shapelessExact.get(exact);
+		if (recipe != null) {
+			return recipe;
+		}
+		return shapelessParents.get(parents);
+	}
+
+	public void clear() {
+		shaped.clear();
+		shapelessExact.clear();
+		shapelessParents.clear();
+	}
+}
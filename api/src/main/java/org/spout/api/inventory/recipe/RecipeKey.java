@@ -0,0 +1,145 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.inventory.recipe;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.spout.api.material.Material;
+
+/**
+ * A canonical signature of a set of recipe ingredients, made of packed material ids.<br> Shaped signatures contain the cells of the grid trimmed to the bounding box of its ingredients, in row order.
+ * Shapeless signatures contain the sorted ingredients.
+ */
+final class RecipeKey {
+	private static final long PRESENT = 1L << 40;
+	private final int width;
+	private final long[] cells;
+	private final int hash;
+
+	private RecipeKey(int width, long[] cells) {
+		this.width = width;
+		this.cells = cells;
+		this.hash = 31 * width + Arrays.hashCode(cells);
+	}
+
+	/**
+	 * Packs a material, 0 is used for empty cells
+	 *
+	 * @param material the material, or null
+	 * @param parents true to use the root material of sub materials
+	 * @return the packed material
+	 */
+	private static long pack(Material material, boolean parents) {
+		if (material == null) {
+			return 0;
+		}
+		if (parents && material.isSubMaterial()) {
+			material = material.getRoot();
+		}
+		return PRESENT | (material.getId() & 0xFFFFL) << 17 | (material.getData() & 0xFFFFL) << 1 | (material.isSubMaterial() ? 1 : 0);
+	}
+
+	/**
+	 * Creates the signature of a grid of materials
+	 *
+	 * @param rows the rows of the grid, empty cells are null
+	 * @param parents true to use the root material of sub materials
+	 * @return the signature, or null if the grid is empty
+	 */
+	static RecipeKey shaped(List<List<Material>> rows, boolean parents) {
+		int minX = Integer.MAX_VALUE;
+		int maxX = -1;
+		int minY = -1;
+		int maxY = -1;
+		for (int y = 0; y < rows.size(); y++) {
+			final List<Material> row = rows.get(y);
+			for (int x = 0; x < row.size(); x++) {
+				if (row.get(x) != null) {
+					if (minY == -1) {
+						minY = y;
+					}
+					maxY = y;
+					minX = Math.min(minX, x);
+					maxX = Math.max(maxX, x);
+				}
+			}
+		}
+		if (minY == -1) {
+			return null;
+		}
+		final int width = maxX - minX + 1;
+		final long[] cells = new long[width * (maxY - minY + 1)];
+		for (int y = minY; y <= maxY; y++) {
+			final List<Material> row = rows.get(y);
+			final int end = Math.min(row.size(), maxX + 1);
+			final int offset = (y - minY) * width - minX;
+			for (int x = minX; x < end; x++) {
+				cells[offset + x] = pack(row.get(x), parents);
+			}
+		}
+		return new RecipeKey(width, cells);
+	}
+
+	/**
+	 * Creates the signature of a list of materials, in any order
+	 *
+	 * @param materials the materials, null materials are ignored
+	 * @param parents true to use the root material of sub materials
+	 * @return the signature
+	 */
+	static RecipeKey shapeless(List<Material> materials, boolean parents) {
+		final long[] cells = new long[materials.size()];
+		int size = 0;
+		for (int i = 0; i < cells.length; i++) {
+			final Material material = materials.get(i);
+			if (material != null) {
+				cells[size++] = pack(material, parents);
+			}
+		}
+		final long[] sorted = size == cells.length ? cells : Arrays.copyOf(cells, size);
+		Arrays.sort(sorted);
+		return new RecipeKey(-1, sorted);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof RecipeKey)) {
+			return false;
+		}
+		final RecipeKey other = (RecipeKey) obj;
+		return hash == other.hash && width == other.width && Arrays.equals(cells, other.cells);
+	}
+}
@@ -26,20 +26,24 @@
  */
 package org.spout.api.inventory.recipe;
 
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.spout.api.Spout;
 import org.spout.api.material.Material;
 import org.spout.api.plugin.Plugin;
 
+/**
+ * A recipe manager which matches recipes through an index of the canonical signatures of their ingredients. The results of the matches are memoized until the registered recipes change.
+ */
 public class SimpleRecipeManager implements RecipeManager {
+	private static final int MAX_MEMOIZED = 4096;
+	private static final Object NO_MATCH = new Object();
 	private final Map<Plugin, Map<Integer, RecipeTree>> registeredShapedRecipes = new ConcurrentHashMap<>();
 	private final Map<Plugin, Map<Integer, Set<ShapelessRecipe>>> registeredShapelessRecipes = new ConcurrentHashMap<>();
 	private final Map<Plugin, Map<Integer, Set<SmeltedRecipe>>> registeredSmeltedRecipes = new ConcurrentHashMap<>();
@@ -47,6 +51,11 @@ public class SimpleRecipeManager implements RecipeManager {
 	private final Map<Integer, RecipeTree> allShapedRecipes = new ConcurrentHashMap<>();
 	private final Map<Integer, Set<ShapelessRecipe>> allShapelessRecipes = new ConcurrentHashMap<>();
 	private final Map<Integer, Set<SmeltedRecipe>> allSmeltedRecipes = new ConcurrentHashMap<>();
+	private final RecipeIndex allIndex = new RecipeIndex();
+	private final Map<Plugin, RecipeIndex> pluginIndexes = new ConcurrentHashMap<>();
+	private final Map<MemoKey, Object> shapedMatches = new ConcurrentHashMap<>();
+	private final Map<MemoKey, Object> shapelessMatches = new ConcurrentHashMap<>();
+	private final AtomicInteger generation = new AtomicInteger(0);
 
 	@Override
 	public boolean register(Recipe recipe) {
@@ -81,6 +90,7 @@ public class SimpleRecipeManager implements RecipeManager {
 				registeredShapedRecipes.get(plugin).put(recipe.getIngredients().size(), recipes);
 			}
 			failed = !registeredShapedRecipes.get(plugin).get(recipe.getIngredients().size()).addRecipe(recipe) || failed;
+			getIndex(plugin).add(recipe);
 		}
 
 		if (allShapedRecipes.get(recipe.getIngredients().size()) == null) {
@@ -88,6 +98,8 @@ public class SimpleRecipeManager implements RecipeManager {
 			allShapedRecipes.put(recipe.getIngredients().size(), recipes);
 		}
 		failed = !allShapedRecipes.get(recipe.getIngredients().size()).addRecipe(recipe) || failed;
+		allIndex.add(recipe);
+		invalidateMatches();
 		return !failed;
 	}
 
@@ -105,6 +117,7 @@ public class SimpleRecipeManager implements RecipeManager {
 				registeredShapelessRecipes.get(plugin).put(recipe.getIngredients().size(), recipes);
 			}
 			failed = !registeredShapelessRecipes.get(plugin).get(recipe.getIngredients().size()).add(recipe) || failed;
+			getIndex(plugin).add(recipe);
 		}
 
 		if (allShapelessRecipes.get(recipe.getIngredients().size()) == null) {
@@ -112,9 +125,26 @@ public class SimpleRecipeManager implements RecipeManager {
 			allShapelessRecipes.put(recipe.getIngredients().size(), recipes);
 		}
 		failed = !allShapelessRecipes.get(recipe.getIngredients().size()).add(recipe) || failed;
+		allIndex.add(recipe);
+		invalidateMatches();
 		return !failed;
 	}
 
+	private RecipeIndex getIndex(Plugin plugin) {
+		RecipeIndex index = pluginIndexes.get(plugin);
+		if (index == null) {
+			index = new RecipeIndex();
+			pluginIndexes.put(plugin, index);
+		}
+		return index;
+	}
+
+	private void invalidateMatches() {
+		generation.incrementAndGet();
+		shapedMatches.clear();
+		shapelessMatches.clear();
+	}
+
 	private boolean registerSmelted(SmeltedRecipe recipe) {
 		boolean failed = false;
 		Plugin plugin = recipe.getPlugin();
@@ -174,11 +204,14 @@ public class SimpleRecipeManager implements RecipeManager {
 				return false;
 			}
 			failed = !registeredShapedRecipes.get(plugin).get(recipe.getIngredients().size()).removeRecipe(recipe) || failed;
+			getIndex(plugin).remove(recipe);
 		}
 		if (!allShapedRecipes.containsKey(recipe.getIngredients().size())) {
 			return false;
 		}
 		failed = !allShapedRecipes.get(recipe.getIngredients().size()).removeRecipe(recipe) || failed;
+		allIndex.remove(recipe);
+		invalidateMatches();
 		return !failed;
 	}
 
@@ -196,11 +229,14 @@ public class SimpleRecipeManager implements RecipeManager {
 				return false;
 			}
 			failed = !registeredShapelessRecipes.get(recipe.getPlugin()).get(recipe.getIngredients().size()).remove(recipe) || failed;
+			getIndex(plugin).remove(recipe);
 		}
 		if (!allShapelessRecipes.containsKey(recipe.getIngredients().size())) {
 			return false;
 		}
 		failed = !allShapelessRecipes.get(recipe.getIngredients().size()).remove(recipe) || failed;
+		allIndex.remove(recipe);
+		invalidateMatches();
 		return !failed;
 	}
 
@@ -211,6 +247,9 @@ public class SimpleRecipeManager implements RecipeManager {
 		allRecipes.clear();
 		allShapedRecipes.clear();
 		allShapelessRecipes.clear();
+		allIndex.clear();
+		pluginIndexes.clear();
+		invalidateMatches();
 	}
 
 	@Override
@@ -251,168 +290,119 @@ public class SimpleRecipeManager implements RecipeManager {
 
 	@Override
 	public ShapedRecipe matchShapedRecipe(List<List<Material>> materials) {
-		Set<Material> set = new HashSet<>();
-		List<List<Material>> list = new ArrayList<>();
-		List<List<Material>> parentList = new ArrayList<>();
-		for (List<Material> materialsRow : materials) {
-			List<Material> parentRow = new ArrayList<>();
-			List<Material> row = new ArrayList<>();
-			for (Material m : materialsRow) {
-				row.add(m);
-				Material parent = m;
-				if (m != null) {
-					set.add(m);
-					if (m.isSubMaterial()) {
-						parent = m.getParentMaterial();
-					}
-				}
-				parentRow.add(parent);
-			}
-			parentList.add(parentRow);
-			list.add(row);
-		}
-
-		if (!allShapedRecipes.containsKey(set.size())) {
-			return null;
-		}
-		ShapedRecipe recipe = allShapedRecipes.get(set.size()).matchShapedRecipe(list, true);
-		if (recipe == null) {
-			recipe = allShapedRecipes.get(set.size()).matchShapedRecipe(parentList, false);
-		}
-		return recipe;
+		return matchShaped(null, materials);
 	}
 
 	@Override
 	public ShapelessRecipe matchShapelessRecipe(List<Material> materials) {
-		Set<Material> unique = new HashSet<>();
-		List<Material> parentList = new ArrayList<>();
-		for (Material m : materials) {
-			while (m.isSubMaterial()) {
-				m = m.getParentMaterial();
-			}
-			parentList.add(m);
-		}
-		unique.addAll(parentList);
-		unique.removeAll(Collections.singletonList(null));
-
-		ShapelessRecipe recipe = null;
-		if (!allShapelessRecipes.containsKey(unique.size())) {
-			return null;
-		}
-		for (ShapelessRecipe r : allShapelessRecipes.get(unique.size())) {
-			if (r.getIncludeData()) {
-				List<Material> materialsCopy = new ArrayList<>(materials);
-				List<Material> ingredientsCopy = new ArrayList<>(r.getIngredients());
-				Collections.sort(materialsCopy, new MaterialComparable());
-				Collections.sort(ingredientsCopy, new MaterialComparable());
-				if (materialsCopy.equals(ingredientsCopy)) {
-					recipe = r;
-					break;
-				}
-			} else {
-				List<Material> parentsCopy = new ArrayList<>(parentList);
-				List<Material> ingredientsCopy = new ArrayList<>(r.getIngredients());
-				Collections.sort(parentsCopy, new MaterialComparable());
-				Collections.sort(ingredientsCopy, new MaterialComparable());
-				if (parentsCopy.equals(ingredientsCopy)) {
-					recipe = r;
-					break;
-				}
-			}
-		}
-		return recipe;
+		return matchShapeless(null, materials);
 	}
 
 	@Override
 	public ShapedRecipe matchShapedRecipe(Plugin plugin, List<List<Material>> materials) {
-		Set<Material> set = new HashSet<>();
-		List<List<Material>> parentList = new ArrayList<>();
-		for (List<Material> row : materials) {
-			List<Material> parentRow = new ArrayList<>();
-			for (Material m : row) {
-				parentRow.add(m);
-				if (m != null) {
-					set.add(m);
-				}
-			}
-			parentList.add(parentRow);
-		}
+		return matchShaped(plugin, materials);
+	}
 
+	@Override
+	public ShapelessRecipe matchShapelessRecipe(Plugin plugin, List<Material> materials) {
+		return matchShapeless(plugin, materials);
+	}
+
+	/**
+	 * Matches a shaped recipe, the recipes of the plugin are tried before all the recipes
+	 *
+	 * @param plugin the plugin, or null to only match all the recipes
+	 * @param materials the rows of the crafting grid
+	 * @return the recipe, or null if none matches
+	 */
+	private ShapedRecipe matchShaped(Plugin plugin, List<List<Material>> materials) {
+		final RecipeKey exact = RecipeKey.shaped(materials, false);
+		if (exact == null) {
+			return null;
+		}
+		final MemoKey memoKey = new MemoKey(plugin, exact);
+		final int currentGeneration = generation.get();
+		final Object memoized = shapedMatches.get(memoKey);
+		if (memoized != null) {
+			return memoized == NO_MATCH ? null : (ShapedRecipe) memoized;
+		}
+		final RecipeKey parents = RecipeKey.shaped(materials, true);
 		ShapedRecipe recipe = null;
-		if (registeredShapedRecipes.containsKey(plugin) && registeredShapedRecipes.get(plugin).containsKey(set.size())) {
-			recipe = registeredShapedRecipes.get(plugin).get(set.size()).matchShapedRecipe(materials, true);
-			if (recipe == null) {
-				recipe = registeredShapedRecipes.get(plugin).get(set.size()).matchShapedRecipe(parentList, false);
+		if (plugin != null) {
+			final RecipeIndex index = pluginIndexes.get(plugin);
+			if (index != null) {
+				recipe = index.matchShaped(exact, parents);
 			}
 		}
-
 		if (recipe == null) {
-			recipe = matchShapedRecipe(materials);
+			recipe = allIndex.matchShaped(exact, parents);
 		}
-
+		memoize(shapedMatches, memoKey, recipe, currentGeneration);
 		return recipe;
 	}
 
-	@Override
-	public ShapelessRecipe matchShapelessRecipe(Plugin plugin, List<Material> materials) {
-		Set<Material> unique = new HashSet<>();
-		List<Material> parentList = new ArrayList<>();
-		for (Material m : materials) {
-			if (m.isSubMaterial()) {
-				m = m.getParentMaterial();
-			}
-			parentList.add(m);
+	/**
+	 * Matches a shapeless recipe, the recipes of the plugin are tried before all the recipes
+	 *
+	 * @param plugin the plugin, or null to only match all the recipes
+	 * @param materials the materials in the crafting grid
+	 * @return the recipe, or null if none matches
+	 */
+	private ShapelessRecipe matchShapeless(Plugin plugin, List<Material> materials) {
+		final RecipeKey exact = RecipeKey.shapeless(materials, false);
+		final MemoKey memoKey = new MemoKey(plugin, exact);
+		final int currentGeneration = generation.get();
+		final Object memoized = shapelessMatches.get(memoKey);
+		if (memoized != null) {
+			return memoized == NO_MATCH ? null : (ShapelessRecipe) memoized;
 		}
-		unique.addAll(parentList);
-		unique.removeAll(Collections.singletonList(null));
-
+		final RecipeKey parents = RecipeKey.shapeless(materials, true);
 		ShapelessRecipe recipe = null;
-		if (registeredShapelessRecipes.containsKey(plugin) && registeredShapelessRecipes.get(plugin).containsKey(unique.size())) {
-			for (ShapelessRecipe r : registeredShapelessRecipes.get(plugin).get(unique.size())) {
-				if (r.getIncludeData()) {
-					List<Material> materialsCopy = new ArrayList<>(materials);
-					List<Material> ingredientsCopy = new ArrayList<>(r.getIngredients());
-					Collections.sort(materialsCopy, new MaterialComparable());
-					Collections.sort(ingredientsCopy, new MaterialComparable());
-					if (materialsCopy.equals(ingredientsCopy)) {
-						recipe = r;
-						break;
-					}
-				} else {
-					List<Material> parentsCopy = new ArrayList<>(parentList);
-					List<Material> ingredientsCopy = new ArrayList<>(r.getIngredients());
-					Collections.sort(parentsCopy, new MaterialComparable());
-					Collections.sort(ingredientsCopy, new MaterialComparable());
-					if (parentsCopy.equals(ingredientsCopy)) {
-						recipe = r;
-						break;
-					}
-				}
+		if (plugin != null) {
+			final RecipeIndex index = pluginIndexes.get(plugin);
+			if (index != null) {
+				recipe = index.matchShapeless(exact, parents);
 			}
 		}
 		if (recipe == null) {
-			recipe = matchShapelessRecipe(materials);
+			recipe = allIndex.matchShapeless(exact, parents);
 		}
-
+		memoize(shapelessMatches, memoKey, recipe, currentGeneration);
 		return recipe;
 	}
 
-	private static class MaterialComparable implements Comparator<Material> {
+	private void memoize(Map<MemoKey, Object> matches, MemoKey key, Recipe recipe, int matchGeneration) {
+		if (matches.size() >= MAX_MEMOIZED) {
+			matches.clear();
+		}
+		matches.put(key, recipe == null ? NO_MATCH : recipe);
+		if (generation.get() != matchGeneration) {
+			// The recipes changed during the match
+			matches.remove(key);
+		}
+	}
+
+	private static class MemoKey {
+		private final Plugin plugin;
+		private final RecipeKey key;
+
+		public MemoKey(Plugin plugin, RecipeKey key) {
+			this.plugin = plugin;
+			this.key = key;
+		}
+
 		@Override
-		public int compare(Material o1, Material o2) {
-			if (o1 == null) {
-				if (o2 == null) {
-					return 0;
-				}
-				return -1;
-			}
-			if (o2 == null) {
-				return 1;
-			}
-			if (o1.equals(o2)) {
-				return 0;
+		public int hashCode() {
+			return 31 * (plugin == null ? 0 : plugin.hashCode()) + key.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof MemoKey)) {
+				return false;
 			}
-			return o1.getName().compareTo(o2.getName());
+			final MemoKey other = (MemoKey) obj;
+			return plugin == other.plugin && key.equals(other.key);
 		}
 	}
 }
@@ -55,6 +55,10 @@ public final class BAAOpenInProgress implements ByteArrayArray {
 		return false;
 	}
 
+	@Override
+	public void sync() throws IOException {
+	}
+
 	@Override
 	public boolean isTimedOut() {
 		return false;
@@ -87,6 +87,66 @@ public class BAAWrapper {
 		return true;
 	}
 
+	/**
+	 * Writes all completed block writes to the storage device.  Nothing is done if the file is not open, since closing a file writes it.
+	 *
+	 * @return true on success
+	 */
+	public boolean sync() {
+		while (true) {
+			ByteArrayArray baa = baaRef.get();
+			if (baa == null) {
+				return true;
+			}
+			if (baa == openInProgress) {
+				continue;
+			}
+			try {
+				baa.sync();
+				return true;
+			} catch (BAAClosedException e) {
+				return true;
+			} catch (IOException e) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Opens the underlying file if it isn't open already. This reads the header and allocation table of the file.
+	 *
+	 * @return true if the file is open
+	 */
+	public boolean open() {
+		while (true) {
+			ByteArrayArray baa = getByteArrayArray();
+			if (baa == null) {
+				return false;
+			}
+			if (baa != openInProgress) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Called on every access to the file, after the file has been opened if needed
+	 *
+	 * @param opened true if the file was opened by this access
+	 */
+	protected void onAccess(boolean opened) {
+	}
+
+	/**
+	 * Gets if the underlying file is currently open
+	 *
+	 * @return true if the file is open
+	 */
+	public boolean isOpen() {
+		ByteArrayArray baa = baaRef.get();
+		return baa != null && baa != openInProgress && !baa.isClosed();
+	}
+
 	/**
 	 * Checks if the InputStream exists at the given index.
 	 *
@@ -203,6 +263,9 @@ public class BAAWrapper {
 			if (baa != null) {
 				// If the baa exists and isn't closed return it
 				if (!baa.isClosed()) {
+					if (baa != openInProgress) {
+						onAccess(false);
+					}
 					return baa;
 				}
 				baaRef.compareAndSet(baa, null);
@@ -220,13 +283,15 @@ public class BAAWrapper {
 						e.printStackTrace();
 						baa = null; // not needed - already null. The assignment above comes after the potential IOException. 
 					}
-
-					return baa;
 				} finally {
 					if (!baaRef.compareAndSet(openInProgress, baa)) {
 						throw new IllegalStateException("chunkStore variable changed outside locking scheme");
 					}
 				}
+				if (baa != null) {
+					onAccess(true);
+				}
+				return baa;
 			}
 
 			// Some other thread is trying to open the file
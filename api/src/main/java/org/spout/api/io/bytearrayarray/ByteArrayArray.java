@@ -59,6 +59,11 @@ public interface ByteArrayArray {
 	 */
 	public boolean attemptClose() throws IOException;
 
+	/**
+	 * Writes all completed block writes to the storage device.  Blocks with open DataOutputStreams are not included.
+	 */
+	public void sync() throws IOException;
+
 	/**
 	 * Checks if the access timeout has expired
 	 *
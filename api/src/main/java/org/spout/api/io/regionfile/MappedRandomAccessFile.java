@@ -30,20 +30,26 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.FileChannel;
-import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * A file which is accessed through memory mapped pages.<br> <br> The seek based methods share a single file position and must be externally synchronized.  The positional methods, which take the
+ * file position as a parameter, do not modify any shared state and may be called concurrently, provided that the regions being read are not being written at the same time.
+ */
 public class MappedRandomAccessFile {
 	private final File filePath;
 	private final String permissions;
 	private long pos = 0;
-	private final ArrayList<MappedByteBuffer> pages = new ArrayList<>();
+	private volatile AtomicReferenceArray<MappedByteBuffer> pages = new AtomicReferenceArray<>(0);
+	private final Object pageLock = new Object();
 	private final int PAGE_SHIFT;
 	private final int PAGE_SIZE;
 	private final long PAGE_MASK;
-	private RandomAccessFile file;
+	private volatile RandomAccessFile file;
 
 	public MappedRandomAccessFile(File filePath, String permissions) throws FileNotFoundException {
 		this(filePath, permissions, 17);
@@ -63,12 +69,25 @@ public class MappedRandomAccessFile {
 	}
 
 	public void close() throws IOException {
-		for (MappedByteBuffer m : pages) {
-			if (m != null) {
-				m.force();
+		synchronized (pageLock) {
+			force();
+			file.close();
+		}
+	}
+
+	/**
+	 * Writes any changes to the mapped pages to the storage device
+	 */
+	public void force() throws IOException {
+		synchronized (pageLock) {
+			AtomicReferenceArray<MappedByteBuffer> pages = this.pages;
+			for (int i = 0; i < pages.length(); i++) {
+				MappedByteBuffer m = pages.get(i);
+				if (m != null) {
+					m.force();
+				}
 			}
 		}
-		file.close();
 	}
 
 	byte[] intArray = new byte[4];
@@ -82,7 +101,24 @@ public class MappedRandomAccessFile {
 	}
 
 	public int readInt() throws IOException {
-		readFully(intArray);
+		int i = readInt(pos);
+		pos += 4;
+		return i;
+	}
+
+	/**
+	 * Reads an int from the given position, without using or changing the file position
+	 *
+	 * @param pos the position in the file
+	 * @return the int
+	 */
+	public int readInt(long pos) throws IOException {
+		int offset = (int) (pos & PAGE_MASK);
+		if (offset <= PAGE_SIZE - 4) {
+			return getPage((int) (pos >> PAGE_SHIFT)).getInt(offset);
+		}
+		byte[] intArray = new byte[4];
+		read(pos, intArray, 0, 4);
 		int i = 0;
 		i |= (intArray[0] & 0xFF) << 24;
 		i |= (intArray[1] & 0xFF) << 16;
@@ -92,34 +128,48 @@ public class MappedRandomAccessFile {
 	}
 
 	private MappedByteBuffer getPage(int pageIndex) throws IOException {
-		while (pageIndex >= pages.size()) {
-			pages.add(null);
+		AtomicReferenceArray<MappedByteBuffer> pages = this.pages;
+		if (pageIndex < pages.length()) {
+			MappedByteBuffer page = pages.get(pageIndex);
+			if (page != null) {
+				return page;
+			}
 		}
-		MappedByteBuffer page = pages.get(pageIndex);
-		if (page == null) {
-			long pagePosition = pageIndex << PAGE_SHIFT;
-			boolean interrupted = false;
-			boolean success = false;
-			try {
-				while (!success) {
-					try {
-						interrupted |= Thread.interrupted();
-						page = file.getChannel().map(FileChannel.MapMode.READ_WRITE, pagePosition, PAGE_SIZE);
-						success = true;
-					} catch (ClosedByInterruptException e) {
-						file = new RandomAccessFile(filePath, permissions);
-					} catch (IOException e) {
-						throw new IOException("Unable to refresh RandomAccessFile after interrupt, " + filePath, e);
-					}
+		synchronized (pageLock) {
+			pages = this.pages;
+			if (pageIndex >= pages.length()) {
+				AtomicReferenceArray<MappedByteBuffer> newPages = new AtomicReferenceArray<>(Math.max(pageIndex + 1, pages.length() << 1));
+				for (int i = 0; i < pages.length(); i++) {
+					newPages.set(i, pages.get(i));
 				}
-			} finally {
-				if (interrupted) {
-					Thread.currentThread().interrupt();
+				this.pages = pages = newPages;
+			}
+			MappedByteBuffer page = pages.get(pageIndex);
+			if (page == null) {
+				long pagePosition = (long) pageIndex << PAGE_SHIFT;
+				boolean interrupted = false;
+				boolean success = false;
+				try {
+					while (!success) {
+						try {
+							interrupted |= Thread.interrupted();
+							page = file.getChannel().map(FileChannel.MapMode.READ_WRITE, pagePosition, PAGE_SIZE);
+							success = true;
+						} catch (ClosedByInterruptException e) {
+							file = new RandomAccessFile(filePath, permissions);
+						} catch (IOException e) {
+							throw new IOException("Unable to refresh RandomAccessFile after interrupt, " + filePath, e);
+						}
+					}
+				} finally {
+					if (interrupted) {
+						Thread.currentThread().interrupt();
+					}
 				}
+				pages.set(pageIndex, page);
 			}
-			pages.set(pageIndex, page);
+			return page;
 		}
-		return page;
 	}
 
 	public void seek(long pos) throws IOException {
@@ -127,67 +177,60 @@ public class MappedRandomAccessFile {
 	}
 
 	public void readFully(byte[] b) throws IOException {
+		read(pos, b, 0, b.length);
+		pos += b.length;
+	}
+
+	/**
+	 * Reads bytes from the given position, without using or changing the file position.<br> <br> Each page is accessed through a duplicate, so concurrent reads do not interfere with each other.
+	 *
+	 * @param pos the position in the file
+	 * @param b the buffer to read into
+	 * @param off the offset in the buffer
+	 * @param len the number of bytes to read
+	 */
+	public void read(long pos, byte[] b, int off, int len) throws IOException {
 		int pageIndex = (int) (pos >> PAGE_SHIFT);
 		int offset = (int) (pos & PAGE_MASK);
-		int endPageOne = Math.min(b.length + offset, PAGE_SIZE);
-
-		MappedByteBuffer page = getPage(pageIndex);
 
-		int j = 0;
-
-		int length = endPageOne - offset;
-
-		page.position(offset);
-
-		page.get(b, j, length);
-		j += length;
-
-		while (b.length > j) {
+		while (len > 0) {
+			int length = Math.min(len, PAGE_SIZE - offset);
+			ByteBuffer page = getPage(pageIndex).duplicate();
+			page.position(offset);
+			page.get(b, off, length);
+			off += length;
+			len -= length;
 			pageIndex++;
-			page = getPage(pageIndex);
-			page.position(0);
-			if (b.length - j > PAGE_SIZE) {
-				length = PAGE_SIZE;
-			} else {
-				length = b.length - j;
-			}
-
-			page.get(b, j, length);
-			j += length;
+			offset = 0;
 		}
-
-		pos += b.length;
 	}
 
 	public void write(byte[] b, int off, int len) throws IOException {
+		write(pos, b, off, len);
+		pos += len;
+	}
+
+	/**
+	 * Writes bytes to the given position, without using or changing the file position
+	 *
+	 * @param pos the position in the file
+	 * @param b the buffer to write from
+	 * @param off the offset in the buffer
+	 * @param len the number of bytes to write
+	 */
+	public void write(long pos, byte[] b, int off, int len) throws IOException {
 		int pageIndex = (int) (pos >> PAGE_SHIFT);
 		int offset = (int) (pos & PAGE_MASK);
-		int endPageOne = Math.min(len + offset, PAGE_SIZE);
-
-		MappedByteBuffer page = getPage(pageIndex);
-
-		int j = 0;
-
-		int length = endPageOne - offset;
-
-		page.position(offset);
 
-		page.put(b, off + j, length);
-		j += length;
-
-		while (len > j) {
+		while (len > 0) {
+			int length = Math.min(len, PAGE_SIZE - offset);
+			ByteBuffer page = getPage(pageIndex).duplicate();
+			page.position(offset);
+			page.put(b, off, length);
+			off += length;
+			len -= length;
 			pageIndex++;
-			page = getPage(pageIndex);
-			page.position(0);
-			if (len - j > PAGE_SIZE) {
-				length = PAGE_SIZE;
-			} else {
-				length = len - j;
-			}
-			page.put(b, off + j, length);
-			j += length;
+			offset = 0;
 		}
-
-		pos += len;
 	}
 }
@@ -52,7 +52,7 @@ public class SimpleRegionFile implements ByteArrayArray {
 	public static final int FILE_CLOSED = -1;
 	private final File filePath;
 	private final Object fileSyncObject = new Object();
-	private MappedRandomAccessFile file;
+	private volatile MappedRandomAccessFile file;
 	@SuppressWarnings ("unused")
 	private final int version;
 	private final int timeout;
@@ -192,16 +192,11 @@ public class SimpleRegionFile implements ByteArrayArray {
 				//This block is of 0 length, and will cause EOF errors if you attempt to make a stream with it.
 				return null;
 			}
-			int start = blockSegmentStart[i].get() << segmentSize;
+			long start = (long) blockSegmentStart[i].get() << segmentSize;
 			int actualLength = blockActualLength[i].get();
 			byte[] result = new byte[actualLength];
-			synchronized (fileSyncObject) {
-				if (file == null) {
-					this.file = new MappedRandomAccessFile(this.filePath, "rw");
-				}
-				file.seek(start);
-				file.readFully(result);
-			}
+			// The block read lock prevents the block being rewritten and the file being closed, so a positional read is safe without the file monitor
+			getFile().read(start, result, 0, actualLength);
 			return new BufferedInputStream(new InflaterInputStream(new ByteArrayInputStream(result)));
 		} finally {
 			lock.unlock();
@@ -237,8 +232,7 @@ public class SimpleRegionFile implements ByteArrayArray {
 				this.file = new MappedRandomAccessFile(this.filePath, "rw");
 			}
 			this.writeFAT(i, start, length);
-			file.seek(start << segmentSize);
-			file.write(buf, 0, length);
+			file.write((long) start << segmentSize, buf, 0, length);
 		}
 	}
 
@@ -270,6 +264,18 @@ public class SimpleRegionFile implements ByteArrayArray {
 		}
 	}
 
+	@Override
+	public void sync() throws IOException {
+		synchronized (fileSyncObject) {
+			if (this.isClosed()) {
+				throw new SRFClosedException("File closed");
+			}
+			if (file != null) {
+				file.force();
+			}
+		}
+	}
+
 	@Override
 	public boolean isTimedOut() {
 		return this.lastAccess.get() + this.timeout < System.currentTimeMillis();
@@ -474,6 +480,24 @@ public class SimpleRegionFile implements ByteArrayArray {
 		return newStart;
 	}
 
+	/**
+	 * Gets the mapped file, reopening it if required
+	 *
+	 * @return the file
+	 */
+	private MappedRandomAccessFile getFile() throws IOException {
+		MappedRandomAccessFile file = this.file;
+		if (file == null) {
+			synchronized (fileSyncObject) {
+				if (this.file == null) {
+					this.file = new MappedRandomAccessFile(this.filePath, "rw");
+				}
+				file = this.file;
+			}
+		}
+		return file;
+	}
+
 	private void writeFAT(int i, int start, int actualLength) throws IOException {
 		int FATEntryPosition = getFATOffset() + (i << 3);
 		synchronized (fileSyncObject) {
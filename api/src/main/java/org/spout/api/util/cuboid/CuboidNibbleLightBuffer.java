@@ -31,11 +31,28 @@ import java.util.Arrays;
 import org.spout.api.lighting.Modifiable;
 
 public class CuboidNibbleLightBuffer extends CuboidLightBuffer {
-	protected final byte[] lightData;
+	/**
+	 * The light data, two nibbles per byte.  The array may be shared with copies of this buffer, {@link #unshare()} must be called before writing to it, while holding the lock of this buffer.
+	 */
+	protected byte[] lightData;
+	/**
+	 * True if the light data array may be shared with a copy of this buffer
+	 */
+	private volatile boolean shared = false;
 	private CuboidNibbleLightBuffer source = null;
 
+	/**
+	 * Creates a copy of the given buffer.  The light data array is shared between the two buffers until one of them is written to.
+	 *
+	 * @param buffer the buffer to copy
+	 */
 	protected CuboidNibbleLightBuffer(CuboidNibbleLightBuffer buffer) {
-		this(buffer.holder, buffer.getManagerId(), buffer.baseX, buffer.baseY, buffer.baseZ, buffer.sizeX, buffer.sizeY, buffer.sizeZ, buffer.lightData);
+		super(buffer.holder, buffer.getManagerId(), buffer.baseX, buffer.baseY, buffer.baseZ, buffer.sizeX, buffer.sizeY, buffer.sizeZ);
+		synchronized (buffer) {
+			this.lightData = buffer.lightData;
+			buffer.shared = true;
+		}
+		this.shared = true;
 	}
 
 	protected CuboidNibbleLightBuffer(Modifiable holder, short id, int baseX, int baseY, int baseZ, int sizeX, int sizeY, int sizeZ) {
@@ -54,7 +71,6 @@ public class CuboidNibbleLightBuffer extends CuboidLightBuffer {
 				throw new IllegalArgumentException("The length of the given array is invalid, " + data.length + ", expected length, " + arrayLength);
 			}
 			this.lightData = Arrays.copyOf(data, data.length);
-			;
 		} else {
 			this.lightData = new byte[arrayLength];
 		}
@@ -72,27 +88,30 @@ public class CuboidNibbleLightBuffer extends CuboidLightBuffer {
 	@Override
 	public void copyElement(int thisIndex, int sourceIndex, int runLength) {
 		holder.setModified();
-		if (!isEven(thisIndex + sourceIndex)) {
-			// means one is even and one is odd
-			for (int i = 0; i < runLength; i++) {
-				set(thisIndex++, source.get(sourceIndex++));
-			}
-		} else { // both even or odd (means can copy the underlying arrays)
-			// If both even add copy the first elements slowly
-			if (!isEven(thisIndex)) {
-				set(thisIndex++, source.get(sourceIndex++));
-				runLength--;
-			}
-			// If the remaining elements are odd, copy the last element slowly
-			if (!isEven(runLength)) {
-				set(thisIndex + runLength - 1, source.get(sourceIndex + runLength - 1));
-			}
-			// Copy the remaining elements with direct array to array copy
-			runLength >>= 1;
-			thisIndex >>= 1;
-			sourceIndex >>= 1;
-			for (int i = 0; i < runLength; i++) {
-				lightData[thisIndex++] = source.lightData[sourceIndex++];
+		synchronized (this) {
+			unshare();
+			if (!isEven(thisIndex + sourceIndex)) {
+				// means one is even and one is odd
+				for (int i = 0; i < runLength; i++) {
+					set(thisIndex++, source.get(sourceIndex++));
+				}
+			} else { // both even or odd (means can copy the underlying arrays)
+				// If both even add copy the first elements slowly
+				if (!isEven(thisIndex)) {
+					set(thisIndex++, source.get(sourceIndex++));
+					runLength--;
+				}
+				// If the remaining elements are odd, copy the last element slowly
+				if (!isEven(runLength)) {
+					set(thisIndex + runLength - 1, source.get(sourceIndex + runLength - 1));
+				}
+				// Copy the remaining elements with direct array to array copy
+				runLength >>= 1;
+				thisIndex >>= 1;
+				sourceIndex >>= 1;
+				for (int i = 0; i < runLength; i++) {
+					lightData[thisIndex++] = source.lightData[sourceIndex++];
+				}
 			}
 		}
 	}
@@ -107,12 +126,16 @@ public class CuboidNibbleLightBuffer extends CuboidLightBuffer {
 
 	public void set(int index, byte value) {
 		holder.setModified();
-		if (isEven(index)) {
-			index >>= 1;
-			lightData[index] = (byte) ((lightData[index] & 0xF0) | (value & 0x0F));
-		} else {
-			index >>= 1;
-			lightData[index] = (byte) ((lightData[index] & 0x0F) | (value << 4));
+		// Written under the same lock as the copy constructor, so a copy can not be taken between unsharing and writing
+		synchronized (this) {
+			unshare();
+			if (isEven(index)) {
+				index >>= 1;
+				lightData[index] = (byte) ((lightData[index] & 0xF0) | (value & 0x0F));
+			} else {
+				index >>= 1;
+				lightData[index] = (byte) ((lightData[index] & 0x0F) | (value << 4));
+			}
 		}
 	}
 
@@ -140,6 +163,20 @@ public class CuboidNibbleLightBuffer extends CuboidLightBuffer {
 		return Arrays.copyOf(lightData, lightData.length);
 	}
 
+	/**
+	 * Gives this buffer its own copy of the light data array, if the array is shared with a copy of this buffer
+	 */
+	protected final void unshare() {
+		if (shared) {
+			synchronized (this) {
+				if (shared) {
+					lightData = Arrays.copyOf(lightData, lightData.length);
+					shared = false;
+				}
+			}
+		}
+	}
+
 	protected static boolean isEven(int i) {
 		return (i | 1) != i;
 	}
@@ -0,0 +1,321 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.util.list;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A hierarchical timing wheel which orders entries by time with a resolution of one time unit.<br> <br> Each level has 64 slots, a slot of level n covering 64^n time units, so adding and removing an
+ * entry is O(1), and each entry is moved down at most once per level before it expires. Entries which expire at the same time are returned in the order they were added. Entries added for a time
+ * before the current time of the wheel expire as soon as possible.<br> <br> This class is not thread safe.
+ *
+ * @param <T> the entry type
+ */
+public class TimingWheel<T extends TimingWheelEntry> implements Iterable<T> {
+	private static final int BITS = 6;
+	private static final int SLOTS = 1 << BITS;
+	private static final int MASK = SLOTS - 1;
+	private static final int LEVELS = (Long.SIZE + BITS - 1) / BITS;
+	private final TimingWheelEntry[] heads = new TimingWheelEntry[LEVELS * SLOTS];
+	private final TimingWheelEntry[] tails = new TimingWheelEntry[LEVELS * SLOTS];
+	private final long[] occupied = new long[LEVELS];
+	private long now;
+	private int size = 0;
+	private long firstTime = Long.MAX_VALUE;
+	private boolean firstTimeValid = true;
+
+	/**
+	 * Creates a new timing wheel
+	 *
+	 * @param startTime the current time, no entry expires before it
+	 */
+	public TimingWheel(long startTime) {
+		this.now = startTime;
+	}
+
+	/**
+	 * Adds an entry to the wheel
+	 *
+	 * @param entry the entry
+	 * @param time the time at which the entry expires
+	 * @throws IllegalStateException if the entry is already queued
+	 */
+	public void add(T entry, long time) {
+		if (entry.wheel != null) {
+			throw new IllegalStateException("Entry is already queued in a timing wheel");
+		}
+		entry.wheel = this;
+		entry.time = time;
+		place(entry);
+		size++;
+		if (firstTimeValid) {
+			firstTime = Math.min(firstTime, Math.max(time, now));
+		}
+	}
+
+	/**
+	 * Removes an entry from the wheel
+	 *
+	 * @param entry the entry
+	 * @return true if the entry was queued in this wheel
+	 */
+	public boolean remove(T entry) {
+		if (entry.wheel != this) {
+			return false;
+		}
+		unlink(entry);
+		size--;
+		firstTimeValid = false;
+		return true;
+	}
+
+	/**
+	 * Removes and returns the next entry which expires at or before the threshold time
+	 *
+	 * @param threshold the threshold time
+	 * @return the entry, or null if no entry expires at or before the threshold
+	 */
+	@SuppressWarnings ("unchecked")
+	public T poll(long threshold) {
+		while (size > 0) {
+			if (occupied[0] != 0) {
+				final int slot = Long.numberOfTrailingZeros(occupied[0]);
+				final long slotTime = (now & ~(long) MASK) | slot;
+				if (slotTime > threshold) {
+					return null;
+				}
+				now = slotTime;
+				final TimingWheelEntry entry = heads[slot];
+				unlink(entry);
+				size--;
+				firstTimeValid = false;
+				return (T) entry;
+			}
+			int level = 1;
+			while (occupied[level] == 0) {
+				level++;
+			}
+			final int slot = Long.numberOfTrailingZeros(occupied[level]);
+			final long slotTime = slotStart(level, slot);
+			if (slotTime > threshold) {
+				return null;
+			}
+			now = slotTime;
+			cascade(level, slot);
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the earliest time at which an entry expires.<br> <br> Entries which were added for a time before the current time of the wheel are reported at the current time.
+	 *
+	 * @return the earliest time, or Long.MAX_VALUE if the wheel is empty
+	 */
+	public long getFirstTime() {
+		if (!firstTimeValid) {
+			firstTime = findFirstTime();
+			firstTimeValid = true;
+		}
+		return firstTime;
+	}
+
+	/**
+	 * Gets the current time of the wheel, which is the time of the last expired slot
+	 *
+	 * @return the current time
+	 */
+	public long getCurrentTime() {
+		return now;
+	}
+
+	/**
+	 * Gets the number of queued entries
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets if the wheel is empty
+	 *
+	 * @return true if empty
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all the entries from the wheel
+	 */
+	public void clear() {
+		for (int i = 0; i < heads.length; i++) {
+			TimingWheelEntry entry = heads[i];
+			while (entry != null) {
+				final TimingWheelEntry next = entry.next;
+				entry.wheel = null;
+				entry.prev = null;
+				entry.next = null;
+				entry = next;
+			}
+			heads[i] = null;
+			tails[i] = null;
+		}
+		for (int i = 0; i < LEVELS; i++) {
+			occupied[i] = 0;
+		}
+		size = 0;
+		firstTime = Long.MAX_VALUE;
+		firstTimeValid = true;
+	}
+
+	/**
+	 * Iterates over the queued entries, in no particular order. The wheel must not be modified during the iteration.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+			private int index = -1;
+			private TimingWheelEntry next = null;
+
+			@Override
+			public boolean hasNext() {
+				while (next == null) {
+					if (++index >= heads.length) {
+						return false;
+					}
+					next = heads[index];
+				}
+				return true;
+			}
+
+			@Override
+			@SuppressWarnings ("unchecked")
+			public T next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				final TimingWheelEntry entry = next;
+				next = entry.next;
+				return (T) entry;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("Entries must be removed through the wheel");
+			}
+		};
+	}
+
+	private long findFirstTime() {
+		if (size == 0) {
+			return Long.MAX_VALUE;
+		}
+		if (occupied[0] != 0) {
+			return (now & ~(long) MASK) | Long.numberOfTrailingZeros(occupied[0]);
+		}
+		int level = 1;
+		while (occupied[level] == 0) {
+			level++;
+		}
+		long first = Long.MAX_VALUE;
+		for (TimingWheelEntry entry = heads[level * SLOTS + Long.numberOfTrailingZeros(occupied[level])]; entry != null; entry = entry.next) {
+			first = Math.min(first, entry.time);
+		}
+		return first;
+	}
+
+	private long slotStart(int level, int slot) {
+		final int shift = level * BITS;
+		final int highShift = shift + BITS;
+		final long high = highShift >= Long.SIZE ? 0 : (now >>> highShift) << highShift;
+		return high | ((long) slot << shift);
+	}
+
+	private void cascade(int level, int slot) {
+		final int index = level * SLOTS + slot;
+		TimingWheelEntry entry = heads[index];
+		heads[index] = null;
+		tails[index] = null;
+		occupied[level] &= ~(1L << slot);
+		while (entry != null) {
+			final TimingWheelEntry next = entry.next;
+			entry.prev = null;
+			entry.next = null;
+			place(entry);
+			entry = next;
+		}
+	}
+
+	private void place(TimingWheelEntry entry) {
+		final long time = entry.time;
+		final int level;
+		final int slot;
+		if (time <= now) {
+			level = 0;
+			slot = (int) (now & MASK);
+		} else {
+			level = (Long.SIZE - 1 - Long.numberOfLeadingZeros(time ^ now)) / BITS;
+			slot = (int) (time >>> (level * BITS)) & MASK;
+		}
+		final int index = level * SLOTS + slot;
+		entry.slot = index;
+		final TimingWheelEntry tail = tails[index];
+		if (tail == null) {
+			heads[index] = entry;
+			occupied[level] |= 1L << slot;
+		} else {
+			tail.next = entry;
+			entry.prev = tail;
+		}
+		tails[index] = entry;
+	}
+
+	private void unlink(TimingWheelEntry entry) {
+		final int index = entry.slot;
+		if (entry.prev == null) {
+			heads[index] = entry.next;
+		} else {
+			entry.prev.next = entry.next;
+		}
+		if (entry.next == null) {
+			tails[index] = entry.prev;
+		} else {
+			entry.next.prev = entry.prev;
+		}
+		if (heads[index] == null) {
+			occupied[index / SLOTS] &= ~(1L << (index & MASK));
+		}
+		entry.prev = null;
+		entry.next = null;
+		entry.wheel = null;
+	}
+}
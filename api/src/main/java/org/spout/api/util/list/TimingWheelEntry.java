@@ -0,0 +1,57 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.util.list;
+
+/**
+ * An entry which can be queued in a {@link TimingWheel}.<br> <br> The links are stored in the entry itself, so queueing and removing an entry never allocates. An entry can only be queued in a single
+ * wheel at a time.
+ */
+public abstract class TimingWheelEntry {
+	TimingWheel<?> wheel;
+	TimingWheelEntry prev;
+	TimingWheelEntry next;
+	long time;
+	int slot;
+
+	/**
+	 * Gets the time this entry was queued for
+	 *
+	 * @return the time
+	 */
+	public final long getQueuedTime() {
+		return time;
+	}
+
+	/**
+	 * Gets if this entry is currently queued in a wheel
+	 *
+	 * @return true if queued
+	 */
+	public final boolean isQueued() {
+		return wheel != null;
+	}
+}
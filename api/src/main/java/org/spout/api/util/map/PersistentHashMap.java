@@ -0,0 +1,625 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.util.map;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable hash map based on a hash array mapped trie.<br> <br> Updates return a new map which shares all the unchanged nodes with the original, so an update only allocates the nodes on the
+ * path to the changed entry. Since the maps are immutable, publishing a map to other threads is a single reference write.<br> <br> Null keys and values are not supported.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+	private static final int BITS = 5;
+	private static final int MASK = (1 << BITS) - 1;
+	private static final int MAX_DEPTH = (32 + BITS - 1) / BITS + 1;
+	private static final BitmapNode EMPTY_NODE = new BitmapNode(0, new Object[0]);
+	@SuppressWarnings ("rawtypes")
+	private static final PersistentHashMap EMPTY = new PersistentHashMap<>(EMPTY_NODE, 0);
+	private final Node root;
+	private final int size;
+	private Set<K> keySet;
+	private Collection<V> values;
+	private Set<Map.Entry<K, V>> entrySet;
+
+	private PersistentHashMap(Node root, int size) {
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * Gets the empty map
+	 *
+	 * @return the empty map
+	 */
+	@SuppressWarnings ("unchecked")
+	public static <K, V> PersistentHashMap<K, V> empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Returns a map which contains all the entries of this map and maps the key to the value
+	 *
+	 * @param key the key
+	 * @param value the value
+	 * @return the new map, or this map if the key already mapped to the value
+	 */
+	public PersistentHashMap<K, V> plus(K key, V value) {
+		if (key == null || value == null) {
+			throw new NullPointerException("Null keys and values are not supported");
+		}
+		final boolean[] added = new boolean[1];
+		final Node newRoot = root.assoc(0, hash(key), key, value, added);
+		if (newRoot == root) {
+			return this;
+		}
+		return new PersistentHashMap<>(newRoot, added[0] ? size + 1 : size);
+	}
+
+	/**
+	 * Returns a map which contains all the entries of this map, except the entry for the key
+	 *
+	 * @param key the key
+	 * @return the new map, or this map if the key was not mapped
+	 */
+	public PersistentHashMap<K, V> minus(Object key) {
+		if (key == null) {
+			return this;
+		}
+		final Node newRoot = root.without(0, hash(key), key);
+		if (newRoot == root) {
+			return this;
+		}
+		if (newRoot == null) {
+			return empty();
+		}
+		return new PersistentHashMap<>(newRoot, size - 1);
+	}
+
+	@Override
+	@SuppressWarnings ("unchecked")
+	public V get(Object key) {
+		if (key == null) {
+			return null;
+		}
+		return (V) root.find(0, hash(key), key);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public Set<K> keySet() {
+		if (keySet == null) {
+			keySet = new AbstractSet<K>() {
+				@Override
+				public Iterator<K> iterator() {
+					return new NodeIterator<K>(root) {
+						@Override
+						@SuppressWarnings ("unchecked")
+						protected K current() {
+							return (K) key;
+						}
+					};
+				}
+
+				@Override
+				public boolean contains(Object o) {
+					return containsKey(o);
+				}
+
+				@Override
+				public int size() {
+					return size;
+				}
+			};
+		}
+		return keySet;
+	}
+
+	@Override
+	public Collection<V> values() {
+		if (values == null) {
+			values = new AbstractCollection<V>() {
+				@Override
+				public Iterator<V> iterator() {
+					return new NodeIterator<V>(root) {
+						@Override
+						@SuppressWarnings ("unchecked")
+						protected V current() {
+							return (V) value;
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return size;
+				}
+			};
+		}
+		return values;
+	}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new AbstractSet<Map.Entry<K, V>>() {
+				@Override
+				public Iterator<Map.Entry<K, V>> iterator() {
+					return new NodeIterator<Map.Entry<K, V>>(root) {
+						@Override
+						@SuppressWarnings ("unchecked")
+						protected Map.Entry<K, V> current() {
+							return new AbstractMap.SimpleImmutableEntry<>((K) key, (V) value);
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return size;
+				}
+			};
+		}
+		return entrySet;
+	}
+
+	/**
+	 * Compares this map to a previous version of it and reports the differences to the listener.<br> <br> Nodes shared by both maps are skipped, so the cost is proportional to the number of
+	 * updates between the two versions rather than the size of the maps. Values are compared by reference.
+	 *
+	 * @param previous the previous version of the map
+	 * @param listener the listener to report the differences to
+	 */
+	public void diff(PersistentHashMap<K, V> previous, DiffListener<? super K, ? super V> listener) {
+		diff(previous.root, root, 0, listener);
+	}
+
+	@SuppressWarnings ("unchecked")
+	private static <K, V> void diff(Node previous, Node current, int shift, DiffListener<K, V> listener) {
+		if (previous == current) {
+			return;
+		}
+		if (!(previous instanceof BitmapNode) || !(current instanceof BitmapNode)) {
+			slowDiff(previous, current, shift, listener);
+			return;
+		}
+		final BitmapNode p = (BitmapNode) previous;
+		final BitmapNode c = (BitmapNode) current;
+		int bits = p.bitmap | c.bitmap;
+		while (bits != 0) {
+			final int bit = Integer.lowestOneBit(bits);
+			bits ^= bit;
+			if ((c.bitmap & bit) == 0) {
+				p.slotRemoved(bit, listener);
+			} else if ((p.bitmap & bit) == 0) {
+				c.slotAdded(bit, listener);
+			} else {
+				final int pi = p.index(bit) << 1;
+				final int ci = c.index(bit) << 1;
+				final Object pk = p.array[pi];
+				final Object pv = p.array[pi + 1];
+				final Object ck = c.array[ci];
+				final Object cv = c.array[ci + 1];
+				if (pk == null && ck == null) {
+					diff((Node) pv, (Node) cv, shift + BITS, listener);
+				} else if (pk != null && ck != null) {
+					if (pk.equals(ck)) {
+						if (pv != cv) {
+							listener.changed((K) ck, (V) pv, (V) cv);
+						}
+					} else {
+						listener.removed((K) pk, (V) pv);
+						listener.added((K) ck, (V) cv);
+					}
+				} else {
+					slowDiff(p.slotNode(bit, shift), c.slotNode(bit, shift), shift + BITS, listener);
+				}
+			}
+		}
+	}
+
+	@SuppressWarnings ("unchecked")
+	private static <K, V> void slowDiff(Node previous, Node current, int shift, final DiffListener<K, V> listener) {
+		NodeIterator<Object> i = new NodeIterator<Object>(previous) {
+			@Override
+			protected Object current() {
+				return null;
+			}
+		};
+		while (i.hasNext()) {
+			i.next();
+			final Object value = current.find(shift, hash(i.key), i.key);
+			if (value == null) {
+				listener.removed((K) i.key, (V) i.value);
+			} else if (value != i.value) {
+				listener.changed((K) i.key, (V) i.value, (V) value);
+			}
+		}
+		i = new NodeIterator<Object>(current) {
+			@Override
+			protected Object current() {
+				return null;
+			}
+		};
+		while (i.hasNext()) {
+			i.next();
+			if (previous.find(shift, hash(i.key), i.key) == null) {
+				listener.added((K) i.key, (V) i.value);
+			}
+		}
+	}
+
+	private static int hash(Object key) {
+		final int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	private static Object[] cloneAndSet(Object[] array, int i, Object a) {
+		final Object[] clone = array.clone();
+		clone[i] = a;
+		return clone;
+	}
+
+	private static Object[] cloneAndSet(Object[] array, int i, Object a, int j, Object b) {
+		final Object[] clone = array.clone();
+		clone[i] = a;
+		clone[j] = b;
+		return clone;
+	}
+
+	private static Object[] removePair(Object[] array, int i) {
+		final Object[] newArray = new Object[array.length - 2];
+		System.arraycopy(array, 0, newArray, 0, i << 1);
+		System.arraycopy(array, (i + 1) << 1, newArray, i << 1, newArray.length - (i << 1));
+		return newArray;
+	}
+
+	private static Node createNode(int shift, Object key1, Object value1, int hash2, Object key2, Object value2) {
+		final int hash1 = hash(key1);
+		if (hash1 == hash2) {
+			return new CollisionNode(hash1, new Object[] {key1, value1, key2, value2});
+		}
+		final boolean[] added = new boolean[1];
+		return EMPTY_NODE.assoc(shift, hash1, key1, value1, added).assoc(shift, hash2, key2, value2, added);
+	}
+
+	/**
+	 * Receives the differences between two versions of a map
+	 *
+	 * @param <K> the key type
+	 * @param <V> the value type
+	 */
+	public static interface DiffListener<K, V> {
+		/**
+		 * Called for each key which is only mapped in the current version
+		 */
+		public void added(K key, V value);
+
+		/**
+		 * Called for each key which is only mapped in the previous version
+		 */
+		public void removed(K key, V oldValue);
+
+		/**
+		 * Called for each key which is mapped to a different value in each version
+		 */
+		public void changed(K key, V oldValue, V newValue);
+	}
+
+	private static abstract class Node {
+		/**
+		 * Gets the value for the key, or null if it is not mapped
+		 */
+		public abstract Object find(int shift, int hash, Object key);
+
+		/**
+		 * Gets a node with the key mapped to the value, or this node if nothing changed. added[0] is set to true if the key was not already mapped.
+		 */
+		public abstract Node assoc(int shift, int hash, Object key, Object value, boolean[] added);
+
+		/**
+		 * Gets a node without the key, this node if the key was not mapped or null if the node would be empty.
+		 */
+		public abstract Node without(int shift, int hash, Object key);
+
+		/**
+		 * Gets the array of key/value pairs, null keys indicate that the value is a child node
+		 */
+		public abstract Object[] getArray();
+	}
+
+	private static final class BitmapNode extends Node {
+		private final int bitmap;
+		private final Object[] array;
+
+		public BitmapNode(int bitmap, Object[] array) {
+			this.bitmap = bitmap;
+			this.array = array;
+		}
+
+		private int index(int bit) {
+			return Integer.bitCount(bitmap & (bit - 1));
+		}
+
+		@Override
+		public Object find(int shift, int hash, Object key) {
+			final int bit = 1 << ((hash >>> shift) & MASK);
+			if ((bitmap & bit) == 0) {
+				return null;
+			}
+			final int i = index(bit) << 1;
+			final Object k = array[i];
+			if (k == null) {
+				return ((Node) array[i + 1]).find(shift + BITS, hash, key);
+			}
+			return key.equals(k) ? array[i + 1] : null;
+		}
+
+		@Override
+		public Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+			final int bit = 1 << ((hash >>> shift) & MASK);
+			final int index = index(bit);
+			final int i = index << 1;
+			if ((bitmap & bit) != 0) {
+				final Object k = array[i];
+				final Object v = array[i + 1];
+				if (k == null) {
+					final Node n = ((Node) v).assoc(shift + BITS, hash, key, value, added);
+					return n == v ? this : new BitmapNode(bitmap, cloneAndSet(array, i + 1, n));
+				}
+				if (key.equals(k)) {
+					return value == v ? this : new BitmapNode(bitmap, cloneAndSet(array, i + 1, value));
+				}
+				added[0] = true;
+				return new BitmapNode(bitmap, cloneAndSet(array, i, null, i + 1, createNode(shift + BITS, k, v, hash, key, value)));
+			}
+			added[0] = true;
+			final Object[] newArray = new Object[array.length + 2];
+			System.arraycopy(array, 0, newArray, 0, i);
+			newArray[i] = key;
+			newArray[i + 1] = value;
+			System.arraycopy(array, i, newArray, i + 2, array.length - i);
+			return new BitmapNode(bitmap | bit, newArray);
+		}
+
+		@Override
+		public Node without(int shift, int hash, Object key) {
+			final int bit = 1 << ((hash >>> shift) & MASK);
+			if ((bitmap & bit) == 0) {
+				return this;
+			}
+			final int index = index(bit);
+			final int i = index << 1;
+			final Object k = array[i];
+			final Object v = array[i + 1];
+			if (k == null) {
+				final Node n = ((Node) v).without(shift + BITS, hash, key);
+				if (n == v) {
+					return this;
+				}
+				if (n != null) {
+					return new BitmapNode(bitmap, cloneAndSet(array, i + 1, n));
+				}
+			} else if (!key.equals(k)) {
+				return this;
+			}
+			if (bitmap == bit) {
+				return null;
+			}
+			return new BitmapNode(bitmap ^ bit, removePair(array, index));
+		}
+
+		@Override
+		public Object[] getArray() {
+			return array;
+		}
+
+		/**
+		 * Gets the content of a slot as a node one level down
+		 */
+		private Node slotNode(int bit, int shift) {
+			final int i = index(bit) << 1;
+			if (array[i] == null) {
+				return (Node) array[i + 1];
+			}
+			final boolean[] added = new boolean[1];
+			return EMPTY_NODE.assoc(shift + BITS, hash(array[i]), array[i], array[i + 1], added);
+		}
+
+		@SuppressWarnings ("unchecked")
+		private <K, V> void slotRemoved(int bit, DiffListener<K, V> listener) {
+			final int i = index(bit) << 1;
+			if (array[i] != null) {
+				listener.removed((K) array[i], (V) array[i + 1]);
+			} else {
+				slowDiff((Node) array[i + 1], EMPTY_NODE, 0, listener);
+			}
+		}
+
+		@SuppressWarnings ("unchecked")
+		private <K, V> void slotAdded(int bit, DiffListener<K, V> listener) {
+			final int i = index(bit) << 1;
+			if (array[i] != null) {
+				listener.added((K) array[i], (V) array[i + 1]);
+			} else {
+				slowDiff(EMPTY_NODE, (Node) array[i + 1], 0, listener);
+			}
+		}
+	}
+
+	private static final class CollisionNode extends Node {
+		private final int hash;
+		private final Object[] array;
+
+		public CollisionNode(int hash, Object[] array) {
+			this.hash = hash;
+			this.array = array;
+		}
+
+		private int indexOf(Object key) {
+			for (int i = 0; i < array.length; i += 2) {
+				if (key.equals(array[i])) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		public Object find(int shift, int hash, Object key) {
+			if (hash != this.hash) {
+				return null;
+			}
+			final int i = indexOf(key);
+			return i < 0 ? null : array[i + 1];
+		}
+
+		@Override
+		public Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+			if (hash != this.hash) {
+				// Nest this node in a bitmap node so the new key can be placed beside it
+				final BitmapNode parent = new BitmapNode(1 << ((this.hash >>> shift) & MASK), new Object[] {null, this});
+				return parent.assoc(shift, hash, key, value, added);
+			}
+			final int i = indexOf(key);
+			if (i >= 0) {
+				return array[i + 1] == value ? this : new CollisionNode(hash, cloneAndSet(array, i + 1, value));
+			}
+			added[0] = true;
+			final Object[] newArray = new Object[array.length + 2];
+			System.arraycopy(array, 0, newArray, 0, array.length);
+			newArray[array.length] = key;
+			newArray[array.length + 1] = value;
+			return new CollisionNode(hash, newArray);
+		}
+
+		@Override
+		public Node without(int shift, int hash, Object key) {
+			if (hash != this.hash) {
+				return this;
+			}
+			final int i = indexOf(key);
+			if (i < 0) {
+				return this;
+			}
+			if (array.length == 2) {
+				return null;
+			}
+			return new CollisionNode(hash, removePair(array, i >> 1));
+		}
+
+		@Override
+		public Object[] getArray() {
+			return array;
+		}
+	}
+
+	/**
+	 * Iterates over the entries of a node depth first, without allocating per entry
+	 */
+	private static abstract class NodeIterator<T> implements Iterator<T> {
+		private final Object[][] arrays = new Object[MAX_DEPTH + 1][];
+		private final int[] indexes = new int[MAX_DEPTH + 1];
+		private int depth = 0;
+		protected Object key;
+		protected Object value;
+		private boolean ready;
+
+		public NodeIterator(Node root) {
+			arrays[0] = root.getArray();
+		}
+
+		private boolean findNext() {
+			while (depth >= 0) {
+				final Object[] array = arrays[depth];
+				final int i = indexes[depth];
+				if (i >= array.length) {
+					depth--;
+					continue;
+				}
+				indexes[depth] = i + 2;
+				if (array[i] == null) {
+					depth++;
+					arrays[depth] = ((Node) array[i + 1]).getArray();
+					indexes[depth] = 0;
+				} else {
+					key = array[i];
+					value = array[i + 1];
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (!ready) {
+				ready = findNext();
+			}
+			return ready;
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			ready = false;
+			return current();
+		}
+
+		protected abstract T current();
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("Persistent maps are immutable");
+		}
+	}
+}
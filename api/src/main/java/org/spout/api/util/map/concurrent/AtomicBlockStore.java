@@ -30,6 +30,7 @@ import gnu.trove.set.hash.TIntHashSet;
 
 import org.spout.api.material.BlockMaterial;
 import org.spout.api.math.IntVector3;
+import org.spout.api.util.map.concurrent.palette.AtomicShortIntBackingArray;
 import org.spout.math.vector.Vector3f;
 
 /**
@@ -153,6 +154,22 @@ public interface AtomicBlockStore {
 	 */
 	public boolean compareAndSetBlock(int x, int y, int z, short expectId, short expectData, short newId, short newData);
 
+	/**
+	 * Sets the blocks of a cuboid in a single operation.  The palette of the store is rebuilt at most once, and the changed blocks are marked as dirty together.<br> <br> The states are packed full
+	 * states, indexed by ((y * sizeZ) + z) * sizeX + x relative to the base of the cuboid.
+	 *
+	 * @param x the x coordinate of the base of the cuboid
+	 * @param y the y coordinate of the base of the cuboid
+	 * @param z the z coordinate of the base of the cuboid
+	 * @param sizeX the size of the cuboid along the x axis
+	 * @param sizeY the size of the cuboid along the y axis
+	 * @param sizeZ the size of the cuboid along the z axis
+	 * @param states the new block states
+	 * @param oldStates the array to store the previous block states in, using the same layout as states, or null
+	 * @return the number of blocks which were changed
+	 */
+	public int setCuboid(int x, int y, int z, int sizeX, int sizeY, int sizeZ, int[] states, int[] oldStates);
+
 	/**
 	 * Gets if the store would benefit from compression.<br> <br> If this method is called when the store is being accessed by another thread, it may give spurious results.
 	 *
@@ -192,6 +209,14 @@ public interface AtomicBlockStore {
 	 */
 	public short[] getDataArray(short[] array);
 
+	/**
+	 * Gets a copy-on-write snapshot of the packed block states in the store, indexed in the same order as {@link #getFullData(int)}.<br> <br> The store is not copied and no data tearing can occur,
+	 * the next write to the store copies it instead.  The returned array must not be modified.
+	 *
+	 * @return the snapshot
+	 */
+	public AtomicShortIntBackingArray getSnapshot();
+
 	/**
 	 * Compresses the store.<br>
 	 */
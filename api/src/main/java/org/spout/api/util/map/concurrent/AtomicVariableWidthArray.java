@@ -27,6 +27,7 @@
 package org.spout.api.util.map.concurrent;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import org.spout.math.GenericMath;
@@ -53,6 +54,14 @@ public class AtomicVariableWidthArray implements Serializable {
 	private final int[] valueBitmask;
 	private final int[] valueShift;
 	private final int maxValue;
+	/**
+	 * A word with the lowest bit of every packed entry set
+	 */
+	private final int laneOnes;
+	/**
+	 * A word with the highest bit of every packed entry set
+	 */
+	private final int laneHighs;
 	private final int width;
 	private AtomicIntegerArray array;
 	private final int length;
@@ -113,6 +122,13 @@ public class AtomicVariableWidthArray implements Serializable {
 
 		this.maxValue = this.fullWidth ? -1 : valueBitmask[0];
 
+		int ones = 0;
+		for (int i = 0; i < valuesPerInt; i++) {
+			ones |= 1 << valueShift[i];
+		}
+		this.laneOnes = ones;
+		this.laneHighs = ones << (width - 1);
+
 		this.width = width;
 	}
 
@@ -269,13 +285,254 @@ public class AtomicVariableWidthArray implements Serializable {
 			array = new int[length()];
 		}
 
-		for (int i = 0; i < length(); i++) {
-			array[i] = get(i);
+		if (fullWidth) {
+			for (int i = 0; i < length; i++) {
+				array[i] = this.array.get(i);
+			}
+			return array;
+		}
+
+		// Each packed word is read once and unpacked in place
+		int valuesPerInt = 1 << indexShift;
+		int words = this.array.length();
+		int j = 0;
+		for (int w = 0; w < words; w++) {
+			int packed = this.array.get(w);
+			for (int k = 0; k < valuesPerInt; k++) {
+				array[j++] = packed & maxValue;
+				packed >>>= width;
+			}
+		}
+
+		return array;
+	}
+
+	/**
+	 * Gets an array containing all the values in the array, truncated to shorts. The returned values are not guaranteed to be from the same time instant.
+	 *
+	 * If an array is provided and it is the correct length, then that array will be used as the destination array.
+	 *
+	 * @param array the provided array
+	 * @return an array containing the values in the array
+	 */
+	public final short[] getShortArray(short[] array) {
+		if (array == null || array.length != length()) {
+			array = new short[length()];
+		}
+
+		if (fullWidth) {
+			for (int i = 0; i < length; i++) {
+				array[i] = (short) this.array.get(i);
+			}
+			return array;
+		}
+
+		int valuesPerInt = 1 << indexShift;
+		int words = this.array.length();
+		int j = 0;
+		for (int w = 0; w < words; w++) {
+			int packed = this.array.get(w);
+			for (int k = 0; k < valuesPerInt; k++) {
+				array[j++] = (short) (packed & maxValue);
+				packed >>>= width;
+			}
 		}
 
 		return array;
 	}
 
+	/**
+	 * Sets all the values in the array.  Values are truncated to the width of the array.<br> <br> Each packed word is written atomically, but the array as a whole is not updated atomically.
+	 *
+	 * @param values the new values, the array must be the same length as this array
+	 */
+	public final void setArray(int[] values) {
+		if (values.length != length) {
+			throw new IllegalArgumentException("Array length mismatch, expected " + length + ", got " + values.length);
+		}
+
+		if (fullWidth) {
+			for (int i = 0; i < length; i++) {
+				this.array.set(i, values[i]);
+			}
+			return;
+		}
+
+		int valuesPerInt = 1 << indexShift;
+		int words = this.array.length();
+		int j = 0;
+		for (int w = 0; w < words; w++) {
+			int packed = 0;
+			for (int k = 0; k < valuesPerInt; k++) {
+				packed |= (values[j++] & maxValue) << valueShift[k];
+			}
+			this.array.set(w, packed);
+		}
+	}
+
+	/**
+	 * Sets all the values in the array.  The shorts are treated as unsigned and truncated to the width of the array.<br> <br> Each packed word is written atomically, but the array as a whole is not
+	 * updated atomically.
+	 *
+	 * @param values the new values, the array must be the same length as this array
+	 */
+	public final void setArray(short[] values) {
+		if (values.length != length) {
+			throw new IllegalArgumentException("Array length mismatch, expected " + length + ", got " + values.length);
+		}
+
+		if (fullWidth) {
+			for (int i = 0; i < length; i++) {
+				this.array.set(i, values[i] & 0xFFFF);
+			}
+			return;
+		}
+
+		int valuesPerInt = 1 << indexShift;
+		int words = this.array.length();
+		int j = 0;
+		for (int w = 0; w < words; w++) {
+			int packed = 0;
+			for (int k = 0; k < valuesPerInt; k++) {
+				packed |= (values[j++] & maxValue) << valueShift[k];
+			}
+			this.array.set(w, packed);
+		}
+	}
+
+	/**
+	 * Creates a copy of this array with a different width.  The values are repacked a word at a time, values that do not fit in the new width are truncated.<br> <br> Tearing may occur if the array is
+	 * updated during this method call.
+	 *
+	 * @param newWidth the width of the new array
+	 * @return the new array
+	 */
+	public AtomicVariableWidthArray copyWithWidth(int newWidth) {
+		if (GenericMath.roundUpPow2(newWidth) != newWidth || newWidth < 1 || newWidth > 32) {
+			throw new IllegalArgumentException("Width must be a power of 2 between 1 and 32 " + newWidth);
+		}
+		if (newWidth == width) {
+			return new AtomicVariableWidthArray(length, width, getPacked());
+		}
+		if ((length * newWidth) % 32 != 0) {
+			throw new IllegalArgumentException("The length must be a multiple of " + (32 / newWidth) + " for arrays of width " + newWidth);
+		}
+
+		int newMask = newWidth == 32 ? -1 : (1 << newWidth) - 1;
+		int[] packed = new int[(length * newWidth) >> 5];
+		int valuesPerInt = 1 << indexShift;
+		int words = this.array.length();
+		int out = 0;
+		int outShift = 0;
+		int outWord = 0;
+		for (int w = 0; w < words; w++) {
+			int word = this.array.get(w);
+			for (int k = 0; k < valuesPerInt; k++) {
+				out |= ((word >>> valueShift[k]) & maxValue & newMask) << outShift;
+				outShift += newWidth;
+				if (outShift == 32) {
+					packed[outWord++] = out;
+					out = 0;
+					outShift = 0;
+				}
+			}
+		}
+		return new AtomicVariableWidthArray(length, newWidth, packed);
+	}
+
+	/**
+	 * Counts the number of entries with each value.  This is only supported for arrays with a width of 16 or less.<br> <br> If an array is provided and it is long enough to hold a count for every
+	 * possible value, then that array will be cleared and used to store the counts.
+	 *
+	 * @param counts the provided array
+	 * @return an array containing the number of entries with each value, indexed by value
+	 */
+	public final int[] getHistogram(int[] counts) {
+		if (width > 16) {
+			throw new UnsupportedOperationException("Histograms are only supported for widths of 16 or less, width " + width);
+		}
+		int values = maxValue + 1;
+		if (counts == null || counts.length < values) {
+			counts = new int[values];
+		} else {
+			Arrays.fill(counts, 0);
+		}
+
+		int valuesPerInt = 1 << indexShift;
+		int words = this.array.length();
+		for (int w = 0; w < words; w++) {
+			int packed = this.array.get(w);
+			if (packed == 0) {
+				counts[0] += valuesPerInt;
+				continue;
+			}
+			for (int k = 0; k < valuesPerInt; k++) {
+				counts[packed & maxValue]++;
+				packed >>>= width;
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Sets every element in a run of elements that has the expected value to the update value.<br> <br> The elements in each packed word are compared and updated together with a single compare and
+	 * set, but the run as a whole is not updated atomically.
+	 *
+	 * @param start the index of the first element of the run
+	 * @param runLength the number of elements in the run
+	 * @param expect the expected value
+	 * @param update the new value
+	 * @return the number of elements that were updated
+	 */
+	public final int compareAndSetRun(int start, int runLength, int expect, int update) {
+		int end = start + runLength;
+		if (start < 0 || runLength < 0 || end > length) {
+			throw new IndexOutOfBoundsException("Run " + start + " to " + end + " is out of bounds for length " + length);
+		}
+
+		int updated = 0;
+		if (fullWidth) {
+			for (int i = start; i < end; i++) {
+				if (array.compareAndSet(i, expect, update)) {
+					updated++;
+				}
+			}
+			return updated;
+		}
+
+		if ((expect & maxValue) != expect || runLength == 0) {
+			return 0;
+		}
+
+		int expectWord = expect * laneOnes;
+		int updateWord = (update & maxValue) * laneOnes;
+		int laneLows = laneHighs - laneOnes;
+		int startIndex = getIndex(start);
+		int endIndex = getIndex(end - 1);
+		for (int index = startIndex; index <= endIndex; index++) {
+			// Mask of the lanes in this word that are inside the run
+			int firstLane = index == startIndex ? getSubIndex(start) : 0;
+			int lastLane = index == endIndex ? getSubIndex(end - 1) : subIndexMask;
+			int runMask = (valueBitmask[lastLane] | (valueBitmask[lastLane] - 1)) & -(1 << valueShift[firstLane]);
+
+			while (true) {
+				int prev = array.get(index);
+				// Lanes equal to the expected value are zero after the xor, set the high bit of each zero lane and spread it over the lane
+				int diff = prev ^ expectWord;
+				int zeroHighs = ~(((diff & laneLows) + laneLows) | diff | laneLows) & laneHighs;
+				int matched = ((zeroHighs >>> (width - 1)) * maxValue) & runMask;
+				if (matched == 0) {
+					break;
+				}
+				if (array.compareAndSet(index, prev, (prev & ~matched) | (updateWord & matched))) {
+					updated += Integer.bitCount(matched) >>> log2[width];
+					break;
+				}
+			}
+		}
+		return updated;
+	}
+
 	/**
 	 * Gets a packed version of this array.  Tearing may occur if the array is updated during this method call.
 	 */
@@ -415,9 +415,12 @@ public class TSyncIntObjectHashMap<V> implements TSyncIntObjectMap<V> {
 		}
 	}
 
-	private int mapHash(int key) {
-		int intKey = (key >> 32 ^ key);
+	/**
+	 * Gets the index of the map which holds the key
+	 */
+	int mapHash(int key) {
+		int h = key ^ (key >>> 16);
 
-		return (0x7FFFFFFF & intKey) % hashScramble & mapMask;
+		return (0x7FFFFFFF & h) % hashScramble & mapMask;
 	}
 }
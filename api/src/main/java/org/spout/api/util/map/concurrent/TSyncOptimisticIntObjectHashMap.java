@@ -0,0 +1,476 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.util.map.concurrent;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import gnu.trove.function.TObjectFunction;
+import gnu.trove.impl.Constants;
+import gnu.trove.iterator.TIntObjectIterator;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.procedure.TIntObjectProcedure;
+import gnu.trove.procedure.TIntProcedure;
+import gnu.trove.procedure.TObjectProcedure;
+import gnu.trove.set.TIntSet;
+
+import org.spout.api.util.concurrent.OptimisticReadWriteLock;
+import org.spout.math.GenericMath;
+
+/**
+ * This is a synchronised version of the Trove IntObjectHashMap which is optimised for read heavy use.
+ *
+ * By default, it creates 16 sub-maps and there is a separate optimistic lock for each submap.
+ *
+ * Reads do not lock the sub-map.  The sub-map is read directly and the read is repeated if a write occurred during the read.  A read falls back to locking the sub-map if it fails a few times in a row.
+ *
+ * @param <V> the value type
+ */
+public class TSyncOptimisticIntObjectHashMap<V> implements TSyncIntObjectMap<V> {
+	private final static int OPTIMISTIC_ATTEMPTS = 4;
+	private final int mapCount;
+	private final int mapMask;
+	private final int hashScramble;
+	private final OptimisticReadWriteLock[] lockArray;
+	private final TIntObjectHashMap<V>[] mapArray;
+	private final int no_entry_key;
+	private final AtomicInteger totalKeys = new AtomicInteger(0);
+
+	/**
+	 * Creates a synchronised map based on the Trove int object map
+	 */
+	public TSyncOptimisticIntObjectHashMap() {
+		this(16);
+	}
+
+	/**
+	 * Creates a synchronised map based on the Trove int object map
+	 *
+	 * @param mapCount the number of sub-maps
+	 */
+	public TSyncOptimisticIntObjectHashMap(int mapCount) {
+		this(mapCount, 32);
+	}
+
+	/**
+	 * Creates a synchronised map based on the Trove int object map
+	 *
+	 * @param mapCount the number of sub-maps
+	 * @param initialCapacity the initial capacity of the map
+	 */
+	public TSyncOptimisticIntObjectHashMap(int mapCount, int initialCapacity) {
+		this(mapCount, initialCapacity, 0.5F);
+	}
+
+	/**
+	 * Creates a synchronised map based on the Trove int object map
+	 *
+	 * @param mapCount the number of sub-maps
+	 * @param initialCapacity the initial capacity of the map
+	 * @param loadFactor the load factor for the map
+	 */
+	public TSyncOptimisticIntObjectHashMap(int mapCount, int initialCapacity, float loadFactor) {
+		this(mapCount, initialCapacity, loadFactor, Constants.DEFAULT_INT_NO_ENTRY_VALUE);
+	}
+
+	/**
+	 * Creates a synchronised map based on the Trove int object map
+	 *
+	 * @param mapCount the number of sub-maps
+	 * @param initialCapacity the initial capacity of the map
+	 * @param loadFactor the load factor for the map
+	 * @param noEntryKey the key used to indicate a null key
+	 */
+	@SuppressWarnings ("unchecked")
+	public TSyncOptimisticIntObjectHashMap(int mapCount, int initialCapacity, float loadFactor, int noEntryKey) {
+		if (mapCount > 0x100000) {
+			throw new IllegalArgumentException("Map count exceeds valid range");
+		}
+		mapCount = GenericMath.roundUpPow2(mapCount);
+		mapMask = mapCount - 1;
+		this.mapCount = mapCount;
+		this.hashScramble = (mapCount << 8) + 1;
+		mapArray = new TIntObjectHashMap[mapCount];
+		lockArray = new OptimisticReadWriteLock[mapCount];
+		for (int i = 0; i < mapCount; i++) {
+			mapArray[i] = new TIntObjectHashMap<>(initialCapacity / mapCount, loadFactor, noEntryKey);
+			lockArray[i] = new OptimisticReadWriteLock();
+		}
+		this.no_entry_key = noEntryKey;
+	}
+
+	@Override
+	public void clear() {
+		for (int m = 0; m < mapCount; m++) {
+			clear(m);
+		}
+	}
+
+	private void clear(int m) {
+		OptimisticReadWriteLock lock = lockArray[m];
+		int seq = lock.writeLock();
+		try {
+			totalKeys.addAndGet(-mapArray[m].size());
+			mapArray[m].clear();
+		} finally {
+			lock.writeUnlock(seq);
+		}
+	}
+
+	@Override
+	public boolean containsKey(int key) {
+		int m = mapHash(key);
+		OptimisticReadWriteLock lock = lockArray[m];
+		TIntObjectHashMap<V> map = mapArray[m];
+		for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+			int seq = lock.tryReadLock();
+			if (seq == OptimisticReadWriteLock.UNSTABLE) {
+				continue;
+			}
+			try {
+				boolean contains = map.containsKey(key);
+				if (lock.readUnlock(seq)) {
+					return contains;
+				}
+			} catch (RuntimeException e) {
+				// The map was read while it was being modified, so the read is repeated
+			}
+		}
+		int seq = lock.writeLock();
+		try {
+			return map.containsKey(key);
+		} finally {
+			lock.writeUnlock(seq);
+		}
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		for (int m = 0; m < mapCount; m++) {
+			if (containsValue(m, value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean containsValue(int m, Object value) {
+		OptimisticReadWriteLock lock = lockArray[m];
+		TIntObjectHashMap<V> map = mapArray[m];
+		for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+			int seq = lock.tryReadLock();
+			if (seq == OptimisticReadWriteLock.UNSTABLE) {
+				continue;
+			}
+			try {
+				boolean contains = map.containsValue(value);
+				if (lock.readUnlock(seq)) {
+					return contains;
+				}
+			} catch (RuntimeException e) {
+				// The map was read while it was being modified, so the read is repeated
+			}
+		}
+		int seq = lock.writeLock();
+		try {
+			return map.containsValue(value);
+		} finally {
+			lock.writeUnlock(seq);
+		}
+	}
+
+	@Override
+	public boolean forEachEntry(TIntObjectProcedure<? super V> arg0) {
+		throw new UnsupportedOperationException("This operation is not supported");
+	}
+
+	@Override
+	public boolean forEachKey(TIntProcedure arg0) {
+		throw new UnsupportedOperationException("This operation is not supported");
+	}
+
+	@Override
+	public boolean forEachValue(TObjectProcedure<? super V> arg0) {
+		throw new UnsupportedOperationException("This operation is not supported");
+	}
+
+	@Override
+	public V get(int key) {
+		int m = mapHash(key);
+		OptimisticReadWriteLock lock = lockArray[m];
+		TIntObjectHashMap<V> map = mapArray[m];
+		for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+			int seq = lock.tryReadLock();
+			if (seq == OptimisticReadWriteLock.UNSTABLE) {
+				continue;
+			}
+			try {
+				V value = map.get(key);
+				if (lock.readUnlock(seq)) {
+					return value;
+				}
+			} catch (RuntimeException e) {
+				// The map was read while it was being modified, so the read is repeated
+			}
+		}
+		int seq = lock.writeLock();
+		try {
+			return map.get(key);
+		} finally {
+			lock.writeUnlock(seq);
+		}
+	}
+
+	@Override
+	public int getNoEntryKey() {
+		return no_entry_key;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return totalKeys.get() == 0;
+	}
+
+	@Override
+	public TIntObjectIterator<V> iterator() {
+		throw new UnsupportedOperationException("This operation is not supported");
+	}
+
+	@Override
+	public TIntSet keySet() {
+		throw new UnsupportedOperationException("This operation is not supported");
+	}
+
+	@Override
+	public int[] keys(int[] dest) {
+		int[] seqs = lockAll();
+		try {
+			int localSize = totalKeys.get();
+			int[] keys;
+			if (dest == null || dest.length < localSize) {
+				keys = new int[localSize];
+			} else {
+				keys = dest;
+			}
+			int position = 0;
+			for (int m = 0; m < mapCount; m++) {
+				int[] mapKeys = mapArray[m].keys();
+				for (int mapKey : mapKeys) {
+					keys[position++] = mapKey;
+				}
+			}
+			if (position != localSize) {
+				throw new IllegalStateException("Key counter does not match actual total map size");
+			}
+			return keys;
+		} finally {
+			unlockAll(seqs);
+		}
+	}
+
+	@Override
+	public int[] keys() {
+		return keys(null);
+	}
+
+	@Override
+	public V put(int key, V value) {
+		int m = mapHash(key);
+		OptimisticReadWriteLock lock = lockArray[m];
+		int seq = lock.writeLock();
+		try {
+			V previous = mapArray[m].put(key, value);
+			if (previous == null && value != null) {
+				totalKeys.incrementAndGet();
+			}
+			return previous;
+		} finally {
+			lock.writeUnlock(seq);
+		}
+	}
+
+	@Override
+	public void putAll(Map<? extends Integer, ? extends V> arg0) {
+		throw new UnsupportedOperationException("This operation is not supported");
+	}
+
+	@Override
+	public void putAll(TIntObjectMap<? extends V> arg0) {
+		throw new UnsupportedOperationException("This operation is not supported");
+	}
+
+	@Override
+	public V putIfAbsent(int key, V value) {
+		int m = mapHash(key);
+		OptimisticReadWriteLock lock = lockArray[m];
+		int seq = lock.writeLock();
+		try {
+			V previous = mapArray[m].putIfAbsent(key, value);
+			if (previous == null && value != null) {
+				totalKeys.incrementAndGet();
+			}
+			return previous;
+		} finally {
+			lock.writeUnlock(seq);
+		}
+	}
+
+	@Override
+	public V remove(int key) {
+		int m = mapHash(key);
+		OptimisticReadWriteLock lock = lockArray[m];
+		int seq = lock.writeLock();
+		try {
+			V previous = mapArray[m].remove(key);
+			if (previous != null) {
+				totalKeys.decrementAndGet();
+			}
+			return previous;
+		} finally {
+			lock.writeUnlock(seq);
+		}
+	}
+
+	@Override
+	public boolean remove(int key, V value) {
+		if (value == null) {
+			throw new IllegalArgumentException("Cannot remove null values");
+		}
+		int m = mapHash(key);
+		OptimisticReadWriteLock lock = lockArray[m];
+		int seq = lock.writeLock();
+		try {
+			V current = mapArray[m].get(key);
+			if (current != value) {
+				return false;
+			}
+
+			totalKeys.decrementAndGet();
+			mapArray[m].remove(key);
+			return true;
+		} finally {
+			lock.writeUnlock(seq);
+		}
+	}
+
+	@Override
+	public boolean retainEntries(TIntObjectProcedure<? super V> arg0) {
+		throw new UnsupportedOperationException("This operation is not supported");
+	}
+
+	@Override
+	public int size() {
+		return totalKeys.get();
+	}
+
+	@Override
+	public void transformValues(TObjectFunction<V, V> arg0) {
+		throw new UnsupportedOperationException("This operation is not supported");
+	}
+
+	@Override
+	public Collection<V> valueCollection() {
+		HashSet<V> collection = new HashSet<>();
+		int[] seqs = lockAll();
+		try {
+			for (int m = 0; m < mapCount; m++) {
+				collection.addAll(mapArray[m].valueCollection());
+			}
+		} finally {
+			unlockAll(seqs);
+		}
+		return Collections.unmodifiableCollection(collection);
+	}
+
+	@Override
+	public V[] values() {
+		return values(null);
+	}
+
+	@Override
+	@SuppressWarnings ("unchecked")
+	public V[] values(V[] dest) {
+		int[] seqs = lockAll();
+		try {
+			int localSize = totalKeys.get();
+			V[] values;
+			if (dest == null) {
+				values = (V[]) new Object[localSize];
+			} else if (dest.length == localSize) {
+				values = dest;
+			} else {
+				values = (V[]) Array.newInstance(dest.getClass().getComponentType(), localSize);
+			}
+			int position = 0;
+			for (int m = 0; m < mapCount; m++) {
+				V[] mapValues = (V[]) mapArray[m].values();
+				for (V mapValue : mapValues) {
+					values[position++] = mapValue;
+				}
+			}
+			if (position != localSize) {
+				throw new IllegalStateException("Key counter does not match actual total map size");
+			}
+			return values;
+		} finally {
+			unlockAll(seqs);
+		}
+	}
+
+	/**
+	 * Write locks every sub-map, in order
+	 *
+	 * @return the sequence numbers of the locks
+	 */
+	private int[] lockAll() {
+		int[] seqs = new int[mapCount];
+		for (int m = 0; m < mapCount; m++) {
+			seqs[m] = lockArray[m].writeLock();
+		}
+		return seqs;
+	}
+
+	private void unlockAll(int[] seqs) {
+		for (int m = 0; m < mapCount; m++) {
+			lockArray[m].writeUnlock(seqs[m]);
+		}
+	}
+
+	/**
+	 * Gets the index of the map which holds the key
+	 */
+	int mapHash(int key) {
+		int h = key ^ (key >>> 16);
+
+		return (0x7FFFFFFF & h) % hashScramble & mapMask;
+	}
+}
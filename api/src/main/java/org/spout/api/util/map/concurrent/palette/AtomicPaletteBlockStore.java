@@ -174,6 +174,64 @@ public class AtomicPaletteBlockStore implements AtomicBlockStore {
 		return success;
 	}
 
+	@Override
+	public int setCuboid(int x, int y, int z, int sizeX, int sizeY, int sizeZ, int[] states, int[] oldStates) {
+		if (x < 0 || y < 0 || z < 0 || sizeX < 0 || sizeY < 0 || sizeZ < 0 || x + sizeX > side || y + sizeY > side || z + sizeZ > side) {
+			throw new IllegalArgumentException("Cuboid (" + x + ", " + y + ", " + z + ") of size (" + sizeX + ", " + sizeY + ", " + sizeZ + ") is outside the store");
+		}
+		int volume = sizeX * sizeY * sizeZ;
+		if (states.length < volume || (oldStates != null && oldStates.length < volume)) {
+			throw new IllegalArgumentException("State arrays are smaller than the cuboid volume " + volume);
+		}
+		store.lock();
+		try {
+			int[] current = store.get(new int[length]);
+			int changed = 0;
+			int cMinX = Integer.MAX_VALUE, cMinY = Integer.MAX_VALUE, cMinZ = Integer.MAX_VALUE;
+			int cMaxX = Integer.MIN_VALUE, cMaxY = Integer.MIN_VALUE, cMaxZ = Integer.MIN_VALUE;
+			int i = 0;
+			for (int yy = y; yy < y + sizeY; yy++) {
+				for (int zz = z; zz < z + sizeZ; zz++) {
+					int index = getIndex(x, yy, zz);
+					for (int xx = x; xx < x + sizeX; xx++, index++, i++) {
+						int oldState = current[index];
+						int newState = states[i];
+						if (oldStates != null) {
+							oldStates[i] = oldState;
+						}
+						if (oldState == newState) {
+							continue;
+						}
+						current[index] = newState;
+						changed++;
+						// Individual blocks are only recorded until the dirty arrays overflow
+						if (dirtyBlocks.get() < dirtyX.length) {
+							addDirtyBlock(xx, yy, zz, oldState, newState);
+						}
+						cMinX = Math.min(cMinX, xx);
+						cMinY = Math.min(cMinY, yy);
+						cMinZ = Math.min(cMinZ, zz);
+						cMaxX = Math.max(cMaxX, xx);
+						cMaxY = Math.max(cMaxY, yy);
+						cMaxZ = Math.max(cMaxZ, zz);
+					}
+				}
+			}
+			if (changed > 0) {
+				store.set(current);
+				setAsMin(minX, cMinX);
+				setAsMin(minY, cMinY);
+				setAsMin(minZ, cMinZ);
+				setAsMax(maxX, cMaxX);
+				setAsMax(maxY, cMaxY);
+				setAsMax(maxZ, cMaxZ);
+			}
+			return changed;
+		} finally {
+			store.unlock();
+		}
+	}
+
 	@Override
 	public boolean needsCompression() {
 		// TODO - needs removal or optimisation
@@ -212,6 +270,11 @@ public class AtomicPaletteBlockStore implements AtomicBlockStore {
 		return array;
 	}
 
+	@Override
+	public AtomicShortIntBackingArray getSnapshot() {
+		return store.snapshot();
+	}
+
 	@Override
 	public void compress() {
 		compress(new TIntHashSet());
@@ -295,6 +358,10 @@ public class AtomicPaletteBlockStore implements AtomicBlockStore {
 		setAsMax(maxZ, z);
 		setAsMin(minZ, z);
 
+		addDirtyBlock(x, y, z, oldState, newState);
+	}
+
+	private void addDirtyBlock(int x, int y, int z, int oldState, int newState) {
 		int index = incrementDirtyIndex();
 		if (index < dirtyX.length) {
 			dirtyX[index] = (byte) x;
@@ -52,6 +52,11 @@ public class AtomicShortIntArray {
 	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 	private final Lock resizeLock = lock.writeLock();
 	private final Lock updateLock = lock.readLock();
+	/**
+	 * Set when the current store has been handed out by {@link #snapshot()}.  A frozen store is never written to, the first write after a snapshot replaces it with a copy.  Guarded by the
+	 * lock, read under the update lock and written under the resize lock.
+	 */
+	private boolean frozen = false;
 
 	public AtomicShortIntArray(int length) {
 		this.length = length;
@@ -116,20 +121,24 @@ public class AtomicShortIntArray {
 			try {
 				updateLock.lock();
 				try {
-					return store.get().set(i, newValue);
+					if (!frozen) {
+						return store.get().set(i, newValue);
+					}
 				} finally {
 					updateLock.unlock();
 				}
+				thaw();
 			} catch (PaletteFullException pfe) {
 				resizeLock.lock();
 				try {
+					thaw();
 					try {
 						return store.get().set(i, newValue);
 					} catch (PaletteFullException pfe2) {
 						if (store.get().isPaletteMaxSize()) {
-							store.set(new AtomicShortIntDirectBackingArray(store.get()));
+							replaceStore(new AtomicShortIntDirectBackingArray(store.get()));
 						} else {
-							store.set(new AtomicShortIntPaletteBackingArray(store.get(), true));
+							replaceStore(new AtomicShortIntPaletteBackingArray(store.get(), true));
 						}
 					}
 				} finally {
@@ -139,6 +148,21 @@ public class AtomicShortIntArray {
 		}
 	}
 
+	/**
+	 * Copies the elements of the array into the given array.<br> <br> Data tearing may occur if the store is updated during this method call.
+	 *
+	 * @param array the array to copy the elements into, or null to allocate a new array
+	 * @return the array containing the elements
+	 */
+	public int[] get(int[] array) {
+		if (array == null) {
+			array = new int[length];
+		} else if (array.length != length) {
+			throw new IllegalArgumentException("Array length mismatch, expected " + length + ", got " + array.length);
+		}
+		return store.get().get(array);
+	}
+
 	/**
 	 * Sets the array equal to the given array.  The array should be the same length as this array
 	 *
@@ -153,11 +177,11 @@ public class AtomicShortIntArray {
 			int unique = AtomicShortIntArray.getUnique(initial);
 			int allowedPalette = AtomicShortIntPaletteBackingArray.getAllowedPalette(length);
 			if (unique == 1) {
-				store.set(new AtomicShortIntUniformBackingArray(length, initial[0]));
+				replaceStore(new AtomicShortIntUniformBackingArray(length, initial[0]));
 			} else if (unique > allowedPalette) {
-				store.set(new AtomicShortIntDirectBackingArray(length, initial));
+				replaceStore(new AtomicShortIntDirectBackingArray(length, initial));
 			} else {
-				store.set(new AtomicShortIntPaletteBackingArray(length, unique, initial));
+				replaceStore(new AtomicShortIntPaletteBackingArray(length, unique, initial));
 			}
 		} finally {
 			resizeLock.unlock();
@@ -175,7 +199,7 @@ public class AtomicShortIntArray {
 			if (initial.length != length) {
 				throw new IllegalArgumentException("Array length mismatch, expected " + length + ", got " + initial.length);
 			}
-			store.set(new AtomicShortIntDirectBackingArray(length, initial));
+			replaceStore(new AtomicShortIntDirectBackingArray(length, initial));
 		} finally {
 			resizeLock.unlock();
 		}
@@ -192,11 +216,11 @@ public class AtomicShortIntArray {
 		resizeLock.lock();
 		try {
 			if (palette.length == 0) {
-				store.set(new AtomicShortIntDirectBackingArray(length, variableWidthBlockArray));
+				replaceStore(new AtomicShortIntDirectBackingArray(length, variableWidthBlockArray));
 			} else if (palette.length == 1) {
-				store.set(new AtomicShortIntUniformBackingArray(length, palette[0]));
+				replaceStore(new AtomicShortIntUniformBackingArray(length, palette[0]));
 			} else {
-				store.set(new AtomicShortIntPaletteBackingArray(length, palette, blockArrayWidth, variableWidthBlockArray));
+				replaceStore(new AtomicShortIntPaletteBackingArray(length, palette, blockArrayWidth, variableWidthBlockArray));
 			}
 		} finally {
 			resizeLock.unlock();
@@ -216,17 +240,20 @@ public class AtomicShortIntArray {
 			try {
 				updateLock.lock();
 				try {
-					return store.get().compareAndSet(i, expect, update);
+					if (!frozen) {
+						return store.get().compareAndSet(i, expect, update);
+					}
 				} finally {
 					updateLock.unlock();
 				}
+				thaw();
 			} catch (PaletteFullException pfe) {
 				resizeLock.lock();
 				try {
 					if (store.get().isPaletteMaxSize()) {
-						store.set(new AtomicShortIntDirectBackingArray(store.get()));
+						replaceStore(new AtomicShortIntDirectBackingArray(store.get()));
 					} else {
-						store.set(new AtomicShortIntPaletteBackingArray(store.get(), true));
+						replaceStore(new AtomicShortIntPaletteBackingArray(store.get(), true));
 					}
 				} finally {
 					resizeLock.unlock();
@@ -262,9 +289,9 @@ public class AtomicShortIntArray {
 				return;
 			}
 			if (unique == 1) {
-				store.set(new AtomicShortIntUniformBackingArray(s));
+				replaceStore(new AtomicShortIntUniformBackingArray(s));
 			} else {
-				store.set(new AtomicShortIntPaletteBackingArray(s, length, true, false, unique));
+				replaceStore(new AtomicShortIntPaletteBackingArray(s, length, true, false, unique));
 			}
 			s = store.get();
 		} finally {
@@ -276,14 +303,7 @@ public class AtomicShortIntArray {
 	 * Gets the number of unique entries in the array
 	 */
 	public int getUnique() {
-		TIntHashSet inUse = new TIntHashSet();
-		int unique = 0;
-		for (int i = 0; i < length; i++) {
-			if (inUse.add(get(i))) {
-				unique++;
-			}
-		}
-		return unique;
+		return store.get().getUnique();
 	}
 
 	/**
@@ -300,10 +320,62 @@ public class AtomicShortIntArray {
 		return store.get().getBackingArray();
 	}
 
+	/**
+	 * Gets a snapshot of the array without copying it.  The returned backing array is frozen, the next write to this array replaces the store with a copy, so the snapshot keeps the state at the time
+	 * of this call.<br> <br> The returned array must not be modified.
+	 *
+	 * @return the frozen backing array
+	 */
+	public AtomicShortIntBackingArray snapshot() {
+		resizeLock.lock();
+		try {
+			frozen = true;
+			return store.get();
+		} finally {
+			resizeLock.unlock();
+		}
+	}
+
+	/**
+	 * Replaces a frozen store with a copy so that it can be written to
+	 */
+	private void thaw() {
+		resizeLock.lock();
+		try {
+			if (!frozen) {
+				return;
+			}
+			AtomicShortIntBackingArray s = store.get();
+			if (s instanceof AtomicShortIntPaletteBackingArray) {
+				store.set(new AtomicShortIntPaletteBackingArray((AtomicShortIntPaletteBackingArray) s));
+			} else if (s instanceof AtomicShortIntDirectBackingArray) {
+				store.set(new AtomicShortIntDirectBackingArray(s));
+			}
+			// Uniform stores are never modified, any change resizes to a new store
+			frozen = false;
+		} finally {
+			resizeLock.unlock();
+		}
+	}
+
+	/**
+	 * Replaces the store with a new store, must be called while holding the resize lock
+	 *
+	 * @param s the new store
+	 */
+	private void replaceStore(AtomicShortIntBackingArray s) {
+		store.set(s);
+		frozen = false;
+	}
+
 	private static int getUnique(int[] initial) {
 		TIntHashSet inUse = new TIntHashSet();
 		int unique = 0;
 		for (int i = 0; i < initial.length; i++) {
+			// Block data is mostly made of runs, which only need to be checked once
+			if (i > 0 && initial[i] == initial[i - 1]) {
+				continue;
+			}
 			if (inUse.add(initial[i])) {
 				unique++;
 			}
@@ -84,6 +84,22 @@ public abstract class AtomicShortIntBackingArray {
 	 */
 	public abstract int get(int i);
 
+	/**
+	 * Gets every element of the array.  If the given array is not the same length as this array, a new array is created.
+	 *
+	 * @param array the array to copy the elements into
+	 * @return the array containing the elements
+	 */
+	public int[] get(int[] array) {
+		if (array == null || array.length != length) {
+			array = new int[length];
+		}
+		for (int i = 0; i < length; i++) {
+			array[i] = get(i);
+		}
+		return array;
+	}
+
 	/**
 	 * Sets an element to the given value
 	 *
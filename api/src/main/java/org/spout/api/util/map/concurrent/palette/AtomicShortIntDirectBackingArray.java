@@ -43,12 +43,11 @@ public class AtomicShortIntDirectBackingArray extends AtomicShortIntBackingArray
 
 	private AtomicShortIntDirectBackingArray(int length, AtomicShortIntBackingArray previous) {
 		super(length);
-		store = new AtomicIntegerArray(length);
 		width = AtomicShortIntPaletteBackingArray.roundUpWidth(length - 1);
-		try {
-			copyFromPrevious(previous);
-		} catch (PaletteFullException pfe) {
-			throw new IllegalStateException("Unable to copy old array to new array");
+		if (previous == null) {
+			store = new AtomicIntegerArray(length);
+		} else {
+			store = new AtomicIntegerArray(previous.get(new int[length]));
 		}
 	}
 
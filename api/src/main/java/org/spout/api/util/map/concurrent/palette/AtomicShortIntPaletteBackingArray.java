@@ -29,6 +29,8 @@ package org.spout.api.util.map.concurrent.palette;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerArray;
 
+import gnu.trove.set.hash.TIntHashSet;
+
 import org.spout.api.util.map.concurrent.AtomicVariableWidthArray;
 import org.spout.math.GenericMath;
 
@@ -68,18 +70,27 @@ public class AtomicShortIntPaletteBackingArray extends AtomicShortIntBackingArra
 		int allowedPalette = AtomicShortIntPaletteBackingArray.getAllowedPalette(length);
 		paletteSize = Math.min(widthToPaletteSize(width), allowedPalette);
 		maxPaletteSize = paletteSize == allowedPalette;
-		store = new AtomicVariableWidthArray(length, width);
 		palette = new AtomicIntegerArray(paletteSize);
-		paletteCounter = new AtomicInteger(0);
 		idLookup = new AtomicIntShortSingleUseHashMap(paletteSize + (paletteSize >> 2));
+		if (!compress && previous instanceof AtomicShortIntPaletteBackingArray && previous.length() == length) {
+			// Growing the palette keeps every id, so the ids only need to be repacked to the new width
+			AtomicShortIntPaletteBackingArray p = (AtomicShortIntPaletteBackingArray) previous;
+			paletteCounter = new AtomicInteger(p.copyPalette(palette, idLookup));
+			store = p.store.copyWithWidth(width);
+			return;
+		}
+		store = new AtomicVariableWidthArray(length, width);
+		paletteCounter = new AtomicInteger(0);
 		try {
 			if (previous == null) { // sets id=0 to map to value=0 (so non-set elements are zero)
 				paletteCounter.incrementAndGet();
 				if (!idLookup.isEmptyValue(idLookup.putIfAbsent(0, (short) 0))) {
 					throw new IllegalStateException("Entry was not zero when putting first element into HashMap");
 				}
+			} else if (previous instanceof AtomicShortIntPaletteBackingArray && previous.length() == length) {
+				copyFromPalette((AtomicShortIntPaletteBackingArray) previous);
 			} else {
-				copyFromPrevious(previous);
+				setAll(previous.get(new int[length]));
 			}
 		} catch (PaletteFullException pfe) {
 			throw new IllegalStateException("Unable to copy old array to new array, as palette was filled, length " + length + ", paletteSize " + paletteSize + ", unique " + unique);
@@ -97,14 +108,28 @@ public class AtomicShortIntPaletteBackingArray extends AtomicShortIntBackingArra
 		store = new AtomicVariableWidthArray(length, width);
 		idLookup = new AtomicIntShortSingleUseHashMap(paletteSize + (paletteSize >> 2));
 		try {
-			for (int i = 0; i < length; i++) {
-				set(i, initial[i]);
-			}
+			setAll(initial);
 		} catch (PaletteFullException pfe) {
 			throw new IllegalStateException("Unable to copy old array to new array, as palette was filled, length " + length + ", paletteSize " + paletteSize + ", unique " + unique);
 		}
 	}
 
+	/**
+	 * Creates an exact copy of the given backing array, keeping its width and palette size
+	 *
+	 * @param previous the array to copy
+	 */
+	public AtomicShortIntPaletteBackingArray(AtomicShortIntPaletteBackingArray previous) {
+		super(previous.length());
+		width = previous.width;
+		paletteSize = previous.paletteSize;
+		maxPaletteSize = previous.maxPaletteSize;
+		palette = new AtomicIntegerArray(paletteSize);
+		idLookup = new AtomicIntShortSingleUseHashMap(paletteSize + (paletteSize >> 2));
+		paletteCounter = new AtomicInteger(previous.copyPalette(palette, idLookup));
+		store = new AtomicVariableWidthArray(previous.length(), width, previous.store.getPacked());
+	}
+
 	public AtomicShortIntPaletteBackingArray(int length, int[] palette, int width, int[] variableWidthBlockArray) {
 		super(length);
 		this.width = width;
@@ -145,6 +170,30 @@ public class AtomicShortIntPaletteBackingArray extends AtomicShortIntBackingArra
 		return palette.get(store.get(i));
 	}
 
+	@Override
+	public int[] get(int[] array) {
+		array = store.getArray(array);
+		int[] values = toIntArray(palette, Math.min(paletteCounter.get(), paletteSize));
+		for (int i = 0; i < array.length; i++) {
+			array[i] = values[array[i]];
+		}
+		return array;
+	}
+
+	@Override
+	public int getUnique(TIntHashSet inUseSet) {
+		inUseSet.clear();
+		int[] counts = store.getHistogram(null);
+		int used = Math.min(paletteCounter.get(), paletteSize);
+		int unique = 0;
+		for (int id = 0; id < used; id++) {
+			if (counts[id] > 0 && inUseSet.add(palette.get(id))) {
+				unique++;
+			}
+		}
+		return unique;
+	}
+
 	@Override
 	public int set(int i, int newValue) throws PaletteFullException {
 		int id = getId(newValue);
@@ -162,6 +211,64 @@ public class AtomicShortIntPaletteBackingArray extends AtomicShortIntBackingArra
 		return store.compareAndSet(i, expId, newId);
 	}
 
+	/**
+	 * Sets every element of the array, the ids are packed into the store a word at a time
+	 *
+	 * @param values the new values
+	 */
+	private void setAll(int[] values) throws PaletteFullException {
+		int[] ids = new int[length()];
+		// Runs of the same value reuse the id of the previous element
+		int lastValue = 0;
+		int lastId = -1;
+		for (int i = 0; i < ids.length; i++) {
+			if (lastId == -1 || values[i] != lastValue) {
+				lastValue = values[i];
+				lastId = getId(lastValue);
+			}
+			ids[i] = lastId;
+		}
+		store.setArray(ids);
+	}
+
+	/**
+	 * Copies a palette backing array of the same length into this array.  Only the palette entries that are in use are copied, and the ids are translated in bulk.
+	 *
+	 * @param previous the array to copy
+	 */
+	private void copyFromPalette(AtomicShortIntPaletteBackingArray previous) throws PaletteFullException {
+		int[] ids = previous.store.getArray(new int[length()]);
+		int[] counts = previous.store.getHistogram(null);
+		int used = Math.min(previous.paletteCounter.get(), previous.paletteSize);
+		int[] idMap = new int[counts.length];
+		for (int id = 0; id < used; id++) {
+			if (counts[id] > 0) {
+				idMap[id] = getId(previous.palette.get(id));
+			}
+		}
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = idMap[ids[i]];
+		}
+		store.setArray(ids);
+	}
+
+	/**
+	 * Copies the palette entries in use into the given palette and id lookup, keeping the same ids
+	 *
+	 * @param palette the palette to copy into
+	 * @param idLookup the id lookup to copy into
+	 * @return the number of palette entries copied
+	 */
+	private int copyPalette(AtomicIntegerArray palette, AtomicIntShortSingleUseHashMap idLookup) {
+		int used = Math.min(paletteCounter.get(), paletteSize);
+		for (int i = 0; i < used; i++) {
+			int value = this.palette.get(i);
+			palette.set(i, value);
+			idLookup.putIfAbsent(value, (short) i);
+		}
+		return used;
+	}
+
 	/**
 	 * Gets the id for the given value, allocating an id if required
 	 *
@@ -26,6 +26,7 @@
  */
 package org.spout.api.util.map.concurrent.palette;
 
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class AtomicShortIntUniformBackingArray extends AtomicShortIntBackingArray {
@@ -78,6 +79,15 @@ public class AtomicShortIntUniformBackingArray extends AtomicShortIntBackingArra
 		return store.get();
 	}
 
+	@Override
+	public int[] get(int[] array) {
+		if (array == null || array.length != length()) {
+			array = new int[length()];
+		}
+		Arrays.fill(array, store.get());
+		return array;
+	}
+
 	@Override
 	public int set(int i, int newValue) throws PaletteFullException {
 		if (!store.compareAndSet(newValue, newValue)) {
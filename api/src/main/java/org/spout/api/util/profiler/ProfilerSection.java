@@ -0,0 +1,198 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.util.profiler;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.spout.api.util.Named;
+
+/**
+ * A node of the {@link TickProfiler} tree.<br> <br> Time is accumulated into the current tick with a single atomic add, so sections can be updated from any thread. When the profiler ends a tick,
+ * the accumulated time is moved into a ring buffer holding the last ticks. The ring buffers are atomic arrays, so they can be read from any thread while the profiler ends a tick.
+ */
+public final class ProfilerSection {
+	private final String name;
+	private final ProfilerSection parent;
+	private final ConcurrentMap<Object, ProfilerSection> children = new ConcurrentHashMap<>();
+	private final AtomicLong currentNanos = new AtomicLong();
+	private final AtomicInteger currentCalls = new AtomicInteger();
+	private final AtomicLongArray nanos;
+	private final AtomicIntegerArray calls;
+
+	ProfilerSection(String name, ProfilerSection parent, int historyLength) {
+		this.name = name;
+		this.parent = parent;
+		this.nanos = new AtomicLongArray(historyLength);
+		this.calls = new AtomicIntegerArray(historyLength);
+	}
+
+	/**
+	 * Gets the name of this section
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the parent of this section
+	 *
+	 * @return the parent, or null for the root
+	 */
+	public ProfilerSection getParent() {
+		return parent;
+	}
+
+	/**
+	 * Gets the child section for the given key, creating it if needed.<br> <br> The name of a new section is the name of a {@link Named} key, the simple name of a {@link Class} key or the string
+	 * value of any other key. Lookups of existing sections do not allocate.
+	 *
+	 * @param key the key
+	 * @return the child section
+	 */
+	public ProfilerSection getChild(Object key) {
+		ProfilerSection child = children.get(key);
+		if (child == null) {
+			child = new ProfilerSection(nameOf(key), this, nanos.length());
+			ProfilerSection old = children.putIfAbsent(key, child);
+			if (old != null) {
+				child = old;
+			}
+		}
+		return child;
+	}
+
+	/**
+	 * Removes the child section for the given key, along with its own children.  Sections for short lived objects should be removed once the object is discarded, so that the tree does not grow
+	 * without bound.
+	 *
+	 * @param key the key
+	 * @return the removed section, or null if there was no section for the key
+	 */
+	public ProfilerSection removeChild(Object key) {
+		return children.remove(key);
+	}
+
+	/**
+	 * Gets the child sections
+	 *
+	 * @return the children
+	 */
+	public Collection<ProfilerSection> getChildren() {
+		return Collections.unmodifiableCollection(children.values());
+	}
+
+	/**
+	 * Adds a call to the current tick
+	 *
+	 * @param nanos the duration of the call
+	 */
+	public void add(long nanos) {
+		currentNanos.addAndGet(nanos);
+		currentCalls.incrementAndGet();
+	}
+
+	/**
+	 * Gets the total time recorded over the last ticks
+	 *
+	 * @param tick the last completed tick
+	 * @param ticks the number of ticks to include
+	 * @return the total time, in nanoseconds
+	 */
+	public long getNanos(long tick, int ticks) {
+		long total = 0;
+		for (int i = 0; i < ticks; i++) {
+			total += nanos.get((int) ((tick - i) % nanos.length()));
+		}
+		return total;
+	}
+
+	/**
+	 * Gets the number of calls recorded over the last ticks
+	 *
+	 * @param tick the last completed tick
+	 * @param ticks the number of ticks to include
+	 * @return the number of calls
+	 */
+	public int getCalls(long tick, int ticks) {
+		int total = 0;
+		for (int i = 0; i < ticks; i++) {
+			total += calls.get((int) ((tick - i) % calls.length()));
+		}
+		return total;
+	}
+
+	/**
+	 * Gets the full path of this section, with names separated by ';' as used by folded flame graph stacks
+	 *
+	 * @return the path
+	 */
+	public String getPath() {
+		if (parent == null || parent.parent == null) {
+			return escape(name);
+		}
+		return parent.getPath() + ";" + escape(name);
+	}
+
+	void endTick(long tick) {
+		final int index = (int) (tick % nanos.length());
+		nanos.set(index, currentNanos.getAndSet(0));
+		calls.set(index, currentCalls.getAndSet(0));
+		for (ProfilerSection child : children.values()) {
+			child.endTick(tick);
+		}
+	}
+
+	private static String escape(String name) {
+		return name.replace(';', ':').replace('\n', ' ');
+	}
+
+	/**
+	 * Gets the name of the section created for the given key. Callers which profile plugin objects or classes should
+	 * pass this name as the key, so that the tree never holds on to the object, or through a class to its class loader.
+	 *
+	 * @param key the key
+	 * @return the name
+	 */
+	public static String nameOf(Object key) {
+		if (key instanceof Named) {
+			return ((Named) key).getName();
+		} else if (key instanceof Class) {
+			final Class<?> clazz = (Class<?>) key;
+			return clazz.getSimpleName().isEmpty() ? clazz.getName() : clazz.getSimpleName();
+		}
+		return String.valueOf(key);
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.util.profiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An always on profiler which attributes time to a tree of {@link ProfilerSection}s.<br> <br> Sections accumulate the time of the current tick, and {@link #endTick()} moves it into per section ring
+ * buffers, so the last {@link #getHistoryLength()} ticks can be inspected at any time. The recorded time can be exported as folded stacks, which is the input format of the usual flame graph tools.
+ */
+public final class TickProfiler {
+	private final ProfilerSection root;
+	private final int historyLength;
+	private volatile long tick = -1;
+
+	/**
+	 * Creates a new profiler
+	 *
+	 * @param historyLength the number of ticks to keep
+	 */
+	public TickProfiler(int historyLength) {
+		if (historyLength <= 0) {
+			throw new IllegalArgumentException("History length must be positive");
+		}
+		this.historyLength = historyLength;
+		this.root = new ProfilerSection("root", null, historyLength);
+	}
+
+	/**
+	 * Gets a top level section, creating it if needed
+	 *
+	 * @param key the key of the section
+	 * @return the section
+	 */
+	public ProfilerSection getSection(Object key) {
+		return root.getChild(key);
+	}
+
+	/**
+	 * Gets the root of the section tree
+	 *
+	 * @return the root
+	 */
+	public ProfilerSection getRoot() {
+		return root;
+	}
+
+	/**
+	 * Gets the number of ticks kept by the ring buffers
+	 *
+	 * @return the history length
+	 */
+	public int getHistoryLength() {
+		return historyLength;
+	}
+
+	/**
+	 * Gets the number of completed ticks which are available, up to the history length
+	 *
+	 * @return the number of available ticks
+	 */
+	public int getAvailableTicks() {
+		return (int) Math.min(historyLength, tick + 1);
+	}
+
+	/**
+	 * Moves the time recorded since the last call into the ring buffers.<br> <br> This must only be called by a single thread.
+	 */
+	public void endTick() {
+		final long next = tick + 1;
+		root.endTick(next);
+		tick = next;
+	}
+
+	/**
+	 * Gets all the sections which recorded time during the last ticks, sorted by decreasing time
+	 *
+	 * @param ticks the number of ticks to include
+	 * @return the sections
+	 */
+	public List<ProfilerSection> getSortedSections(final int ticks) {
+		final long last = tick;
+		final int count = clampTicks(ticks);
+		final List<ProfilerSection> sections = new ArrayList<>();
+		collect(root, last, count, sections);
+		Collections.sort(sections, new Comparator<ProfilerSection>() {
+			@Override
+			public int compare(ProfilerSection a, ProfilerSection b) {
+				return Long.compare(b.getNanos(last, count), a.getNanos(last, count));
+			}
+		});
+		return sections;
+	}
+
+	/**
+	 * Gets the tick number of the last completed tick
+	 *
+	 * @return the tick number, or -1 if no tick has completed
+	 */
+	public long getLastTick() {
+		return tick;
+	}
+
+	/**
+	 * Writes the time recorded during the last ticks as folded stacks, one "path self-time" line per section, with the time in microseconds
+	 *
+	 * @param writer the writer to write to
+	 * @param ticks the number of ticks to include
+	 * @throws IOException if the writer throws an exception
+	 */
+	public void writeFoldedStacks(Writer writer, int ticks) throws IOException {
+		final long last = tick;
+		final int count = clampTicks(ticks);
+		for (ProfilerSection section : root.getChildren()) {
+			writeFolded(section, last, count, writer);
+		}
+		writer.flush();
+	}
+
+	private int clampTicks(int ticks) {
+		return Math.max(0, Math.min(ticks, getAvailableTicks()));
+	}
+
+	private static void collect(ProfilerSection section, long tick, int ticks, List<ProfilerSection> sections) {
+		for (ProfilerSection child : section.getChildren()) {
+			if (child.getCalls(tick, ticks) > 0) {
+				sections.add(child);
+			}
+			collect(child, tick, ticks, sections);
+		}
+	}
+
+	private static void writeFolded(ProfilerSection section, long tick, int ticks, Writer writer) throws IOException {
+		long self = section.getNanos(tick, ticks);
+		for (ProfilerSection child : section.getChildren()) {
+			self -= child.getNanos(tick, ticks);
+			writeFolded(child, tick, ticks, writer);
+		}
+		// Children may run in parallel, so they can add up to more than their parent
+		final long micros = self / 1000;
+		if (micros > 0) {
+			writer.write(section.getPath());
+			writer.write(' ');
+			writer.write(Long.toString(micros));
+			writer.write('\n');
+		}
+	}
+}
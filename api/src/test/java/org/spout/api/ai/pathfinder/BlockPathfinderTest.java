@@ -0,0 +1,241 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.ai.pathfinder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import gnu.trove.set.hash.TLongHashSet;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import org.spout.api.ai.AStarMachine;
+import org.spout.api.entity.Entity;
+import org.spout.api.geo.World;
+import org.spout.api.material.Material;
+import org.spout.api.util.hashing.Int21TripleHashed;
+import org.spout.math.vector.Vector3f;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BlockPathfinderTest {
+	private static final int BENCHMARK_COUNT = 20;
+	private static final boolean PRINT_BENCHMARKS = false;
+
+	@Test
+	public void testStraightPath() {
+		final GridSource source = new GridSource();
+		final Path path = new BlockPathfinder(new SolidExaminer()).find(source, Vector3f.ZERO, new Vector3f(10, 0, 0), -1);
+		assertNotNull(path);
+		Vector3f last = checkPath(source, path, Vector3f.ZERO);
+		assertTrue(last.distanceSquared(new Vector3f(10, 0, 0)) <= 4);
+	}
+
+	@Test
+	public void testAroundWall() {
+		final GridSource source = new GridSource();
+		for (int y = -3; y <= 3; y++) {
+			for (int z = -3; z <= 3; z++) {
+				source.setSolid(5, y, z);
+			}
+		}
+		final Vector3f goal = new Vector3f(10, 0, 0);
+		final Path path = new BlockPathfinder(new SolidExaminer()).find(source, Vector3f.ZERO, goal, -1);
+		assertNotNull(path);
+		Vector3f last = checkPath(source, path, Vector3f.ZERO);
+		assertTrue(last.distanceSquared(goal) <= 4);
+	}
+
+	@Test
+	public void testEnclosed() {
+		final GridSource source = new GridSource();
+		for (int x = -1; x <= 1; x++) {
+			for (int y = -1; y <= 1; y++) {
+				for (int z = -1; z <= 1; z++) {
+					if (x != 0 || y != 0 || z != 0) {
+						source.setSolid(x, y, z);
+					}
+				}
+			}
+		}
+		assertNull(new BlockPathfinder(new SolidExaminer()).find(source, Vector3f.ZERO, new Vector3f(10, 0, 0), -1));
+	}
+
+	@Test
+	public void testIterationLimit() {
+		final GridSource source = new GridSource();
+		assertNull(new BlockPathfinder(new SolidExaminer()).find(source, Vector3f.ZERO, new Vector3f(100, 0, 0), 5));
+		// The arena is reused after a failed search
+		assertNotNull(new BlockPathfinder(new SolidExaminer()).find(source, Vector3f.ZERO, new Vector3f(5, 0, 0), -1));
+	}
+
+	@Test
+	public void testResumedSearch() {
+		final GridSource source = new GridSource();
+		for (int y = -3; y <= 3; y++) {
+			for (int z = -3; z <= 3; z++) {
+				source.setSolid(5, y, z);
+			}
+		}
+		final Vector3f goal = new Vector3f(10, 0, 0);
+		final BlockPathfinder pathfinder = new BlockPathfinder(new SolidExaminer());
+		final BlockPathfinder.Search search = pathfinder.startSearch(source, Vector3f.ZERO, goal, -1);
+		int slices = 0;
+		while (!search.run(3)) {
+			slices++;
+		}
+		assertTrue(slices > 1);
+		assertNotNull(search.getPath());
+		assertEquals(pathLength(pathfinder.find(source, Vector3f.ZERO, goal, -1)), pathLength(search.getPath()));
+	}
+
+	@Test
+	public void testCallbacks() {
+		final GridSource source = new GridSource();
+		final AtomicInteger runs = new AtomicInteger();
+		final Path path = new BlockPathfinder(new SolidExaminer(), new BlockExaminer() {
+			@Override
+			public float getCost(BlockSource source, PathPoint point) {
+				return 0;
+			}
+
+			@Override
+			public boolean isPassable(BlockSource source, PathPoint point) {
+				point.addCallback(new PathPoint.PathCallback() {
+					@Override
+					public void run(org.spout.api.entity.Entity entity, org.spout.api.geo.cuboid.Block point) {
+						runs.incrementAndGet();
+					}
+				});
+				return true;
+			}
+		}).find(source, Vector3f.ZERO, new Vector3f(5, 0, 0), -1);
+		assertNotNull(path);
+		assertFalse(path.isComplete());
+		// Points with callbacks are kept, and their callbacks run as the entity reaches them
+		final int length = path.getPoints().length;
+		final Entity entity = Mockito.mock(Entity.class);
+		Mockito.when(entity.getWorld()).thenReturn(Mockito.mock(World.class));
+		while (!path.isComplete()) {
+			path.update(entity);
+		}
+		assertTrue(runs.get() >= length - 1);
+	}
+
+	@Test
+	public void benchmarkAgainstVectorNodes() {
+		final GridSource source = new GridSource();
+		for (int y = -8; y <= 8; y++) {
+			for (int z = -8; z <= 8; z++) {
+				source.setSolid(10, y, z);
+			}
+		}
+		final Vector3f goal = new Vector3f(20, 0, 0);
+		final BlockPathfinder pathfinder = new BlockPathfinder(new SolidExaminer());
+		final AStarMachine<VectorNode, Path> machine = AStarMachine.createWithDefaultStorage();
+
+		long vectorTime = 0;
+		long gridTime = 0;
+		for (int i = 0; i < BENCHMARK_COUNT; i++) {
+			vectorTime -= System.nanoTime();
+			machine.runFully(new VectorGoal(goal), new VectorNode(Vector3f.ZERO, source, new SolidExaminer()), 100000);
+			vectorTime += System.nanoTime();
+			gridTime -= System.nanoTime();
+			assertNotNull(pathfinder.find(source, Vector3f.ZERO, goal, 100000));
+			gridTime += System.nanoTime();
+		}
+
+		if (PRINT_BENCHMARKS) {
+			System.out.println("VectorNode A*: " + (vectorTime / 1000000.0) / BENCHMARK_COUNT + "ms");
+			System.out.println("BlockPathfinder: " + (gridTime / 1000000.0) / BENCHMARK_COUNT + "ms");
+		}
+	}
+
+	private static int pathLength(Path path) {
+		int length = 0;
+		while (!path.isComplete()) {
+			length++;
+			path.update(null);
+		}
+		return length;
+	}
+
+	private static Vector3f checkPath(GridSource source, Path path, Vector3f start) {
+		Vector3f previous = start;
+		assertEquals(start, path.getCurrentVector());
+		while (!path.isComplete()) {
+			final Vector3f current = path.getCurrentVector();
+			assertTrue(previous.distanceSquared(current) <= 3);
+			assertFalse(source.isSolid(current.getFloorX(), current.getFloorY(), current.getFloorZ()));
+			previous = current;
+			path.update(null);
+		}
+		return previous;
+	}
+
+	private static class GridSource extends AbstractBlockSource {
+		private final TLongHashSet solid = new TLongHashSet();
+
+		public void setSolid(int x, int y, int z) {
+			solid.add(Int21TripleHashed.key(x, y, z));
+		}
+
+		public boolean isSolid(int x, int y, int z) {
+			return solid.contains(Int21TripleHashed.key(x, y, z));
+		}
+
+		@Override
+		public int getBlockTypeIdAt(int x, int y, int z) {
+			return isSolid(x, y, z) ? 1 : 0;
+		}
+
+		@Override
+		public int getBlockTypeIdAt(Vector3f pos) {
+			return getBlockTypeIdAt(pos.getFloorX(), pos.getFloorY(), pos.getFloorZ());
+		}
+
+		@Override
+		public Material getMaterialAt(Vector3f pos) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	private static class SolidExaminer implements BlockExaminer {
+		@Override
+		public float getCost(BlockSource source, PathPoint point) {
+			return 0;
+		}
+
+		@Override
+		public boolean isPassable(BlockSource source, PathPoint point) {
+			return source.getBlockTypeIdAt(point.getVector()) == 0;
+		}
+	}
+}
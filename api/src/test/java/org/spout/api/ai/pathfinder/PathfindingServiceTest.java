@@ -0,0 +1,225 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.ai.pathfinder;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import org.spout.api.geo.World;
+import org.spout.api.material.Material;
+import org.spout.math.vector.Vector3f;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class PathfindingServiceTest {
+	private static final Vector3f START = new Vector3f(0, 0, 0);
+	private static final Vector3f GOAL = new Vector3f(10, 0, 0);
+	private final World world = Mockito.mock(World.class);
+	private final BlockPathfinder pathfinder = new BlockPathfinder(new OpenExaminer());
+
+	@Test
+	public void testIdenticalRequestsShareSearch() throws Exception {
+		final QueueExecutor executor = new QueueExecutor();
+		final TestService service = new TestService(executor, new GridSource());
+		final ListenableFuture<Path> first = service.find(pathfinder, world, START, GOAL, -1);
+		final ListenableFuture<Path> second = service.find(pathfinder, world, START, GOAL, -1);
+		assertEquals(1, service.getPendingCount());
+		assertEquals(1, service.getJoinedCount());
+		executor.runAll();
+		assertEquals(1, service.getCompletedCount());
+		assertEquals(0, service.getPendingCount());
+		assertNotNull(first.get());
+		assertNotNull(second.get());
+		// Each request gets its own path
+		assertNotSame(first.get(), second.get());
+		assertEquals(first.get().getPoints().length, second.get().getPoints().length);
+	}
+
+	@Test
+	public void testCacheHitIsOffsetCopy() throws Exception {
+		final TestService service = new TestService(new DirectExecutor(), new GridSource());
+		final Path original = service.find(pathfinder, world, START, GOAL, -1).get();
+		assertNotNull(original);
+		assertEquals(1, service.getCachedCount());
+
+		// A start in the same block hits the cache, and the path is moved by the offset of the start
+		final Vector3f offset = new Vector3f(0.5f, 0.25f, 0.5f);
+		final Path cached = service.find(pathfinder, world, START.add(offset), GOAL, -1).get();
+		assertEquals(1, service.getCacheHitCount());
+		assertEquals(1, service.getCompletedCount());
+		assertNotSame(original, cached);
+		final Vector3f[] originalPoints = original.getPoints();
+		final Vector3f[] cachedPoints = cached.getPoints();
+		assertEquals(originalPoints.length, cachedPoints.length);
+		for (int i = 0; i < originalPoints.length; i++) {
+			assertEquals(originalPoints[i].add(offset), cachedPoints[i]);
+		}
+
+		// Following one copy does not move the others
+		while (!cached.isComplete()) {
+			cached.update(null);
+		}
+		final Path again = service.find(pathfinder, world, START, GOAL, -1).get();
+		assertFalse(again.isComplete());
+		assertEquals(START, again.getCurrentVector());
+	}
+
+	@Test
+	public void testBlockChangeEvictsPath() throws Exception {
+		final TestService service = new TestService(new DirectExecutor(), new GridSource());
+		assertNotNull(service.find(pathfinder, world, START, GOAL, -1).get());
+		assertEquals(1, service.getCachedCount());
+
+		// A change far away from the path keeps it
+		service.blockChanged(world, 1000, 0, 1000);
+		assertEquals(1, service.getCachedCount());
+
+		// A change in a chunk next to the path removes it
+		service.blockChanged(world, 5, 1, 0);
+		assertEquals(0, service.getCachedCount());
+		assertNotNull(service.find(pathfinder, world, START, GOAL, -1).get());
+		assertEquals(0, service.getCacheHitCount());
+		assertEquals(2, service.getCompletedCount());
+	}
+
+	@Test
+	public void testChangeDuringSearchIsNotCached() throws Exception {
+		final GridSource source = new GridSource();
+		final TestService service = new TestService(new DirectExecutor(), source);
+		source.onFirstRead = new Runnable() {
+			@Override
+			public void run() {
+				service.blockChanged(world, 3, 0, 0);
+			}
+		};
+		assertNotNull(service.find(pathfinder, world, START, GOAL, -1).get());
+		assertEquals(1, service.getCompletedCount());
+		assertEquals(0, service.getCachedCount());
+	}
+
+	@Test
+	public void testCancelledSearchIsDropped() {
+		final QueueExecutor executor = new QueueExecutor();
+		final GridSource source = new GridSource();
+		final TestService service = new TestService(executor, source);
+		final ListenableFuture<Path> first = service.find(pathfinder, world, START, new Vector3f(1000, 0, 0), -1);
+		final ListenableFuture<Path> second = service.find(pathfinder, world, START, new Vector3f(1000, 0, 0), -1);
+		assertTrue(first.cancel(false));
+		assertTrue(second.cancel(false));
+		executor.runAll();
+		assertEquals(0, service.getPendingCount());
+		assertEquals(0, service.getCompletedCount());
+		assertEquals(0, source.reads);
+
+		// A new request for the same search starts a new one
+		final ListenableFuture<Path> third = service.find(pathfinder, world, START, GOAL, -1);
+		executor.runAll();
+		assertTrue(third.isDone());
+		assertEquals(1, service.getCompletedCount());
+	}
+
+	private static class TestService extends PathfindingService {
+		private final BlockSource source;
+
+		public TestService(Executor executor, BlockSource source) {
+			super(executor, 1, 8, 16, 60000);
+			this.source = source;
+		}
+
+		@Override
+		protected BlockSource createBlockSource(World world) {
+			return source;
+		}
+	}
+
+	private static class DirectExecutor implements Executor {
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	}
+
+	private static class QueueExecutor implements Executor {
+		private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+		@Override
+		public void execute(Runnable command) {
+			tasks.add(command);
+		}
+
+		public void runAll() {
+			Runnable task;
+			while ((task = tasks.poll()) != null) {
+				task.run();
+			}
+		}
+	}
+
+	private static class GridSource extends AbstractBlockSource {
+		private Runnable onFirstRead;
+		private int reads = 0;
+
+		@Override
+		public int getBlockTypeIdAt(int x, int y, int z) {
+			if (reads++ == 0 && onFirstRead != null) {
+				onFirstRead.run();
+			}
+			return 0;
+		}
+
+		@Override
+		public int getBlockTypeIdAt(Vector3f pos) {
+			return getBlockTypeIdAt(pos.getFloorX(), pos.getFloorY(), pos.getFloorZ());
+		}
+
+		@Override
+		public Material getMaterialAt(Vector3f pos) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	private static class OpenExaminer implements BlockExaminer {
+		@Override
+		public float getCost(BlockSource source, PathPoint point) {
+			return 0;
+		}
+
+		@Override
+		public boolean isPassable(BlockSource source, PathPoint point) {
+			return source.getBlockTypeIdAt(point.getVector()) == 0;
+		}
+	}
+}
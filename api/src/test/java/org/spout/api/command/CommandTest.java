@@ -38,8 +38,13 @@ import org.spout.api.lang.Locale;
 
 import static org.hamcrest.Matchers.isA;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 public class CommandTest {
+	private static final boolean PRINT_BENCHMARKS = false;
+	private static final int BENCHMARK_COMMANDS = 100;
+	private static final int BENCHMARK_DISPATCHES = 100000;
 	@Rule
 	public ExpectedException thrown = ExpectedException.none();
 
@@ -88,6 +93,58 @@ public class CommandTest {
 		testSource.processCommand("test2", "foo", "bar", "baz", "hello");
 	}
 
+	@Test
+	public void testAliases() {
+		CommandManager cm = new CommandManager();
+		Command parent = cm.getCommand("parent");
+		Command child = parent.getChild("child");
+
+		assertSame(child, parent.getChild("CHILD", false));
+		assertNull(parent.getChild("kid", false));
+		child.addAlias("kid");
+		assertSame(child, parent.getChild("Kid", false));
+		child.removeAlias("kid");
+		assertNull(parent.getChild("kid", false));
+
+		parent.addAlias("p");
+		assertSame(parent, cm.getCommand("P", false));
+		assertNull(cm.getCommand("child", false));
+	}
+
+	@Test
+	public void benchmarkNestedDispatch() {
+		CommandManager cm = new CommandManager();
+		CommandSource testSource = new TestCommandSource(cm);
+		Executor executor = new Executor() {
+			@Override
+			public void execute(CommandSource source, Command command, CommandArguments args) throws CommandException {
+				args.popString("name");
+				args.popInteger("amount");
+				args.popString("reason", "none");
+			}
+		};
+		for (int i = 0; i < BENCHMARK_COMMANDS; i++) {
+			Command root = cm.getCommand("root" + i);
+			for (int j = 0; j < BENCHMARK_COMMANDS; j++) {
+				Command child = root.getChild("child" + j);
+				child.addFlag(CommandFlags.Flag.b("s", "silent"));
+				child.getChild("leaf").setExecutor(executor);
+			}
+		}
+
+		String[] args = {"child" + (BENCHMARK_COMMANDS - 1), "leaf", "-s", "player", "64", "\"some", "reason\""};
+		String command = "root" + (BENCHMARK_COMMANDS - 1);
+		long time = -System.nanoTime();
+		for (int i = 0; i < BENCHMARK_DISPATCHES; i++) {
+			testSource.processCommand(command, args);
+		}
+		time += System.nanoTime();
+
+		if (PRINT_BENCHMARKS) {
+			System.out.println("Nested command parse and dispatch: " + (time / BENCHMARK_DISPATCHES) + "ns per command");
+		}
+	}
+
 	@Test
 	public void testFilter() {
 		CommandManager cm = new CommandManager();
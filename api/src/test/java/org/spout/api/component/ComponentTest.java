@@ -54,6 +54,7 @@ import org.spout.api.event.player.input.PlayerKeyEvent;
 import org.spout.api.generator.WorldGenerator;
 import org.spout.api.generator.biome.Biome;
 import org.spout.api.generator.biome.BiomeManager;
+import org.spout.api.generator.biome.BiomeTileCache;
 import org.spout.api.geo.LoadOption;
 import org.spout.api.geo.World;
 import org.spout.api.geo.cuboid.Block;
@@ -386,6 +387,11 @@ public final class ComponentTest {
 			return null;
 		}
 
+		@Override
+		public BiomeTileCache getBiomeTileCache() {
+			return null;
+		}
+
 		@Override
 		public Entity getEntity(UUID uid) {
 			return null;
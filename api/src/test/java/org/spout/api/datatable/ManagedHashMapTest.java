@@ -0,0 +1,68 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.datatable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ManagedHashMapTest {
+	@Test
+	public void testModificationListener() {
+		final AtomicInteger modifications = new AtomicInteger();
+		ManagedHashMap map = new ManagedHashMap();
+		map.getDeltaMap().setModificationListener(new Runnable() {
+			@Override
+			public void run() {
+				modifications.incrementAndGet();
+			}
+		});
+
+		map.put("a", 1);
+		assertEquals("Listener was not notified of a put", 1, modifications.get());
+
+		map.remove("a");
+		assertEquals("Listener was not notified of a remove", 2, modifications.get());
+
+		map.resetDelta();
+		assertTrue("Delta was not reset", map.getDeltaMap().isEmpty());
+		assertEquals("Listener was notified of a reset", 2, modifications.get());
+
+		ManagedHashMap child = new ManagedHashMap(map, "child");
+		int beforeChild = modifications.get();
+		child.put("b", 2);
+		assertTrue("Listener was not notified of a change to a child map", modifications.get() > beforeChild);
+
+		map.getDeltaMap().setModificationListener(null);
+		int beforeRemoval = modifications.get();
+		map.put("c", 3);
+		assertEquals("Removed listener was notified", beforeRemoval, modifications.get());
+	}
+}
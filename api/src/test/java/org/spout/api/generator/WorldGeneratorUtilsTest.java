@@ -0,0 +1,116 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.generator;
+
+import net.royawesome.jlibnoise.module.source.Perlin;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class WorldGeneratorUtilsTest {
+	private final static double EPSILON = 0.000001;
+	private final static int SIZE = 16;
+	private final static int HEIGHT = 128;
+	private final static int SAMPLING_RATE = 4;
+	private final static int BENCHMARK_COUNT = 100;
+	private final static boolean PRINT_BENCHMARKS = false;
+
+	private static Perlin createPerlin() {
+		Perlin perlin = new Perlin();
+		perlin.setSeed(42);
+		perlin.setFrequency(0.01);
+		perlin.setOctaveCount(4);
+		return perlin;
+	}
+
+	@Test
+	public void testFlat1DMatchesNested() {
+		final Perlin perlin = createPerlin();
+		final double[] nested = WorldGeneratorUtils.fastNoise(perlin, SIZE, SAMPLING_RATE, 5, 64, -9);
+		final double[] flat = new double[SIZE + 1];
+		WorldGeneratorUtils.fastNoise(perlin, flat, SIZE, SAMPLING_RATE, 5, 64, -9);
+		for (int x = 0; x <= SIZE; x++) {
+			assertEquals(nested[x], flat[x], EPSILON);
+		}
+	}
+
+	@Test
+	public void testFlat2DMatchesNested() {
+		final Perlin perlin = createPerlin();
+		final double[][] nested = WorldGeneratorUtils.fastNoise(perlin, SIZE, SIZE, SAMPLING_RATE, -40, 64, 17);
+		final double[] flat = new double[(SIZE + 1) * (SIZE + 1)];
+		WorldGeneratorUtils.fastNoise(perlin, flat, SIZE, SIZE, SAMPLING_RATE, -40, 64, 17);
+		// The nested version does not interpolate the far edges, so only the inner values are compared
+		for (int x = 0; x < SIZE; x++) {
+			for (int z = 0; z < SIZE; z++) {
+				assertEquals(nested[x][z], flat[z * (SIZE + 1) + x], EPSILON);
+			}
+		}
+	}
+
+	@Test
+	public void testFlat3DMatchesNested() {
+		final Perlin perlin = createPerlin();
+		final double[][][] nested = WorldGeneratorUtils.fastNoise(perlin, SIZE, HEIGHT, SIZE, SAMPLING_RATE, 32, 0, -32);
+		final double[] flat = new double[(SIZE + 1) * (HEIGHT + 1) * (SIZE + 1)];
+		WorldGeneratorUtils.fastNoise(perlin, flat, SIZE, HEIGHT, SIZE, SAMPLING_RATE, 32, 0, -32);
+		for (int x = 0; x < SIZE; x++) {
+			for (int y = 0; y < HEIGHT; y++) {
+				for (int z = 0; z < SIZE; z++) {
+					assertEquals(nested[x][y][z], flat[(y * (SIZE + 1) + z) * (SIZE + 1) + x], EPSILON);
+				}
+			}
+		}
+	}
+
+	@Test (expected = IllegalArgumentException.class)
+	public void testFlatTooSmall() {
+		WorldGeneratorUtils.fastNoise(createPerlin(), new double[SIZE], SIZE, SIZE, SAMPLING_RATE, 0, 0, 0);
+	}
+
+	@Test
+	public void benchmark3D() {
+		final Perlin perlin = createPerlin();
+		final double[] flat = new double[(SIZE + 1) * (HEIGHT + 1) * (SIZE + 1)];
+
+		long nestedTime = 0;
+		long flatTime = 0;
+		for (int i = 0; i < BENCHMARK_COUNT; i++) {
+			nestedTime -= System.nanoTime();
+			WorldGeneratorUtils.fastNoise(perlin, SIZE, HEIGHT, SIZE, SAMPLING_RATE, i << 4, 0, 0);
+			nestedTime += System.nanoTime();
+			flatTime -= System.nanoTime();
+			WorldGeneratorUtils.fastNoise(perlin, flat, SIZE, HEIGHT, SIZE, SAMPLING_RATE, i << 4, 0, 0);
+			flatTime += System.nanoTime();
+		}
+
+		if (PRINT_BENCHMARKS) {
+			System.out.println("Nested fastNoise: " + (nestedTime / 1000000.0) / BENCHMARK_COUNT + "ms");
+			System.out.println("Flat fastNoise: " + (flatTime / 1000000.0) / BENCHMARK_COUNT + "ms");
+		}
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.generator.biome.selector;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import org.spout.api.generator.biome.Biome;
+
+import static org.junit.Assert.assertSame;
+
+public class LayeredBiomeSelectorTest {
+	private final static long SEED = 1234567L;
+	private final static int X = -40;
+	private final static int Y = 0;
+	private final static int Z = 23;
+	private final static int SIZE = 48;
+
+	private static Biome createBiome() {
+		return Mockito.mock(Biome.class);
+	}
+
+	private static LayeredBiomeSelector createSelector() {
+		final VoronoiLayer voronoi = new VoronoiLayer(7).
+				setVoronoiFrequency(0.05).
+				setTurbulenceFrequency(0.01).
+				addElements(createBiome(), createBiome(), createBiome());
+		final NoiseRangeLayer ridges = new RidgedMultiRangeLayer(11).
+				setOctaveCount(1).
+				setFrequency(0.02).
+				addElement(createBiome(), -1, 0.5f).
+				addElement(createBiome(), 0.5f, 1);
+		final NoiseRangeLayer start = new PerlinRangeLayer(3).
+				setOctaveCount(2).
+				setFrequency(0.01).
+				addElement(voronoi, -1, 0.3f).
+				addElement(ridges, 0.3f, 1).
+				sortElements();
+		return new LayeredBiomeSelector(start, createBiome());
+	}
+
+	@Test
+	public void testPickBiomesMatchesPickBiome() {
+		final LayeredBiomeSelector selector = createSelector();
+		final Biome[] biomes = new Biome[SIZE * SIZE];
+		selector.pickBiomes(biomes, X, Y, Z, SIZE, SIZE, SEED);
+		for (int zz = 0; zz < SIZE; zz++) {
+			for (int xx = 0; xx < SIZE; xx++) {
+				assertSame("Biome mismatch at " + xx + ", " + zz, selector.pickBiome(X + xx, Y, Z + zz, SEED), biomes[zz * SIZE + xx]);
+			}
+		}
+	}
+
+	@Test
+	public void testPickBiomesReusesScratch() {
+		final LayeredBiomeSelector selector = createSelector();
+		selector.pickBiomes(new Biome[SIZE * SIZE], X, Y, Z, SIZE, SIZE, SEED);
+		final int size = SIZE / 3;
+		final Biome[] biomes = new Biome[size * size];
+		selector.pickBiomes(biomes, X + SIZE, Y, Z - SIZE, size, size, SEED);
+		for (int zz = 0; zz < size; zz++) {
+			for (int xx = 0; xx < size; xx++) {
+				assertSame("Biome mismatch at " + xx + ", " + zz, selector.pickBiome(X + SIZE + xx, Y, Z - SIZE + zz, SEED), biomes[zz * size + xx]);
+			}
+		}
+	}
+
+	@Test
+	public void testLayerPickMatchesPerBlockPick() {
+		final Biome low = createBiome();
+		final Biome high = createBiome();
+		final NoiseRangeLayer perlin = new PerlinRangeLayer(5).
+				setFrequency(0.05).
+				addElement(low, -1, 0).
+				addElement(high, 0, 1);
+		final VoronoiLayer voronoi = new VoronoiLayer(13).
+				setVoronoiFrequency(0.05).
+				addElements(low, high);
+		final LayeredBiomeSelectorElement[] elements = new LayeredBiomeSelectorElement[SIZE * SIZE];
+		perlin.pick(elements, new float[SIZE * SIZE], X, Y, Z, SIZE, SIZE, SEED);
+		for (int i = 0; i < elements.length; i++) {
+			assertSame("Noise range layer mismatch at " + i, perlin.pick(X + i % SIZE, Y, Z + i / SIZE, SEED), elements[i]);
+		}
+		voronoi.pick(elements, X, Y, Z, SIZE, SIZE, SEED);
+		for (int i = 0; i < elements.length; i++) {
+			assertSame("Voronoi layer mismatch at " + i, voronoi.pick(X + i % SIZE, Y, Z + i / SIZE, SEED), elements[i]);
+		}
+	}
+}
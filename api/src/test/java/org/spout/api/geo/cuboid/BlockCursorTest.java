@@ -0,0 +1,157 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.geo.cuboid;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.spout.api.faker.EngineFaker;
+import org.spout.api.geo.LoadOption;
+import org.spout.api.geo.World;
+import org.spout.api.material.BlockMaterial;
+import org.spout.api.material.block.BlockFace;
+import org.spout.api.material.block.BlockFullState;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BlockCursorTest extends EngineFaker {
+	private World world;
+	private Chunk origin;
+	private Chunk south;
+	private Chunk below;
+
+	@Before
+	public void setUp() {
+		world = mock(World.class);
+		origin = mockChunk(0, 0, 0, 1);
+		south = mockChunk(1, 0, 0, 2);
+		below = mockChunk(0, -1, 0, 3);
+		when(world.getChunkFromBlock(15, 4, 8, LoadOption.NO_LOAD)).thenReturn(origin);
+		when(world.getChunkFromBlock(16, 4, 8, LoadOption.NO_LOAD)).thenReturn(south);
+		when(world.getChunkFromBlock(15, -1, 8, LoadOption.NO_LOAD)).thenReturn(below);
+	}
+
+	@Test
+	public void testChunkBorders() {
+		BlockCursor cursor = new BlockCursor(world, LoadOption.NO_LOAD);
+		cursor.move(15, 4, 8);
+		assertSame(origin, cursor.getChunk());
+		assertEquals(1, cursor.getFullState());
+
+		cursor.move(BlockFace.SOUTH);
+		assertEquals(16, cursor.getX());
+		assertSame(south, cursor.getChunk());
+		assertEquals(2, cursor.getFullState());
+
+		cursor.move(BlockFace.NORTH);
+		assertSame(origin, cursor.getChunk());
+		cursor.moveBy(0, -5, 0);
+		assertSame(below, cursor.getChunk());
+		assertEquals(3, cursor.getFullState());
+
+		// Moves within a chunk reuse it
+		when(world.getChunkFromBlock(14, 4, 8, LoadOption.NO_LOAD)).thenReturn(origin);
+		cursor.move(15, 4, 8);
+		cursor.move(14, 4, 8);
+		cursor.move(14, 4, 9);
+		assertSame(origin, cursor.getChunk());
+		verify(world, times(3)).getChunkFromBlock(15, 4, 8, LoadOption.NO_LOAD);
+		verify(world, times(0)).getChunkFromBlock(14, 4, 8, LoadOption.NO_LOAD);
+	}
+
+	@Test
+	public void testUnloadedChunk() {
+		BlockCursor cursor = new BlockCursor(world, LoadOption.NO_LOAD);
+		cursor.move(15, 4, 8);
+		assertTrue(cursor.isLoaded());
+
+		when(origin.isLoaded()).thenReturn(false);
+		when(world.getChunkFromBlock(15, 4, 8, LoadOption.NO_LOAD)).thenReturn(null);
+		assertFalse(cursor.isLoaded());
+		assertNull(cursor.getChunk());
+		assertEquals(BlockFullState.getPacked(BlockMaterial.UNGENERATED), cursor.getFullState());
+
+		// Once the chunk is loaded again, moving finds it
+		Chunk reloaded = mockChunk(0, 0, 0, 4);
+		when(world.getChunkFromBlock(15, 4, 8, LoadOption.NO_LOAD)).thenReturn(reloaded);
+		cursor.move(15, 4, 8);
+		assertTrue(cursor.isLoaded());
+		assertEquals(4, cursor.getFullState());
+	}
+
+	@Test
+	public void testReloadedChunk() {
+		BlockCursor cursor = new BlockCursor(world, LoadOption.NO_LOAD);
+		cursor.move(15, 4, 8);
+
+		// A read after the chunk was replaced looks it up again without moving
+		Chunk reloaded = mockChunk(0, 0, 0, 4);
+		when(origin.isLoaded()).thenReturn(false);
+		when(world.getChunkFromBlock(15, 4, 8, LoadOption.NO_LOAD)).thenReturn(reloaded);
+		assertEquals(4, cursor.getFullState());
+		assertSame(reloaded, cursor.getChunk());
+	}
+
+	@Test
+	public void testSetWorld() {
+		BlockCursor cursor = new BlockCursor(world, LoadOption.NO_LOAD);
+		cursor.move(15, 4, 8);
+		cursor.setWorld(world);
+		assertSame(origin, cursor.getChunk());
+
+		World other = mock(World.class);
+		Chunk otherChunk = mockChunk(0, 0, 0, 5);
+		when(other.getChunkFromBlock(15, 4, 8, LoadOption.NO_LOAD)).thenReturn(otherChunk);
+		cursor.setWorld(other);
+		assertSame(other, cursor.getWorld());
+		assertNull(cursor.getChunk());
+		assertFalse(cursor.isLoaded());
+
+		cursor.move(15, 4, 8);
+		assertSame(otherChunk, cursor.getChunk());
+		assertEquals(5, cursor.getFullState());
+	}
+
+	private static Chunk mockChunk(int x, int y, int z, int fullState) {
+		Chunk chunk = mock(Chunk.class);
+		when(chunk.getX()).thenReturn(x);
+		when(chunk.getY()).thenReturn(y);
+		when(chunk.getZ()).thenReturn(z);
+		when(chunk.isLoaded()).thenReturn(true);
+		when(chunk.getBlockFullState(anyInt(), anyInt(), anyInt())).thenReturn(fullState);
+		return chunk;
+	}
+}
@@ -0,0 +1,205 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.inventory.recipe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.spout.api.faker.EngineFaker;
+import org.spout.api.inventory.ItemStack;
+import org.spout.api.material.BlockMaterial;
+import org.spout.api.material.Material;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class SimpleRecipeManagerTest {
+	private static final int RECIPE_COUNT = 10000;
+	private static final int BENCHMARK_COUNT = 100000;
+	private static final boolean PRINT_BENCHMARKS = false;
+	private static final Material[] MATERIALS = {BlockMaterial.UNBREAKABLE, BlockMaterial.UNGENERATED, BlockMaterial.ERROR, BlockMaterial.SOLID_BLUE, BlockMaterial.SOLID_BROWN,
+			BlockMaterial.SOLID_GREEN, BlockMaterial.SOLID_LIGHTGREEN, BlockMaterial.SOLID_RED, BlockMaterial.SOLID_SKYBLUE};
+
+	@Before
+	public void setupMaterials() {
+		EngineFaker.setupEngine();
+	}
+
+	/**
+	 * Gets the ingredients of the i-th shapeless recipe, each recipe has a different multiset of ingredients
+	 */
+	private static List<Material> getShapelessIngredients(int i) {
+		List<Material> ingredients = new ArrayList<>();
+		int remaining = i + 1;
+		for (Material material : MATERIALS) {
+			for (int count = remaining % 3; count > 0; count--) {
+				ingredients.add(material);
+			}
+			remaining /= 3;
+		}
+		return ingredients;
+	}
+
+	/**
+	 * Gets the rows of the i-th shaped recipe, each recipe has a different 3x3 grid
+	 */
+	private static List<List<Material>> getShapedRows(int i) {
+		List<List<Material>> rows = new ArrayList<>();
+		int remaining = i;
+		for (int y = 0; y < 3; y++) {
+			List<Material> row = new ArrayList<>();
+			for (int x = 0; x < 3; x++) {
+				row.add(MATERIALS[remaining % MATERIALS.length]);
+				remaining /= MATERIALS.length;
+			}
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	private static ShapedRecipe buildShaped(List<List<Material>> rows, int result) {
+		RecipeBuilder builder = new RecipeBuilder();
+		char next = 'A';
+		for (List<Material> row : rows) {
+			StringBuilder chars = new StringBuilder();
+			for (Material material : row) {
+				chars.append(next);
+				builder.setIngredient(next, material);
+				next++;
+			}
+			builder.addRow(chars.toString());
+		}
+		builder.setResult(new ItemStack(BlockMaterial.SOLID_BLUE, result));
+		return builder.buildShapedRecipe();
+	}
+
+	private static ShapelessRecipe buildShapeless(List<Material> ingredients, int result) {
+		RecipeBuilder builder = new RecipeBuilder().setResult(new ItemStack(BlockMaterial.SOLID_RED, result));
+		for (Material material : ingredients) {
+			builder.addIngredient(material);
+		}
+		return builder.buildShapelessRecipe();
+	}
+
+	@Test
+	public void testShapelessOrder() {
+		SimpleRecipeManager manager = new SimpleRecipeManager();
+		ShapelessRecipe recipe = buildShapeless(Arrays.asList(BlockMaterial.SOLID_BLUE, BlockMaterial.SOLID_RED, (Material) BlockMaterial.SOLID_BLUE), 1);
+		manager.register(recipe);
+		assertSame(recipe, manager.matchShapelessRecipe(Arrays.asList(BlockMaterial.SOLID_RED, BlockMaterial.SOLID_BLUE, (Material) BlockMaterial.SOLID_BLUE)));
+		assertNull(manager.matchShapelessRecipe(Arrays.asList(BlockMaterial.SOLID_RED, (Material) BlockMaterial.SOLID_BLUE)));
+	}
+
+	@Test
+	public void testShapedOffset() {
+		SimpleRecipeManager manager = new SimpleRecipeManager();
+		RecipeBuilder builder = new RecipeBuilder();
+		builder.setIngredient('A', BlockMaterial.SOLID_BLUE).setIngredient('B', BlockMaterial.UNBREAKABLE);
+		builder.addRow("AB").addRow("BA");
+		builder.setResult(BlockMaterial.SOLID_BLUE, 1);
+		ShapedRecipe recipe = builder.buildShapedRecipe();
+		manager.register(recipe);
+		List<List<Material>> grid = new ArrayList<>();
+		grid.add(Arrays.asList(null, null, (Material) null));
+		grid.add(Arrays.asList(null, BlockMaterial.SOLID_BLUE, (Material) BlockMaterial.UNBREAKABLE));
+		grid.add(Arrays.asList(null, BlockMaterial.UNBREAKABLE, (Material) BlockMaterial.SOLID_BLUE));
+		assertSame(recipe, manager.matchShapedRecipe(grid));
+		// Matching does not modify the grid
+		assertEquals(3, grid.size());
+		List<List<Material>> mirrored = new ArrayList<>();
+		mirrored.add(Arrays.asList(BlockMaterial.UNBREAKABLE, (Material) BlockMaterial.SOLID_BLUE));
+		mirrored.add(Arrays.asList(BlockMaterial.SOLID_BLUE, (Material) BlockMaterial.UNBREAKABLE));
+		assertNull(manager.matchShapedRecipe(mirrored));
+	}
+
+	@Test
+	public void testMemoizedMatchesInvalidated() {
+		SimpleRecipeManager manager = new SimpleRecipeManager();
+		List<Material> ingredients = Arrays.asList(BlockMaterial.SOLID_GREEN, (Material) BlockMaterial.SOLID_BROWN);
+		assertNull(manager.matchShapelessRecipe(ingredients));
+		ShapelessRecipe recipe = buildShapeless(ingredients, 1);
+		manager.register(recipe);
+		assertSame(recipe, manager.matchShapelessRecipe(ingredients));
+		manager.remove(recipe);
+		assertNull(manager.matchShapelessRecipe(ingredients));
+	}
+
+	@Test
+	public void testManyRecipes() {
+		SimpleRecipeManager manager = new SimpleRecipeManager();
+		ShapedRecipe[] shaped = new ShapedRecipe[RECIPE_COUNT];
+		ShapelessRecipe[] shapeless = new ShapelessRecipe[RECIPE_COUNT];
+		for (int i = 0; i < RECIPE_COUNT; i++) {
+			shaped[i] = buildShaped(getShapedRows(i), i + 1);
+			shapeless[i] = buildShapeless(getShapelessIngredients(i), i + 1);
+			manager.register(shaped[i]);
+			manager.register(shapeless[i]);
+		}
+		for (int i = 0; i < RECIPE_COUNT; i++) {
+			assertSame(shaped[i], manager.matchShapedRecipe(getShapedRows(i)));
+			assertSame(shapeless[i], manager.matchShapelessRecipe(getShapelessIngredients(i)));
+		}
+	}
+
+	@Test
+	public void benchmarkMatching() {
+		SimpleRecipeManager manager = new SimpleRecipeManager();
+		for (int i = 0; i < RECIPE_COUNT; i++) {
+			manager.register(buildShaped(getShapedRows(i), i + 1));
+			manager.register(buildShapeless(getShapelessIngredients(i), i + 1));
+		}
+		Random random = new Random(42);
+		List<List<List<Material>>> grids = new ArrayList<>();
+		List<List<Material>> lists = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			grids.add(getShapedRows(random.nextInt(RECIPE_COUNT * 2)));
+			lists.add(getShapelessIngredients(random.nextInt(RECIPE_COUNT * 2)));
+		}
+
+		long shapedTime = -System.nanoTime();
+		for (int i = 0; i < BENCHMARK_COUNT; i++) {
+			manager.matchShapedRecipe(grids.get(i % grids.size()));
+		}
+		shapedTime += System.nanoTime();
+		long shapelessTime = -System.nanoTime();
+		for (int i = 0; i < BENCHMARK_COUNT; i++) {
+			manager.matchShapelessRecipe(lists.get(i % lists.size()));
+		}
+		shapelessTime += System.nanoTime();
+
+		if (PRINT_BENCHMARKS) {
+			System.out.println("Shaped match with " + RECIPE_COUNT + " recipes: " + (shapedTime / 1000.0) / BENCHMARK_COUNT + "us");
+			System.out.println("Shapeless match with " + RECIPE_COUNT + " recipes: " + (shapelessTime / 1000.0) / BENCHMARK_COUNT + "us");
+		}
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.io.regionfile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MappedRandomAccessFileTest {
+	private static final boolean PRINT_BENCHMARKS = false;
+	private static final int PAGE_SHIFT = 12;
+	private static final int ENTRIES = 64;
+	private static final int ENTRY_SIZE = 6000;
+	private static final int READS_PER_THREAD = 20000;
+	private static final String FILENAME = "target/mappedfile.dat";
+
+	@Test
+	public void testPositionalReads() throws IOException {
+		File path = createFile();
+		MappedRandomAccessFile file = new MappedRandomAccessFile(path, "rw", PAGE_SHIFT);
+		try {
+			byte[][] entries = writeEntries(file);
+
+			// Positional reads must agree with seek based reads and leave the file position alone
+			file.seek(7);
+			for (int i = 0; i < ENTRIES; i++) {
+				byte[] read = new byte[ENTRY_SIZE];
+				file.read((long) i * ENTRY_SIZE, read, 0, ENTRY_SIZE);
+				assertArrayEquals(entries[i], read);
+			}
+			byte[] expected = new byte[4];
+			System.arraycopy(entries[0], 7, expected, 0, 4);
+			assertEquals(toInt(expected, 0), file.readInt());
+
+			// Ints which straddle a page boundary
+			long boundary = 1 << PAGE_SHIFT;
+			for (long pos = boundary - 3; pos <= boundary; pos++) {
+				byte[] bytes = new byte[4];
+				file.read(pos, bytes, 0, 4);
+				assertEquals(toInt(bytes, 0), file.readInt(pos));
+			}
+		} finally {
+			file.close();
+			path.delete();
+		}
+	}
+
+	@Test
+	public void benchmarkConcurrentReaders() throws Exception {
+		File path = createFile();
+		final MappedRandomAccessFile file = new MappedRandomAccessFile(path, "rw", PAGE_SHIFT);
+		try {
+			final byte[][] entries = writeEntries(file);
+			final Object fileSyncObject = new Object();
+			for (int threads : new int[] {1, 4}) {
+				long syncTime = runReaders(threads, new Reader() {
+					@Override
+					public void read(int entry, byte[] buffer) throws IOException {
+						synchronized (fileSyncObject) {
+							file.seek((long) entry * ENTRY_SIZE);
+							file.readFully(buffer);
+						}
+					}
+				}, entries);
+				long positionalTime = runReaders(threads, new Reader() {
+					@Override
+					public void read(int entry, byte[] buffer) throws IOException {
+						file.read((long) entry * ENTRY_SIZE, buffer, 0, buffer.length);
+					}
+				}, entries);
+				if (PRINT_BENCHMARKS) {
+					System.out.println(threads + " reader(s), seek under monitor: " + (syncTime / 1000000.0) + "ms");
+					System.out.println(threads + " reader(s), positional: " + (positionalTime / 1000000.0) + "ms");
+				}
+			}
+		} finally {
+			file.close();
+			path.delete();
+		}
+	}
+
+	private static long runReaders(int count, final Reader reader, final byte[][] entries) throws InterruptedException {
+		final AtomicReference<Throwable> error = new AtomicReference<>();
+		Thread[] threads = new Thread[count];
+		for (int i = 0; i < count; i++) {
+			final long seed = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					Random r = new Random(seed);
+					byte[] buffer = new byte[ENTRY_SIZE];
+					try {
+						for (int j = 0; j < READS_PER_THREAD; j++) {
+							int entry = r.nextInt(ENTRIES);
+							reader.read(entry, buffer);
+							if (buffer[0] != entries[entry][0] || buffer[ENTRY_SIZE - 1] != entries[entry][ENTRY_SIZE - 1]) {
+								throw new IllegalStateException("Data mismatch for entry " + entry);
+							}
+						}
+					} catch (Throwable t) {
+						error.compareAndSet(null, t);
+					}
+				}
+			};
+		}
+		long time = System.nanoTime();
+		for (Thread t : threads) {
+			t.start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		time = System.nanoTime() - time;
+		assertNull(error.get());
+		return time;
+	}
+
+	private static File createFile() {
+		File path = new File(FILENAME);
+		path.getParentFile().mkdirs();
+		if (path.exists()) {
+			path.delete();
+		}
+		return path;
+	}
+
+	private static byte[][] writeEntries(MappedRandomAccessFile file) throws IOException {
+		Random r = new Random(1);
+		byte[][] entries = new byte[ENTRIES][ENTRY_SIZE];
+		file.seek(0);
+		for (byte[] entry : entries) {
+			r.nextBytes(entry);
+			file.write(entry, 0, entry.length);
+		}
+		return entries;
+	}
+
+	private static int toInt(byte[] b, int off) {
+		return ((b[off] & 0xFF) << 24) | ((b[off + 1] & 0xFF) << 16) | ((b[off + 2] & 0xFF) << 8) | (b[off + 3] & 0xFF);
+	}
+
+	private static interface Reader {
+		public void read(int entry, byte[] buffer) throws IOException;
+	}
+}
@@ -27,6 +27,7 @@
 package org.spout.api.util.cuboid;
 
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.Test;
 
@@ -127,6 +128,65 @@ public class CuboidNibbleLightBufferTest {
 		}
 	}
 
+	@Test
+	public void copyOnWriteTest() {
+		Random r = new Random();
+		CuboidNibbleLightBuffer live = new CuboidNibbleLightBuffer(null, (short) 0, 0, 0, 0, SIZE, SIZE, SIZE);
+		byte[] values = new byte[SIZE * SIZE * SIZE];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = (byte) (r.nextInt() & 0xf);
+			live.set(i, values[i]);
+		}
+
+		CuboidNibbleLightBuffer copy = live.copy();
+		for (int i = 0; i < values.length; i++) {
+			live.set(i, (byte) (~values[i] & 0xf));
+		}
+		for (int i = 0; i < values.length; i++) {
+			assertEquals("Copy changed after live buffer was written", values[i], copy.get(i));
+			assertEquals("Live buffer not written", (byte) (~values[i] & 0xf), live.get(i));
+		}
+
+		copy.set(0, (byte) ((values[0] + 1) & 0xf));
+		assertEquals("Live buffer changed after copy was written", (byte) (~values[0] & 0xf), live.get(0));
+	}
+
+	@Test
+	public void concurrentCopyTest() throws InterruptedException {
+		final CuboidNibbleLightBuffer live = new CuboidNibbleLightBuffer(null, (short) 0, 0, 0, 0, SIZE, SIZE, SIZE);
+		final int volume = SIZE * SIZE * SIZE;
+		final AtomicBoolean running = new AtomicBoolean(true);
+		Thread writer = new Thread() {
+			@Override
+			public void run() {
+				byte value = 0;
+				while (running.get()) {
+					value = (byte) ((value + 1) & 0xf);
+					for (int i = 0; i < volume; i++) {
+						live.set(i, value);
+					}
+				}
+			}
+		};
+		writer.start();
+		try {
+			byte[] taken = new byte[volume];
+			for (int c = 0; c < LOOPS * 100; c++) {
+				CuboidNibbleLightBuffer copy = live.copy();
+				for (int i = 0; i < volume; i++) {
+					taken[i] = copy.get(i);
+				}
+				Thread.yield();
+				for (int i = 0; i < volume; i++) {
+					assertEquals("Copy changed by a concurrent write to the live buffer", taken[i], copy.get(i));
+				}
+			}
+		} finally {
+			running.set(false);
+			writer.join();
+		}
+	}
+
 	@Test
 	public void rowZTest() {
 
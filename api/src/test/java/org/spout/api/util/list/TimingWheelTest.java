@@ -0,0 +1,179 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.util.list;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TimingWheelTest {
+	private final static int LENGTH = 100000;
+	private final static int BENCHMARK_LENGTH = 1000000;
+	private final static boolean PRINT_BENCHMARKS = false;
+
+	@Test
+	public void testOrder() {
+		final Random random = new Random(42);
+		final TimingWheel<TimedEntry> wheel = new TimingWheel<>(0);
+		final List<TimedEntry> entries = new ArrayList<>();
+		for (int i = 0; i < LENGTH; i++) {
+			// Mix near and far times, so that every level of the wheel is used
+			final long time = random.nextBoolean() ? random.nextInt(1000) : (random.nextLong() >>> 1 >>> random.nextInt(63));
+			final TimedEntry entry = new TimedEntry(i, time);
+			entries.add(entry);
+			wheel.add(entry, time);
+		}
+		final TreeSet<TimedEntry> expected = new TreeSet<>(entries);
+		assertEquals(LENGTH, wheel.size());
+
+		long threshold = 0;
+		while (!expected.isEmpty()) {
+			assertEquals(expected.first().time, wheel.getFirstTime());
+			TimedEntry entry;
+			while ((entry = wheel.poll(threshold)) != null) {
+				assertSame(expected.pollFirst(), entry);
+				assertTrue(entry.time <= threshold);
+				assertFalse(entry.isQueued());
+			}
+			assertTrue(expected.isEmpty() || expected.first().time > threshold);
+			threshold = threshold < 10000 ? threshold + 7 : threshold * 2 + random.nextInt(1000);
+			if (threshold < 0) {
+				threshold = Long.MAX_VALUE;
+			}
+		}
+		assertTrue(wheel.isEmpty());
+		assertEquals(Long.MAX_VALUE, wheel.getFirstTime());
+	}
+
+	@Test
+	public void testRemove() {
+		final TimingWheel<TimedEntry> wheel = new TimingWheel<>(100);
+		final TimedEntry[] entries = new TimedEntry[1000];
+		for (int i = 0; i < entries.length; i++) {
+			entries[i] = new TimedEntry(i, 100 + i * 13);
+			wheel.add(entries[i], entries[i].time);
+		}
+		for (int i = 0; i < entries.length; i += 2) {
+			assertTrue(wheel.remove(entries[i]));
+			assertFalse(wheel.remove(entries[i]));
+		}
+		assertEquals(500, wheel.size());
+		assertEquals(entries[1].time, wheel.getFirstTime());
+		for (int i = 1; i < entries.length; i += 2) {
+			assertSame(entries[i], wheel.poll(Long.MAX_VALUE));
+		}
+		assertNull(wheel.poll(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testPastEntries() {
+		final TimingWheel<TimedEntry> wheel = new TimingWheel<>(0);
+		final TimedEntry future = new TimedEntry(0, 5000);
+		wheel.add(future, future.time);
+		assertNull(wheel.poll(4000));
+		final TimedEntry past = new TimedEntry(1, 10);
+		wheel.add(past, past.time);
+		assertSame(past, wheel.poll(4000));
+		assertSame(future, wheel.poll(5000));
+	}
+
+	@Test (expected = IllegalStateException.class)
+	public void testDoubleAdd() {
+		final TimingWheel<TimedEntry> wheel = new TimingWheel<>(0);
+		final TimedEntry entry = new TimedEntry(0, 10);
+		wheel.add(entry, 10);
+		wheel.add(entry, 20);
+	}
+
+	@Test
+	public void benchmark() {
+		final Random random = new Random(1);
+		final TimedEntry[] entries = new TimedEntry[BENCHMARK_LENGTH];
+		for (int i = 0; i < entries.length; i++) {
+			// Up to 10 minutes ahead, in milliseconds
+			entries[i] = new TimedEntry(i, random.nextInt(600000));
+		}
+
+		long treeTime = -System.nanoTime();
+		final TreeSet<TimedEntry> tree = new TreeSet<>();
+		for (TimedEntry entry : entries) {
+			tree.add(entry);
+		}
+		for (int i = 0; i < entries.length; i += 4) {
+			tree.remove(entries[i]);
+		}
+		while (tree.pollFirst() != null) {
+		}
+		treeTime += System.nanoTime();
+
+		long wheelTime = -System.nanoTime();
+		final TimingWheel<TimedEntry> wheel = new TimingWheel<>(0);
+		for (TimedEntry entry : entries) {
+			wheel.add(entry, entry.time);
+		}
+		for (int i = 0; i < entries.length; i += 4) {
+			wheel.remove(entries[i]);
+		}
+		for (long threshold = 0; !wheel.isEmpty(); threshold += 50) {
+			while (wheel.poll(threshold) != null) {
+			}
+		}
+		wheelTime += System.nanoTime();
+
+		if (PRINT_BENCHMARKS) {
+			System.out.println("TreeSet, " + BENCHMARK_LENGTH + " updates: " + treeTime / 1000000 + "ms");
+			System.out.println("TimingWheel, " + BENCHMARK_LENGTH + " updates: " + wheelTime / 1000000 + "ms");
+		}
+	}
+
+	private static class TimedEntry extends TimingWheelEntry implements Comparable<TimedEntry> {
+		private final int id;
+		private final long time;
+
+		public TimedEntry(int id, long time) {
+			this.id = id;
+			this.time = time;
+		}
+
+		@Override
+		public int compareTo(TimedEntry o) {
+			if (time != o.time) {
+				return time < o.time ? -1 : 1;
+			}
+			return id - o.id;
+		}
+	}
+}
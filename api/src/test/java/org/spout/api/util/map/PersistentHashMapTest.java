@@ -0,0 +1,184 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.util.map;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PersistentHashMapTest {
+	private final static int OPERATIONS = 100000;
+	private final static int KEY_RANGE = 5000;
+
+	@Test
+	public void testRandomOperations() {
+		final Random random = new Random(42);
+		final Map<Key, Integer> expected = new HashMap<>();
+		PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+		for (int i = 0; i < OPERATIONS; i++) {
+			final Key key = new Key(random.nextInt(KEY_RANGE));
+			if (random.nextInt(3) == 0) {
+				expected.remove(key);
+				map = map.minus(key);
+			} else {
+				final Integer value = random.nextInt();
+				expected.put(key, value);
+				map = map.plus(key, value);
+			}
+			assertEquals(expected.size(), map.size());
+		}
+		assertEquals(expected, map);
+		assertEquals(expected.keySet(), map.keySet());
+		for (Key key : expected.keySet()) {
+			assertEquals(expected.get(key), map.get(key));
+		}
+		assertNull(map.get(new Key(KEY_RANGE + 1)));
+	}
+
+	@Test
+	public void testVersionsAreImmutable() {
+		final PersistentHashMap<Key, Integer> first = PersistentHashMap.<Key, Integer>empty().plus(new Key(1), 1);
+		final PersistentHashMap<Key, Integer> second = first.plus(new Key(2), 2).minus(new Key(1));
+		assertEquals(1, first.size());
+		assertEquals(Integer.valueOf(1), first.get(new Key(1)));
+		assertNull(first.get(new Key(2)));
+		assertEquals(1, second.size());
+		assertEquals(Integer.valueOf(2), second.get(new Key(2)));
+		assertSame(second, second.minus(new Key(3)));
+	}
+
+	@Test
+	public void testDiff() {
+		final Random random = new Random(7);
+		PersistentHashMap<Key, Integer> previous = PersistentHashMap.empty();
+		for (int i = 0; i < KEY_RANGE; i++) {
+			previous = previous.plus(new Key(i), i);
+		}
+		for (int round = 0; round < 20; round++) {
+			final Map<Key, Integer> added = new HashMap<>();
+			final Map<Key, Integer> removed = new HashMap<>();
+			final Map<Key, Integer> changed = new HashMap<>();
+			PersistentHashMap<Key, Integer> current = previous;
+			for (int i = 0; i < 200; i++) {
+				final Key key = new Key(random.nextInt(KEY_RANGE * 2));
+				if (random.nextBoolean()) {
+					current = current.minus(key);
+				} else {
+					current = current.plus(key, random.nextInt());
+				}
+			}
+			for (Map.Entry<Key, Integer> e : current.entrySet()) {
+				final Integer old = previous.get(e.getKey());
+				if (old == null) {
+					added.put(e.getKey(), e.getValue());
+				} else if (!old.equals(e.getValue())) {
+					changed.put(e.getKey(), e.getValue());
+				}
+			}
+			for (Map.Entry<Key, Integer> e : previous.entrySet()) {
+				if (!current.containsKey(e.getKey())) {
+					removed.put(e.getKey(), e.getValue());
+				}
+			}
+
+			final Map<Key, Integer> diffAdded = new HashMap<>();
+			final Map<Key, Integer> diffRemoved = new HashMap<>();
+			final Map<Key, Integer> diffChanged = new HashMap<>();
+			current.diff(previous, new PersistentHashMap.DiffListener<Key, Integer>() {
+				@Override
+				public void added(Key key, Integer value) {
+					assertNull(diffAdded.put(key, value));
+				}
+
+				@Override
+				public void removed(Key key, Integer oldValue) {
+					assertNull(diffRemoved.put(key, oldValue));
+				}
+
+				@Override
+				public void changed(Key key, Integer oldValue, Integer newValue) {
+					if (!oldValue.equals(newValue)) {
+						assertNull(diffChanged.put(key, newValue));
+					}
+				}
+			});
+			assertEquals(added, diffAdded);
+			assertEquals(removed, diffRemoved);
+			assertEquals(changed, diffChanged);
+			previous = current;
+		}
+	}
+
+	@Test
+	public void testDiffIdentical() {
+		final PersistentHashMap<Key, Integer> map = PersistentHashMap.<Key, Integer>empty().plus(new Key(1), 1);
+		map.diff(map, new PersistentHashMap.DiffListener<Key, Integer>() {
+			@Override
+			public void added(Key key, Integer value) {
+				assertTrue(false);
+			}
+
+			@Override
+			public void removed(Key key, Integer oldValue) {
+				assertTrue(false);
+			}
+
+			@Override
+			public void changed(Key key, Integer oldValue, Integer newValue) {
+				assertTrue(false);
+			}
+		});
+	}
+
+	/**
+	 * A key with a weak hash, so that full hash collisions and deep nodes are exercised
+	 */
+	private static class Key {
+		private final int id;
+
+		public Key(int id) {
+			this.id = id;
+		}
+
+		@Override
+		public int hashCode() {
+			return (id >> 2) * 0x10001;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Key && ((Key) o).id == id;
+		}
+	}
+}
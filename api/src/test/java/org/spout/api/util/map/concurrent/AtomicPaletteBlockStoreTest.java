@@ -0,0 +1,223 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.util.map.concurrent;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.spout.api.material.block.BlockFullState;
+import org.spout.api.math.IntVector3;
+import org.spout.api.util.map.concurrent.palette.AtomicPaletteBlockStore;
+import org.spout.api.util.map.concurrent.palette.AtomicShortIntBackingArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AtomicPaletteBlockStoreTest {
+	private final static int SHIFT = 4;
+	private final static int SIDE = 1 << SHIFT;
+	private final static int BENCHMARK_SIDE = 256;
+	private final static boolean PRINT_BENCHMARKS = false;
+
+	@Test
+	public void testSetCuboid() {
+		Random random = new Random(42);
+		AtomicPaletteBlockStore store = new AtomicPaletteBlockStore(SHIFT, true, true, 10);
+		store.resetDirtyArrays();
+		int[] expected = new int[SIDE * SIDE * SIDE];
+		for (int y = 0; y < SIDE; y++) {
+			for (int z = 0; z < SIDE; z++) {
+				for (int x = 0; x < SIDE; x++) {
+					short id = (short) random.nextInt(20);
+					store.setBlock(x, y, z, id, (short) 0);
+					expected[getIndex(x, y, z)] = BlockFullState.getPacked(id, (short) 0);
+				}
+			}
+		}
+		store.resetDirtyArrays();
+
+		int bx = 3, by = 5, bz = 1, sx = 11, sy = 7, sz = 15;
+		int[] states = new int[sx * sy * sz];
+		int[] oldStates = new int[states.length];
+		int changed = 0;
+		int i = 0;
+		for (int y = by; y < by + sy; y++) {
+			for (int z = bz; z < bz + sz; z++) {
+				for (int x = bx; x < bx + sx; x++) {
+					states[i] = BlockFullState.getPacked((short) random.nextInt(40), (short) 0);
+					if (states[i] != expected[getIndex(x, y, z)]) {
+						changed++;
+					}
+					i++;
+				}
+			}
+		}
+
+		i = 0;
+		assertEquals("Incorrect number of changed blocks", changed, store.setCuboid(bx, by, bz, sx, sy, sz, states, oldStates));
+		for (int y = by; y < by + sy; y++) {
+			for (int z = bz; z < bz + sz; z++) {
+				for (int x = bx; x < bx + sx; x++) {
+					assertEquals("Incorrect old state", expected[getIndex(x, y, z)], oldStates[i]);
+					expected[getIndex(x, y, z)] = states[i++];
+				}
+			}
+		}
+		for (int y = 0; y < SIDE; y++) {
+			for (int z = 0; z < SIDE; z++) {
+				for (int x = 0; x < SIDE; x++) {
+					assertEquals("Incorrect state at " + x + ", " + y + ", " + z, expected[getIndex(x, y, z)], store.getFullData(x, y, z));
+				}
+			}
+		}
+		assertTrue("Large cuboid did not overflow the dirty arrays", store.isDirtyOverflow());
+		assertTrue("Incorrect minimum dirty block", store.getMinDirty().getX() >= bx && store.getMinDirty().getY() >= by && store.getMinDirty().getZ() >= bz);
+		assertTrue("Incorrect maximum dirty block", store.getMaxDirty().getX() < bx + sx && store.getMaxDirty().getY() < by + sy && store.getMaxDirty().getZ() < bz + sz);
+
+		store.resetDirtyArrays();
+		int oldState = store.getFullData(4, 4, 4);
+		int newState = BlockFullState.getPacked((short) 100, (short) 0);
+		assertEquals("Incorrect number of changed blocks", 1, store.setCuboid(4, 4, 4, 1, 1, 1, new int[] {newState}, null));
+		assertFalse("Single block cuboid overflowed the dirty arrays", store.isDirtyOverflow());
+		assertEquals("Incorrect number of dirty blocks", 1, store.getDirtyBlocks());
+		assertEquals("Incorrect dirty old state", oldState, store.getDirtyOldState(0));
+		assertEquals("Incorrect dirty new state", newState, store.getDirtyNewState(0));
+		assertEquals("Incorrect dirty block", new IntVector3(4, 4, 4), store.getMinDirty());
+
+		assertEquals("Unchanged cuboid reported changes", 0, store.setCuboid(4, 4, 4, 1, 1, 1, new int[] {newState}, null));
+	}
+
+	@Test
+	public void benchmarkFillCuboid() {
+		int stores = BENCHMARK_SIDE >> SHIFT;
+		int[] states = new int[SIDE * SIDE * SIDE];
+		for (int y = 0; y < SIDE; y++) {
+			for (int i = 0; i < SIDE * SIDE; i++) {
+				states[(y << (SHIFT << 1)) + i] = BlockFullState.getPacked((short) (1 + (y & 3)), (short) 0);
+			}
+		}
+
+		long singleTime = -System.nanoTime();
+		for (int s = 0; s < stores * stores * stores; s++) {
+			AtomicPaletteBlockStore store = new AtomicPaletteBlockStore(SHIFT, false, true, 10);
+			for (int y = 0; y < SIDE; y++) {
+				for (int z = 0; z < SIDE; z++) {
+					for (int x = 0; x < SIDE; x++) {
+						store.setBlock(x, y, z, (short) (1 + (y & 3)), (short) 0);
+					}
+				}
+			}
+		}
+		singleTime += System.nanoTime();
+
+		long bulkTime = -System.nanoTime();
+		for (int s = 0; s < stores * stores * stores; s++) {
+			AtomicPaletteBlockStore store = new AtomicPaletteBlockStore(SHIFT, false, true, 10);
+			store.setCuboid(0, 0, 0, SIDE, SIDE, SIDE, states, null);
+		}
+		bulkTime += System.nanoTime();
+
+		if (PRINT_BENCHMARKS) {
+			String cuboid = BENCHMARK_SIDE + "x" + BENCHMARK_SIDE + "x" + BENCHMARK_SIDE;
+			System.out.println("Single block fill of " + cuboid + " cuboid: " + singleTime / 1000000 + "ms");
+			System.out.println("Bulk fill of " + cuboid + " cuboid: " + bulkTime / 1000000 + "ms");
+		}
+	}
+
+	@Test
+	public void testSnapshot() {
+		// uniform, palette and direct backing arrays
+		int[] uniqueCounts = {1, 20, 4000};
+		Random random = new Random(42);
+		for (int unique : uniqueCounts) {
+			AtomicPaletteBlockStore store = new AtomicPaletteBlockStore(SHIFT, false, true, 10);
+			int[] expected = new int[SIDE * SIDE * SIDE];
+			for (int i = 0; i < expected.length; i++) {
+				expected[i] = BlockFullState.getPacked((short) (1 + random.nextInt(unique)), (short) 0);
+			}
+			store.setCuboid(0, 0, 0, SIDE, SIDE, SIDE, expected, null);
+
+			AtomicShortIntBackingArray snapshot = store.getSnapshot();
+			int[] changed = new int[expected.length];
+			for (int y = 0; y < SIDE; y++) {
+				for (int z = 0; z < SIDE; z++) {
+					for (int x = 0; x < SIDE; x++) {
+						short id = (short) (1 + random.nextInt(unique));
+						store.setBlock(x, y, z, id, (short) 1);
+						changed[getIndex(x, y, z)] = BlockFullState.getPacked(id, (short) 1);
+					}
+				}
+			}
+			AtomicShortIntBackingArray secondSnapshot = store.getSnapshot();
+			store.setBlock(0, 0, 0, (short) 500, (short) 0);
+			changed[0] = BlockFullState.getPacked((short) 500, (short) 0);
+
+			for (int i = 0; i < expected.length; i++) {
+				assertEquals("Snapshot changed after store was modified, unique " + unique, expected[i], snapshot.get(i));
+				assertEquals("Store was not modified, unique " + unique, changed[i], store.getFullData(i));
+			}
+			assertFalse("Second snapshot changed after store was modified, unique " + unique, changed[0] == secondSnapshot.get(0));
+		}
+	}
+
+	@Test
+	public void benchmarkSnapshot() {
+		int stores = BENCHMARK_SIDE >> SHIFT;
+		AtomicPaletteBlockStore[] chunks = new AtomicPaletteBlockStore[stores * stores * stores];
+		Random random = new Random(42);
+		for (int s = 0; s < chunks.length; s++) {
+			chunks[s] = new AtomicPaletteBlockStore(SHIFT, false, true, 10);
+			for (int i = 0; i < 64; i++) {
+				chunks[s].setBlock(random.nextInt(SIDE), random.nextInt(SIDE), random.nextInt(SIDE), (short) random.nextInt(16), (short) 0);
+			}
+		}
+
+		long copyTime = -System.nanoTime();
+		for (AtomicPaletteBlockStore store : chunks) {
+			store.getBlockIdArray();
+			store.getDataArray();
+		}
+		copyTime += System.nanoTime();
+
+		long snapshotTime = -System.nanoTime();
+		for (AtomicPaletteBlockStore store : chunks) {
+			store.getSnapshot();
+		}
+		snapshotTime += System.nanoTime();
+
+		if (PRINT_BENCHMARKS) {
+			System.out.println("Array copy snapshot of " + chunks.length + " chunks: " + copyTime / 1000000 + "ms");
+			System.out.println("Copy-on-write snapshot of " + chunks.length + " chunks: " + snapshotTime / 1000000 + "ms");
+		}
+	}
+
+	private static int getIndex(int x, int y, int z) {
+		return (y << (SHIFT << 1)) + (z << SHIFT) + x;
+	}
+}
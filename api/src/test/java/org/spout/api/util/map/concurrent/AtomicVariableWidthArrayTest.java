@@ -30,9 +30,12 @@ import java.util.Random;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class AtomicVariableWidthArrayTest {
+	private final static boolean PRINT_BENCHMARKS = false;
 	private final static int LENGTH = 16384;
 	private AtomicVariableWidthArray array;
 	private int valueMask;
@@ -109,6 +112,115 @@ public class AtomicVariableWidthArrayTest {
 		}
 	}
 
+	@Test
+	public void testBulkOperations() {
+		for (int i = 1; i <= 32; i <<= 1) {
+			setup(i);
+
+			array.setArray(arrayData);
+			int[] values = array.getArray(null);
+			short[] shortValues = array.getShortArray(null);
+			for (int j = 0; j < LENGTH; j++) {
+				assertTrue("Width = " + width + " Bulk set mismatch at " + j, array.get(j) == arrayData[j]);
+				assertTrue("Width = " + width + " Bulk get mismatch at " + j, values[j] == arrayData[j]);
+				assertTrue("Width = " + width + " Bulk short get mismatch at " + j, shortValues[j] == (short) arrayData[j]);
+			}
+
+			array = new AtomicVariableWidthArray(LENGTH, width);
+			array.setArray(shortValues);
+			for (int j = 0; j < LENGTH; j++) {
+				assertTrue("Width = " + width + " Bulk short set mismatch at " + j, array.get(j) == (shortValues[j] & 0xFFFF & valueMask));
+			}
+		}
+	}
+
+	@Test
+	public void testCopyWithWidth() {
+		for (int i = 1; i <= 16; i <<= 1) {
+			setup(i);
+			array.setArray(arrayData);
+			for (int newWidth = i; newWidth <= 32; newWidth <<= 1) {
+				AtomicVariableWidthArray copy = array.copyWithWidth(newWidth);
+				assertEquals(newWidth, copy.width());
+				for (int j = 0; j < LENGTH; j++) {
+					assertTrue("Width = " + width + " -> " + newWidth + " Copy mismatch at " + j, copy.get(j) == arrayData[j]);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testHistogram() {
+		for (int i = 1; i <= 16; i <<= 1) {
+			setup(i);
+			array.setArray(arrayData);
+			int[] expected = new int[valueMask + 1];
+			for (int j = 0; j < LENGTH; j++) {
+				expected[arrayData[j]]++;
+			}
+			assertArrayEquals("Width = " + width + " Histogram mismatch", expected, array.getHistogram(null));
+		}
+	}
+
+	@Test
+	public void testCompareAndSetRun() {
+		Random rand = new Random();
+		for (int i = 1; i <= 32; i <<= 1) {
+			setup(i);
+			// Use a small set of values so that runs contain both matching and non-matching elements
+			for (int j = 0; j < LENGTH; j++) {
+				arrayData[j] &= 3;
+			}
+			array.setArray(arrayData);
+			for (int k = 0; k < 256; k++) {
+				int start = rand.nextInt(LENGTH);
+				int runLength = rand.nextInt(Math.min(LENGTH - start, 100) + 1);
+				int expect = rand.nextInt(4) & valueMask;
+				int update = rand.nextInt() & valueMask;
+				int expected = 0;
+				for (int j = start; j < start + runLength; j++) {
+					if (arrayData[j] == expect) {
+						arrayData[j] = update;
+						expected++;
+					}
+				}
+				assertEquals("Width = " + width + " Update count mismatch", expected, array.compareAndSetRun(start, runLength, expect, update));
+				for (int j = 0; j < LENGTH; j++) {
+					assertTrue("Width = " + width + " Run update mismatch at " + j, array.get(j) == arrayData[j]);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void benchmarkBulkGet() {
+		setup(8);
+		int[] values = new int[LENGTH];
+		for (int i = 0; i < LENGTH; i++) {
+			array.set(i, arrayData[i]);
+		}
+		int iterations = 200;
+		long elementTime = 0;
+		long bulkTime = 0;
+		for (int k = 0; k < 10; k++) {
+			long start = System.nanoTime();
+			for (int n = 0; n < iterations; n++) {
+				for (int i = 0; i < LENGTH; i++) {
+					values[i] = array.get(i);
+				}
+			}
+			elementTime = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int n = 0; n < iterations; n++) {
+				array.getArray(values);
+			}
+			bulkTime = System.nanoTime() - start;
+		}
+		if (PRINT_BENCHMARKS) {
+			System.out.println("Per element get: " + (elementTime / iterations / 1000) + "us, bulk get: " + (bulkTime / iterations / 1000) + "us");
+		}
+	}
+
 	private void compareAndSetTrue(int index, int value) {
 		assertTrue("Width = " + width + " Compare and set attempt failed, index = " + index + ", expected value incorrect " + array.get(index) + " expected " + value, array.compareAndSet(index, arrayData[index], value));
 		arrayData[index] = value & valueMask;
@@ -64,6 +64,19 @@ public class TSyncIntObjectHashMapTest {
 		}
 	}
 
+	@Test
+	public void testStripes() {
+		TSyncIntObjectHashMap<Integer> map = new TSyncIntObjectHashMap<>(16);
+		boolean[] used = new boolean[16];
+		for (int i = 0; i < LENGTH; i++) {
+			used[map.mapHash(i)] = true;
+			used[map.mapHash(i << 16)] = true;
+		}
+		for (int m = 0; m < used.length; m++) {
+			assertTrue("No key was placed in sub-map " + m, used[m]);
+		}
+	}
+
 	@SuppressWarnings ("unused")
 	@Test
 	public void testMap() {
@@ -0,0 +1,186 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.util.map.concurrent;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TSyncOptimisticIntObjectHashMapTest {
+	private final static boolean PRINT_BENCHMARKS = false;
+	private final static int KEYS = 4096;
+	private final static int OPERATIONS = 1 << 20;
+	private final static int WRITE_MASK = 0x7F;
+
+	@Test
+	public void testMap() {
+		TSyncOptimisticIntObjectHashMap<Integer> map = new TSyncOptimisticIntObjectHashMap<>();
+		assertTrue(map.isEmpty());
+		for (int i = 0; i < KEYS; i++) {
+			assertNull(map.put(i, i));
+		}
+		assertEquals(KEYS, map.size());
+		assertEquals(KEYS, map.keys().length);
+		assertEquals(KEYS, map.values(new Integer[0]).length);
+		for (int i = 0; i < KEYS; i++) {
+			assertEquals(Integer.valueOf(i), map.get(i));
+			assertTrue(map.containsKey(i));
+		}
+		assertTrue(map.containsValue(KEYS - 1));
+		assertFalse(map.containsKey(KEYS));
+		assertEquals(Integer.valueOf(0), map.putIfAbsent(0, 1));
+		assertFalse(map.remove(1, Integer.valueOf(2)));
+		assertTrue(map.remove(1, map.get(1)));
+		assertEquals(Integer.valueOf(2), map.remove(2));
+		assertEquals(KEYS - 2, map.size());
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertNull(map.get(0));
+	}
+
+	@Test
+	public void testStripes() {
+		TSyncOptimisticIntObjectHashMap<Integer> map = new TSyncOptimisticIntObjectHashMap<>(16);
+		boolean[] used = new boolean[16];
+		for (int i = 0; i < KEYS; i++) {
+			used[map.mapHash(i)] = true;
+			used[map.mapHash(i << 16)] = true;
+		}
+		for (int m = 0; m < used.length; m++) {
+			assertTrue("No key was placed in sub-map " + m, used[m]);
+		}
+	}
+
+	@Test
+	public void testConcurrentReads() throws InterruptedException {
+		final TSyncOptimisticIntObjectHashMap<Integer> map = new TSyncOptimisticIntObjectHashMap<>(4, 4);
+		final AtomicBoolean running = new AtomicBoolean(true);
+		final AtomicBoolean failed = new AtomicBoolean(false);
+
+		// The writer grows and shrinks the map, so readers see rehashes while they read
+		Thread writer = new Thread() {
+			@Override
+			public void run() {
+				for (int pass = 0; pass < 20; pass++) {
+					for (int i = 0; i < KEYS; i++) {
+						map.put(i, -i);
+					}
+					for (int i = 0; i < KEYS; i++) {
+						map.remove(i);
+					}
+				}
+				running.set(false);
+			}
+		};
+		Thread[] readers = new Thread[4];
+		for (int t = 0; t < readers.length; t++) {
+			readers[t] = new Thread() {
+				@Override
+				public void run() {
+					Random rand = new Random();
+					while (running.get()) {
+						int key = rand.nextInt(KEYS);
+						Integer value = map.get(key);
+						if (value != null && value != -key) {
+							failed.set(true);
+						}
+					}
+				}
+			};
+			readers[t].start();
+		}
+		writer.start();
+		writer.join();
+		for (Thread reader : readers) {
+			reader.join();
+		}
+		assertFalse("Optimistic read returned a value for the wrong key", failed.get());
+		assertTrue(map.isEmpty());
+	}
+
+	@Test
+	public void benchmarkReadHeavy() throws InterruptedException {
+		for (int threads : new int[] {1, 8, 32}) {
+			long locked = 0;
+			long optimistic = 0;
+			for (int c = 0; c < 3; c++) {
+				locked = run(new TSyncIntObjectHashMap<Integer>(), threads);
+				optimistic = run(new TSyncOptimisticIntObjectHashMap<Integer>(), threads);
+			}
+			if (PRINT_BENCHMARKS) {
+				System.out.println(threads + " threads: read/write lock " + (locked / 1000000.0) + "ms, optimistic " + (optimistic / 1000000.0) + "ms");
+			}
+		}
+	}
+
+	/**
+	 * Runs a lookup workload, such as entity id lookups, where one operation in 128 is a write
+	 *
+	 * @return the time taken in nanoseconds
+	 */
+	private static long run(final TSyncIntObjectMap<Integer> map, int threadCount) throws InterruptedException {
+		for (int i = 0; i < KEYS; i++) {
+			map.put(i, i);
+		}
+		final int operations = OPERATIONS / threadCount;
+		Thread[] threads = new Thread[threadCount];
+		for (int t = 0; t < threadCount; t++) {
+			final int seed = t;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					Random rand = new Random(seed);
+					for (int i = 0; i < operations; i++) {
+						int key = rand.nextInt(KEYS);
+						if ((i & WRITE_MASK) == 0) {
+							map.put(key, key);
+						} else {
+							Integer value = map.get(key);
+							if (value == null || value != key) {
+								throw new IllegalStateException("Map returned " + value + " for key " + key);
+							}
+						}
+					}
+				}
+			};
+		}
+		long start = System.nanoTime();
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		return System.nanoTime() - start;
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.api.util.profiler;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TickProfilerTest {
+	@Test
+	public void testRingBuffer() {
+		TickProfiler profiler = new TickProfiler(4);
+		ProfilerSection section = profiler.getSection("Tick");
+		assertEquals(0, profiler.getAvailableTicks());
+		for (int i = 1; i <= 6; i++) {
+			section.add(i * 1000);
+			profiler.endTick();
+		}
+		assertEquals(4, profiler.getAvailableTicks());
+		// Only the last 4 ticks are kept: 3 + 4 + 5 + 6
+		assertEquals(18000, section.getNanos(profiler.getLastTick(), 4));
+		assertEquals(11000, section.getNanos(profiler.getLastTick(), 2));
+		assertEquals(4, section.getCalls(profiler.getLastTick(), 4));
+	}
+
+	@Test
+	public void testChildren() {
+		TickProfiler profiler = new TickProfiler(10);
+		ProfilerSection stage = profiler.getSection("Tick").getChild("Physics");
+		assertSame(stage, profiler.getSection("Tick").getChild("Physics"));
+		assertEquals("Tick;Physics;String", stage.getChild(String.class).getPath());
+		assertEquals("Tick;Physics;a:b", stage.getChild("a;b").getPath());
+	}
+
+	@Test
+	public void testRemoveChild() {
+		TickProfiler profiler = new TickProfiler(10);
+		ProfilerSection stage = profiler.getSection("Tick").getChild("Physics");
+		ProfilerSection region = stage.getChild("Region 1");
+		assertSame(region, stage.removeChild("Region 1"));
+		assertNull(stage.removeChild("Region 1"));
+		assertEquals(0, stage.getChildren().size());
+	}
+
+	@Test
+	public void testNameOf() {
+		assertEquals("String", ProfilerSection.nameOf(String.class));
+		Runnable task = new Runnable() {
+			@Override
+			public void run() {
+			}
+		};
+		// Anonymous classes have no simple name
+		assertEquals(task.getClass().getName(), ProfilerSection.nameOf(task.getClass()));
+		assertEquals("Engine", ProfilerSection.nameOf("Engine"));
+
+		// Sections keyed by name are found again by the same name
+		ProfilerSection tasks = new TickProfiler(10).getSection("Tasks");
+		assertSame(tasks.getChild(ProfilerSection.nameOf(String.class)), tasks.getChild("String"));
+	}
+
+	@Test
+	public void testSortedAndFolded() throws IOException {
+		TickProfiler profiler = new TickProfiler(10);
+		ProfilerSection tick = profiler.getSection("Tick");
+		tick.add(10000000);
+		tick.getChild("Physics").add(6000000);
+		tick.getChild("Lighting").add(1000000);
+		profiler.getSection("Tasks").getChild("Plugin").add(2000000);
+		profiler.endTick();
+
+		List<ProfilerSection> sorted = profiler.getSortedSections(10);
+		assertEquals(4, sorted.size());
+		assertEquals("Tick", sorted.get(0).getPath());
+		assertEquals("Tick;Physics", sorted.get(1).getPath());
+		assertEquals("Tasks;Plugin", sorted.get(2).getPath());
+
+		StringWriter writer = new StringWriter();
+		profiler.writeFoldedStacks(writer, 10);
+		HashSet<String> lines = new HashSet<>(Arrays.asList(writer.toString().split("\n")));
+		assertEquals(new HashSet<>(Arrays.asList("Tick 3000", "Tick;Physics 6000", "Tick;Lighting 1000", "Tasks;Plugin 2000")), lines);
+	}
+}
@@ -50,6 +50,32 @@ public class SpoutConfiguration extends ConfigurationHolderConfiguration {
 	public static final ConfigurationHolder UNLOAD_CHUNKS_PER_TICK = new ConfigurationHolder(50, "chunks", "unload-per-tick");
 	public static final ConfigurationHolder DYNAMIC_BLOCKS = new ConfigurationHolder(true, "chunks", "dynamic-blocks");
 	public static final ConfigurationHolder BLOCK_PHYSICS = new ConfigurationHolder(true, "chunks", "block-physics");
+	// Regions
+	public static final ConfigurationHolder REGION_MAX_OPEN_FILES = new ConfigurationHolder(64, "regions", "max-open-files");
+	public static final ConfigurationHolder REGION_PREFETCH_DISTANCE = new ConfigurationHolder(64, "regions", "prefetch-distance");
+	public static final ConfigurationHolder REGION_JOURNAL = new ConfigurationHolder(true, "regions", "journal");
+	public static final ConfigurationHolder REGION_JOURNAL_CHECKPOINT_SIZE = new ConfigurationHolder(16777216L, "regions", "journal-checkpoint-size");
+	public static final ConfigurationHolder REGION_JOURNAL_CHECKPOINT_INTERVAL = new ConfigurationHolder(30000L, "regions", "journal-checkpoint-interval");
+	// Scheduler
+	public static final ConfigurationHolder ASYNC_THREADS = new ConfigurationHolder(0, "scheduler", "async-threads");
+	public static final ConfigurationHolder ASYNC_TASKS_PER_PLUGIN = new ConfigurationHolder(4, "scheduler", "async-tasks-per-plugin");
+	public static final ConfigurationHolder ASYNC_QUEUE_PER_PLUGIN = new ConfigurationHolder(10000, "scheduler", "async-queue-per-plugin");
+	// Pathfinding
+	public static final ConfigurationHolder PATHFINDING_THREADS = new ConfigurationHolder(2, "pathfinding", "threads");
+	public static final ConfigurationHolder PATHFINDING_SLICE = new ConfigurationHolder(1000, "pathfinding", "slice-iterations");
+	public static final ConfigurationHolder PATHFINDING_CACHE_SIZE = new ConfigurationHolder(1024, "pathfinding", "cache-size");
+	public static final ConfigurationHolder PATHFINDING_CACHE_TIME = new ConfigurationHolder(5000L, "pathfinding", "cache-time");
+	// Memory
+	public static final ConfigurationHolder MEMORY_GOVERNOR = new ConfigurationHolder(true, "memory", "governor");
+	public static final ConfigurationHolder MEMORY_HIGH_USAGE = new ConfigurationHolder(0.8F, "memory", "high-usage");
+	public static final ConfigurationHolder MEMORY_CRITICAL_USAGE = new ConfigurationHolder(0.9F, "memory", "critical-usage");
+	public static final ConfigurationHolder MEMORY_EVICT_CHUNKS_PER_TICK = new ConfigurationHolder(16, "memory", "evict-chunks-per-tick");
+	// Logging
+	public static final ConfigurationHolder LOG_QUEUE_SIZE = new ConfigurationHolder(8192, "logging", "queue-size");
+	public static final ConfigurationHolder LOG_OVERFLOW_POLICY = new ConfigurationHolder("DISCARD_BELOW_WARNING", "logging", "overflow-policy");
+	// Biomes
+	public static final ConfigurationHolder BIOME_TILE_SIZE = new ConfigurationHolder(4, "biomes", "tile-size");
+	public static final ConfigurationHolder BIOME_CACHE_MEMORY = new ConfigurationHolder(8, "biomes", "cache-memory");
 	// Messages
 	public static final ConfigurationHolder DEFAULT_LANGUAGE = new ConfigurationHolder("EN_US", "messages", "default-language");
 	// Network
@@ -66,6 +92,7 @@ public class SpoutConfiguration extends ConfigurationHolderConfiguration {
 	public static final ConfigurationHolder CREATE_FALLBACK_WORLD = new ConfigurationHolder(true, "debug", "create-fallback-world");
 	public static final ConfigurationHolder RUN_LIGHTING = new ConfigurationHolder(true, "debug", "run-lighting");
 	public static final ConfigurationHolder RUN_POPULATION = new ConfigurationHolder(true, "debug", "run-population");
+	public static final ConfigurationHolder PROFILER_HISTORY = new ConfigurationHolder(200, "debug", "profiler-history");
 
 	public SpoutConfiguration() {
 		super(new YamlConfiguration(new File(CommonFileSystem.CONFIG_DIRECTORY, "spout.yml")));
@@ -35,11 +35,13 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
 import org.spout.api.Engine;
 import org.spout.api.Spout;
+import org.spout.api.ai.pathfinder.PathfindingService;
 import org.spout.api.command.CommandManager;
 import org.spout.api.command.CommandSource;
 import org.spout.api.command.annotated.AnnotatedCommandExecutorFactory;
@@ -89,6 +91,7 @@ import org.spout.engine.util.thread.AsyncManager;
 import org.spout.engine.util.thread.snapshotable.SnapshotManager;
 import org.spout.engine.util.thread.snapshotable.SnapshotableLinkedHashMap;
 import org.spout.engine.util.thread.snapshotable.SnapshotableReference;
+import org.spout.engine.world.MemoryGovernor;
 import org.spout.engine.world.MemoryReclamationThread;
 import org.spout.engine.world.SpoutRegion;
 
@@ -122,10 +125,12 @@ public abstract class SpoutEngine implements AsyncManager, Engine {
 	protected String logFile;
 	private SpoutApplication arguments;
 	protected MemoryReclamationThread reclamation = null;
+	private MemoryGovernor memoryGovernor = null;
 	private DefaultPermissions defaultPerms;
 	private SyncedStringMap engineItemMap = null;
 	private SyncedStringMap engineBiomeMap = null;
 	private SyncedStringMap engineLightingMap = null;
+	private PathfindingService pathfindingService;
 
 	public SpoutEngine() {
 		logFile = "log-%D.txt";
@@ -138,6 +143,19 @@ public abstract class SpoutEngine implements AsyncManager, Engine {
 		consoleManager.setupConsole();
 
 		scheduler.addAsyncManager(this);
+		if (eventManager instanceof SimpleEventManager) {
+			((SimpleEventManager) eventManager).setProfiler(scheduler.getProfiler());
+		}
+
+		final Executor pathfindingExecutor = new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				scheduler.getAsyncExecutor().submit("Pathfinding", command);
+			}
+		};
+		pathfindingService = new PathfindingService(pathfindingExecutor, SpoutConfiguration.PATHFINDING_THREADS.getInt(), SpoutConfiguration.PATHFINDING_SLICE.getInt(),
+				SpoutConfiguration.PATHFINDING_CACHE_SIZE.getInt(), SpoutConfiguration.PATHFINDING_CACHE_TIME.getLong());
+		eventManager.registerEvents(pathfindingService, this);
 
 		defaultPerms = new DefaultPermissions(this, new File(CommonFileSystem.CONFIG_DIRECTORY, "permissions.yml"));
 		getDefaultPermissions().addDefaultPermission(STANDARD_BROADCAST_PERMISSION);
@@ -215,6 +233,11 @@ public abstract class SpoutEngine implements AsyncManager, Engine {
 			reclamation.start();
 		}
 
+		if (SpoutConfiguration.MEMORY_GOVERNOR.getBoolean()) {
+			memoryGovernor = new MemoryGovernor(this, SpoutConfiguration.MEMORY_HIGH_USAGE.getFloat(), SpoutConfiguration.MEMORY_CRITICAL_USAGE.getFloat());
+			memoryGovernor.start();
+		}
+
 		scheduler.startMainThread();
 		setupComplete.set(true);
 	}
@@ -315,6 +338,10 @@ public abstract class SpoutEngine implements AsyncManager, Engine {
 
 		getPluginManager().clearPlugins();
 
+		if (memoryGovernor != null) {
+			memoryGovernor.interrupt();
+		}
+
 		if (stopScheduler) {
 			scheduler.stop();
 		}
@@ -363,6 +390,11 @@ public abstract class SpoutEngine implements AsyncManager, Engine {
 		return serviceManager;
 	}
 
+	@Override
+	public PathfindingService getPathfindingService() {
+		return pathfindingService;
+	}
+
 	@Override
 	public RecipeManager getRecipeManager() {
 		return recipeManager;
@@ -420,6 +452,19 @@ public abstract class SpoutEngine implements AsyncManager, Engine {
 		return consoleManager.getCommandSource();
 	}
 
+	public ConsoleManager getConsoleManager() {
+		return consoleManager;
+	}
+
+	/**
+	 * Gets the memory governor, or null if it is disabled
+	 *
+	 * @return the memory governor
+	 */
+	public MemoryGovernor getMemoryGovernor() {
+		return memoryGovernor;
+	}
+
 	public boolean isSetupComplete() {
 		return setupComplete.get();
 	}
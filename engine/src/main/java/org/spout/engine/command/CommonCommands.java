@@ -26,8 +26,16 @@
  */
 package org.spout.engine.command;
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -51,8 +59,14 @@ import org.spout.api.geo.discrete.Point;
 import org.spout.api.geo.discrete.Transform;
 import org.spout.api.meta.SpoutMetaPlugin;
 import org.spout.api.plugin.Plugin;
+import org.spout.api.util.profiler.ProfilerSection;
+import org.spout.api.util.profiler.TickProfiler;
 
 import org.spout.engine.SpoutEngine;
+import org.spout.engine.scheduler.AsyncTaskExecutor;
+import org.spout.engine.world.MemoryGovernor;
+import org.spout.engine.world.SpoutRegion;
+import org.spout.logging.file.RotatingFileHandler;
 import org.spout.math.imaginary.Quaternionf;
 import org.spout.math.vector.Vector3f;
 
@@ -117,6 +131,111 @@ public class CommonCommands {
 		engine.getLogger().info("[---------------End Stack Dump---------------]");
 	}
 
+	@CommandDescription (aliases = "profiler", usage = "[dump|export] [ticks]", desc = "Shows where the time of the last ticks was spent, or exports it as folded stacks for flame graphs")
+	@Permissible ("spout.command.profiler")
+	public void profiler(CommandSource source, CommandArguments args) throws CommandException {
+		String action = args.popString("action", "dump");
+		TickProfiler profiler = engine.getScheduler().getProfiler();
+		int ticks = args.popInteger("ticks", profiler.getHistoryLength());
+		args.assertCompletelyParsed();
+		if (ticks <= 0) {
+			throw new CommandException("The number of ticks must be positive");
+		}
+		ticks = Math.min(ticks, profiler.getAvailableTicks());
+		if (ticks == 0) {
+			throw new CommandException("No tick has been profiled yet");
+		}
+
+		if (action.equalsIgnoreCase("dump")) {
+			long tick = profiler.getLastTick();
+			source.sendMessage("Average time per tick over the last " + ticks + " ticks:");
+			int lines = 0;
+			for (ProfilerSection section : profiler.getSortedSections(ticks)) {
+				if (lines++ >= 20) {
+					break;
+				}
+				double millis = section.getNanos(tick, ticks) / 1000000.0 / ticks;
+				source.sendMessage(String.format("%8.3fms %6d calls  %s", millis, section.getCalls(tick, ticks), section.getPath()));
+			}
+		} else if (action.equalsIgnoreCase("export")) {
+			File dir = new File("profiles");
+			dir.mkdirs();
+			File file = new File(dir, "profile-" + System.currentTimeMillis() + ".folded");
+			try (Writer writer = new BufferedWriter(new FileWriter(file))) {
+				profiler.writeFoldedStacks(writer, ticks);
+			} catch (IOException e) {
+				throw new CommandException("Unable to write the profile: " + e.getMessage());
+			}
+			source.sendMessage("Profile of the last " + ticks + " ticks written to " + file.getPath());
+		} else {
+			throw new CommandException("Unknown action " + action + ", expected dump or export");
+		}
+	}
+
+	@CommandDescription (aliases = "asynctasks", desc = "Shows the queue depth and run time of the async tasks of each plugin")
+	@Permissible ("spout.command.asynctasks")
+	public void asyncTasks(CommandSource source, CommandArguments args) throws CommandException {
+		args.assertCompletelyParsed();
+		AsyncTaskExecutor executor = engine.getScheduler().getAsyncExecutor();
+		source.sendMessage("Async task threads: " + executor.getThreadCount() + ", queued tasks: " + executor.getQueueDepth());
+		for (AsyncTaskExecutor.OwnerStats stats : executor.getStats()) {
+			double average = stats.getCompleted() == 0 ? 0 : stats.getRunNanos() / 1000000.0 / stats.getCompleted();
+			source.sendMessage(String.format("%s: %d queued, %d running, %d completed (%.3fms average), %d rejected", stats.getName(), stats.getQueued(), stats.getRunning(), stats.getCompleted(), average, stats.getRejected()));
+		}
+	}
+
+	@CommandDescription (aliases = "logstats", desc = "Shows how many log records were written and dropped, and how long they waited to be written")
+	@Permissible ("spout.command.logstats")
+	public void logStats(CommandSource source, CommandArguments args) throws CommandException {
+		args.assertCompletelyParsed();
+		RotatingFileHandler handler = engine.getConsoleManager().getFileHandler();
+		if (handler == null) {
+			throw new CommandException("No log file is being written");
+		}
+		source.sendMessage(String.format("Log records: %d written, %d dropped", handler.getWrittenRecords(), handler.getDroppedRecords()));
+		if (handler.isAsynchronous()) {
+			source.sendMessage(String.format("Write latency: %.3fms average, %.3fms max", handler.getAverageLatency() / 1000000.0, handler.getMaxLatency() / 1000000.0));
+		}
+	}
+
+	@CommandDescription (aliases = "memory", desc = "Shows the heap usage and what the memory governor did to reduce it")
+	@Permissible ("spout.command.memory")
+	public void memory(CommandSource source, CommandArguments args) throws CommandException {
+		args.assertCompletelyParsed();
+		MemoryGovernor governor = engine.getMemoryGovernor();
+		if (governor == null) {
+			throw new CommandException("The memory governor is disabled");
+		}
+		source.sendMessage(String.format("Memory pressure: %s, %d%% of the heap used", governor.getPressure(), Math.round(governor.getUsage() * 100)));
+		source.sendMessage(String.format("Pressure events: %d, chunks unloaded: %d, chunks compressed: %d, region files closed: %d, cache trims: %d", governor.getPressureEvents(),
+				governor.getChunksUnloaded(), governor.getChunksCompressed(), governor.getRegionFilesClosed(), governor.getCacheTrims()));
+	}
+
+	@CommandDescription (aliases = "physics", usage = "[count]", desc = "Shows the regions which spend the most time on physics")
+	@Permissible ("spout.command.physics")
+	public void physics(CommandSource source, CommandArguments args) throws CommandException {
+		int count = args.popInteger("count", 5);
+		args.assertCompletelyParsed();
+		List<SpoutRegion> regions = new ArrayList<>();
+		for (World world : engine.getWorlds()) {
+			for (Region region : world.getRegions()) {
+				regions.add((SpoutRegion) region);
+			}
+		}
+		Collections.sort(regions, new Comparator<SpoutRegion>() {
+			@Override
+			public int compare(SpoutRegion r1, SpoutRegion r2) {
+				return Long.compare(r2.getPhysicsTime(), r1.getPhysicsTime());
+			}
+		});
+		source.sendMessage(String.format("Physics time of the %d slowest of %d regions:", Math.min(count, regions.size()), regions.size()));
+		for (int i = 0; i < count && i < regions.size(); i++) {
+			SpoutRegion region = regions.get(i);
+			source.sendMessage(String.format("%s (%d, %d, %d): %.3fms average, %.3fms max, %d bodies", region.getWorld().getName(), region.getX(), region.getY(), region.getZ(),
+					region.getPhysicsTime() / 1000000.0, region.getMaxPhysicsTime() / 1000000.0, region.getPhysicsBodyCount()));
+		}
+	}
+
 	@CommandDescription (aliases = "reload", usage = "[plugin]", desc = "Reload engine and/or plugins")
 	@Permissible ("spout.command.reload")
 	public void reload(CommandSource source, CommandArguments args) throws CommandException {
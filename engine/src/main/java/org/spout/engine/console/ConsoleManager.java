@@ -37,9 +37,11 @@ import java.util.logging.Logger;
 import jline.console.completer.Completer;
 
 import org.spout.api.Engine;
+import org.spout.engine.SpoutConfiguration;
 import org.spout.engine.SpoutEngine;
 import org.spout.logging.LoggerOutputStream;
 import org.spout.logging.MessageFormatter;
+import org.spout.logging.file.OverflowPolicy;
 import org.spout.logging.file.RotatingFileHandler;
 import org.spout.logging.jline.CommandCallback;
 import org.spout.logging.jline.JLineHandler;
@@ -50,6 +52,7 @@ import org.spout.logging.jline.JLineHandler;
 public final class ConsoleManager {
 	private final Engine engine;
 	private final ConsoleCommandSource source;
+	private RotatingFileHandler fileHandler;
 
 	public ConsoleManager(SpoutEngine engine) {
 		this.engine = engine;
@@ -61,6 +64,15 @@ public final class ConsoleManager {
 		return source;
 	}
 
+	/**
+	 * Gets the handler writing the log files, or null if the console has not been set up
+	 *
+	 * @return the file handler
+	 */
+	public RotatingFileHandler getFileHandler() {
+		return fileHandler;
+	}
+
 	public void setupConsole() {
 		Logger logger = Logger.getLogger("");
 		for (Handler h : logger.getHandlers()) {
@@ -71,7 +83,13 @@ public final class ConsoleManager {
 		jLineHandler.setFormatter(new MessageFormatter());
 		logger.addHandler(jLineHandler);
 
-		Handler fileHandler = new RotatingFileHandler(new File("logs"), engine.getLogFile(), engine.debugMode());
+		OverflowPolicy overflowPolicy;
+		try {
+			overflowPolicy = OverflowPolicy.valueOf(SpoutConfiguration.LOG_OVERFLOW_POLICY.getString().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			overflowPolicy = OverflowPolicy.DISCARD_BELOW_WARNING;
+		}
+		fileHandler = new RotatingFileHandler(new File("logs"), engine.getLogFile(), engine.debugMode(), SpoutConfiguration.LOG_QUEUE_SIZE.getInt(), overflowPolicy);
 		fileHandler.setFormatter(new MessageFormatter());
 		logger.addHandler(fileHandler);
 
@@ -41,7 +41,7 @@ import org.spout.api.protocol.event.EntityUpdateEvent;
 import org.spout.api.protocol.event.EntityUpdateEvent.UpdateAction;
 import org.spout.engine.component.entity.SpoutPhysicsComponent;
 import org.spout.engine.util.thread.snapshotable.SnapshotManager;
-import org.spout.engine.util.thread.snapshotable.SnapshotableHashMap;
+import org.spout.engine.util.thread.snapshotable.SnapshotablePersistentHashMap;
 import org.spout.engine.world.SpoutChunk;
 import org.spout.engine.world.SpoutRegion;
 
@@ -56,7 +56,7 @@ public class EntityManager {
 	/**
 	 * A map of all the entity ids to the corresponding entities.
 	 */
-	private final SnapshotableHashMap<Integer, SpoutEntity> entities = new SnapshotableHashMap<>(snapshotManager);
+	private final SnapshotablePersistentHashMap<Integer, SpoutEntity> entities = new SnapshotablePersistentHashMap<>(snapshotManager);
 	/**
 	 * The next id to check.
 	 */
@@ -68,7 +68,7 @@ public class EntityManager {
 	/**
 	 * Player listings plus listings of sync'd entities per player
 	 */
-	private final SnapshotableHashMap<Player, ArrayList<SpoutEntity>> players = new SnapshotableHashMap<>(snapshotManager);
+	private final SnapshotablePersistentHashMap<Player, ArrayList<SpoutEntity>> players = new SnapshotablePersistentHashMap<>(snapshotManager);
 
 	public EntityManager(SpoutRegion region) {
 		if (region == null) {
@@ -178,12 +178,16 @@ public class EntityManager {
 
 	/**
 	 * Snapshots the manager and all the entities managed in the SNAPSHOT tickstage.
+	 *
+	 * @return the number of snapshotables copied
 	 */
-	public void copyAllSnapshots() {
+	public int copyAllSnapshots() {
+		int copied = 0;
 		for (SpoutEntity e : entities.get().values()) {
 			e.copySnapshot();
+			copied += e.getSnapshotCopyCount();
 		}
-		snapshotManager.copyAllSnapshots();
+		copied += snapshotManager.copyAllSnapshots();
 
 		// We want one more tick with for the removed Entities
 		// The next tick works with the snapshotted values which contains has all removed entities with isRemoved true
@@ -192,6 +196,7 @@ public class EntityManager {
 				removeEntity(e);
 			}
 		}
+		return copied;
 	}
 
 	/**
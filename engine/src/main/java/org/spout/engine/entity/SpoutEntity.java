@@ -330,6 +330,15 @@ public class SpoutEntity extends BaseComponentOwner implements Entity, Snapshota
 		remove.set(removeLive.get());
 	}
 
+	/**
+	 * Gets the number of snapshotables copied during the last snapshot copy of this entity
+	 *
+	 * @return the copy count
+	 */
+	public int getSnapshotCopyCount() {
+		return snapshotManager.getLastCopyCount();
+	}
+
 	@Override
 	public void remove() {
 		TickStage.checkStage(~(TickStage.PRESNAPSHOT | TickStage.SNAPSHOT));
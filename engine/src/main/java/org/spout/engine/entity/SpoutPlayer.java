@@ -55,6 +55,8 @@ import org.spout.api.event.server.permissions.PermissionNodeEvent;
 import org.spout.api.exception.CommandException;
 import org.spout.api.exception.WrappedCommandException;
 import org.spout.api.geo.World;
+import org.spout.api.geo.cuboid.Region;
+import org.spout.api.geo.discrete.Point;
 import org.spout.api.geo.discrete.Transform;
 import org.spout.api.lang.Locale;
 import org.spout.api.protocol.Message;
@@ -71,6 +73,7 @@ import org.spout.engine.component.entity.SpoutPhysicsComponent;
 import org.spout.engine.filesystem.versioned.PlayerFiles;
 import org.spout.engine.protocol.SpoutServerSession;
 import org.spout.engine.world.SpoutServerWorld;
+import org.spout.math.GenericMath;
 
 public class SpoutPlayer extends SpoutEntity implements Player {
 	private final AtomicReference<String> displayName = new AtomicReference<>();
@@ -333,10 +336,39 @@ public class SpoutPlayer extends SpoutEntity implements Player {
 			if (getEngine().getPlatform() == Platform.SERVER) {
 				((SpoutServer) getEngine()).removePlayer(this);
 			}
+		} else if (getEngine().getPlatform() == Platform.SERVER) {
+			prefetchRegion();
 		}
 		super.finalizeRun();
 	}
 
+	/**
+	 * Opens the region file of the region the player is heading to, if the player will reach it within the prefetch distance
+	 */
+	private void prefetchRegion() {
+		final SpoutPhysicsComponent physics = (SpoutPhysicsComponent) getPhysics();
+		final Point from = physics.getPosition();
+		final Point to = physics.getTransformLive().getPosition();
+		final World world = to.getWorld();
+		if (!(world instanceof SpoutServerWorld) || world != from.getWorld()) {
+			return;
+		}
+		final float dx = to.getX() - from.getX();
+		final float dy = to.getY() - from.getY();
+		final float dz = to.getZ() - from.getZ();
+		final float lengthSquared = dx * dx + dy * dy + dz * dz;
+		if (lengthSquared == 0) {
+			return;
+		}
+		final float scale = SpoutConfiguration.REGION_PREFETCH_DISTANCE.getInt() / (float) Math.sqrt(lengthSquared);
+		final int rx = GenericMath.floor(to.getX() + dx * scale) >> Region.BLOCKS.BITS;
+		final int ry = GenericMath.floor(to.getY() + dy * scale) >> Region.BLOCKS.BITS;
+		final int rz = GenericMath.floor(to.getZ() + dz * scale) >> Region.BLOCKS.BITS;
+		if (rx != to.getBlockX() >> Region.BLOCKS.BITS || ry != to.getBlockY() >> Region.BLOCKS.BITS || rz != to.getBlockZ() >> Region.BLOCKS.BITS) {
+			((SpoutServerWorld) world).getRegionFileManager().prefetch(rx, ry, rz);
+		}
+	}
+
 	@Override
 	public void copySnapshot() {
 		super.copySnapshot();
@@ -0,0 +1,354 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.engine.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.spout.api.util.Named;
+
+/**
+ * The engine wide executor for async tasks.<br> <br> A fixed number of threads is shared by all the task managers. Each owner has its own queue and the owners with pending tasks are served round
+ * robin, so a plugin which submits many tasks does not delay the tasks of other plugins. The number of tasks of a single owner which may run at the same time and the number of tasks it may have
+ * queued are both limited. Submitting a task to a full queue throws a {@link RejectedExecutionException}.
+ */
+public class AsyncTaskExecutor {
+	private static final Object ENGINE_OWNER = new Object();
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition ready = lock.newCondition();
+	private final Condition idle = lock.newCondition();
+	private final Map<Object, OwnerQueue> owners = new HashMap<>();
+	private final ArrayDeque<OwnerQueue> readyOwners = new ArrayDeque<>();
+	private final List<Thread> threads;
+	private final int maxRunningPerOwner;
+	private final int maxQueuedPerOwner;
+	private int queued = 0;
+	private int running = 0;
+	private boolean shutdown = false;
+
+	/**
+	 * Creates and starts a new executor
+	 *
+	 * @param threadCount the number of threads
+	 * @param maxRunningPerOwner the maximum number of tasks of a single owner which may run at the same time
+	 * @param maxQueuedPerOwner the maximum number of tasks a single owner may have waiting to run
+	 * @param factory the factory for the threads
+	 */
+	public AsyncTaskExecutor(int threadCount, int maxRunningPerOwner, int maxQueuedPerOwner, ThreadFactory factory) {
+		if (threadCount <= 0 || maxRunningPerOwner <= 0 || maxQueuedPerOwner <= 0) {
+			throw new IllegalArgumentException("Thread count and owner limits must be positive");
+		}
+		this.maxRunningPerOwner = maxRunningPerOwner;
+		this.maxQueuedPerOwner = maxQueuedPerOwner;
+		List<Thread> threads = new ArrayList<>(threadCount);
+		for (int i = 0; i < threadCount; i++) {
+			Thread thread = factory.newThread(new Runnable() {
+				@Override
+				public void run() {
+					runWorker();
+				}
+			});
+			threads.add(thread);
+		}
+		this.threads = Collections.unmodifiableList(threads);
+		for (Thread thread : threads) {
+			thread.start();
+		}
+	}
+
+	/**
+	 * Submits a task to the queue of its owner
+	 *
+	 * @param owner the owner of the task, or null for the engine
+	 * @param task the task
+	 * @return a future which can be used to cancel the task
+	 * @throws RejectedExecutionException if the executor is shutdown or the queue of the owner is full
+	 */
+	public Future<?> submit(Object owner, Runnable task) {
+		FutureTask<Void> future = new FutureTask<>(task, null);
+		lock.lock();
+		try {
+			if (shutdown) {
+				throw new RejectedExecutionException("Async task executor is shutdown");
+			}
+			OwnerQueue queue = getQueue(owner);
+			if (queue.tasks.size() >= maxQueuedPerOwner) {
+				queue.rejected++;
+				throw new RejectedExecutionException("Too many async tasks queued for " + queue.getName() + ", limit is " + maxQueuedPerOwner);
+			}
+			queue.tasks.add(future);
+			queued++;
+			markReady(queue);
+		} finally {
+			lock.unlock();
+		}
+		return future;
+	}
+
+	/**
+	 * Stops accepting new tasks. The tasks already queued are still executed.
+	 */
+	public void shutdown() {
+		lock.lock();
+		try {
+			shutdown = true;
+			ready.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits until no task is queued or running
+	 *
+	 * @param timeout the maximum time to wait, in milliseconds
+	 * @return true if the executor is idle
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public boolean awaitIdle(long timeout) throws InterruptedException {
+		long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+		lock.lock();
+		try {
+			while (queued + running > 0) {
+				if (nanos <= 0) {
+					return false;
+				}
+				nanos = idle.awaitNanos(nanos);
+			}
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of threads of this executor
+	 *
+	 * @return the thread count
+	 */
+	public int getThreadCount() {
+		return threads.size();
+	}
+
+	/**
+	 * Gets the total number of tasks waiting to run
+	 *
+	 * @return the queue depth
+	 */
+	public int getQueueDepth() {
+		lock.lock();
+		try {
+			return queued;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the statistics of each owner which submitted tasks to this executor
+	 *
+	 * @return the statistics
+	 */
+	public List<OwnerStats> getStats() {
+		lock.lock();
+		try {
+			List<OwnerStats> stats = new ArrayList<>(owners.size());
+			for (OwnerQueue queue : owners.values()) {
+				stats.add(new OwnerStats(queue.getName(), queue.tasks.size(), queue.running, queue.completed, queue.rejected, queue.runNanos));
+			}
+			return stats;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private OwnerQueue getQueue(Object owner) {
+		Object key = owner == null ? ENGINE_OWNER : owner;
+		OwnerQueue queue = owners.get(key);
+		if (queue == null) {
+			queue = new OwnerQueue(owner);
+			owners.put(key, queue);
+		}
+		return queue;
+	}
+
+	private void markReady(OwnerQueue queue) {
+		if (!queue.ready && !queue.tasks.isEmpty() && queue.running < maxRunningPerOwner) {
+			queue.ready = true;
+			readyOwners.add(queue);
+			ready.signal();
+		}
+	}
+
+	private void runWorker() {
+		while (true) {
+			OwnerQueue queue;
+			Runnable task;
+			lock.lock();
+			try {
+				while (readyOwners.isEmpty()) {
+					if (shutdown && queued == 0) {
+						return;
+					}
+					ready.awaitUninterruptibly();
+				}
+				queue = readyOwners.poll();
+				queue.ready = false;
+				task = queue.tasks.poll();
+				queued--;
+				queue.running++;
+				running++;
+				// The owner goes to the back of the line, so that owners with pending tasks are served in turn
+				markReady(queue);
+			} finally {
+				lock.unlock();
+			}
+
+			long start = System.nanoTime();
+			try {
+				task.run();
+			} finally {
+				long duration = System.nanoTime() - start;
+				// Clear an interrupt from a cancelled task, so that it does not leak into the next task
+				Thread.interrupted();
+				lock.lock();
+				try {
+					queue.running--;
+					queue.completed++;
+					queue.runNanos += duration;
+					running--;
+					markReady(queue);
+					if (queued + running == 0) {
+						idle.signalAll();
+					}
+					if (shutdown && queued == 0) {
+						ready.signalAll();
+					}
+				} finally {
+					lock.unlock();
+				}
+			}
+		}
+	}
+
+	private static class OwnerQueue {
+		private final Object owner;
+		private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+		private boolean ready = false;
+		private int running = 0;
+		private long completed = 0;
+		private long rejected = 0;
+		private long runNanos = 0;
+
+		public OwnerQueue(Object owner) {
+			this.owner = owner;
+		}
+
+		public String getName() {
+			if (owner == null) {
+				return "Engine";
+			} else if (owner instanceof Named) {
+				return ((Named) owner).getName();
+			}
+			return owner.getClass().getName();
+		}
+	}
+
+	/**
+	 * A snapshot of the statistics of a single owner
+	 */
+	public static class OwnerStats {
+		private final String name;
+		private final int queued;
+		private final int running;
+		private final long completed;
+		private final long rejected;
+		private final long runNanos;
+
+		public OwnerStats(String name, int queued, int running, long completed, long rejected, long runNanos) {
+			this.name = name;
+			this.queued = queued;
+			this.running = running;
+			this.completed = completed;
+			this.rejected = rejected;
+			this.runNanos = runNanos;
+		}
+
+		/**
+		 * Gets the name of the owner
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Gets the number of tasks waiting to run
+		 */
+		public int getQueued() {
+			return queued;
+		}
+
+		/**
+		 * Gets the number of tasks currently running
+		 */
+		public int getRunning() {
+			return running;
+		}
+
+		/**
+		 * Gets the number of tasks which have completed
+		 */
+		public long getCompleted() {
+			return completed;
+		}
+
+		/**
+		 * Gets the number of tasks which were rejected because the queue was full
+		 */
+		public long getRejected() {
+			return rejected;
+		}
+
+		/**
+		 * Gets the total run time of the completed tasks, in nanoseconds
+		 */
+		public long getRunNanos() {
+			return runNanos;
+		}
+	}
+}
@@ -34,7 +34,9 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -62,6 +64,8 @@ import org.spout.api.scheduler.TaskPriority;
 import org.spout.api.scheduler.TickStage;
 import org.spout.api.scheduler.Worker;
 import org.spout.api.util.Named;
+import org.spout.api.util.profiler.ProfilerSection;
+import org.spout.api.util.profiler.TickProfiler;
 import org.spout.api.util.thread.annotation.DelayedWrite;
 import org.spout.engine.SpoutClient;
 import org.spout.engine.SpoutConfiguration;
@@ -82,6 +86,7 @@ import org.spout.engine.util.thread.coretasks.StartTickTask;
 import org.spout.engine.util.thread.lock.SpoutSnapshotLock;
 import org.spout.engine.util.thread.snapshotable.SnapshotManager;
 import org.spout.engine.util.thread.snapshotable.SnapshotableArrayList;
+import org.spout.engine.util.thread.threadfactory.NamedThreadFactory;
 import org.spout.engine.world.RegionGenerator;
 import org.spout.engine.world.SpoutChunkSnapshotModel;
 import org.spout.math.vector.Vector2f;
@@ -162,6 +167,13 @@ public final class SpoutScheduler implements Scheduler {
 	private final CopySnapshotTask copySnapshotTask = new CopySnapshotTask();
 	// scheduler executor service
 	private final ExecutorService executorService;
+	private final AsyncTaskExecutor asyncExecutor;
+	private final TickProfiler profiler = new TickProfiler(SpoutConfiguration.PROFILER_HISTORY.getInt());
+	private final ProfilerSection tickSection = profiler.getSection("Tick");
+	/**
+	 * The profiler section key of each registered async manager.  Sections are keyed by name, so the profiler does not keep unloaded managers reachable.
+	 */
+	private final ConcurrentMap<AsyncManager, String> profilerKeys = new ConcurrentHashMap<>();
 
 	/**
 	 * Creates a new task scheduler.
@@ -186,7 +198,13 @@ public final class SpoutScheduler implements Scheduler {
 
 		executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2 + 1, new MarkedNamedThreadFactory("SpoutScheduler - async manager executor service", true));
 
-		taskManager = new SpoutTaskManager(this, mainThread);
+		int asyncThreads = SpoutConfiguration.ASYNC_THREADS.getInt();
+		if (asyncThreads <= 0) {
+			asyncThreads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+		}
+		asyncExecutor = new AsyncTaskExecutor(asyncThreads, SpoutConfiguration.ASYNC_TASKS_PER_PLUGIN.getInt(), SpoutConfiguration.ASYNC_QUEUE_PER_PLUGIN.getInt(), new NamedThreadFactory("Scheduler Async Task Thread"));
+
+		taskManager = new SpoutTaskManager(this, mainThread, asyncExecutor);
 	}
 
 	private class RenderThread extends Thread {
@@ -342,6 +360,7 @@ public final class SpoutScheduler implements Scheduler {
 				heavyLoad.set(underLoad);
 
 				long delta = startTime - lastTick;
+				long tickStart = System.nanoTime();
 				try {
 					if (!tick(delta)) {
 						throw new IllegalStateException("Attempt made to start a tick before the previous one ended");
@@ -350,6 +369,9 @@ public final class SpoutScheduler implements Scheduler {
 				} catch (InterruptedException | IllegalStateException ex) {
 					Spout.severe("Error while pulsing: {0}", ex.getMessage());
 					ex.printStackTrace();
+				} finally {
+					tickSection.add(System.nanoTime() - tickStart);
+					profiler.endTick();
 				}
 
 				expectedTime += PULSE_EVERY;
@@ -543,6 +565,7 @@ public final class SpoutScheduler implements Scheduler {
 	 */
 	@DelayedWrite
 	public boolean addAsyncManager(AsyncManager manager) {
+		profilerKeys.put(manager, manager.toString());
 		return asyncManagers.add(manager);
 	}
 
@@ -551,9 +574,19 @@ public final class SpoutScheduler implements Scheduler {
 	 */
 	@DelayedWrite
 	public boolean removeAsyncManager(AsyncManager manager) {
+		String key = profilerKeys.remove(manager);
+		if (key != null) {
+			removeProfilerSections(key);
+		}
 		return asyncManagers.remove(manager);
 	}
 
+	private void removeProfilerSections(String key) {
+		for (ProfilerSection stageSection : tickSection.getChildren()) {
+			stageSection.removeChild(key);
+		}
+	}
+
 	/**
 	 * Stops the scheduler
 	 */
@@ -614,7 +647,9 @@ public final class SpoutScheduler implements Scheduler {
 
 		asyncManagers.copySnapshot();
 
+		long heartbeatStart = System.nanoTime();
 		taskManager.heartbeat(delta);
+		tickSection.getChild("Sync tasks").add(System.nanoTime() - heartbeatStart);
 
 		if (parallelTaskManager == null) {
 			parallelTaskManager = ((SpoutParallelTaskManager) engine.getParallelTaskManager());
@@ -816,6 +851,8 @@ public final class SpoutScheduler implements Scheduler {
 
 	private void runTasks(List<AsyncManager> managers, ManagerRunnableFactory taskFactory, String stageString, int globalStage, int localStage) {
 		long time = -System.currentTimeMillis();
+		long stageStart = System.nanoTime();
+		ProfilerSection stageSection = tickSection.getChild(stageString);
 		int maxSequence = taskFactory.getMaxSequence();
 		for (int s = taskFactory.getMinSequence(); s <= maxSequence; s++) {
 			if (s == -1) {
@@ -828,7 +865,7 @@ public final class SpoutScheduler implements Scheduler {
 				if (s == -1 || s == manager.getSequence()) {
 					Runnable r = taskFactory.getTask(manager, s);
 					if (r != null) {
-						futures.add(executorService.submit(r));
+						futures.add(executorService.submit(new ProfiledRunnable(r, getProfilerSection(stageSection, manager))));
 					}
 				}
 			}
@@ -859,6 +896,7 @@ public final class SpoutScheduler implements Scheduler {
 				}
 			}
 		}
+		stageSection.add(System.nanoTime() - stageStart);
 		time += System.currentTimeMillis();
 		if (Spout.debugMode() && time > PULSE_EVERY) {
 			//Spout.getLogger().info("Task " + TickStage.getStage(TickStage.getStageInt()) + " took " + time + "ms");
@@ -958,6 +996,24 @@ public final class SpoutScheduler implements Scheduler {
 		return taskManager.getUpTime();
 	}
 
+	/**
+	 * Gets the engine wide executor which runs the async tasks of all the task managers
+	 *
+	 * @return the async executor
+	 */
+	public AsyncTaskExecutor getAsyncExecutor() {
+		return asyncExecutor;
+	}
+
+	/**
+	 * Gets the profiler which records the time spent in each tick stage, async manager, task and event handler
+	 *
+	 * @return the profiler
+	 */
+	public TickProfiler getProfiler() {
+		return profiler;
+	}
+
 	@Override
 	public SpoutSnapshotLock getSnapshotLock() {
 		return snapshotLock;
@@ -1087,6 +1143,46 @@ public final class SpoutScheduler implements Scheduler {
 		 
 	}
 
+	/**
+	 * Gets the profiler section of a manager for a tick stage, or null if the manager has been removed.  Removed managers may still run until the manager list snapshot is updated.
+	 */
+	private ProfilerSection getProfilerSection(ProfilerSection stageSection, AsyncManager manager) {
+		String key = profilerKeys.get(manager);
+		if (key == null) {
+			return null;
+		}
+		ProfilerSection section = stageSection.getChild(key);
+		if (!profilerKeys.containsKey(manager)) {
+			// The manager was removed while the section was being created
+			stageSection.removeChild(key);
+		}
+		return section;
+	}
+
+	private static class ProfiledRunnable implements Runnable {
+		private final Runnable runnable;
+		private final ProfilerSection section;
+
+		public ProfiledRunnable(Runnable runnable, ProfilerSection section) {
+			this.runnable = runnable;
+			this.section = section;
+		}
+
+		@Override
+		public void run() {
+			if (section == null) {
+				runnable.run();
+				return;
+			}
+			final long start = System.nanoTime();
+			try {
+				runnable.run();
+			} finally {
+				section.add(System.nanoTime() - start);
+			}
+		}
+	}
+
 	private static class MarkedNamedThreadFactory extends Thread implements ThreadFactory {
 		private final AtomicInteger idCounter = new AtomicInteger();
 		private final String namePrefix;
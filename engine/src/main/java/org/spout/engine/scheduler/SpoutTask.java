@@ -38,14 +38,16 @@ import org.spout.api.scheduler.Task;
 import org.spout.api.scheduler.TaskManager;
 import org.spout.api.scheduler.TaskPriority;
 import org.spout.api.util.Named;
+import org.spout.api.util.list.TimingWheelEntry;
 import org.spout.api.util.list.concurrent.LongPrioritized;
+import org.spout.api.util.profiler.ProfilerSection;
 import org.spout.engine.scheduler.parallel.ParallelTaskInfo;
 import org.spout.engine.world.SpoutRegion;
 
 /**
  * Represents a task which is executed periodically.
  */
-public class SpoutTask implements Task, LongPrioritized {
+public class SpoutTask extends TimingWheelEntry implements Task, LongPrioritized {
 	/**
 	 * The next task ID pending.
 	 */
@@ -107,6 +109,10 @@ public class SpoutTask implements Task, LongPrioritized {
 	 * Info about sub-tasks
 	 */
 	private ParallelTaskInfo parallelInfo;
+	/**
+	 * The profiler section for the task, grouped by owner
+	 */
+	private final ProfilerSection profilerSection;
 
 	/**
 	 * Creates a new task with the specified period between consecutive calls to {@link #pulse()}.
@@ -124,6 +130,13 @@ public class SpoutTask implements Task, LongPrioritized {
 		this.manager = manager;
 		this.scheduler = scheduler;
 		this.longLife = longLife;
+		if (scheduler instanceof SpoutScheduler) {
+			ProfilerSection tasks = ((SpoutScheduler) scheduler).getProfiler().getSection("Tasks");
+			// Keyed by name, so the profiler does not keep disabled plugins or their task classes alive
+			this.profilerSection = tasks.getChild(owner == null ? "Engine" : ProfilerSection.nameOf(owner)).getChild(task.getClass().getName());
+		} else {
+			this.profilerSection = null;
+		}
 	}
 
 	/**
@@ -219,6 +232,7 @@ public class SpoutTask implements Task, LongPrioritized {
 			return false;
 		}
 
+		final long start = System.nanoTime();
 		try {
 			task.run();
 
@@ -228,6 +242,9 @@ public class SpoutTask implements Task, LongPrioritized {
 				queueState.set(QueueState.DEAD);
 			}
 		} finally {
+			if (profilerSection != null) {
+				profilerSection.add(System.nanoTime() - start);
+			}
 			executing.set(false);
 		}
 
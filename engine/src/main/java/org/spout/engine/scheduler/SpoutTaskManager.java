@@ -27,14 +27,11 @@
 package org.spout.engine.scheduler;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -45,7 +42,6 @@ import org.spout.api.scheduler.TaskManager;
 import org.spout.api.scheduler.TaskPriority;
 import org.spout.api.scheduler.Worker;
 import org.spout.engine.util.thread.AsyncManager;
-import org.spout.engine.util.thread.threadfactory.NamedThreadFactory;
 
 public class SpoutTaskManager implements TaskManager {
 	private final ConcurrentHashMap<SpoutTask, SpoutWorker> activeWorkers = new ConcurrentHashMap<>();
@@ -56,10 +52,10 @@ public class SpoutTaskManager implements TaskManager {
 	private final AtomicLong upTime;
 	private final Object scheduleLock = new Object();
 	private final Scheduler scheduler;
-	private final ExecutorService pool = Executors.newFixedThreadPool(20, new NamedThreadFactory("Scheduler Thread Pool Thread"));
+	private final AsyncTaskExecutor executor;
 
-	public SpoutTaskManager(Scheduler scheduler, Thread mainThread) {
-		this(scheduler, mainThread, null, 0L);
+	public SpoutTaskManager(Scheduler scheduler, Thread mainThread, AsyncTaskExecutor executor) {
+		this(scheduler, mainThread, null, 0L, executor);
 	}
 
 	public SpoutTaskManager(Scheduler scheduler, AsyncManager manager) {
@@ -67,11 +63,16 @@ public class SpoutTaskManager implements TaskManager {
 	}
 
 	public SpoutTaskManager(Scheduler scheduler, Thread mainThread, AsyncManager manager, long age) {
-		this.taskQueue = new TaskPriorityQueue(manager, SpoutScheduler.PULSE_EVERY / 4);
+		this(scheduler, mainThread, manager, age, null);
+	}
+
+	private SpoutTaskManager(Scheduler scheduler, Thread mainThread, AsyncManager manager, long age, AsyncTaskExecutor executor) {
+		this.taskQueue = new TaskPriorityQueue(age);
 		this.mainThread = mainThread != null;
 		this.alive = new AtomicBoolean(true);
 		this.upTime = new AtomicLong(age);
 		this.scheduler = scheduler;
+		this.executor = executor;
 	}
 
 	@Override
@@ -128,31 +129,18 @@ public class SpoutTaskManager implements TaskManager {
 	public void heartbeat(long delta) {
 		long upTime = this.upTime.addAndGet(delta);
 
-		Queue<SpoutTask> q;
-
-		while ((q = taskQueue.poll(upTime)) != null) {
-			boolean checkRequired = !taskQueue.isFullyBelowThreshold(q, upTime);
-			Iterator<SpoutTask> itr = q.iterator();
-			while (itr.hasNext()) {
-				SpoutTask currentTask = itr.next();
-				if (checkRequired && currentTask.getPriority() > upTime) {
-					continue;
-				}
+		SpoutTask currentTask;
 
-				itr.remove();
-				currentTask.setUnqueued();
+		while ((currentTask = taskQueue.poll(upTime)) != null) {
+			currentTask.setUnqueued();
 
-				if (!currentTask.isAlive()) {
-					continue;
-				} else if (currentTask.isSync()) {
-					currentTask.pulse();
-					repeatSchedule(currentTask);
-				} else {
-					Spout.getLogger().info("Async repeating task submitted");
-				}
-			}
-			if (taskQueue.complete(q, upTime)) {
-				break;
+			if (!currentTask.isAlive()) {
+				continue;
+			} else if (currentTask.isSync()) {
+				currentTask.pulse();
+				repeatSchedule(currentTask);
+			} else {
+				Spout.getLogger().info("Async repeating task submitted");
 			}
 		}
 	}
@@ -183,7 +171,14 @@ public class SpoutTaskManager implements TaskManager {
 			if (!task.isSync()) {
 				SpoutWorker worker = new SpoutWorker(task, this);
 				addWorker(worker, task);
-				worker.start(pool);
+				try {
+					worker.start(executor);
+				} catch (RejectedExecutionException e) {
+					removeWorker(worker, task);
+					removeTask(task);
+					task.stop();
+					throw e;
+				}
 			} else {
 				taskQueue.add(task);
 			}
@@ -298,7 +293,7 @@ public class SpoutTaskManager implements TaskManager {
 			throw new IllegalStateException("Only the task manager for the main thread should be shutdown, since the other task managers do not support async tasks");
 		}
 		alive.set(false);
-		pool.shutdown();
+		executor.shutdown();
 		cancelAllTasks();
 		return true;
 	}
@@ -26,7 +26,6 @@
  */
 package org.spout.engine.scheduler;
 
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -68,11 +67,11 @@ public class SpoutWorker implements Worker, Runnable {
 		this.taskManager = taskManager;
 	}
 
-	public void start(ExecutorService pool) {
+	public void start(AsyncTaskExecutor executor) {
 		if (thread != null) {
 			thread.start();
 		} else {
-			Future<?> future = pool.submit(r);
+			Future<?> future = executor.submit(owner, r);
 			if (!this.futureRef.compareAndSet(NOT_SUBMITED, future)) {
 				future.cancel(true);
 			}
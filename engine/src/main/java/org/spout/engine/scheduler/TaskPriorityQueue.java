@@ -27,56 +27,42 @@
 package org.spout.engine.scheduler;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Queue;
 
-import org.spout.api.util.list.concurrent.ConcurrentLongPriorityQueue;
-import org.spout.api.util.list.concurrent.RedirectableConcurrentLinkedQueue;
-import org.spout.engine.util.thread.AsyncManager;
+import org.spout.api.util.list.TimingWheel;
 
-public class TaskPriorityQueue extends ConcurrentLongPriorityQueue<SpoutTask> {
-	private final AsyncManager taskManager;
+/**
+ * The queue of the sync tasks of a task manager, ordered by next call time.<br> <br> Tasks are stored in a {@link TimingWheel}, so adding, cancelling and expiring a task is O(1). All the methods
+ * are synchronized, as tasks can be scheduled and cancelled from any thread.
+ */
+public class TaskPriorityQueue {
+	private final TimingWheel<SpoutTask> wheel;
 
-	public TaskPriorityQueue(AsyncManager manager, long resolution) {
-		super(resolution);
-		taskManager = manager;
+	public TaskPriorityQueue(long upTime) {
+		wheel = new TimingWheel<>(upTime);
 	}
 
 	/**
-	 * Gets the first pending task on the queue.  A task is considered pending if its next call time is less than or equal to the given current time.<br> <br> NOTE: This method should only be called from
-	 * a single thread.
+	 * Gets the first pending task on the queue.  A task is considered pending if its next call time is less than or equal to the given current time.
 	 *
 	 * @param currentTime the current time
 	 * @return the first pending task, or null if no task is pending
 	 */
-	public Queue<SpoutTask> getPendingTask(long currentTime) {
-		if (Thread.currentThread() != taskManager.getExecutionThread()) {
-			throw new IllegalStateException("getPendingTask() may only be called from the thread that created the TaskPriorityQueue");
-		}
-
-		return super.poll(currentTime);
+	public synchronized SpoutTask poll(long currentTime) {
+		return wheel.poll(currentTime);
 	}
 
-	@Override
-	public boolean add(SpoutTask task) {
-		if (task != null) {
-			if (!task.setQueued()) {
-				throw new UnsupportedOperationException("Task was dead when adding to the queue");
-			}
+	public synchronized boolean add(SpoutTask task) {
+		if (!task.setQueued()) {
+			throw new UnsupportedOperationException("Task was dead when adding to the queue");
 		}
-		return super.add(task);
-	}
-
-	@Override
-	public boolean redirect(SpoutTask task) {
-		return super.add(task);
+		wheel.add(task, task.getNextCallTime());
+		return true;
 	}
 
-	@Override
-	public boolean remove(SpoutTask task) {
+	public synchronized boolean remove(SpoutTask task) {
 		task.remove();
-		if (!super.remove(task)) {
+		if (!wheel.remove(task)) {
 			return false;
 		}
 
@@ -100,17 +86,11 @@ public class TaskPriorityQueue extends ConcurrentLongPriorityQueue<SpoutTask> {
 		return sb.append("}").toString();
 	}
 
-	public List<SpoutTask> getTasks() {
-		List<SpoutTask> list = new ArrayList<>();
-		Iterator<RedirectableConcurrentLinkedQueue<SpoutTask>> iq = queueMap.values().iterator();
-		while (iq.hasNext()) {
-			Iterator<SpoutTask> i = iq.next().iterator();
-			while (i.hasNext()) {
-				SpoutTask t = i.next();
-				list.add(t);
-			}
+	public synchronized List<SpoutTask> getTasks() {
+		List<SpoutTask> list = new ArrayList<>(wheel.size());
+		for (SpoutTask t : wheel) {
+			list.add(t);
 		}
 		return list;
 	}
 }
-
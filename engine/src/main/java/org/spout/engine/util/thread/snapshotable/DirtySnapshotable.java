@@ -0,0 +1,59 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.engine.util.thread.snapshotable;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A snapshotable which queues itself with its {@link SnapshotManager} on the first write after a snapshot copy, so that the manager only copies the snapshotables which have changed.<br> <br>
+ * Extending classes must call {@link #markDirty()} after every write to their live value.
+ */
+public abstract class DirtySnapshotable implements Snapshotable {
+	private static final AtomicIntegerFieldUpdater<DirtySnapshotable> queuedUpdater = AtomicIntegerFieldUpdater.newUpdater(DirtySnapshotable.class, "queued");
+	private final SnapshotManager manager;
+	private volatile int queued = 0;
+
+	protected DirtySnapshotable(SnapshotManager manager) {
+		this.manager = manager;
+	}
+
+	/**
+	 * Queues this snapshotable for the next snapshot copy, if it is not already queued
+	 */
+	protected final void markDirty() {
+		if (queued == 0 && queuedUpdater.compareAndSet(this, 0, 1)) {
+			manager.queue(this);
+		}
+	}
+
+	/**
+	 * Clears the queued flag, called by the manager before the snapshot is copied
+	 */
+	final void clearDirty() {
+		queued = 0;
+	}
+}
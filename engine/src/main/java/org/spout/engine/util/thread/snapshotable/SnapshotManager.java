@@ -26,23 +26,59 @@
  */
 package org.spout.engine.util.thread.snapshotable;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+/**
+ * Copies the snapshots of a group of snapshotables.<br> <br> {@link DirtySnapshotable}s queue themselves on their first write after a copy and only the queued ones are copied. Other snapshotables are
+ * copied on every call to {@link #copyAllSnapshots()}.
+ */
 public class SnapshotManager {
-	private List<Snapshotable> managed = new ArrayList<>();
+	private final ConcurrentLinkedQueue<Snapshotable> managed = new ConcurrentLinkedQueue<>();
+	private final ConcurrentLinkedQueue<DirtySnapshotable> dirty = new ConcurrentLinkedQueue<>();
+	private volatile int lastCopyCount = 0;
 
-	public synchronized void add(Snapshotable s) {
-		synchronized (managed) {
+	/**
+	 * Registers a snapshotable with this manager.  Dirty snapshotables do not need to be registered, since they queue themselves when written to.
+	 *
+	 * @param s the snapshotable
+	 */
+	public void add(Snapshotable s) {
+		if (!(s instanceof DirtySnapshotable)) {
 			managed.add(s);
 		}
 	}
 
-	public void copyAllSnapshots() {
-		synchronized (managed) {
-			for (int i = 0; i < managed.size(); i++) {
-				managed.get(i).copySnapshot();
-			}
+	void queue(DirtySnapshotable s) {
+		dirty.add(s);
+	}
+
+	/**
+	 * Copies the snapshot of all the registered snapshotables and of the dirty snapshotables queued since the last copy
+	 *
+	 * @return the number of snapshotables copied
+	 */
+	public int copyAllSnapshots() {
+		int count = 0;
+		for (Snapshotable s : managed) {
+			s.copySnapshot();
+			count++;
 		}
+		DirtySnapshotable s;
+		while ((s = dirty.poll()) != null) {
+			s.clearDirty();
+			s.copySnapshot();
+			count++;
+		}
+		lastCopyCount = count;
+		return count;
+	}
+
+	/**
+	 * Gets the number of snapshotables copied by the last call to {@link #copyAllSnapshots()}
+	 *
+	 * @return the copy count
+	 */
+	public int getLastCopyCount() {
+		return lastCopyCount;
 	}
 }
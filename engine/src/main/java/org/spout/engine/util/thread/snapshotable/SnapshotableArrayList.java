@@ -39,7 +39,7 @@ import org.spout.api.util.thread.annotation.SnapshotRead;
 /**
  * A snapshotable object for ArrayLists
  */
-public class SnapshotableArrayList<T> implements Snapshotable {
+public class SnapshotableArrayList<T> extends DirtySnapshotable {
 	private final ConcurrentLinkedQueue<T> dirty = new ConcurrentLinkedQueue<>();
 	private final List<T> snapshot;
 	private final List<T> live;
@@ -49,13 +49,13 @@ public class SnapshotableArrayList<T> implements Snapshotable {
 	}
 
 	public SnapshotableArrayList(SnapshotManager manager, ArrayList<T> initial) {
+		super(manager);
 		if (initial != null) {
 			snapshot = new ArrayList<>(initial);
 		} else {
 			snapshot = new ArrayList<>();
 		}
 		live = Collections.synchronizedList(new ArrayList<>(snapshot));
-		manager.add(this);
 	}
 
 	/**
@@ -67,6 +67,7 @@ public class SnapshotableArrayList<T> implements Snapshotable {
 
 		if (success) {
 			dirty.add(object);
+			markDirty();
 		}
 
 		return success;
@@ -79,6 +80,7 @@ public class SnapshotableArrayList<T> implements Snapshotable {
 
 			if (success) {
 				dirty.add(object);
+				markDirty();
 			}
 		}
 	}
@@ -92,6 +94,7 @@ public class SnapshotableArrayList<T> implements Snapshotable {
 
 		if (success) {
 			dirty.add(object);
+			markDirty();
 		}
 
 		return success;
@@ -103,6 +106,7 @@ public class SnapshotableArrayList<T> implements Snapshotable {
 	@DelayedWrite
 	public void remove(int index) {
 		dirty.add(live.remove(index));
+		markDirty();
 	}
 
 	/**
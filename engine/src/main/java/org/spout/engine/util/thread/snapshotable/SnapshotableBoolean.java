@@ -35,14 +35,14 @@ import org.spout.api.util.thread.annotation.SnapshotRead;
 /**
  * A snapshotable object that supports primitive booleans
  */
-public class SnapshotableBoolean implements Snapshotable {
+public class SnapshotableBoolean extends DirtySnapshotable {
 	private AtomicBoolean next;
 	private boolean snapshot;
 
 	public SnapshotableBoolean(SnapshotManager manager, boolean initial) {
+		super(manager);
 		next = new AtomicBoolean(initial);
 		snapshot = initial;
-		manager.add(this);
 	}
 
 	/**
@@ -51,6 +51,7 @@ public class SnapshotableBoolean implements Snapshotable {
 	@DelayedWrite
 	public void set(boolean next) {
 		this.next.set(next);
+		markDirty();
 	}
 
 	/**
@@ -59,7 +60,11 @@ public class SnapshotableBoolean implements Snapshotable {
 	 * @return true on success
 	 */
 	public boolean compareAndSet(boolean expect, boolean next) {
-		return this.next.compareAndSet(expect, next);
+		if (this.next.compareAndSet(expect, next)) {
+			markDirty();
+			return true;
+		}
+		return false;
 	}
 
 	/**
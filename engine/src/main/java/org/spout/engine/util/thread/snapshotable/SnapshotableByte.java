@@ -33,14 +33,14 @@ import org.spout.api.util.thread.annotation.SnapshotRead;
 /**
  * A snapshotable object that supports primitive bytes
  */
-public class SnapshotableByte implements Snapshotable {
+public class SnapshotableByte extends DirtySnapshotable {
 	private volatile byte next;
 	private byte snapshot;
 
 	public SnapshotableByte(SnapshotManager manager, byte initial) {
+		super(manager);
 		next = initial;
 		snapshot = initial;
-		manager.add(this);
 	}
 
 	/**
@@ -49,6 +49,7 @@ public class SnapshotableByte implements Snapshotable {
 	@DelayedWrite
 	public void set(byte next) {
 		this.next = next;
+		markDirty();
 	}
 
 	/**
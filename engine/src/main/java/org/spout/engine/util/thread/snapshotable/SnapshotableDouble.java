@@ -33,14 +33,14 @@ import org.spout.api.util.thread.annotation.SnapshotRead;
 /**
  * A snapshotable object that supports primitive doubles
  */
-public class SnapshotableDouble implements Snapshotable {
+public class SnapshotableDouble extends DirtySnapshotable {
 	private volatile double next;
 	private double snapshot;
 
 	public SnapshotableDouble(SnapshotManager manager, double initial) {
+		super(manager);
 		next = initial;
 		snapshot = initial;
-		manager.add(this);
 	}
 
 	/**
@@ -49,6 +49,7 @@ public class SnapshotableDouble implements Snapshotable {
 	@DelayedWrite
 	public void set(double next) {
 		this.next = next;
+		markDirty();
 	}
 
 	/**
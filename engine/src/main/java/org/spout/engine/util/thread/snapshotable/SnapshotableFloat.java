@@ -33,14 +33,14 @@ import org.spout.api.util.thread.annotation.SnapshotRead;
 /**
  * A snapshotable object that supports primitive floats
  */
-public class SnapshotableFloat implements Snapshotable {
+public class SnapshotableFloat extends DirtySnapshotable {
 	private volatile float next;
 	private float snapshot;
 
 	public SnapshotableFloat(SnapshotManager manager, float initial) {
+		super(manager);
 		next = initial;
 		snapshot = initial;
-		manager.add(this);
 	}
 
 	/**
@@ -49,6 +49,7 @@ public class SnapshotableFloat implements Snapshotable {
 	@DelayedWrite
 	public void set(float next) {
 		this.next = next;
+		markDirty();
 	}
 
 	/**
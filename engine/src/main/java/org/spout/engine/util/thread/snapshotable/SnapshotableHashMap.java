@@ -43,7 +43,7 @@ import org.spout.api.util.thread.annotation.SnapshotRead;
 /**
  * A snapshotable class for HashMaps
  */
-public class SnapshotableHashMap<K, V> implements Snapshotable {
+public class SnapshotableHashMap<K, V> extends DirtySnapshotable {
 	private final Map<K, V> snapshot = new LinkedHashMap<>();
 	private final Map<K, V> unmodifySnapshot = Collections.unmodifiableMap(snapshot);
 	private final ConcurrentMap<K, V> live = new ConcurrentHashMap<>();
@@ -52,7 +52,7 @@ public class SnapshotableHashMap<K, V> implements Snapshotable {
 	private final ConcurrentLinkedQueue<V> dirtyValues = new ConcurrentLinkedQueue<>();
 
 	public SnapshotableHashMap(SnapshotManager manager) {
-		manager.add(this);
+		super(manager);
 	}
 
 	/**
@@ -68,6 +68,7 @@ public class SnapshotableHashMap<K, V> implements Snapshotable {
 		V oldValue = live.put(key, value);
 		dirtyKeys.add(key);
 		dirtyValues.add(value);
+		markDirty();
 		return oldValue;
 	}
 
@@ -85,6 +86,7 @@ public class SnapshotableHashMap<K, V> implements Snapshotable {
 		if (oldValue == null) {
 			dirtyKeys.add(key);
 			dirtyValues.add(value);
+			markDirty();
 		}
 		return oldValue;
 	}
@@ -102,6 +104,7 @@ public class SnapshotableHashMap<K, V> implements Snapshotable {
 		if (oldValue != null) {
 			dirtyKeys.add(key);
 			dirtyValues.add(oldValue);
+			markDirty();
 		}
 		return oldValue;
 	}
@@ -120,6 +123,7 @@ public class SnapshotableHashMap<K, V> implements Snapshotable {
 		if (success) {
 			dirtyKeys.add(key);
 			dirtyValues.add(value);
+			markDirty();
 		}
 		return success;
 	}
@@ -42,7 +42,7 @@ import org.spout.api.util.thread.annotation.SnapshotRead;
 /**
  * A snapshotable class for HashSets
  */
-public class SnapshotableHashSet<T> implements Snapshotable {
+public class SnapshotableHashSet<T> extends DirtySnapshotable {
 	private final Set<T> snapshot = new HashSet<>();
 	private final Set<T> unmodifySnapshot = Collections.unmodifiableSet(snapshot);
 	private final Set<T> live = Collections.newSetFromMap(new ConcurrentHashMap<T, Boolean>());
@@ -55,12 +55,12 @@ public class SnapshotableHashSet<T> implements Snapshotable {
 	}
 
 	public SnapshotableHashSet(SnapshotManager manager, HashSet<T> initial) {
+		super(manager);
 		if (initial != null) {
 			for (T o : initial) {
 				add(o);
 			}
 		}
-		manager.add(this);
 	}
 
 	/**
@@ -74,6 +74,7 @@ public class SnapshotableHashSet<T> implements Snapshotable {
 		boolean success = live.add(object);
 		if (success) {
 			dirty.add(object);
+			markDirty();
 		}
 		return success;
 	}
@@ -86,6 +87,7 @@ public class SnapshotableHashSet<T> implements Snapshotable {
 		boolean success = live.remove(object);
 		if (success) {
 			dirty.add(object);
+			markDirty();
 		}
 		return success;
 	}
@@ -33,14 +33,14 @@ import org.spout.api.util.thread.annotation.SnapshotRead;
 /**
  * A snapshotable object that supports primitive ints
  */
-public class SnapshotableInt implements Snapshotable {
+public class SnapshotableInt extends DirtySnapshotable {
 	private volatile int next;
 	private int snapshot;
 
 	public SnapshotableInt(SnapshotManager manager, int initial) {
+		super(manager);
 		next = initial;
 		snapshot = initial;
-		manager.add(this);
 	}
 
 	/**
@@ -49,6 +49,7 @@ public class SnapshotableInt implements Snapshotable {
 	@DelayedWrite
 	public void set(int next) {
 		this.next = next;
+		markDirty();
 	}
 
 	/**
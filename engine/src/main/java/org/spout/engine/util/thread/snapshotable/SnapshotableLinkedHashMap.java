@@ -45,7 +45,7 @@ import org.spout.api.util.thread.annotation.SnapshotRead;
 /**
  * A snapshotable class for LinkedHashMaps
  */
-public class SnapshotableLinkedHashMap<K, V> implements Snapshotable {
+public class SnapshotableLinkedHashMap<K, V> extends DirtySnapshotable {
 	private final Map<K, V> snapshot = new LinkedHashMap<>();
 	private final Map<K, V> unmodifySnapshot = Collections.unmodifiableMap(snapshot);
 	private final Collection<V> unmodifyValues = Collections.unmodifiableCollection(snapshot.values());
@@ -58,7 +58,7 @@ public class SnapshotableLinkedHashMap<K, V> implements Snapshotable {
 	private boolean dirtyListGenerated = false;
 
 	public SnapshotableLinkedHashMap(SnapshotManager manager) {
-		manager.add(this);
+		super(manager);
 	}
 
 	/**
@@ -73,6 +73,7 @@ public class SnapshotableLinkedHashMap<K, V> implements Snapshotable {
 	public V put(K key, V value) {
 		V oldValue = live.put(key, value);
 		dirty.add(key);
+		markDirty();
 		return oldValue;
 	}
 
@@ -89,6 +90,7 @@ public class SnapshotableLinkedHashMap<K, V> implements Snapshotable {
 		V oldValue = live.putIfAbsent(key, value);
 		if (oldValue == null) {
 			dirty.add(key);
+			markDirty();
 		}
 		return oldValue;
 	}
@@ -105,6 +107,7 @@ public class SnapshotableLinkedHashMap<K, V> implements Snapshotable {
 		V oldValue = live.remove(key);
 		if (oldValue != null) {
 			dirty.add(key);
+			markDirty();
 		}
 		return oldValue;
 	}
@@ -122,6 +125,7 @@ public class SnapshotableLinkedHashMap<K, V> implements Snapshotable {
 		boolean success = live.remove(key, value);
 		if (success) {
 			dirty.add(key);
+			markDirty();
 		}
 		return success;
 	}
@@ -33,14 +33,14 @@ import org.spout.api.util.thread.annotation.SnapshotRead;
 /**
  * A snapshotable object that supports primitive longs
  */
-public class SnapshotableLong implements Snapshotable {
+public class SnapshotableLong extends DirtySnapshotable {
 	private volatile long next;
 	private long snapshot;
 
 	public SnapshotableLong(SnapshotManager manager, long initial) {
+		super(manager);
 		next = initial;
 		snapshot = initial;
-		manager.add(this);
 	}
 
 	/**
@@ -49,6 +49,7 @@ public class SnapshotableLong implements Snapshotable {
 	@DelayedWrite
 	public void set(long next) {
 		this.next = next;
+		markDirty();
 	}
 
 	/**
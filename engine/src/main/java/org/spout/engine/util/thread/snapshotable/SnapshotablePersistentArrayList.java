@@ -0,0 +1,178 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.engine.util.thread.snapshotable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.spout.api.util.thread.annotation.DelayedWrite;
+import org.spout.api.util.thread.annotation.LiveRead;
+import org.spout.api.util.thread.annotation.SnapshotRead;
+
+/**
+ * A snapshotable class for ArrayLists, backed by copy-on-write arrays.<br> <br> Every write copies the live array, so writes are O(n), but copying the snapshot is a single reference swap and
+ * reading the snapshot never copies. This suits lists which are read every tick and rarely updated.
+ */
+public class SnapshotablePersistentArrayList<T> extends DirtySnapshotable {
+	private static final Object[] EMPTY = new Object[0];
+	private final AtomicReference<Object[]> live;
+	private volatile Object[] snapshot;
+
+	public SnapshotablePersistentArrayList(SnapshotManager manager) {
+		this(manager, null);
+	}
+
+	public SnapshotablePersistentArrayList(SnapshotManager manager, Collection<T> initial) {
+		super(manager);
+		snapshot = initial == null ? EMPTY : initial.toArray();
+		live = new AtomicReference<>(snapshot);
+	}
+
+	/**
+	 * Adds an object to the list
+	 */
+	@DelayedWrite
+	public boolean add(T object) {
+		while (true) {
+			final Object[] current = live.get();
+			final Object[] next = Arrays.copyOf(current, current.length + 1);
+			next[current.length] = object;
+			if (live.compareAndSet(current, next)) {
+				markDirty();
+				return true;
+			}
+		}
+	}
+
+	@DelayedWrite
+	public void addAll(Collection<T> values) {
+		if (values.isEmpty()) {
+			return;
+		}
+		final Object[] added = values.toArray();
+		while (true) {
+			final Object[] current = live.get();
+			final Object[] next = Arrays.copyOf(current, current.length + added.length);
+			System.arraycopy(added, 0, next, current.length, added.length);
+			if (live.compareAndSet(current, next)) {
+				markDirty();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Removes an object from the list
+	 */
+	@DelayedWrite
+	public boolean remove(T object) {
+		while (true) {
+			final Object[] current = live.get();
+			int index = -1;
+			for (int i = 0; i < current.length; i++) {
+				if (object == null ? current[i] == null : object.equals(current[i])) {
+					index = i;
+					break;
+				}
+			}
+			if (index < 0) {
+				return false;
+			}
+			if (live.compareAndSet(current, without(current, index))) {
+				markDirty();
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Removes the object from the list at a particular index
+	 */
+	@DelayedWrite
+	public void remove(int index) {
+		while (true) {
+			final Object[] current = live.get();
+			if (index < 0 || index >= current.length) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + current.length);
+			}
+			if (live.compareAndSet(current, without(current, index))) {
+				markDirty();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Gets the snapshot value
+	 *
+	 * @return the stable snapshot value
+	 */
+	@SnapshotRead
+	@SuppressWarnings ("unchecked")
+	public List<T> get() {
+		return Collections.unmodifiableList((List<T>) Arrays.asList(snapshot));
+	}
+
+	/**
+	 * Gets the live value.<br> <br> The returned list is an immutable version of the live list at the time of the call.
+	 *
+	 * @return the live value
+	 */
+	@LiveRead
+	@SuppressWarnings ("unchecked")
+	public List<T> getLive() {
+		return Collections.unmodifiableList((List<T>) Arrays.asList(live.get()));
+	}
+
+	/**
+	 * Gets if the live list differs from the snapshot
+	 *
+	 * @return true if the list has been updated since the last snapshot copy
+	 */
+	@LiveRead
+	public boolean isDirty() {
+		return live.get() != snapshot;
+	}
+
+	/**
+	 * Copies the next values to the snapshot
+	 */
+	@Override
+	public void copySnapshot() {
+		snapshot = live.get();
+	}
+
+	private static Object[] without(Object[] array, int index) {
+		final Object[] next = new Object[array.length - 1];
+		System.arraycopy(array, 0, next, 0, index);
+		System.arraycopy(array, index + 1, next, index, next.length - index);
+		return next;
+	}
+}
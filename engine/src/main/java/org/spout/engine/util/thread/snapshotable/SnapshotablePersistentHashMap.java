@@ -0,0 +1,222 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.engine.util.thread.snapshotable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.spout.api.scheduler.TickStage;
+import org.spout.api.util.map.PersistentHashMap;
+import org.spout.api.util.thread.annotation.DelayedWrite;
+import org.spout.api.util.thread.annotation.LiveRead;
+import org.spout.api.util.thread.annotation.SnapshotRead;
+
+/**
+ * A snapshotable class for HashMaps, backed by a {@link PersistentHashMap}.<br> <br> The live map and the snapshot share all the unchanged nodes, so copying the snapshot is a single reference
+ * swap. The dirty lists are computed by comparing the live map to the snapshot, so keys which were added and removed again since the last copy are not reported.
+ */
+public class SnapshotablePersistentHashMap<K, V> extends DirtySnapshotable {
+	private final AtomicReference<PersistentHashMap<K, V>> live = new AtomicReference<>(PersistentHashMap.<K, V>empty());
+	private volatile PersistentHashMap<K, V> snapshot = PersistentHashMap.empty();
+
+	public SnapshotablePersistentHashMap(SnapshotManager manager) {
+		super(manager);
+	}
+
+	/**
+	 * Adds a key/value pair to the map
+	 *
+	 * @param key the key
+	 * @param value the value
+	 * @return the old value
+	 */
+	@DelayedWrite
+	@LiveRead
+	public V put(K key, V value) {
+		while (true) {
+			final PersistentHashMap<K, V> current = live.get();
+			if (live.compareAndSet(current, current.plus(key, value))) {
+				markDirty();
+				return current.get(key);
+			}
+		}
+	}
+
+	/**
+	 * Adds a key/value pair to the map, if no value exists for the key
+	 *
+	 * @param key the key
+	 * @param value the value
+	 * @return the old value
+	 */
+	@DelayedWrite
+	@LiveRead
+	public V putIfAbsent(K key, V value) {
+		while (true) {
+			final PersistentHashMap<K, V> current = live.get();
+			final V oldValue = current.get(key);
+			if (oldValue != null) {
+				return oldValue;
+			}
+			if (live.compareAndSet(current, current.plus(key, value))) {
+				markDirty();
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Removes a key/value pair from the map
+	 *
+	 * @param key the key
+	 * @return the old value
+	 */
+	@DelayedWrite
+	@LiveRead
+	public V remove(K key) {
+		while (true) {
+			final PersistentHashMap<K, V> current = live.get();
+			final V oldValue = current.get(key);
+			if (oldValue == null) {
+				return null;
+			}
+			if (live.compareAndSet(current, current.minus(key))) {
+				markDirty();
+				return oldValue;
+			}
+		}
+	}
+
+	/**
+	 * Removes a key/value pair from the map
+	 *
+	 * @param key the key
+	 * @param value the value
+	 * @return true if the key/value pair was removed
+	 */
+	@DelayedWrite
+	@LiveRead
+	public boolean remove(K key, V value) {
+		while (true) {
+			final PersistentHashMap<K, V> current = live.get();
+			final V oldValue = current.get(key);
+			if (oldValue == null || !oldValue.equals(value)) {
+				return false;
+			}
+			if (live.compareAndSet(current, current.minus(key))) {
+				markDirty();
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Gets the snapshot value
+	 *
+	 * @return the stable snapshot value
+	 */
+	@SnapshotRead
+	public Map<K, V> get() {
+		return snapshot;
+	}
+
+	/**
+	 * Gets the live value.<br> <br> The returned map is an immutable version of the live map at the time of the call.
+	 *
+	 * @return the live map
+	 */
+	public Map<K, V> getLive() {
+		return live.get();
+	}
+
+	/**
+	 * Creates a list of keys that have been changed since the last snapshot copy.<br> <br> This method may only be called during the pre-snapshot stage and the list only remains valid during that
+	 * stage.
+	 *
+	 * @return the list of keys that have been updated
+	 */
+	public List<K> getDirtyKeyList() {
+		TickStage.checkStage(TickStage.PRESNAPSHOT);
+		final List<K> keys = new ArrayList<>();
+		live.get().diff(snapshot, new PersistentHashMap.DiffListener<K, V>() {
+			@Override
+			public void added(K key, V value) {
+				keys.add(key);
+			}
+
+			@Override
+			public void removed(K key, V oldValue) {
+				keys.add(key);
+			}
+
+			@Override
+			public void changed(K key, V oldValue, V newValue) {
+				keys.add(key);
+			}
+		});
+		return Collections.unmodifiableList(keys);
+	}
+
+	/**
+	 * Creates a list of values that have been changed since the last snapshot copy. The list contains the new value for added or replaced keys, and the old value for removed keys.<br> <br> This
+	 * method may only be called during the pre-snapshot stage and the list only remains valid during that stage.
+	 *
+	 * @return the list of values that have been updated
+	 */
+	public List<V> getDirtyValueList() {
+		TickStage.checkStage(TickStage.PRESNAPSHOT);
+		final List<V> values = new ArrayList<>();
+		live.get().diff(snapshot, new PersistentHashMap.DiffListener<K, V>() {
+			@Override
+			public void added(K key, V value) {
+				values.add(value);
+			}
+
+			@Override
+			public void removed(K key, V oldValue) {
+				values.add(oldValue);
+			}
+
+			@Override
+			public void changed(K key, V oldValue, V newValue) {
+				values.add(newValue);
+			}
+		});
+		return Collections.unmodifiableList(values);
+	}
+
+	/**
+	 * Copies the next values to the snapshot
+	 */
+	@Override
+	public void copySnapshot() {
+		snapshot = live.get();
+	}
+}
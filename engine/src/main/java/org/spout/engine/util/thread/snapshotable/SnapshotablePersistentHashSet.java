@@ -0,0 +1,151 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.engine.util.thread.snapshotable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.spout.api.scheduler.TickStage;
+import org.spout.api.util.map.PersistentHashMap;
+import org.spout.api.util.thread.annotation.DelayedWrite;
+import org.spout.api.util.thread.annotation.LiveRead;
+import org.spout.api.util.thread.annotation.SnapshotRead;
+
+/**
+ * A snapshotable class for HashSets, backed by the keys of a {@link PersistentHashMap}.<br> <br> Copying the snapshot is a single reference swap and the dirty list is computed by comparing the
+ * live set to the snapshot.
+ */
+public class SnapshotablePersistentHashSet<T> extends DirtySnapshotable {
+	private final AtomicReference<PersistentHashMap<T, Boolean>> live = new AtomicReference<>(PersistentHashMap.<T, Boolean>empty());
+	private volatile PersistentHashMap<T, Boolean> snapshot = PersistentHashMap.empty();
+
+	public SnapshotablePersistentHashSet(SnapshotManager manager) {
+		super(manager);
+	}
+
+	/**
+	 * Adds an object to the set
+	 *
+	 * @param object the object
+	 * @return true if the object was not already in the set
+	 */
+	@DelayedWrite
+	@LiveRead
+	public boolean add(T object) {
+		while (true) {
+			final PersistentHashMap<T, Boolean> current = live.get();
+			final PersistentHashMap<T, Boolean> next = current.plus(object, Boolean.TRUE);
+			if (next == current) {
+				return false;
+			}
+			if (live.compareAndSet(current, next)) {
+				markDirty();
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Removes an object from the set
+	 *
+	 * @param object the object
+	 * @return true if the object was in the set
+	 */
+	@DelayedWrite
+	@LiveRead
+	public boolean remove(T object) {
+		while (true) {
+			final PersistentHashMap<T, Boolean> current = live.get();
+			final PersistentHashMap<T, Boolean> next = current.minus(object);
+			if (next == current) {
+				return false;
+			}
+			if (live.compareAndSet(current, next)) {
+				markDirty();
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Gets the snapshot value
+	 *
+	 * @return the stable snapshot value
+	 */
+	@SnapshotRead
+	public Set<T> get() {
+		return Collections.unmodifiableSet(snapshot.keySet());
+	}
+
+	/**
+	 * Gets the live value.<br> <br> The returned set is an immutable version of the live set at the time of the call.
+	 *
+	 * @return the live set
+	 */
+	@LiveRead
+	public Set<T> getLive() {
+		return Collections.unmodifiableSet(live.get().keySet());
+	}
+
+	/**
+	 * Creates a list of objects that have been added or removed since the last snapshot copy.<br> <br> This method may only be called during the pre-snapshot stage and the list only remains valid
+	 * during that stage.
+	 *
+	 * @return the list of objects that have been updated
+	 */
+	public List<T> getDirtyList() {
+		TickStage.checkStage(TickStage.PRESNAPSHOT);
+		final List<T> dirty = new ArrayList<>();
+		live.get().diff(snapshot, new PersistentHashMap.DiffListener<T, Boolean>() {
+			@Override
+			public void added(T key, Boolean value) {
+				dirty.add(key);
+			}
+
+			@Override
+			public void removed(T key, Boolean oldValue) {
+				dirty.add(key);
+			}
+
+			@Override
+			public void changed(T key, Boolean oldValue, Boolean newValue) {
+			}
+		});
+		return Collections.unmodifiableList(dirty);
+	}
+
+	/**
+	 * Copies the next values to the snapshot
+	 */
+	@Override
+	public void copySnapshot() {
+		snapshot = live.get();
+	}
+}
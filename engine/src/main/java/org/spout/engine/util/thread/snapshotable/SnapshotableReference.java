@@ -37,14 +37,14 @@ import org.spout.api.util.thread.annotation.SnapshotRead;
  *
  * @param <T> the underlying type
  */
-public class SnapshotableReference<T> implements Snapshotable {
+public class SnapshotableReference<T> extends DirtySnapshotable {
 	private AtomicReference<T> next = new AtomicReference<>();
 	private T snapshot;
 
 	public SnapshotableReference(SnapshotManager manager, T initial) {
+		super(manager);
 		next.set(initial);
 		snapshot = initial;
-		manager.add(this);
 	}
 
 	/**
@@ -53,6 +53,7 @@ public class SnapshotableReference<T> implements Snapshotable {
 	@DelayedWrite
 	public void set(T next) {
 		this.next.set(next);
+		markDirty();
 	}
 
 	/**
@@ -64,7 +65,11 @@ public class SnapshotableReference<T> implements Snapshotable {
 	 */
 	@DelayedWrite
 	public boolean compareAndSet(T expect, T update) {
-		return next.compareAndSet(expect, update);
+		if (next.compareAndSet(expect, update)) {
+			markDirty();
+			return true;
+		}
+		return false;
 	}
 
 	/**
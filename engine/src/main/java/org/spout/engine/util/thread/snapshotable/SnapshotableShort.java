@@ -33,14 +33,14 @@ import org.spout.api.util.thread.annotation.SnapshotRead;
 /**
  * A snapshotable object that supports primitive shorts
  */
-public class SnapshotableShort implements Snapshotable {
+public class SnapshotableShort extends DirtySnapshotable {
 	private volatile short next;
 	private short snapshot;
 
 	public SnapshotableShort(SnapshotManager manager, short initial) {
+		super(manager);
 		next = initial;
 		snapshot = initial;
-		manager.add(this);
 	}
 
 	/**
@@ -49,6 +49,7 @@ public class SnapshotableShort implements Snapshotable {
 	@DelayedWrite
 	public void set(short next) {
 		this.next = next;
+		markDirty();
 	}
 
 	/**
@@ -41,7 +41,7 @@ import org.spout.engine.util.TripleInt;
 /**
  * A snapshotable class for triple int HashMaps based on Trove long maps. <p> This allows the class to support getLive functionality. <p> Removals from the Map occur at the next snapshot update.
  */
-public class SnapshotableTripleIntHashMap<V> implements Snapshotable {
+public class SnapshotableTripleIntHashMap<V> extends DirtySnapshotable {
 	private final TInt21TripleObjectHashMap<V> live;
 	private final ConcurrentHashMap<TripleInt, Boolean> dirtyMap;
 	private final ConcurrentLinkedQueue<TripleInt> dirtyQueue;
@@ -50,13 +50,13 @@ public class SnapshotableTripleIntHashMap<V> implements Snapshotable {
 	private final TUnmodifiableInt21TripleObjectHashMap<V> unmutableLive;
 
 	public SnapshotableTripleIntHashMap(SnapshotManager manager) {
+		super(manager);
 		live = new TInt21TripleObjectHashMap<>();
 		snapshot = new TInt21TripleObjectHashMap<>();
 		unmutableSnapshot = new TUnmodifiableInt21TripleObjectHashMap<>(snapshot);
 		unmutableLive = new TUnmodifiableInt21TripleObjectHashMap<>(live);
 		dirtyQueue = new ConcurrentLinkedQueue<>();
 		dirtyMap = new ConcurrentHashMap<>();
-		manager.add(this);
 	}
 
 	/**
@@ -253,6 +253,7 @@ public class SnapshotableTripleIntHashMap<V> implements Snapshotable {
 		Boolean old = dirtyMap.putIfAbsent(key, Boolean.TRUE);
 		if (old == null) {
 			dirtyQueue.add(key);
+			markDirty();
 		}
 	}
 }
@@ -0,0 +1,132 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.engine.world;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.spout.api.geo.cuboid.Region;
+
+/**
+ * A dense index of the chunks loaded in a region, so that per tick work only visits loaded chunks rather than every chunk slot of the region.<br> <br> Chunks may be added and removed from any thread,
+ * but the changes are only applied by {@link #update()}, which, like iteration, must only be called from the region's thread.
+ */
+class ActiveChunkIndex {
+	private static final int NOT_INDEXED = -1;
+	private final Queue<SpoutChunk> added = new ConcurrentLinkedQueue<>();
+	private final Queue<SpoutChunk> removed = new ConcurrentLinkedQueue<>();
+	private final SpoutChunk[] chunks = new SpoutChunk[Region.CHUNKS.VOLUME];
+	private final int[] positions = new int[Region.CHUNKS.VOLUME];
+	private final SpoutRegion region;
+	private int size = 0;
+
+	ActiveChunkIndex(SpoutRegion region) {
+		this.region = region;
+		Arrays.fill(positions, NOT_INDEXED);
+	}
+
+	/**
+	 * Queues a chunk which has just been set into its region slot for addition to the index
+	 *
+	 * @param chunk the chunk
+	 */
+	void add(SpoutChunk chunk) {
+		added.add(chunk);
+	}
+
+	/**
+	 * Queues a chunk which has just been cleared from its region slot for removal from the index
+	 *
+	 * @param chunk the chunk
+	 */
+	void remove(SpoutChunk chunk) {
+		removed.add(chunk);
+	}
+
+	/**
+	 * Applies the queued additions and removals
+	 */
+	void update() {
+		SpoutChunk chunk;
+		while ((chunk = removed.poll()) != null) {
+			int slot = getSlot(chunk);
+			int position = positions[slot];
+			if (position == NOT_INDEXED || chunks[position] != chunk) {
+				continue;
+			}
+			SpoutChunk last = chunks[--size];
+			chunks[position] = last;
+			positions[getSlot(last)] = position;
+			chunks[size] = null;
+			positions[slot] = NOT_INDEXED;
+		}
+		while ((chunk = added.poll()) != null) {
+			// A chunk which was removed before its addition was applied is no longer in its slot
+			if (region.chunks[chunk.getX() & Region.CHUNKS.MASK][chunk.getY() & Region.CHUNKS.MASK][chunk.getZ() & Region.CHUNKS.MASK].get() != chunk) {
+				continue;
+			}
+			int slot = getSlot(chunk);
+			if (positions[slot] != NOT_INDEXED) {
+				if (chunks[positions[slot]] == chunk) {
+					continue;
+				}
+				// The previous chunk in this slot was unloaded, but its removal was not queued
+				chunks[positions[slot]] = chunk;
+				continue;
+			}
+			positions[slot] = size;
+			chunks[size++] = chunk;
+		}
+	}
+
+	/**
+	 * Gets the number of chunks in the index, as of the last {@link #update()}
+	 *
+	 * @return the number of chunks
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the chunk at the given position in the index. The position of a chunk changes when other chunks are removed from the index.
+	 *
+	 * @param position the position, between 0 and {@link #size()}
+	 * @return the chunk
+	 */
+	SpoutChunk get(int position) {
+		return chunks[position];
+	}
+
+	private static int getSlot(SpoutChunk chunk) {
+		int x = chunk.getX() & Region.CHUNKS.MASK;
+		int y = chunk.getY() & Region.CHUNKS.MASK;
+		int z = chunk.getZ() & Region.CHUNKS.MASK;
+		return (((x << Region.CHUNKS.BITS) | y) << Region.CHUNKS.BITS) | z;
+	}
+}
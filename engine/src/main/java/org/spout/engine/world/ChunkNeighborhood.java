@@ -0,0 +1,193 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.engine.world;
+
+import java.util.Arrays;
+
+import org.spout.api.geo.LoadOption;
+import org.spout.api.geo.cuboid.Chunk;
+import org.spout.api.material.BlockMaterial;
+import org.spout.api.material.block.BlockFullState;
+import org.spout.api.util.map.concurrent.AtomicBlockStore;
+
+/**
+ * A 3x3x3 cube of chunks centred on a chunk. The neighbourhood caches the chunks and their block stores, so that blocks on both sides of a chunk border can be read without looking up the chunk
+ * again for every block.<br> <br> Neighbouring chunks are looked up the first time they are accessed, using the load option of the neighbourhood. Blocks in chunks which are not loaded are read as
+ * the null material. The cached references are only valid for a single operation, during which the chunks can not be unloaded, so the neighbourhood must be re-centred or cleared afterwards.<br>
+ * <br> A neighbourhood must only be used by one thread at a time.
+ */
+public class ChunkNeighborhood {
+	private static final int SIDE = 3;
+	private static final int VOLUME = SIDE * SIDE * SIDE;
+	private static final int CENTER = VOLUME / 2;
+	private final LoadOption loadOption;
+	private final BlockMaterial nullMaterial;
+	private final SpoutChunk[] chunks = new SpoutChunk[VOLUME];
+	private final AtomicBlockStore[] stores = new AtomicBlockStore[VOLUME];
+	private final boolean[] resolved = new boolean[VOLUME];
+	private SpoutWorld world;
+	private int baseX, baseY, baseZ;
+
+	/**
+	 * Creates a neighbourhood which does not load or generate chunks, and reads blocks in unloaded chunks as {@link BlockMaterial#UNGENERATED}
+	 */
+	public ChunkNeighborhood() {
+		this(LoadOption.NO_LOAD);
+	}
+
+	/**
+	 * Creates a neighbourhood which reads blocks in unloaded chunks as {@link BlockMaterial#UNGENERATED}
+	 *
+	 * @param loadOption whether neighbouring chunks should be loaded or generated when they are accessed
+	 */
+	public ChunkNeighborhood(LoadOption loadOption) {
+		this(loadOption, BlockMaterial.UNGENERATED);
+	}
+
+	/**
+	 * Creates a neighbourhood
+	 *
+	 * @param loadOption whether neighbouring chunks should be loaded or generated when they are accessed
+	 * @param nullMaterial the material of blocks in chunks which are not loaded
+	 */
+	public ChunkNeighborhood(LoadOption loadOption, BlockMaterial nullMaterial) {
+		this.loadOption = loadOption;
+		this.nullMaterial = nullMaterial;
+	}
+
+	/**
+	 * Centres the neighbourhood on the given chunk, and clears the cached neighbours
+	 *
+	 * @param chunk the chunk
+	 * @return this neighbourhood
+	 */
+	public ChunkNeighborhood center(SpoutChunk chunk) {
+		clear();
+		world = chunk.getWorld();
+		baseX = chunk.getX() - 1;
+		baseY = chunk.getY() - 1;
+		baseZ = chunk.getZ() - 1;
+		chunks[CENTER] = chunk;
+		stores[CENTER] = chunk.blockStore;
+		resolved[CENTER] = true;
+		return this;
+	}
+
+	/**
+	 * Clears all references to chunks
+	 */
+	public void clear() {
+		Arrays.fill(chunks, null);
+		Arrays.fill(stores, null);
+		Arrays.fill(resolved, false);
+		world = null;
+	}
+
+	/**
+	 * Gets if the block is inside the neighbourhood
+	 *
+	 * @param x the x coordinate of the block
+	 * @param y the y coordinate of the block
+	 * @param z the z coordinate of the block
+	 * @return true if the block is inside
+	 */
+	public boolean contains(int x, int y, int z) {
+		int cx = (x >> Chunk.BLOCKS.BITS) - baseX;
+		int cy = (y >> Chunk.BLOCKS.BITS) - baseY;
+		int cz = (z >> Chunk.BLOCKS.BITS) - baseZ;
+		return world != null && cx >= 0 && cx < SIDE && cy >= 0 && cy < SIDE && cz >= 0 && cz < SIDE;
+	}
+
+	/**
+	 * Gets the chunk containing the block
+	 *
+	 * @param x the x coordinate of the block
+	 * @param y the y coordinate of the block
+	 * @param z the z coordinate of the block
+	 * @return the chunk, or null if it is not loaded
+	 */
+	public SpoutChunk getChunk(int x, int y, int z) {
+		return chunks[resolve(x, y, z)];
+	}
+
+	/**
+	 * Gets the packed full state of the block. Handler methods are provided by the BlockFullState class.
+	 *
+	 * @param x the x coordinate of the block
+	 * @param y the y coordinate of the block
+	 * @param z the z coordinate of the block
+	 * @return the full state
+	 */
+	public int getBlockFullState(int x, int y, int z) {
+		AtomicBlockStore store = stores[resolve(x, y, z)];
+		if (store == null) {
+			return BlockFullState.getPacked(nullMaterial);
+		}
+		return store.getFullData(x & Chunk.BLOCKS.MASK, y & Chunk.BLOCKS.MASK, z & Chunk.BLOCKS.MASK);
+	}
+
+	/**
+	 * Gets the material of the block
+	 *
+	 * @param x the x coordinate of the block
+	 * @param y the y coordinate of the block
+	 * @param z the z coordinate of the block
+	 * @return the material
+	 */
+	public BlockMaterial getBlockMaterial(int x, int y, int z) {
+		return BlockFullState.getMaterial(getBlockFullState(x, y, z));
+	}
+
+	/**
+	 * Gets the data of the block
+	 *
+	 * @param x the x coordinate of the block
+	 * @param y the y coordinate of the block
+	 * @param z the z coordinate of the block
+	 * @return the data
+	 */
+	public short getBlockData(int x, int y, int z) {
+		return BlockFullState.getData(getBlockFullState(x, y, z));
+	}
+
+	private int resolve(int x, int y, int z) {
+		int cx = (x >> Chunk.BLOCKS.BITS) - baseX;
+		int cy = (y >> Chunk.BLOCKS.BITS) - baseY;
+		int cz = (z >> Chunk.BLOCKS.BITS) - baseZ;
+		if (world == null || cx < 0 || cx >= SIDE || cy < 0 || cy >= SIDE || cz < 0 || cz >= SIDE) {
+			throw new IllegalArgumentException("Block (" + x + ", " + y + ", " + z + ") is outside the chunk neighbourhood");
+		}
+		int index = (cx * SIDE + cy) * SIDE + cz;
+		if (!resolved[index]) {
+			SpoutChunk chunk = world.getChunk(baseX + cx, baseY + cy, baseZ + cz, loadOption);
+			chunks[index] = chunk;
+			stores[index] = chunk == null ? null : chunk.blockStore;
+			resolved[index] = true;
+		}
+		return index;
+	}
+}
@@ -0,0 +1,305 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.engine.world;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+import org.spout.api.Spout;
+import org.spout.api.ai.pathfinder.PathfindingService;
+import org.spout.api.generator.biome.BiomeTileCache;
+import org.spout.api.geo.World;
+import org.spout.engine.SpoutEngine;
+
+/**
+ * Watches the heap occupancy and makes the engine shed memory before it runs out.<br> <br> The governor sets usage thresholds on the heap pools that support them, so the JVM notifies it as soon as
+ * a collection leaves the heap above the high threshold. While under pressure, regions unload their least recently accessed unobserved chunks and compress the block stores of the others (see
+ * {@link SpoutRegion#finalizeRun()}), and the governor shrinks the biome and path caches and closes the region files not currently in use. The pressure is re-evaluated every second until the heap
+ * is back below the threshold.
+ */
+public class MemoryGovernor extends Thread implements NotificationListener {
+	private static final long POLL_INTERVAL = 1000;
+
+	public enum Pressure {
+		/**
+		 * The heap is below the high threshold
+		 */
+		NONE,
+		/**
+		 * The heap is above the high threshold after a collection, or above the critical threshold
+		 */
+		HIGH,
+		/**
+		 * The heap is above the critical threshold after a collection
+		 */
+		CRITICAL
+	}
+
+	private final SpoutEngine engine;
+	private final float highThreshold;
+	private final float criticalThreshold;
+	private final List<MemoryPoolMXBean> pools = new ArrayList<>();
+	private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+	private volatile long reclaimedAtCollection = -1;
+	private volatile Pressure pressure = Pressure.NONE;
+	private volatile float usage;
+	private final AtomicLong pressureEvents = new AtomicLong(0);
+	private final AtomicLong chunksUnloaded = new AtomicLong(0);
+	private final AtomicLong chunksCompressed = new AtomicLong(0);
+	private final AtomicLong regionFilesClosed = new AtomicLong(0);
+	private final AtomicLong cacheTrims = new AtomicLong(0);
+
+	/**
+	 * Creates a new memory governor
+	 *
+	 * @param engine the engine whose worlds are governed
+	 * @param highThreshold the fraction of the heap above which memory is reclaimed
+	 * @param criticalThreshold the fraction of the heap above which memory is reclaimed aggressively
+	 */
+	public MemoryGovernor(SpoutEngine engine, float highThreshold, float criticalThreshold) {
+		super("Memory governor thread");
+		setDaemon(true);
+		if (highThreshold <= 0 || highThreshold > criticalThreshold || criticalThreshold >= 1) {
+			throw new IllegalArgumentException("Thresholds must satisfy 0 < high <= critical < 1");
+		}
+		this.engine = engine;
+		this.highThreshold = highThreshold;
+		this.criticalThreshold = criticalThreshold;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() != MemoryType.HEAP || !pool.isUsageThresholdSupported() || !pool.isCollectionUsageThresholdSupported()) {
+				continue;
+			}
+			long max = pool.getUsage().getMax();
+			if (max <= 0) {
+				continue;
+			}
+			pool.setUsageThreshold((long) (max * criticalThreshold));
+			pool.setCollectionUsageThreshold((long) (max * highThreshold));
+			pools.add(pool);
+		}
+		((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(this, null, null);
+	}
+
+	@Override
+	public void handleNotification(Notification notification, Object handback) {
+		final String type = notification.getType();
+		if (type.equals(MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED) || type.equals(MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED)) {
+			update();
+		}
+	}
+
+	@Override
+	public void run() {
+		while (!isInterrupted()) {
+			try {
+				sleep(POLL_INTERVAL);
+			} catch (InterruptedException e) {
+				break;
+			}
+			if (update() != Pressure.NONE) {
+				reclaim();
+				reclaimedAtCollection = getCollectionCount();
+			}
+		}
+		try {
+			((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(this);
+		} catch (Exception ignore) {
+		}
+	}
+
+	/**
+	 * Re-evaluates the memory pressure from the usage of the heap pools. The usage after a collection only changes when
+	 * the next collection runs, so once memory was reclaimed after the last collection, the pressure is evaluated from
+	 * the current usage alone until another collection measures the heap again.
+	 *
+	 * @return the new pressure
+	 */
+	private synchronized Pressure update() {
+		float collected = 0;
+		float current = 0;
+		if (pools.isEmpty()) {
+			final Runtime runtime = Runtime.getRuntime();
+			current = (float) (runtime.totalMemory() - runtime.freeMemory()) / runtime.maxMemory();
+			collected = current;
+		} else {
+			final boolean stale = reclaimedAtCollection >= 0 && getCollectionCount() <= reclaimedAtCollection;
+			for (MemoryPoolMXBean pool : pools) {
+				final MemoryUsage now = pool.getUsage();
+				if (now.getMax() > 0) {
+					current = Math.max(current, (float) now.getUsed() / now.getMax());
+				}
+				if (stale) {
+					continue;
+				}
+				final MemoryUsage afterCollection = pool.getCollectionUsage();
+				if (afterCollection != null && afterCollection.getMax() > 0) {
+					collected = Math.max(collected, (float) afterCollection.getUsed() / afterCollection.getMax());
+				}
+			}
+		}
+		usage = current;
+
+		final Pressure next;
+		if (collected >= criticalThreshold) {
+			next = Pressure.CRITICAL;
+		} else if (collected >= highThreshold || current >= criticalThreshold) {
+			next = Pressure.HIGH;
+		} else {
+			next = Pressure.NONE;
+		}
+		final Pressure previous = pressure;
+		if (next != previous) {
+			pressure = next;
+			if (previous == Pressure.NONE) {
+				pressureEvents.incrementAndGet();
+			}
+			final Level level = next == Pressure.NONE ? Level.INFO : Level.WARNING;
+			Spout.getLogger().log(level, "Memory pressure is now " + next + ", " + Math.round(current * 100) + "% of the heap is used");
+		}
+		return next;
+	}
+
+	/**
+	 * Gets the number of collections run by all garbage collectors so far
+	 *
+	 * @return the collection count
+	 */
+	private long getCollectionCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean collector : collectors) {
+			final long collections = collector.getCollectionCount();
+			if (collections > 0) {
+				count += collections;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Releases the memory that can be released off the tick threads
+	 */
+	private void reclaim() {
+		final boolean critical = pressure == Pressure.CRITICAL;
+		for (World world : engine.getWorlds()) {
+			if (world instanceof SpoutWorld) {
+				final BiomeTileCache biomes = ((SpoutWorld) world).getBiomeTileCache();
+				if (biomes != null && biomes.getTileCount() > 0) {
+					biomes.trim(critical ? 0 : biomes.getTileCount() >> 1);
+					cacheTrims.incrementAndGet();
+				}
+			}
+			if (world instanceof SpoutServerWorld) {
+				regionFilesClosed.addAndGet(((SpoutServerWorld) world).getRegionFileManager().closeIdleFiles());
+			}
+		}
+		final PathfindingService paths = engine.getPathfindingService();
+		if (paths != null && paths.getCachedCount() > 0) {
+			paths.clearCache();
+			cacheTrims.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Gets the current memory pressure
+	 *
+	 * @return the pressure
+	 */
+	public Pressure getPressure() {
+		return pressure;
+	}
+
+	/**
+	 * Gets the fraction of the most occupied heap pool in use at the last evaluation
+	 *
+	 * @return the heap usage, between 0 and 1
+	 */
+	public float getUsage() {
+		return usage;
+	}
+
+	/**
+	 * Gets the number of times the heap went from no pressure to being under pressure
+	 *
+	 * @return the number of pressure events
+	 */
+	public long getPressureEvents() {
+		return pressureEvents.get();
+	}
+
+	/**
+	 * Gets the number of chunks unloaded because of memory pressure
+	 *
+	 * @return the number of unloaded chunks
+	 */
+	public long getChunksUnloaded() {
+		return chunksUnloaded.get();
+	}
+
+	/**
+	 * Gets the number of chunk block stores compressed because of memory pressure
+	 *
+	 * @return the number of compressed chunks
+	 */
+	public long getChunksCompressed() {
+		return chunksCompressed.get();
+	}
+
+	/**
+	 * Gets the number of region files closed because of memory pressure
+	 *
+	 * @return the number of closed region files
+	 */
+	public long getRegionFilesClosed() {
+		return regionFilesClosed.get();
+	}
+
+	/**
+	 * Gets the number of times a cache was shrunk because of memory pressure
+	 *
+	 * @return the number of cache trims
+	 */
+	public long getCacheTrims() {
+		return cacheTrims.get();
+	}
+
+	void onChunksEvicted(int unloaded, int compressed) {
+		chunksUnloaded.addAndGet(unloaded);
+		chunksCompressed.addAndGet(compressed);
+	}
+}
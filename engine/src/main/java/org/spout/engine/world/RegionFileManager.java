@@ -26,15 +26,41 @@
  */
 package org.spout.engine.world;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.concurrent.ConcurrentHashMap;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+import gnu.trove.set.hash.TLongHashSet;
 
 import org.spout.api.Spout;
 import org.spout.api.geo.cuboid.ChunkSnapshot;
 import org.spout.api.geo.cuboid.Region;
 import org.spout.api.io.bytearrayarray.BAAWrapper;
+import org.spout.api.util.hashing.Int21TripleHashed;
+import org.spout.api.util.map.concurrent.TSyncLongObjectHashMap;
 
+/**
+ * Hands out the region files of a world.<br> <br> The wrappers are kept in a map keyed by the packed region coordinates. The map only holds weak references, since a loaded region keeps its wrapper
+ * for as long as it lives, so there is never more than one wrapper for a file. The open files are tracked in least recently used order, and once more than the maximum number of files are open the
+ * least recently used ones are closed. They are opened again on their next access.<br> <br> If the journal is enabled, block writes are appended to a {@link RegionJournal} instead of being written to
+ * the region files directly, and block reads check the journal before the region file.
+ */
 public class RegionFileManager {
 	/**
 	 * The segment size to use for chunk storage. The actual size is 2^(SEGMENT_SIZE)
@@ -44,34 +70,135 @@ public class RegionFileManager {
 	 * The timeout for the chunk storage in ms. If the store isn't accessed within that time, it can be automatically shutdown
 	 */
 	public static final int TIMEOUT = 30000;
+	/**
+	 * The default maximum number of open region files
+	 */
+	public static final int DEFAULT_MAX_OPEN_FILES = 64;
 	private final File regionDirectory;
-	private final ConcurrentHashMap<String, BAAWrapper> cache = new ConcurrentHashMap<>();
+	private final TSyncLongObjectHashMap<RegionFileReference> files = new TSyncLongObjectHashMap<>();
+	private final ReferenceQueue<RegionFile> collected = new ReferenceQueue<>();
+	private final ReentrantLock openLock = new ReentrantLock();
+	private final LinkedHashMap<Long, RegionFile> openFiles = new LinkedHashMap<>(16, 0.75f, true);
+	private final int maxOpenFiles;
+	private final Executor prefetchExecutor;
+	private final TLongHashSet prefetching = new TLongHashSet();
+	private final AtomicLong opened = new AtomicLong(0);
+	private final AtomicLong evicted = new AtomicLong(0);
+	private final AtomicLong prefetched = new AtomicLong(0);
 	private final TimeoutThread timeoutThread;
+	private volatile RegionJournal journal = null;
 
 	public RegionFileManager(File worldDirectory) {
 		this(worldDirectory, "region");
 	}
 
 	public RegionFileManager(File worldDirectory, String prefix) {
+		this(worldDirectory, prefix, DEFAULT_MAX_OPEN_FILES, null);
+	}
+
+	/**
+	 * Creates a region file manager
+	 *
+	 * @param worldDirectory the directory of the world
+	 * @param prefix the name of the directory of the region files, within the world directory
+	 * @param maxOpenFiles the number of region files which may be open at once, files with open streams excepted
+	 * @param prefetchExecutor the executor which opens files ahead of time, or null to disable prefetching
+	 */
+	public RegionFileManager(File worldDirectory, String prefix, int maxOpenFiles, Executor prefetchExecutor) {
+		if (maxOpenFiles <= 0) {
+			throw new IllegalArgumentException("The maximum number of open files must be positive");
+		}
 		this.regionDirectory = new File(worldDirectory, prefix);
 		this.regionDirectory.mkdirs();
+		this.maxOpenFiles = maxOpenFiles;
+		this.prefetchExecutor = prefetchExecutor;
 		this.timeoutThread = new TimeoutThread(worldDirectory);
 		this.timeoutThread.start();
 	}
 
+	/**
+	 * Enables the write-ahead journal for the region files. Any journal left behind by a crash is replayed first, so this must be called before any region files are accessed.
+	 *
+	 * @param checkpointSize the journal size in bytes which triggers a checkpoint
+	 * @param checkpointInterval the maximum time in ms before journalled writes are checkpointed
+	 * @return true if the journal was enabled
+	 */
+	public boolean enableJournal(long checkpointSize, long checkpointInterval) {
+		if (journal != null) {
+			throw new IllegalStateException("The journal is already enabled");
+		}
+		try {
+			journal = new RegionJournal(regionDirectory, new JournalStorage(), checkpointSize, checkpointInterval);
+			return true;
+		} catch (IOException e) {
+			Spout.getLogger().log(Level.SEVERE, "Unable to open region journal for " + regionDirectory + ", region files will be written directly", e);
+			return false;
+		}
+	}
+
+	/**
+	 * Gets the write-ahead journal
+	 *
+	 * @return the journal, or null if the journal is disabled
+	 */
+	public RegionJournal getJournal() {
+		return journal;
+	}
+
+	/**
+	 * Makes all chunk writes so far durable. With the journal enabled, this syncs the journal once for all the writes since the last commit.
+	 *
+	 * @return true on success
+	 */
+	public boolean commit() {
+		RegionJournal journal = this.journal;
+		if (journal == null) {
+			return true;
+		}
+		try {
+			journal.commit();
+			return true;
+		} catch (IOException e) {
+			Spout.getLogger().log(Level.SEVERE, "Unable to commit region journal for " + regionDirectory, e);
+			return false;
+		}
+	}
+
 	public BAAWrapper getBAAWrapper(int rx, int ry, int rz) {
-		String filename = getFilename(rx, ry, rz);
-		BAAWrapper regionFile = cache.get(filename);
+		return getRegionFile(Int21TripleHashed.key(rx, ry, rz), rx, ry, rz);
+	}
+
+	private RegionFile getRegionFile(long key, int rx, int ry, int rz) {
+		RegionFileReference reference = files.get(key);
+		RegionFile regionFile = reference == null ? null : reference.get();
 		if (regionFile != null) {
 			return regionFile;
 		}
-		File file = new File(regionDirectory, filename);
-		regionFile = new BAAWrapper(file, SEGMENT_SIZE, SpoutRegion.CHUNKS.VOLUME, TIMEOUT);
-		BAAWrapper oldRegionFile = cache.putIfAbsent(filename, regionFile);
-		if (oldRegionFile != null) {
-			return oldRegionFile;
+		purgeCollected();
+		regionFile = new RegionFile(key, new File(regionDirectory, getFilename(rx, ry, rz)));
+		RegionFileReference newReference = new RegionFileReference(regionFile, collected);
+		while (true) {
+			if (reference == null) {
+				reference = files.putIfAbsent(key, newReference);
+				if (reference == null) {
+					return regionFile;
+				}
+			}
+			RegionFile other = reference.get();
+			if (other != null) {
+				return other;
+			}
+			// The previous wrapper was collected
+			files.remove(key, reference);
+			reference = files.get(key);
+		}
+	}
+
+	private void purgeCollected() {
+		Reference<? extends RegionFile> reference;
+		while ((reference = collected.poll()) != null) {
+			files.remove(((RegionFileReference) reference).key, (RegionFileReference) reference);
 		}
-		return regionFile;
 	}
 
 	/**
@@ -87,28 +214,361 @@ public class RegionFileManager {
 		return getBAAWrapper(rx, ry, rz).getBlockOutputStream(SpoutRegion.getChunkKey(c.getX(), c.getY(), c.getZ()));
 	}
 
+	/**
+	 * Opens a region file in the background, so its header and allocation table are loaded before the region is needed. Files which don't exist yet are not created, and files which are open or
+	 * already being opened are skipped.
+	 *
+	 * @param rx the x coordinate of the region
+	 * @param ry the y coordinate of the region
+	 * @param rz the z coordinate of the region
+	 */
+	public void prefetch(int rx, int ry, int rz) {
+		if (prefetchExecutor == null) {
+			return;
+		}
+		final long key = Int21TripleHashed.key(rx, ry, rz);
+		final RegionFileReference reference = files.get(key);
+		final RegionFile existing = reference == null ? null : reference.get();
+		if (existing != null && existing.isOpen()) {
+			return;
+		}
+		openLock.lock();
+		try {
+			if (prefetching.size() >= maxOpenFiles || !prefetching.add(key)) {
+				return;
+			}
+		} finally {
+			openLock.unlock();
+		}
+		try {
+			final File file = new File(regionDirectory, getFilename(rx, ry, rz));
+			if (!file.exists()) {
+				endPrefetch(key);
+				return;
+			}
+			final RegionFile regionFile = getRegionFile(key, rx, ry, rz);
+			prefetchExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						if (regionFile.open()) {
+							prefetched.incrementAndGet();
+						}
+					} finally {
+						endPrefetch(key);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			endPrefetch(key);
+		}
+	}
+
+	private void endPrefetch(long key) {
+		openLock.lock();
+		try {
+			prefetching.remove(key);
+		} finally {
+			openLock.unlock();
+		}
+	}
+
+	/**
+	 * Moves a file to the most recently used end of the open files, and closes the least recently used files if too many are open
+	 */
+	private void touch(RegionFile regionFile, boolean justOpened) {
+		List<RegionFile> toClose = null;
+		openLock.lock();
+		try {
+			if (openFiles.get(regionFile.key) == null) {
+				openFiles.put(regionFile.key, regionFile);
+			}
+			if (openFiles.size() > maxOpenFiles) {
+				toClose = new ArrayList<>();
+				Iterator<RegionFile> i = openFiles.values().iterator();
+				while (openFiles.size() > maxOpenFiles && i.hasNext()) {
+					RegionFile eldest = i.next();
+					if (eldest != regionFile) {
+						i.remove();
+						toClose.add(eldest);
+					}
+				}
+			}
+		} finally {
+			openLock.unlock();
+		}
+		if (justOpened) {
+			opened.incrementAndGet();
+		}
+		if (toClose != null) {
+			for (RegionFile eldest : toClose) {
+				if (!eldest.isOpen()) {
+					continue;
+				}
+				if (eldest.attemptClose() && !eldest.isOpen()) {
+					evicted.incrementAndGet();
+				} else {
+					// A stream is still open, keep the file tracked so it stays reachable
+					openLock.lock();
+					try {
+						openFiles.put(eldest.key, eldest);
+					} finally {
+						openLock.unlock();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets a snapshot of the files which were open at their last access, in least recently used order
+	 */
+	private List<RegionFile> getOpenFiles() {
+		openLock.lock();
+		try {
+			return new ArrayList<>(openFiles.values());
+		} finally {
+			openLock.unlock();
+		}
+	}
+
+	private void untrack(RegionFile regionFile) {
+		openLock.lock();
+		try {
+			if (openFiles.get(regionFile.key) == regionFile && !regionFile.isOpen()) {
+				openFiles.remove(regionFile.key);
+			}
+		} finally {
+			openLock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of region files tracked as open
+	 *
+	 * @return the number of open files
+	 */
+	public int getOpenFileCount() {
+		openLock.lock();
+		try {
+			return openFiles.size();
+		} finally {
+			openLock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of times a region file was opened
+	 *
+	 * @return the number of opened files
+	 */
+	public long getOpenedCount() {
+		return opened.get();
+	}
+
+	/**
+	 * Gets the number of region files closed to stay below the maximum number of open files
+	 *
+	 * @return the number of evicted files
+	 */
+	public long getEvictedCount() {
+		return evicted.get();
+	}
+
+	/**
+	 * Gets the number of region files opened ahead of time
+	 *
+	 * @return the number of prefetched files
+	 */
+	public long getPrefetchedCount() {
+		return prefetched.get();
+	}
+
+	/**
+	 * Closes the region files that have no open block streams. The files are opened again on the next access.
+	 *
+	 * @return the number of files closed
+	 */
+	public int closeIdleFiles() {
+		int closed = 0;
+		for (RegionFile regionFile : getOpenFiles()) {
+			if (regionFile.isOpen() && regionFile.attemptClose() && !regionFile.isOpen()) {
+				closed++;
+			}
+			untrack(regionFile);
+		}
+		return closed;
+	}
+
 	public void stopTimeoutThread() {
 		timeoutThread.interrupt();
 	}
 
 	public void closeAll() {
+		RegionJournal journal = this.journal;
+		if (journal != null && !journal.close()) {
+			Spout.getLogger().severe("Unable to checkpoint region journal for " + regionDirectory + ", it will be replayed on the next start");
+		}
 		timeoutThread.interrupt();
 		try {
 			timeoutThread.join();
 		} catch (InterruptedException ie) {
 			Spout.getLogger().info("Interrupted when trying to stop RegionFileManager timeout thread");
 		}
-		for (BAAWrapper regionFile : cache.values()) {
-			if (!regionFile.attemptClose()) {
+		for (RegionFileReference reference : files.valueCollection()) {
+			RegionFile regionFile = reference.get();
+			if (regionFile != null && !regionFile.attemptClose()) {
 				Spout.getLogger().info("Unable to close region file " + regionFile.getFilename());
 			}
 		}
+		for (RegionFile regionFile : getOpenFiles()) {
+			untrack(regionFile);
+		}
 	}
 
 	private static String getFilename(int rx, int ry, int rz) {
 		return "reg" + rx + "_" + ry + "_" + rz + ".spr";
 	}
 
+	private class RegionFile extends BAAWrapper {
+		private final long key;
+
+		public RegionFile(long key, File file) {
+			super(file, SEGMENT_SIZE, SpoutRegion.CHUNKS.VOLUME, TIMEOUT);
+			this.key = key;
+		}
+
+		@Override
+		protected void onAccess(boolean opened) {
+			touch(this, opened);
+		}
+
+		@Override
+		public OutputStream getBlockOutputStream(int i) {
+			if (journal == null) {
+				return super.getBlockOutputStream(i);
+			}
+			return new JournalOutputStream(this, i);
+		}
+
+		@Override
+		public InputStream getBlockInputStream(int i) {
+			RegionJournal journal = RegionFileManager.this.journal;
+			RegionJournal.Record record = journal == null ? null : journal.getPending(key, i);
+			if (record == null) {
+				return super.getBlockInputStream(i);
+			}
+			if (record.isDeleted()) {
+				return null;
+			}
+			return new ByteArrayInputStream(record.getData(), 0, record.getLength());
+		}
+
+		@Override
+		public boolean inputStreamExists(int i) {
+			RegionJournal journal = RegionFileManager.this.journal;
+			RegionJournal.Record record = journal == null ? null : journal.getPending(key, i);
+			if (record == null) {
+				return super.inputStreamExists(i);
+			}
+			return !record.isDeleted();
+		}
+
+		@Override
+		public boolean delete(int i) {
+			RegionJournal journal = RegionFileManager.this.journal;
+			if (journal == null) {
+				return super.delete(i);
+			}
+			try {
+				journal.delete(key, i);
+				return true;
+			} catch (IOException e) {
+				return false;
+			}
+		}
+
+		/**
+		 * Deletes a block from the region file, bypassing the journal
+		 */
+		private boolean deleteThrough(int i) {
+			return super.delete(i);
+		}
+
+		/**
+		 * Writes a block to the region file, bypassing the journal
+		 */
+		private boolean writeThrough(int i, byte[] data, int length) {
+			OutputStream out = super.getBlockOutputStream(i);
+			if (out == null) {
+				return false;
+			}
+			try {
+				try {
+					out.write(data, 0, length);
+				} finally {
+					out.close();
+				}
+				return true;
+			} catch (IOException e) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Buffers a block write, and appends it to the journal when closed
+	 */
+	private class JournalOutputStream extends ByteArrayOutputStream {
+		private final RegionFile regionFile;
+		private final int index;
+		private final AtomicBoolean closed = new AtomicBoolean(false);
+
+		public JournalOutputStream(RegionFile regionFile, int index) {
+			super(1 << SEGMENT_SIZE << 4);
+			this.regionFile = regionFile;
+			this.index = index;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!closed.compareAndSet(false, true)) {
+				throw new IOException("Attempt made to close a journalled block output stream twice");
+			}
+			journal.append(regionFile.key, index, buf, count);
+		}
+	}
+
+	private class JournalStorage implements RegionJournal.Storage {
+		@Override
+		public boolean write(long regionKey, int index, byte[] data, int length) {
+			return getRegionFile(regionKey).writeThrough(index, data, length);
+		}
+
+		@Override
+		public boolean delete(long regionKey, int index) {
+			return getRegionFile(regionKey).deleteThrough(index);
+		}
+
+		@Override
+		public boolean sync(long regionKey) {
+			return getRegionFile(regionKey).sync();
+		}
+
+		private RegionFile getRegionFile(long regionKey) {
+			return RegionFileManager.this.getRegionFile(regionKey, Int21TripleHashed.key1(regionKey), Int21TripleHashed.key2(regionKey), Int21TripleHashed.key3(regionKey));
+		}
+	}
+
+	private static class RegionFileReference extends WeakReference<RegionFile> {
+		private final long key;
+
+		public RegionFileReference(RegionFile regionFile, ReferenceQueue<RegionFile> queue) {
+			super(regionFile, queue);
+			this.key = regionFile.key;
+		}
+	}
+
 	private class TimeoutThread extends Thread {
 		public TimeoutThread(File worldDirectory) {
 			super("Region File Manager Timeout Thread - " + worldDirectory.getPath());
@@ -118,7 +578,8 @@ public class RegionFileManager {
 		@Override
 		public void run() {
 			while (!isInterrupted()) {
-				int files = cache.size();
+				List<RegionFile> open = getOpenFiles();
+				int files = open.size();
 				if (files <= 0) {
 					try {
 						Thread.sleep(TIMEOUT >> 1);
@@ -129,8 +590,9 @@ public class RegionFileManager {
 				}
 				int cnt = 0;
 				long start = System.currentTimeMillis();
-				for (BAAWrapper regionFile : cache.values()) {
+				for (RegionFile regionFile : open) {
 					regionFile.timeoutCheck();
+					untrack(regionFile);
 					cnt++;
 					long currentTime = System.currentTimeMillis();
 					long expiredTime = currentTime - start;
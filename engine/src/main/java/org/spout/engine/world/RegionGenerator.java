@@ -26,6 +26,7 @@
  */
 package org.spout.engine.world;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -310,6 +311,15 @@ public class RegionGenerator implements Named {
 		}
 	}
 
+	/**
+	 * Gets the executor used for asynchronous world generation
+	 *
+	 * @return the generation executor
+	 */
+	public static Executor getExecutor() {
+		return pool;
+	}
+
 	public static void shutdownExecutorService() {
 		pool.shutdown();
 	}
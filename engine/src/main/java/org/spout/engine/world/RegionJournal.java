@@ -0,0 +1,590 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.engine.world;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+import gnu.trove.iterator.TLongIterator;
+import gnu.trove.set.hash.TLongHashSet;
+
+import org.spout.api.Spout;
+
+/**
+ * An append-only journal of the blocks written to the region files of a world.<br> <br> Writes are appended to the current journal file, and become durable after the next {@link #commit()}, which
+ * syncs the journal once for a whole batch of writes. Until they are checkpointed, the journalled blocks are served from memory. When the journal file grows past the checkpoint size, or the
+ * checkpoint interval expires, the file is sealed and a background thread copies its blocks into the region files, syncs them and deletes the sealed file.<br> <br> Journal files left behind by a
+ * crash are replayed into the region files when the journal is created. A torn record at the end of the last file is discarded, since it was never acknowledged.
+ */
+public class RegionJournal {
+	private static final int RECORD_MAGIC = 0x53504A52;
+	private static final int HEADER_SIZE = 4 + 8 + 4 + 4;
+	private static final int MAX_RECORD_LENGTH = 1 << 26;
+	private static final int DELETED = -1;
+	private static final String PREFIX = "journal-";
+	private static final String SUFFIX = ".dat";
+	private final File directory;
+	private final Storage storage;
+	private final long checkpointSize;
+	private final long checkpointInterval;
+	private final ConcurrentHashMap<RecordKey, Record> pending = new ConcurrentHashMap<>();
+	private final ReentrantLock appendLock = new ReentrantLock();
+	private final Condition sealed = appendLock.newCondition();
+	private final byte[] header = new byte[HEADER_SIZE];
+	private final ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+	private final CRC32 crc = new CRC32();
+	private RandomAccessFile file;
+	private long generation;
+	private long size = 0;
+	private long sealedGeneration = -1;
+	private volatile long checkpointedGeneration = -1;
+	private boolean closed = false;
+	private final AtomicLong appended = new AtomicLong(0);
+	private final AtomicLong commits = new AtomicLong(0);
+	private final AtomicLong checkpoints = new AtomicLong(0);
+	private final AtomicLong replayed = new AtomicLong(0);
+	private final CheckpointThread checkpointThread;
+
+	/**
+	 * Creates a journal, replaying any journal files left in the directory into the storage
+	 *
+	 * @param directory the directory for the journal files
+	 * @param storage the storage which the journal is checkpointed into
+	 * @param checkpointSize the journal file size in bytes which triggers a checkpoint
+	 * @param checkpointInterval the maximum time in ms that a write stays in the journal before a checkpoint
+	 * @throws IOException if the journal could not be replayed or created
+	 */
+	public RegionJournal(File directory, Storage storage, long checkpointSize, long checkpointInterval) throws IOException {
+		this.directory = directory;
+		this.storage = storage;
+		this.checkpointSize = checkpointSize;
+		this.checkpointInterval = checkpointInterval;
+		directory.mkdirs();
+		this.generation = replay() + 1;
+		this.file = openFile(generation);
+		this.checkpointThread = new CheckpointThread();
+		this.checkpointThread.start();
+	}
+
+	/**
+	 * Appends a block write to the journal. The write is visible through {@link #getPending(long, int)} immediately, but it is only durable after the next commit.<br> <br> The data array is kept
+	 * until the write is checkpointed, so it must not be modified afterwards.
+	 *
+	 * @param regionKey the key of the region file
+	 * @param index the block index
+	 * @param data the block data
+	 * @param length the length of the block data
+	 */
+	public void append(long regionKey, int index, byte[] data, int length) throws IOException {
+		if (length < 0 || length > MAX_RECORD_LENGTH) {
+			throw new IllegalArgumentException("Invalid journal record length " + length);
+		}
+		appendRecord(regionKey, index, data, length);
+	}
+
+	/**
+	 * Appends a block deletion to the journal
+	 *
+	 * @param regionKey the key of the region file
+	 * @param index the block index
+	 */
+	public void delete(long regionKey, int index) throws IOException {
+		appendRecord(regionKey, index, null, DELETED);
+	}
+
+	private void appendRecord(long regionKey, int index, byte[] data, int length) throws IOException {
+		appendLock.lock();
+		try {
+			if (closed) {
+				throw new IOException("Journal closed");
+			}
+			headerBuffer.clear();
+			headerBuffer.putInt(RECORD_MAGIC).putLong(regionKey).putInt(index).putInt(length);
+			crc.reset();
+			crc.update(header, 4, HEADER_SIZE - 4);
+			if (length > 0) {
+				crc.update(data, 0, length);
+			}
+			file.write(header);
+			if (length > 0) {
+				file.write(data, 0, length);
+			}
+			file.writeInt((int) crc.getValue());
+			size += HEADER_SIZE + Math.max(length, 0) + 4;
+			pending.put(new RecordKey(regionKey, index), new Record(generation, data, length));
+			appended.incrementAndGet();
+			if (size >= checkpointSize) {
+				seal(true);
+			}
+		} finally {
+			appendLock.unlock();
+		}
+	}
+
+	/**
+	 * Syncs the journal, so that all writes appended so far survive a crash
+	 */
+	public void commit() throws IOException {
+		appendLock.lock();
+		try {
+			if (closed || size == 0) {
+				return;
+			}
+			file.getFD().sync();
+			commits.incrementAndGet();
+		} finally {
+			appendLock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the journalled write for a block which has not been checkpointed yet
+	 *
+	 * @param regionKey the key of the region file
+	 * @param index the block index
+	 * @return the write, or null if there is none
+	 */
+	public Record getPending(long regionKey, int index) {
+		return pending.get(new RecordKey(regionKey, index));
+	}
+
+	/**
+	 * Gets the number of blocks which are waiting to be checkpointed
+	 *
+	 * @return the number of pending blocks
+	 */
+	public int getPendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * Gets the number of writes appended to the journal
+	 *
+	 * @return the number of writes
+	 */
+	public long getAppendedCount() {
+		return appended.get();
+	}
+
+	/**
+	 * Gets the number of times the journal was synced
+	 *
+	 * @return the number of commits
+	 */
+	public long getCommitCount() {
+		return commits.get();
+	}
+
+	/**
+	 * Gets the number of completed checkpoints
+	 *
+	 * @return the number of checkpoints
+	 */
+	public long getCheckpointCount() {
+		return checkpoints.get();
+	}
+
+	/**
+	 * Gets the number of writes replayed from the journal on startup
+	 *
+	 * @return the number of replayed writes
+	 */
+	public long getReplayedCount() {
+		return replayed.get();
+	}
+
+	/**
+	 * Stops the checkpoint thread and checkpoints all remaining writes. The journal files are only deleted if the checkpoint succeeds.
+	 *
+	 * @return true if all writes were checkpointed
+	 */
+	public boolean close() {
+		checkpointThread.interrupt();
+		try {
+			checkpointThread.join();
+		} catch (InterruptedException ie) {
+			Spout.getLogger().info("Interrupted when trying to stop region journal checkpoint thread");
+		}
+		long target;
+		appendLock.lock();
+		try {
+			if (closed) {
+				return pending.isEmpty();
+			}
+			try {
+				seal(false);
+			} catch (IOException e) {
+				Spout.getLogger().log(Level.SEVERE, "Unable to seal region journal " + directory, e);
+			}
+			closed = true;
+			target = sealedGeneration;
+		} finally {
+			appendLock.unlock();
+		}
+		return target <= checkpointedGeneration || checkpoint(target);
+	}
+
+	/**
+	 * Syncs and closes the current journal file. If reopen is true, appends continue in a new file.<br> <br> Note: the append lock must be held
+	 */
+	private void seal(boolean reopen) throws IOException {
+		if (size > 0) {
+			file.getFD().sync();
+			file.close();
+			sealedGeneration = generation;
+			generation++;
+			size = 0;
+			sealed.signalAll();
+			if (reopen) {
+				file = openFile(generation);
+			}
+		} else if (!reopen) {
+			file.close();
+			getFile(generation).delete();
+		}
+	}
+
+	/**
+	 * Copies all writes from the sealed journal files up to the given generation into the storage, syncs the storage and deletes the files
+	 *
+	 * @return true on success
+	 */
+	private boolean checkpoint(long target) {
+		List<Map.Entry<RecordKey, Record>> written = new ArrayList<>();
+		TLongHashSet regions = new TLongHashSet();
+		for (Map.Entry<RecordKey, Record> e : pending.entrySet()) {
+			RecordKey key = e.getKey();
+			Record record = e.getValue();
+			if (record.generation > target) {
+				// Superseded by a write which is still in the live journal file
+				continue;
+			}
+			if (!apply(key.regionKey, key.index, record.data, record.length)) {
+				Spout.getLogger().severe("Unable to checkpoint region journal " + directory + ", it will be retried");
+				return false;
+			}
+			written.add(e);
+			regions.add(key.regionKey);
+		}
+		if (!syncAll(regions)) {
+			Spout.getLogger().severe("Unable to sync region files for journal " + directory + ", it will be retried");
+			return false;
+		}
+		for (Map.Entry<RecordKey, Record> e : written) {
+			pending.remove(e.getKey(), e.getValue());
+		}
+		deleteFiles(target);
+		appendLock.lock();
+		try {
+			checkpointedGeneration = Math.max(checkpointedGeneration, target);
+		} finally {
+			appendLock.unlock();
+		}
+		checkpoints.incrementAndGet();
+		return true;
+	}
+
+	private boolean apply(long regionKey, int index, byte[] data, int length) {
+		if (length == DELETED) {
+			return storage.delete(regionKey, index);
+		} else {
+			return storage.write(regionKey, index, data, length);
+		}
+	}
+
+	private boolean syncAll(TLongHashSet regions) {
+		TLongIterator i = regions.iterator();
+		while (i.hasNext()) {
+			if (!storage.sync(i.next())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Replays the journal files left in the directory into the storage, in the order they were written
+	 *
+	 * @return the highest generation found, or -1 if there were no files
+	 */
+	private long replay() throws IOException {
+		long[] generations = getGenerations();
+		if (generations.length == 0) {
+			return -1;
+		}
+		TLongHashSet regions = new TLongHashSet();
+		for (long g : generations) {
+			replayFile(getFile(g), regions);
+		}
+		if (!syncAll(regions)) {
+			throw new IOException("Unable to sync region files after replaying journal " + directory);
+		}
+		long last = generations[generations.length - 1];
+		deleteFiles(last);
+		if (replayed.get() > 0) {
+			Spout.getLogger().info("Replayed " + replayed.get() + " journalled region writes for " + directory);
+		}
+		return last;
+	}
+
+	private void replayFile(File f, TLongHashSet regions) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+			CRC32 crc = new CRC32();
+			byte[] header = new byte[HEADER_SIZE];
+			ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+			while (true) {
+				try {
+					in.readFully(header);
+				} catch (EOFException e) {
+					return;
+				}
+				headerBuffer.clear();
+				long regionKey = headerBuffer.getLong(4);
+				int index = headerBuffer.getInt(12);
+				int length = headerBuffer.getInt(16);
+				if (headerBuffer.getInt(0) != RECORD_MAGIC || length < DELETED || length > MAX_RECORD_LENGTH) {
+					Spout.getLogger().warning("Discarding corrupt record at the end of region journal " + f);
+					return;
+				}
+				byte[] data = new byte[Math.max(length, 0)];
+				int storedCrc;
+				try {
+					in.readFully(data);
+					storedCrc = in.readInt();
+				} catch (EOFException e) {
+					Spout.getLogger().warning("Discarding torn record at the end of region journal " + f);
+					return;
+				}
+				crc.reset();
+				crc.update(header, 4, HEADER_SIZE - 4);
+				crc.update(data, 0, data.length);
+				if ((int) crc.getValue() != storedCrc) {
+					Spout.getLogger().warning("Discarding torn record at the end of region journal " + f);
+					return;
+				}
+				if (!apply(regionKey, index, data, length)) {
+					throw new IOException("Unable to replay journal record into region file, journal " + f);
+				}
+				regions.add(regionKey);
+				replayed.incrementAndGet();
+			}
+		}
+	}
+
+	private long[] getGenerations() {
+		File[] files = directory.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+			}
+		});
+		if (files == null) {
+			return new long[0];
+		}
+		long[] generations = new long[files.length];
+		int count = 0;
+		for (File f : files) {
+			String name = f.getName();
+			try {
+				generations[count] = Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+				count++;
+			} catch (NumberFormatException e) {
+				Spout.getLogger().warning("Ignoring unexpected file in region journal directory, " + f);
+			}
+		}
+		generations = Arrays.copyOf(generations, count);
+		Arrays.sort(generations);
+		return generations;
+	}
+
+	private void deleteFiles(long lastGeneration) {
+		for (long g : getGenerations()) {
+			if (g <= lastGeneration && !getFile(g).delete()) {
+				Spout.getLogger().warning("Unable to delete checkpointed region journal " + getFile(g));
+			}
+		}
+	}
+
+	private RandomAccessFile openFile(long generation) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(getFile(generation), "rw");
+		file.setLength(0);
+		return file;
+	}
+
+	private File getFile(long generation) {
+		return new File(directory, PREFIX + generation + SUFFIX);
+	}
+
+	/**
+	 * The region storage which the journal is checkpointed into
+	 */
+	public static interface Storage {
+		/**
+		 * Writes a block to a region file
+		 *
+		 * @return true on success
+		 */
+		public boolean write(long regionKey, int index, byte[] data, int length);
+
+		/**
+		 * Deletes a block from a region file
+		 *
+		 * @return true on success
+		 */
+		public boolean delete(long regionKey, int index);
+
+		/**
+		 * Syncs a region file to the storage device
+		 *
+		 * @return true on success
+		 */
+		public boolean sync(long regionKey);
+	}
+
+	/**
+	 * A journalled block write
+	 */
+	public static class Record {
+		private final long generation;
+		private final byte[] data;
+		private final int length;
+
+		private Record(long generation, byte[] data, int length) {
+			this.generation = generation;
+			this.data = data;
+			this.length = length;
+		}
+
+		/**
+		 * Gets if the block was deleted
+		 *
+		 * @return true if deleted
+		 */
+		public boolean isDeleted() {
+			return length == DELETED;
+		}
+
+		/**
+		 * Gets the block data, which must not be modified
+		 *
+		 * @return the data
+		 */
+		public byte[] getData() {
+			return data;
+		}
+
+		/**
+		 * Gets the length of the block data
+		 *
+		 * @return the length
+		 */
+		public int getLength() {
+			return Math.max(length, 0);
+		}
+	}
+
+	private static class RecordKey {
+		private final long regionKey;
+		private final int index;
+
+		public RecordKey(long regionKey, int index) {
+			this.regionKey = regionKey;
+			this.index = index;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (regionKey ^ (regionKey >>> 32)) * 31 + index;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof RecordKey)) {
+				return false;
+			}
+			RecordKey other = (RecordKey) obj;
+			return regionKey == other.regionKey && index == other.index;
+		}
+	}
+
+	private class CheckpointThread extends Thread {
+		public CheckpointThread() {
+			super("Region Journal Checkpoint Thread - " + directory.getPath());
+			setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			while (!isInterrupted()) {
+				long target;
+				appendLock.lock();
+				try {
+					if (sealedGeneration <= checkpointedGeneration) {
+						sealed.await(checkpointInterval, TimeUnit.MILLISECONDS);
+						if (sealedGeneration <= checkpointedGeneration && !closed) {
+							// Nothing sealed within the interval, seal whatever has been written
+							seal(true);
+						}
+					}
+					target = sealedGeneration;
+				} catch (InterruptedException ie) {
+					return;
+				} catch (IOException e) {
+					Spout.getLogger().log(Level.SEVERE, "Unable to seal region journal " + directory, e);
+					continue;
+				} finally {
+					appendLock.unlock();
+				}
+				if (target > checkpointedGeneration && !checkpoint(target)) {
+					try {
+						Thread.sleep(checkpointInterval);
+					} catch (InterruptedException ie) {
+						return;
+					}
+				}
+			}
+		}
+	}
+}
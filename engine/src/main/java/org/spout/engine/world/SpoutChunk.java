@@ -31,6 +31,7 @@ import java.lang.management.ThreadMXBean;
 import java.lang.ref.WeakReference;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
@@ -109,6 +110,7 @@ import org.spout.api.util.list.concurrent.setqueue.SetQueue;
 import org.spout.api.util.list.concurrent.setqueue.SetQueueElement;
 import org.spout.api.util.map.concurrent.AtomicBlockStore;
 import org.spout.api.util.map.concurrent.palette.AtomicPaletteBlockStore;
+import org.spout.api.util.map.concurrent.palette.AtomicShortIntBackingArray;
 
 import org.spout.engine.SpoutConfiguration;
 import org.spout.engine.entity.SpoutEntity;
@@ -166,6 +168,10 @@ public class SpoutChunk extends Chunk implements Snapshotable, Modifiable {
 	protected final SpoutColumn column;
 	protected final AtomicBoolean columnRegistered = new AtomicBoolean(true);
 	protected final AtomicLong lastUnloadCheck = new AtomicLong();
+	/**
+	 * The world age of the last access through the region, written without synchronization since it is only used to pick chunks to evict
+	 */
+	private long lastAccess;
 	/**
 	 * True if this chunk should be resent due to light calculations
 	 */
@@ -213,6 +219,8 @@ public class SpoutChunk extends Chunk implements Snapshotable, Modifiable {
 	private final ChunkSetQueueElement<SpoutChunk> globalPhysicsChunkQueueElement;
 	private final ChunkSetQueueElement<SpoutChunk> dirtyChunkQueueElement;
 	private final ChunkSetQueueElement<SpoutChunk> newChunkQueueElement;
+	private final ChunkSetQueueElement<SpoutChunk> datatableDirtyQueueElement;
+	private final ChunkSetQueueElement<SpoutChunk> expiredObserverQueueElement;
 	// TODO: remove this and replace with above;
 	private boolean firstRender = true;
 	// Rendering
@@ -278,6 +286,7 @@ public class SpoutChunk extends Chunk implements Snapshotable, Modifiable {
 		column.registerCuboid(getBlockY(), getBlockY() + Chunk.BLOCKS.SIZE - 1);
 		columnRegistered.set(true);
 		lastUnloadCheck.set(world.getAge());
+		lastAccess = world.getAge();
 
 		// loaded chunk
 		selfReference = new WeakReference<>(this);
@@ -290,6 +299,21 @@ public class SpoutChunk extends Chunk implements Snapshotable, Modifiable {
 		this.globalPhysicsChunkQueueElement = new ChunkSetQueueElement<>(getRegion().globalPhysicsChunkQueue, this);
 		this.dirtyChunkQueueElement = new ChunkSetQueueElement<>(getRegion().dirtyChunkQueue, this);
 		this.newChunkQueueElement = new ChunkSetQueueElement<>(getRegion().newChunkQueue, this);
+		this.datatableDirtyQueueElement = new ChunkSetQueueElement<>(getRegion().datatableDirtyQueue, this);
+		this.expiredObserverQueueElement = new ChunkSetQueueElement<>(getRegion().expiredObserverQueue, this);
+
+		if (Spout.getPlatform() == Platform.SERVER) {
+			dataMap.getDeltaMap().setModificationListener(new Runnable() {
+				@Override
+				public void run() {
+					datatableDirtyQueueElement.add();
+				}
+			});
+			// Changes made while loading are sent on the first tick
+			if (!dataMap.getDeltaMap().isEmpty()) {
+				datatableDirtyQueueElement.add();
+			}
+		}
 	}
 
 	@Override
@@ -396,6 +420,9 @@ public class SpoutChunk extends Chunk implements Snapshotable, Modifiable {
 
 	@Override
 	public void setCuboid(int bx, int by, int bz, CuboidBlockMaterialBuffer buffer, Cause<?> cause) {
+		checkChunkLoaded();
+		checkBlockStoreUpdateAllowed();
+
 		blockStore.writeLock();
 		try {
 			Vector3f size = buffer.getSize();
@@ -404,9 +431,13 @@ public class SpoutChunk extends Chunk implements Snapshotable, Modifiable {
 			int startY = Math.max(by, this.getBlockY());
 			int startZ = Math.max(bz, this.getBlockZ());
 
-			int endX = Math.min(bx + size.getFloorX(), this.getBlockX() + BLOCKS.SIZE - 1);
-			int endY = Math.min(by + size.getFloorY(), this.getBlockY() + BLOCKS.SIZE - 1);
-			int endZ = Math.min(bz + size.getFloorZ(), this.getBlockZ() + BLOCKS.SIZE - 1);
+			int endX = Math.min(bx + size.getFloorX(), this.getBlockX() + BLOCKS.SIZE);
+			int endY = Math.min(by + size.getFloorY(), this.getBlockY() + BLOCKS.SIZE);
+			int endZ = Math.min(bz + size.getFloorZ(), this.getBlockZ() + BLOCKS.SIZE);
+
+			if (startX >= endX || startY >= endY || startZ >= endZ) {
+				return;
+			}
 
 			Vector3f base = buffer.getBase();
 
@@ -414,18 +445,98 @@ public class SpoutChunk extends Chunk implements Snapshotable, Modifiable {
 			int offY = by - base.getFloorY();
 			int offZ = bz - base.getFloorZ();
 
-			for (int dx = startX; dx < endX; dx++) {
-				for (int dy = startY; dy < endY; dy++) {
-					for (int dz = startZ; dz < endZ; dz++) {
-						setBlockMaterial(dx, dy, dz, buffer.get(dx - offX, dy - offY, dz - offZ), buffer.getData(dx - offX, dy - offY, dz - offZ), cause, false);
+			int sizeX = endX - startX;
+			int sizeY = endY - startY;
+			int sizeZ = endZ - startZ;
+			int[] states = new int[sizeX * sizeY * sizeZ];
+			int[] oldStates = new int[states.length];
+
+			int i = 0;
+			for (int dy = startY; dy < endY; dy++) {
+				for (int dz = startZ; dz < endZ; dz++) {
+					for (int dx = startX; dx < endX; dx++) {
+						short data = buffer.getData(dx - offX, dy - offY, dz - offZ);
+						BlockMaterial material = buffer.get(dx - offX, dy - offY, dz - offZ).getSubMaterial(data);
+						short dataMask = material.getDataMask();
+						data = (short) ((data & ~dataMask) | (material.getData() & dataMask));
+						states[i++] = BlockFullState.getPacked(material.getId(), data);
 					}
 				}
 			}
+
+			int x = startX & BLOCKS.MASK;
+			int y = startY & BLOCKS.MASK;
+			int z = startZ & BLOCKS.MASK;
+			synchronized (blockComponents) {
+				if (blockStore.setCuboid(x, y, z, sizeX, sizeY, sizeZ, states, oldStates) == 0) {
+					return;
+				}
+				i = 0;
+				for (int dy = y; dy < y + sizeY; dy++) {
+					for (int dz = z; dz < z + sizeZ; dz++) {
+						for (int dx = x; dx < x + sizeX; dx++, i++) {
+							if (states[i] != oldStates[i]) {
+								updateBlockComponents(dx, dy, dz, BlockFullState.getId(states[i]), BlockFullState.getData(states[i]), oldStates[i]);
+							}
+						}
+					}
+				}
+			}
+			cuboidChanged(x, y, z, sizeX, sizeY, sizeZ, states, oldStates);
 		} finally {
 			blockStore.writeUnlock();
 		}
 	}
 
+	/**
+	 * Applies the effects of a bulk change to a cuboid of this chunk. The dirty queue, collision cache, height map and modified flag are updated once for the whole cuboid, rather than once per block.
+	 */
+	private void cuboidChanged(int x, int y, int z, int sizeX, int sizeY, int sizeZ, int[] states, int[] oldStates) {
+		queueDirty();
+
+		parentRegion.getLinkedWorldInfo().invalidate(getBlockX() + x, getBlockY() + y, getBlockZ() + z, sizeX, sizeY, sizeZ);
+
+		int[] maxSurfaceY = new int[sizeX * sizeZ];
+		boolean[] columnChanged = new boolean[maxSurfaceY.length];
+		Arrays.fill(maxSurfaceY, Integer.MIN_VALUE);
+
+		int i = 0;
+		for (int dy = y; dy < y + sizeY; dy++) {
+			for (int dz = z; dz < z + sizeZ; dz++) {
+				for (int dx = x; dx < x + sizeX; dx++, i++) {
+					if (states[i] == oldStates[i]) {
+						continue;
+					}
+					short newData = BlockFullState.getData(states[i]);
+					short oldData = BlockFullState.getData(oldStates[i]);
+					BlockMaterial newMaterial = (BlockMaterial) MaterialRegistry.get(BlockFullState.getId(states[i])).getSubMaterial(newData);
+					BlockMaterial oldMaterial = (BlockMaterial) MaterialRegistry.get(BlockFullState.getId(oldStates[i])).getSubMaterial(oldData);
+					if (oldMaterial == null) {
+						oldMaterial = BlockMaterial.ERROR;
+					}
+					blockEffects(dx, dy, dz, newMaterial, newData, oldMaterial, oldData);
+
+					int columnIndex = (dz - z) * sizeX + (dx - x);
+					columnChanged[columnIndex] = true;
+					if (newMaterial.isSurface()) {
+						maxSurfaceY[columnIndex] = dy + getBlockY();
+					}
+				}
+			}
+		}
+
+		for (int dz = 0; dz < sizeZ; dz++) {
+			for (int dx = 0; dx < sizeX; dx++) {
+				int index = dz * sizeX + dx;
+				if (columnChanged[index]) {
+					column.notifyColumnChange(x + dx, maxSurfaceY[index], z + dz);
+				}
+			}
+		}
+
+		setModified();
+	}
+
 	/**
 	 * @return true if all materials are the same
 	 */
@@ -438,9 +549,9 @@ public class SpoutChunk extends Chunk implements Snapshotable, Modifiable {
 			int startY = Math.max(by, this.getBlockY());
 			int startZ = Math.max(bz, this.getBlockZ());
 
-			int endX = Math.min(bx + size.getFloorX(), this.getBlockX() + BLOCKS.SIZE - 1);
-			int endY = Math.min(by + size.getFloorY(), this.getBlockY() + BLOCKS.SIZE - 1);
-			int endZ = Math.min(bz + size.getFloorZ(), this.getBlockZ() + BLOCKS.SIZE - 1);
+			int endX = Math.min(bx + size.getFloorX(), this.getBlockX() + BLOCKS.SIZE);
+			int endY = Math.min(by + size.getFloorY(), this.getBlockY() + BLOCKS.SIZE);
+			int endZ = Math.min(bz + size.getFloorZ(), this.getBlockZ() + BLOCKS.SIZE);
 
 			Vector3f base = buffer.getBase();
 
@@ -751,33 +862,28 @@ public class SpoutChunk extends Chunk implements Snapshotable, Modifiable {
 
 	public SpoutChunkSnapshot getSnapshot(SnapshotType type, EntityType entities, ExtraData data, boolean palette) {
 		checkChunkLoaded();
-		short[] blockIds = null, blockData = null;
+		AtomicShortIntBackingArray blocks = null;
 		CuboidLightBuffer[] lightBuffersCopy = null;
 		switch (type) {
 			case NO_BLOCK_DATA:
 				break;
 			case BLOCK_IDS_ONLY:
-				blockIds = blockStore.getBlockIdArray();
-				break;
 			case BLOCKS_ONLY:
-				blockIds = blockStore.getBlockIdArray();
-				blockData = blockStore.getDataArray();
+				blocks = blockStore.getSnapshot();
 				break;
 			case LIGHT_ONLY:
 				lightBuffersCopy = copyLightBuffers();
 				break;
 			case BOTH:
-				blockIds = blockStore.getBlockIdArray();
-				blockData = blockStore.getDataArray();
+				blocks = blockStore.getSnapshot();
 				lightBuffersCopy = copyLightBuffers();
 				break;
 		}
 
-		if (palette) {
-			return new SpoutChunkSnapshot(this, blockStore.getPalette(), blockStore.getPackedWidth(), blockStore.getPackedArray(), lightBuffersCopy, entities, data);
-		} else {
-			return new SpoutChunkSnapshot(this, blockIds, blockData, lightBuffersCopy, entities, data);
+		if (palette && blocks == null) {
+			blocks = blockStore.getSnapshot();
 		}
+		return new SpoutChunkSnapshot(this, blocks, type, lightBuffersCopy, entities, data);
 	}
 
 	@Override
@@ -829,6 +935,7 @@ public class SpoutChunk extends Chunk implements Snapshotable, Modifiable {
 			observingPlayers.remove(entity);
 		}
 		expiredObserversQueue.add((SpoutEntity) entity);
+		expiredObserverQueueElement.add();
 		if (!isObserved()) {
 			this.unloadQueueElement.add();
 		}
@@ -1436,6 +1543,26 @@ public class SpoutChunk extends Chunk implements Snapshotable, Modifiable {
 		}
 	}
 
+	/**
+	 * Records an access to this chunk
+	 *
+	 * @param worldAge the current age of the world
+	 */
+	public void touch(long worldAge) {
+		if (lastAccess != worldAge) {
+			lastAccess = worldAge;
+		}
+	}
+
+	/**
+	 * Gets the approximate world age of the last access to this chunk
+	 *
+	 * @return the last access age
+	 */
+	public long getLastAccess() {
+		return lastAccess;
+	}
+
 	public boolean isReapable() {
 		if (Spout.getPlatform() == Platform.SERVER) {
 			return isReapable(getWorld().getAge());
@@ -1519,24 +1646,31 @@ public class SpoutChunk extends Chunk implements Snapshotable, Modifiable {
 
 		synchronized (blockComponents) {
 			int oldState = blockStore.getAndSetBlock(x, y, z, newId, newData);
-			if (newId != BlockFullState.getId(oldState)) {//Only try to change if they aren't the same id
-				BlockMaterial newMaterial = MaterialRegistry.get(BlockFullState.getPacked(newId, newData));
-				short packed = NibbleQuadHashed.key(x, y, z, 0);
-				BlockComponentOwner oldHolder = blockComponents.remove(packed);//All components get reset, always
-				if (oldHolder != null) {
-					for (Component c : oldHolder.values()) {
-						oldHolder.detach(c.getClass());//Detach if possible
-					}
+			updateBlockComponents(x, y, z, newId, newData, oldState);
+			return oldState;
+		}
+	}
+
+	/**
+	 * Resets the components of a block after its state has changed. The caller must hold the lock on blockComponents.
+	 */
+	private void updateBlockComponents(int x, int y, int z, short newId, short newData, int oldState) {
+		if (newId != BlockFullState.getId(oldState)) {//Only try to change if they aren't the same id
+			BlockMaterial newMaterial = MaterialRegistry.get(BlockFullState.getPacked(newId, newData));
+			short packed = NibbleQuadHashed.key(x, y, z, 0);
+			BlockComponentOwner oldHolder = blockComponents.remove(packed);//All components get reset, always
+			if (oldHolder != null) {
+				for (Component c : oldHolder.values()) {
+					oldHolder.detach(c.getClass());//Detach if possible
 				}
-				if (!newMaterial.getComponents().isEmpty()) {
-					BlockComponentOwner newHolder = new BlockComponentOwner(getDataMap(), x + getBlockX(), y + getBlockY(), z + getBlockZ(), getWorld());
-					blockComponents.put(packed, newHolder);
-					for (Class<? extends BlockComponent> c : newMaterial.getComponents()) {
-						newHolder.add(c);
-					}
+			}
+			if (!newMaterial.getComponents().isEmpty()) {
+				BlockComponentOwner newHolder = new BlockComponentOwner(getDataMap(), x + getBlockX(), y + getBlockY(), z + getBlockZ(), getWorld());
+				blockComponents.put(packed, newHolder);
+				for (Class<? extends BlockComponent> c : newMaterial.getComponents()) {
+					newHolder.add(c);
 				}
 			}
-			return oldState;
 		}
 	}
 
@@ -1781,6 +1915,24 @@ public class SpoutChunk extends Chunk implements Snapshotable, Modifiable {
 		int ry = y + getBlockY();
 		int rz = z + getBlockZ();
 
+		parentRegion.getLinkedWorldInfo().invalidate(rx, ry, rz);
+
+		blockEffects(x, y, z, newMaterial, newData, oldMaterial, oldData);
+
+		int wy = y + this.getBlockY();
+		column.notifyBlockChange(x, wy, z);
+
+		setModified();
+	}
+
+	/**
+	 * Applies the effects of a block change which can not be batched: neighbour updates on the client, dynamic block resets and physics
+	 */
+	private void blockEffects(int x, int y, int z, BlockMaterial newMaterial, short newData, BlockMaterial oldMaterial, short oldData) {
+		int rx = x + getBlockX();
+		int ry = y + getBlockY();
+		int rz = z + getBlockZ();
+
 		if (Spout.getEngine().getPlatform() == Platform.CLIENT) {
 			int maxBlock = Chunk.BLOCKS.SIZE - 1;
 			if (x == 0) {
@@ -1841,11 +1993,6 @@ public class SpoutChunk extends Chunk implements Snapshotable, Modifiable {
 				}
 			}
 		}
-
-		int wy = y + this.getBlockY();
-		column.notifyBlockChange(x, wy, z);
-
-		setModified();
 	}
 
 	public ManagedHashMap getDataMap() {
@@ -51,6 +51,7 @@ import org.spout.api.material.BlockMaterial;
 import org.spout.api.material.block.BlockFullState;
 import org.spout.api.util.cuboid.CuboidLightBuffer;
 import org.spout.api.util.hashing.NibbleQuadHashed;
+import org.spout.api.util.map.concurrent.palette.AtomicShortIntBackingArray;
 import org.spout.engine.world.SpoutChunk.PopulationState;
 
 public class SpoutChunkSnapshot extends ChunkSnapshot {
@@ -60,11 +61,14 @@ public class SpoutChunkSnapshot extends ChunkSnapshot {
 	private final WeakReference<Region> parentRegion;
 	private final List<EntitySnapshot> entities;
 	private final List<BlockComponentSnapshot> blockComponents;
-	private final int[] palette;
-	private final int packedWidth;
-	private final int[] packedBlockArray;
-	private final short[] blockIds;
-	private final short[] blockData;
+	/**
+	 * The frozen block store of the chunk, shared with the chunk until the chunk is next modified
+	 */
+	private final AtomicShortIntBackingArray blockStore;
+	private final boolean hasBlockIds;
+	private final boolean hasBlockData;
+	private short[] blockIds;
+	private short[] blockData;
 	private final CuboidLightBuffer[] lightBuffers;
 	private final CuboidLightBuffer[] idLightBufferMap;
 	private final BiomeManager biomes;
@@ -72,15 +76,17 @@ public class SpoutChunkSnapshot extends ChunkSnapshot {
 	private final PopulationState populationState;
 	private boolean renderDirty = false;
 
-	public SpoutChunkSnapshot(SpoutChunk chunk, short[] blockIds, short[] blockData, CuboidLightBuffer[] lightBuffers, EntityType type, ExtraData data) {
-		this(chunk, blockIds, blockData, null, 0, null, lightBuffers, type, data);
-	}
-
-	public SpoutChunkSnapshot(SpoutChunk chunk, int[] palette, int packedWidth, int[] packedBlockArray, CuboidLightBuffer[] lightBuffers, EntityType type, ExtraData data) {
-		this(chunk, null, null, palette, packedWidth, packedBlockArray, lightBuffers, type, data);
-	}
-
-	private SpoutChunkSnapshot(SpoutChunk chunk, short[] blockIds, short[] blockData, int[] palette, int packedWidth, int[] packedBlockArray, CuboidLightBuffer[] lightBuffers, EntityType type, ExtraData data) {
+	/**
+	 * Creates a snapshot of a chunk
+	 *
+	 * @param chunk the chunk
+	 * @param blockStore the frozen block store snapshot, or null if no block data is required
+	 * @param blockType the block data that is exposed by the snapshot
+	 * @param lightBuffers the light buffer copies, or null if no light data is required
+	 * @param type the entity data to snapshot
+	 * @param data the extra data to snapshot
+	 */
+	public SpoutChunkSnapshot(SpoutChunk chunk, AtomicShortIntBackingArray blockStore, SnapshotType blockType, CuboidLightBuffer[] lightBuffers, EntityType type, ExtraData data) {
 		super(chunk.getWorld(), chunk.getX() * CHUNK_SIZE, chunk.getY() * CHUNK_SIZE, chunk.getZ() * CHUNK_SIZE);
 		parentRegion = new WeakReference<Region>(chunk.getRegion());
 
@@ -107,9 +113,10 @@ public class SpoutChunkSnapshot extends ChunkSnapshot {
 			this.blockComponents = null;
 		}
 
-		// Cache blocks
-		this.blockIds = blockIds;
-		this.blockData = blockData;
+		// Cache blocks, the id and data arrays are only expanded if requested
+		this.blockStore = blockStore;
+		this.hasBlockIds = blockStore != null && (blockType == SnapshotType.BLOCK_IDS_ONLY || blockType == SnapshotType.BLOCKS_ONLY || blockType == SnapshotType.BOTH);
+		this.hasBlockData = blockStore != null && (blockType == SnapshotType.BLOCKS_ONLY || blockType == SnapshotType.BOTH);
 		this.lightBuffers = lightBuffers;
 		if (this.lightBuffers == null || this.lightBuffers.length == 0) {
 			this.idLightBufferMap = new CuboidLightBuffer[0];
@@ -128,11 +135,6 @@ public class SpoutChunkSnapshot extends ChunkSnapshot {
 			}
 		}
 
-		// Cache palette based block data
-		this.palette = palette;
-		this.packedWidth = packedWidth;
-		this.packedBlockArray = packedBlockArray;
-
 		// Cache extra data
 		if (data == ExtraData.BIOME_DATA) {
 			BiomeManager biomeManager = chunk.getWorld().getBiomeManager(chunk.getBlockX(), chunk.getBlockZ(), LoadOption.LOAD_ONLY);
@@ -155,15 +157,15 @@ public class SpoutChunkSnapshot extends ChunkSnapshot {
 
 	//Maybe we can use that in ChunkMesh generation in SpoutRegion
 	public SnapshotType getSnapshotType() {
-		if (blockIds != null && blockData != null && lightBuffers != null) {
+		if (hasBlockIds && hasBlockData && lightBuffers != null) {
 			return SnapshotType.BOTH;
 		}
 
-		if (blockIds != null && blockData != null) {
+		if (hasBlockIds && hasBlockData) {
 			return SnapshotType.BLOCKS_ONLY;
 		}
 
-		if (blockIds != null) {
+		if (hasBlockIds) {
 			return SnapshotType.BLOCK_IDS_ONLY;
 		}
 
@@ -184,26 +186,30 @@ public class SpoutChunkSnapshot extends ChunkSnapshot {
 
 	@Override
 	public BlockMaterial getBlockMaterial(int x, int y, int z) {
-		if (blockIds == null) {
+		if (!hasBlockIds) {
 			throw new UnsupportedOperationException("This chunk snapshot does not contain block ids");
 		}
-		BlockMaterial mat = BlockMaterial.get(getBlockId(x, y, z));
+		int state = blockStore.get(this.getBlockIndex(x, y, z));
+		BlockMaterial mat = BlockMaterial.get(BlockFullState.getId(state));
 		if (mat != null) {
-			mat = mat.getSubMaterial(getBlockData(x, y, z));
+			mat = mat.getSubMaterial(BlockFullState.getData(state));
 		}
 		return mat == null ? BlockMaterial.AIR : mat;
 	}
 
 	private short getBlockId(int x, int y, int z) {
-		return blockIds[this.getBlockIndex(x, y, z)];
+		if (!hasBlockIds) {
+			throw new UnsupportedOperationException("This chunk snapshot does not contain block ids");
+		}
+		return BlockFullState.getId(blockStore.get(this.getBlockIndex(x, y, z)));
 	}
 
 	@Override
 	public short getBlockData(int x, int y, int z) {
-		if (blockData == null) {
+		if (!hasBlockData) {
 			throw new UnsupportedOperationException("This chunk snapshot does not contain block data");
 		}
-		return blockData[this.getBlockIndex(x, y, z)];
+		return BlockFullState.getData(blockStore.get(this.getBlockIndex(x, y, z)));
 	}
 
 	@Override
@@ -226,12 +232,26 @@ public class SpoutChunkSnapshot extends ChunkSnapshot {
 	}
 
 	@Override
-	public short[] getBlockIds() {
+	public synchronized short[] getBlockIds() {
+		if (hasBlockIds && blockIds == null) {
+			short[] ids = new short[blockStore.length()];
+			for (int i = 0; i < ids.length; i++) {
+				ids[i] = BlockFullState.getId(blockStore.get(i));
+			}
+			blockIds = ids;
+		}
 		return blockIds;
 	}
 
 	@Override
-	public short[] getBlockData() {
+	public synchronized short[] getBlockData() {
+		if (hasBlockData && blockData == null) {
+			short[] data = new short[blockStore.length()];
+			for (int i = 0; i < data.length; i++) {
+				data[i] = BlockFullState.getData(blockStore.get(i));
+			}
+			blockData = data;
+		}
 		return blockData;
 	}
 
@@ -273,15 +293,15 @@ public class SpoutChunkSnapshot extends ChunkSnapshot {
 	}
 
 	public int[] getPalette() {
-		return palette;
+		return blockStore == null ? null : blockStore.getPalette();
 	}
 
 	public int getPackedWidth() {
-		return packedWidth;
+		return blockStore == null ? 0 : blockStore.width();
 	}
 
 	public int[] getPackedBlockArray() {
-		return packedBlockArray;
+		return blockStore == null ? null : blockStore.getBackingArray();
 	}
 
 	private static class SpoutBlockComponentSnapshot implements BlockComponentSnapshot {
@@ -36,6 +36,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import org.spout.api.generator.biome.BiomeGenerator;
 import org.spout.api.generator.biome.BiomeManager;
 import org.spout.api.geo.LoadOption;
+import org.spout.api.geo.cuboid.BlockCursor;
 import org.spout.api.geo.cuboid.Chunk;
 import org.spout.api.geo.cuboid.Region;
 import org.spout.api.material.BlockMaterial;
@@ -67,6 +68,15 @@ public class SpoutColumn {
 	private final BlockMaterial[][] topmostBlocks;
 	private final AtomicReference<BiomeManager> biomes = new AtomicReference<>();
 	private final SetQueueElement<SpoutColumn> heightDirtyQueue;
+	/**
+	 * The cursors used to scan columns for the height map, which only read loaded chunks
+	 */
+	private static final ThreadLocal<BlockCursor> cursor = new ThreadLocal<BlockCursor>() {
+		@Override
+		protected BlockCursor initialValue() {
+			return new BlockCursor(null, LoadOption.LOAD_ONLY);
+		}
+	};
 
 	public SpoutColumn(InputStream in, SpoutWorld world, int x, int z) {
 		this(in, null, world, x, z);
@@ -255,6 +265,22 @@ public class SpoutColumn {
 		notifyBlockChange(v, x, y, z);
 	}
 
+	/**
+	 * Updates the height of a column after several of its blocks have been changed at once. This has the same effect as calling {@link #notifyBlockChange(int, int, int)} for each changed block.
+	 *
+	 * @param x the x coordinate of the column
+	 * @param maxSurfaceY the y coordinate of the highest changed block which is now a surface block, or Integer.MIN_VALUE if there is none
+	 * @param z the z coordinate of the column
+	 */
+	public void notifyColumnChange(int x, int maxSurfaceY, int z) {
+		AtomicInteger v = getAtomicInteger(x, z);
+		if (maxSurfaceY != Integer.MIN_VALUE) {
+			notifyBlockChange(v, x, maxSurfaceY, z);
+		}
+		// Blocks above the height are all unchanged air, so only the block at the height can have been removed
+		falling(x, v, z);
+	}
+
 	public int getX() {
 		return x;
 	}
@@ -312,14 +338,13 @@ public class SpoutColumn {
 
 	private boolean isAir(int x, int y, int z) {
 		int xx = (this.x << BLOCKS.BITS) + (x & BLOCKS.MASK);
-		int yy = y;
 		int zz = (this.z << BLOCKS.BITS) + (z & BLOCKS.MASK);
-		LoadOption opt = LoadOption.LOAD_ONLY;
-		Chunk c = world.getChunkFromBlock(xx, yy, zz, opt);
-		if (c == null) {
+		// Scans walk down a single column, so the cursor only looks up a chunk once per chunk
+		BlockCursor c = cursor.get().setWorld(world).move(xx, y, zz);
+		if (!c.isLoaded()) {
 			return false;
 		} else {
-			return isAir(c.getBlockFullState(xx, yy, zz));
+			return isAir(c.getFullState());
 		}
 	}
 
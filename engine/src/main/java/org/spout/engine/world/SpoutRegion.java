@@ -30,6 +30,9 @@ import java.io.File;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -126,6 +129,10 @@ public class SpoutRegion extends Region implements AsyncManager {
 	 * Snapshot manager for this region
 	 */
 	protected SnapshotManager snapshotManager = new SnapshotManager();
+	/**
+	 * The number of snapshotables copied during the last snapshot stage
+	 */
+	private volatile int snapshotCopyCount = 0;
 	/**
 	 * Holds all of the entities to be simulated
 	 */
@@ -153,6 +160,16 @@ public class SpoutRegion extends Region implements AsyncManager {
 	protected final SetQueue<SpoutChunk> globalPhysicsChunkQueue = new SetQueue<>(CHUNKS.VOLUME);
 	protected final SetQueue<SpoutChunk> dirtyChunkQueue = new SetQueue<>(CHUNKS.VOLUME);
 	protected final SetQueue<SpoutChunk> newChunkQueue = new SetQueue<>(CHUNKS.VOLUME);
+	protected final SetQueue<SpoutChunk> datatableDirtyQueue = new SetQueue<>(CHUNKS.VOLUME);
+	protected final SetQueue<SpoutChunk> expiredObserverQueue = new SetQueue<>(CHUNKS.VOLUME);
+	/**
+	 * The chunks which had expired observers during the last tick, and so need to be updated again to clear them
+	 */
+	private final Set<SpoutChunk> expiredObserverChunks = new HashSet<>();
+	/**
+	 * The chunks currently loaded in this region
+	 */
+	private final ActiveChunkIndex activeChunks = new ActiveChunkIndex(this);
 	protected final SetQueue<SpoutColumn> dirtyColumnQueue;
 	private final DynamicBlockUpdateTree dynamicBlockTree;
 	private List<DynamicBlockUpdate> multiRegionUpdates = null;
@@ -162,6 +179,10 @@ public class SpoutRegion extends Region implements AsyncManager {
 	private ChunkCuboidLightBufferWrapper<?>[] lightBuffers = null;
 	private final AtomicReference<SpoutRegion>[][][] neighbours;
 	private final LinkedDynamicsWorld simulation;
+	private final SpoutLinkedWorldInfo linkedWorldInfo;
+	private volatile long physicsTime = 0;
+	private volatile long maxPhysicsTime = 0;
+	private volatile int physicsBodies = 0;
 
 	@SuppressWarnings ("unchecked")
 	public SpoutRegion(SpoutWorld world, float x, float y, float z, RegionSource source) {
@@ -206,7 +227,8 @@ public class SpoutRegion extends Region implements AsyncManager {
 		}
 		taskManager = new SpoutTaskManager(world.getEngine().getScheduler(), null, this, world.getAge());
 		scheduler = (SpoutScheduler) (Spout.getEngine().getScheduler());
-		simulation = new LinkedDynamicsWorld(ReactConverter.toReactVector3(0f, -9.81f, -0f), new SpoutLinkedWorldInfo(this));
+		linkedWorldInfo = new SpoutLinkedWorldInfo(this);
+		simulation = new LinkedDynamicsWorld(ReactConverter.toReactVector3(0f, -9.81f, -0f), linkedWorldInfo);
 		simulation.addListener(new SpoutCollisionListener());
 		simulation.start();
 	}
@@ -241,6 +263,7 @@ public class SpoutRegion extends Region implements AsyncManager {
 		final SpoutChunk chunk = chunks[x][y][z].get();
 		if (chunk != null) {
 			checkChunkLoaded(chunk, loadopt);
+			chunk.touch(getWorld().getAge());
 			return chunk;
 		}
 
@@ -249,6 +272,7 @@ public class SpoutRegion extends Region implements AsyncManager {
 			Arrays.fill(blocks, BlockMaterial.UNGENERATED.getId());
 			SpoutChunk newChunk = new SpoutChunk(getWorld(), this, getChunkX() + x, getChunkY() + y, getChunkZ() + z, SpoutChunk.PopulationState.UNTOUCHED, blocks, null, null);
 			chunks[x][y][z].set(newChunk);
+			activeChunks.add(newChunk);
 			return newChunk;
 		}
 
@@ -340,6 +364,7 @@ public class SpoutRegion extends Region implements AsyncManager {
 					newChunk.queueNew();
 				}
 				numberActiveChunks.incrementAndGet();
+				activeChunks.add(newChunk);
 				if (dataForRegion != null) {
 					for (SpoutEntitySnapshot snapshot : dataForRegion.loadedEntities) {
 						SpoutEntity entity = new SpoutEntity(Spout.getEngine(), snapshot);
@@ -388,6 +413,7 @@ public class SpoutRegion extends Region implements AsyncManager {
 		boolean success = current.compareAndSet(currentChunk, null);
 		if (success) {
 			int num = numberActiveChunks.decrementAndGet();
+			activeChunks.remove(currentChunk);
 
 			for (Entity e : currentChunk.getLiveEntities()) {
 				e.remove();
@@ -397,6 +423,8 @@ public class SpoutRegion extends Region implements AsyncManager {
 
 			removeDynamicBlockUpdates(currentChunk);
 
+			linkedWorldInfo.invalidate(currentChunk.getBlockX(), currentChunk.getBlockY(), currentChunk.getBlockZ(), Chunk.BLOCKS.SIZE, Chunk.BLOCKS.SIZE, Chunk.BLOCKS.SIZE);
+
 			if (num == 0) {
 				return true;
 			} else if (num < 0) {
@@ -485,9 +513,9 @@ public class SpoutRegion extends Region implements AsyncManager {
 
 	@Override
 	public void copySnapshotRun() {
-		entityManager.copyAllSnapshots();
+		int copied = entityManager.copyAllSnapshots();
 
-		snapshotManager.copyAllSnapshots();
+		copied += snapshotManager.copyAllSnapshots();
 
 		dynamicBlockTree.setRegionThread(Thread.currentThread());
 
@@ -516,7 +544,8 @@ public class SpoutRegion extends Region implements AsyncManager {
 		}
 
 		// Updates on nulled chunks
-		snapshotManager.copyAllSnapshots();
+		copied += snapshotManager.copyAllSnapshots();
+		snapshotCopyCount = copied;
 
 		if (empty) {
 			source.removeRegion(this);
@@ -657,8 +686,14 @@ public class SpoutRegion extends Region implements AsyncManager {
 	 * Updates physics in this region Steps simulation forward and finally alerts the API in components.
 	 */
 	private void updateDynamics(float dt) {
+		final long start = System.nanoTime();
+		int bodies = 0;
 		for (final Entity entity : getAll()) {
-			((SpoutPhysicsComponent) entity.getPhysics()).onPrePhysicsTick();
+			final SpoutPhysicsComponent physics = (SpoutPhysicsComponent) entity.getPhysics();
+			physics.onPrePhysicsTick();
+			if (physics.isActivated()) {
+				bodies++;
+			}
 		}
 		if (SpoutConfiguration.PHYSICS.getBoolean()) {
 			simulation.update();
@@ -666,6 +701,39 @@ public class SpoutRegion extends Region implements AsyncManager {
 		for (final Entity entity : getAll()) {
 			((SpoutPhysicsComponent) entity.getPhysics()).onPostPhysicsTick(dt);
 		}
+		final long time = System.nanoTime() - start;
+		physicsBodies = bodies;
+		physicsTime = physicsTime == 0 ? time : (physicsTime * 15 + time) >> 4;
+		if (time > maxPhysicsTime) {
+			maxPhysicsTime = time;
+		}
+	}
+
+	/**
+	 * Gets the average time taken by the physics tick of this region, as a moving average over roughly the last 16 ticks
+	 *
+	 * @return the average physics time in ns
+	 */
+	public long getPhysicsTime() {
+		return physicsTime;
+	}
+
+	/**
+	 * Gets the longest time taken by a physics tick of this region
+	 *
+	 * @return the maximum physics time in ns
+	 */
+	public long getMaxPhysicsTime() {
+		return maxPhysicsTime;
+	}
+
+	/**
+	 * Gets the number of entities with rigid bodies in this region, as of the last physics tick
+	 *
+	 * @return the number of bodies
+	 */
+	public int getPhysicsBodyCount() {
+		return physicsBodies;
 	}
 
 	private final boolean RUN_POPULATION = SpoutConfiguration.RUN_POPULATION.getBoolean(true);
@@ -705,24 +773,34 @@ public class SpoutRegion extends Region implements AsyncManager {
 		return 2;
 	}
 
-	private int reapX = 0, reapY = 0, reapZ = 0;
+	private int reapPosition = 0;
+	private final SpoutChunk[] evictionCandidates = new SpoutChunk[CHUNKS.VOLUME];
+	private static final Comparator<SpoutChunk> LEAST_RECENTLY_ACCESSED = new Comparator<SpoutChunk>() {
+		@Override
+		public int compare(SpoutChunk a, SpoutChunk b) {
+			long accessA = a.getLastAccess();
+			long accessB = b.getLastAccess();
+			return accessA < accessB ? -1 : (accessA == accessB ? 0 : 1);
+		}
+	};
 
 	@Override
 	public void finalizeRun() {
 		if (Spout.getPlatform() == Platform.SERVER) {
+			activeChunks.update();
+			MemoryGovernor governor = getWorld().getEngine().getMemoryGovernor();
+			if (governor != null && governor.getPressure() != MemoryGovernor.Pressure.NONE) {
+				evictChunks(governor);
+			}
 			//long worldAge = getWorld().getAge();
-			for (int reap = 0; reap < SpoutConfiguration.REAP_CHUNKS_PER_TICK.getInt(); reap++) {
-				if (++reapX >= CHUNKS.SIZE) {
-					reapX = 0;
-					if (++reapY >= CHUNKS.SIZE) {
-						reapY = 0;
-						if (++reapZ >= CHUNKS.SIZE) {
-							reapZ = 0;
-						}
-					}
+			int reapCount = Math.min(SpoutConfiguration.REAP_CHUNKS_PER_TICK.getInt(), activeChunks.size());
+			for (int reap = 0; reap < reapCount; reap++) {
+				if (++reapPosition >= activeChunks.size()) {
+					reapPosition = 0;
 				}
-				SpoutChunk chunk = chunks[reapX][reapY][reapZ].get();
-				if (chunk != null) {
+				// Unloading a chunk only queues its removal from the index, so the positions stay stable for this loop
+				SpoutChunk chunk = activeChunks.get(reapPosition);
+				if (chunk.isLoaded()) {
 					chunk.compressIfRequired();
 					boolean doUnload;
 					if (doUnload = chunk.isReapable()) {
@@ -745,6 +823,55 @@ public class SpoutRegion extends Region implements AsyncManager {
 		entityManager.finalizeRun();
 	}
 
+	/**
+	 * Unloads the least recently accessed unobserved chunks of this region, and compresses the block stores of the chunks which are kept
+	 *
+	 * @param governor the memory governor
+	 */
+	private void evictChunks(MemoryGovernor governor) {
+		int budget = SpoutConfiguration.MEMORY_EVICT_CHUNKS_PER_TICK.getInt();
+		if (governor.getPressure() == MemoryGovernor.Pressure.CRITICAL) {
+			budget <<= 2;
+		}
+		int candidates = 0;
+		int compressed = 0;
+		for (int i = 0; i < activeChunks.size(); i++) {
+			SpoutChunk chunk = activeChunks.get(i);
+			if (!chunk.isLoaded()) {
+				continue;
+			}
+			SpoutChunk.SaveState state = chunk.getSaveState();
+			if (state != SpoutChunk.SaveState.NONE && state != SpoutChunk.SaveState.SAVE) {
+				continue;
+			}
+			if (chunk.isObserved()) {
+				if (chunk.compressIfRequired()) {
+					compressed++;
+				}
+			} else {
+				evictionCandidates[candidates++] = chunk;
+			}
+		}
+		if (candidates > budget) {
+			Arrays.sort(evictionCandidates, 0, candidates, LEAST_RECENTLY_ACCESSED);
+		}
+		int unloaded = 0;
+		boolean hasListeners = ChunkUnloadEvent.getHandlerList().getRegisteredListeners().length > 0;
+		for (int i = 0; i < candidates; i++) {
+			SpoutChunk chunk = evictionCandidates[i];
+			evictionCandidates[i] = null;
+			if (unloaded >= budget) {
+				continue;
+			}
+			if (hasListeners && Spout.getEngine().getEventManager().callEvent(new ChunkUnloadEvent(chunk)).isCancelled()) {
+				continue;
+			}
+			chunk.unload(true);
+			unloaded++;
+		}
+		governor.onChunksEvicted(unloaded, compressed);
+	}
+
 	private void processChunkUpdatedEvent(SpoutChunk chunk) {
 		/* If no listeners, quit */
 		if (ChunkUpdatedEvent.getHandlerList().getRegisteredListeners().length == 0) {
@@ -796,22 +923,27 @@ public class SpoutRegion extends Region implements AsyncManager {
 			snapshotFuture.run();
 		}
 
-		for (int dx = 0; dx < CHUNKS.SIZE; dx++) {
-			for (int dy = 0; dy < CHUNKS.SIZE; dy++) {
-				for (int dz = 0; dz < CHUNKS.SIZE; dz++) {
-					SpoutChunk chunk = chunks[dx][dy][dz].get();
-					if (chunk != null) {
-						chunk.updateExpiredObservers();
-						if (Spout.getPlatform() == Platform.SERVER) {
-							// TODO: isEmpty has fairly bad perfomance; can we optimize it out?
-							if (!chunk.getDataMap().getDeltaMap().isEmpty()) {
-								for (Player entity : chunk.getObservingPlayers()) {
-									entity.getNetwork().callProtocolEvent(new ChunkDatatableSendEvent(chunk));
-								}
-								chunk.getDataMap().resetDelta();
-							}
-						}
+		// Expired observers are kept for one tick, so chunks which had any last tick are updated again to clear them
+		SpoutChunk chunk;
+		while ((chunk = expiredObserverQueue.poll()) != null) {
+			expiredObserverChunks.add(chunk);
+		}
+		for (Iterator<SpoutChunk> i = expiredObserverChunks.iterator(); i.hasNext(); ) {
+			chunk = i.next();
+			chunk.updateExpiredObservers();
+			if (chunk.getExpiredObservers().isEmpty()) {
+				i.remove();
+			}
+		}
+
+		if (Spout.getPlatform() == Platform.SERVER) {
+			while ((chunk = datatableDirtyQueue.poll()) != null) {
+				// TODO: isEmpty has fairly bad perfomance; can we optimize it out?
+				if (!chunk.getDataMap().getDeltaMap().isEmpty()) {
+					for (Player entity : chunk.getObservingPlayers()) {
+						entity.getNetwork().callProtocolEvent(new ChunkDatatableSendEvent(chunk));
 					}
+					chunk.getDataMap().resetDelta();
 				}
 			}
 		}
@@ -1082,6 +1214,15 @@ public class SpoutRegion extends Region implements AsyncManager {
 		return entityManager.getEntity(id);
 	}
 
+	/**
+	 * Gets the number of snapshotables copied by this region during the last snapshot stage
+	 *
+	 * @return the copy count
+	 */
+	public int getSnapshotCopyCount() {
+		return snapshotCopyCount;
+	}
+
 	public EntityManager getEntityManager() {
 		return entityManager;
 	}
@@ -1332,13 +1473,7 @@ public class SpoutRegion extends Region implements AsyncManager {
 	}
 
 	public List<DynamicBlockUpdate> getDynamicBlockUpdates(Chunk c) {
-		Set<DynamicBlockUpdate> updates = dynamicBlockTree.getDynamicBlockUpdates(c);
-		int size = updates == null ? 0 : updates.size();
-		List<DynamicBlockUpdate> list = new ArrayList<>(size);
-		if (updates != null) {
-			list.addAll(updates);
-		}
-		return list;
+		return dynamicBlockTree.getDynamicBlockUpdates(c);
 	}
 
 	public boolean removeDynamicBlockUpdates(Chunk c) {
@@ -1618,6 +1753,15 @@ public class SpoutRegion extends Region implements AsyncManager {
 		return simulation;
 	}
 
+	/**
+	 * Gets the source of the terrain bodies for the physics simulation
+	 *
+	 * @return the linked world info
+	 */
+	public SpoutLinkedWorldInfo getLinkedWorldInfo() {
+		return linkedWorldInfo;
+	}
+
 	public RigidBody addBody(final Transform transform, final float mass, final CollisionShape shape, final boolean isGhost, final boolean isMobile) {
 		if (isMobile) {
 			if (isGhost) {
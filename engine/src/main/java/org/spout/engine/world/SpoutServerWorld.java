@@ -34,6 +34,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 
 import org.spout.api.Server;
 import org.spout.api.component.Component;
@@ -53,6 +54,7 @@ import org.spout.api.util.list.concurrent.ConcurrentList;
 import org.spout.api.util.list.concurrent.setqueue.SetQueue;
 import org.spout.api.util.map.WeakValueHashMap;
 
+import org.spout.engine.SpoutConfiguration;
 import org.spout.engine.SpoutEngine;
 import org.spout.engine.filesystem.versioned.WorldFiles;
 import org.spout.math.imaginary.Quaternionf;
@@ -99,7 +101,16 @@ public class SpoutServerWorld extends SpoutWorld {
 		worldDirectory = new File(((Server) engine).getWorldFolder(), name);
 		worldDirectory.mkdirs();
 
-		regionFileManager = new RegionFileManager(worldDirectory);
+		final Executor prefetchExecutor = new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				engine.getScheduler().getAsyncExecutor().submit("Region prefetch", command);
+			}
+		};
+		regionFileManager = new RegionFileManager(worldDirectory, "region", SpoutConfiguration.REGION_MAX_OPEN_FILES.getInt(), prefetchExecutor);
+		if (SpoutConfiguration.REGION_JOURNAL.getBoolean()) {
+			regionFileManager.enableJournal(SpoutConfiguration.REGION_JOURNAL_CHECKPOINT_SIZE.getLong(), SpoutConfiguration.REGION_JOURNAL_CHECKPOINT_INTERVAL.getLong());
+		}
 
 		spawnLocation.set(new Transform(new Point(this, 1, 20, 1), Quaternionf.IDENTITY, Vector3f.ONE));
 		selfReference = new WeakReference<>(this);
@@ -63,6 +63,7 @@ import org.spout.api.generator.WorldGenerator;
 import org.spout.api.generator.biome.Biome;
 import org.spout.api.generator.biome.BiomeGenerator;
 import org.spout.api.generator.biome.BiomeManager;
+import org.spout.api.generator.biome.BiomeTileCache;
 import org.spout.api.geo.LoadOption;
 import org.spout.api.geo.World;
 import org.spout.api.geo.cuboid.Chunk;
@@ -86,6 +87,7 @@ import org.spout.api.util.map.concurrent.TSyncLongObjectHashMap;
 import org.spout.api.util.thread.annotation.LiveRead;
 import org.spout.api.util.thread.annotation.Threadsafe;
 
+import org.spout.engine.SpoutConfiguration;
 import org.spout.engine.SpoutEngine;
 import org.spout.engine.entity.SpoutEntity;
 import org.spout.engine.protocol.builtin.message.CuboidBlockUpdateMessage;
@@ -100,6 +102,10 @@ import org.spout.math.vector.Vector3f;
 
 public abstract class SpoutWorld extends BaseComponentOwner implements AsyncManager, World {
 	protected SnapshotManager snapshotManager = new SnapshotManager();
+	/**
+	 * The biome tile width in chunks used when the configured one is invalid.
+	 */
+	private static final int DEFAULT_BIOME_TILE_SIZE = 4;
 	/**
 	 * The server of this world.
 	 */
@@ -132,6 +138,10 @@ public abstract class SpoutWorld extends BaseComponentOwner implements AsyncMana
 	 * The generator responsible for generating chunks in this world.
 	 */
 	private final WorldGenerator generator;
+	/**
+	 * The cache of the biomes picked by the generator, null if the generator is not a biome generator
+	 */
+	private final BiomeTileCache biomeTileCache;
 	/**
 	 * A map of the loaded columns
 	 */
@@ -176,6 +186,17 @@ public abstract class SpoutWorld extends BaseComponentOwner implements AsyncMana
 		this.seed = seed;
 
 		this.generator = generator;
+		if (generator instanceof BiomeGenerator) {
+			final long cacheMemory = SpoutConfiguration.BIOME_CACHE_MEMORY.getLong() << 20;
+			int tileSize = SpoutConfiguration.BIOME_TILE_SIZE.getInt();
+			if (tileSize <= 0 || !GenericMath.isPowerOfTwo(tileSize)) {
+				engine.getLogger().warning("Biome tile size " + tileSize + " is not a positive power of two, using " + DEFAULT_BIOME_TILE_SIZE + " instead");
+				tileSize = DEFAULT_BIOME_TILE_SIZE;
+			}
+			biomeTileCache = new BiomeTileCache((BiomeGenerator) generator, seed, tileSize, cacheMemory, RegionGenerator.getExecutor());
+		} else {
+			biomeTileCache = null;
+		}
 		regions = new RegionSource(this);
 
 		heightMapBAAs = new TSyncIntPairObjectHashMap<>();
@@ -260,7 +281,21 @@ public abstract class SpoutWorld extends BaseComponentOwner implements AsyncMana
 				}
 			}
 		}
-		return ((BiomeGenerator) generator).getBiome(x, y, z, seed);
+		// The tile cache holds the biomes picked at y = 0, so it can only serve selectors which do not depend on y.
+		// A scattered lookup only uses a tile which is already there, rather than computing a whole tile for one biome.
+		final BiomeGenerator biomeGenerator = (BiomeGenerator) generator;
+		if (y == 0 || biomeGenerator.getSelector().isYIndependent()) {
+			final Biome biome = biomeTileCache.getCachedBiome(x, z);
+			if (biome != null) {
+				return biome;
+			}
+		}
+		return biomeGenerator.getBiome(x, y, z, seed);
+	}
+
+	@Override
+	public BiomeTileCache getBiomeTileCache() {
+		return biomeTileCache;
 	}
 
 	@Override
@@ -28,9 +28,11 @@ package org.spout.engine.world;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.Callable;
+import java.util.Set;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -44,13 +46,16 @@ import org.spout.engine.filesystem.versioned.ChunkFiles;
 import org.spout.engine.world.dynamic.DynamicBlockUpdate;
 
 /**
- * Dedicated thread to IO write operations for world chunks
+ * Dedicated thread to IO write operations for world chunks<br> <br> Chunks are saved in batches. Once a batch is written, the region files of each world in the batch are committed once, and only
+ * then are the chunks marked as saved. If the commit of a world fails, its chunks are queued to be written again.
  */
 // TODO: we should send snapshots here, not actual SpoutChunk
 public class WorldSavingThread extends Thread {
 	private static final WorldSavingThread instance = new WorldSavingThread();
 	private final AtomicBoolean queueRunning = new AtomicBoolean(true);
-	private final LinkedBlockingQueue<Callable<SpoutServerWorld>> queue = new LinkedBlockingQueue<>();
+	private static final int MAX_BATCH_SIZE = 256;
+	private static final int MAX_COMMIT_ATTEMPTS = 3;
+	private final LinkedBlockingQueue<ChunkSaveTask> queue = new LinkedBlockingQueue<>();
 
 	public WorldSavingThread() {
 		super("World Saving Thread");
@@ -102,32 +107,68 @@ public class WorldSavingThread extends Thread {
 
 	@Override
 	public void run() {
+		List<ChunkSaveTask> batch = new ArrayList<>(MAX_BATCH_SIZE);
 		while (!Thread.interrupted()) {
-			Callable<SpoutServerWorld> task;
 			try {
-				task = queue.take();
-				task.call();
+				batch.add(queue.take());
 			} catch (InterruptedException ignore) {
 				break;
+			}
+			queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+			saveBatch(batch);
+			batch.clear();
+		}
+		processRemaining("main");
+	}
+
+	/**
+	 * Writes a batch of chunks, commits the region files of their worlds and marks the chunks as saved. The chunks of a
+	 * world whose commit failed are not marked as saved, and are queued again.
+	 */
+	private void saveBatch(List<ChunkSaveTask> batch) {
+		Set<SpoutServerWorld> worlds = new HashSet<>();
+		List<ChunkSaveTask> written = new ArrayList<>(batch.size());
+		for (ChunkSaveTask task : batch) {
+			try {
+				if (task.write()) {
+					worlds.add(task.getWorld());
+					written.add(task);
+				}
 			} catch (Exception e) {
 				e.printStackTrace();
 			}
 		}
-		processRemaining("main");
+		Set<SpoutServerWorld> failed = null;
+		for (SpoutServerWorld world : worlds) {
+			if (!world.getRegionFileManager().commit()) {
+				Spout.getLogger().severe("Failed to commit chunks for world " + world.getName());
+				if (failed == null) {
+					failed = new HashSet<>();
+				}
+				failed.add(world);
+			}
+		}
+		for (ChunkSaveTask task : written) {
+			if (failed == null || !failed.contains(task.getWorld())) {
+				task.complete();
+			} else if (++task.attempts < MAX_COMMIT_ATTEMPTS) {
+				queue.add(task);
+			} else {
+				Spout.getLogger().severe("Giving up saving chunk " + task.chunk + " after " + MAX_COMMIT_ATTEMPTS + " failed commits");
+			}
+		}
 	}
 
 	private void processRemaining(String threadType) {
 		int toSave = queue.size();
 		int saved = 0;
 		int lastTenth = 0;
-		Callable<SpoutServerWorld> task;
-		while ((task = queue.poll()) != null) {
-			try {
-				task.call();
-			} catch (Exception e) {
-				e.printStackTrace();
-			}
-			int tenth = ((++saved) * 10) / toSave;
+		List<ChunkSaveTask> batch = new ArrayList<>(MAX_BATCH_SIZE);
+		while (queue.drainTo(batch, MAX_BATCH_SIZE) > 0) {
+			saveBatch(batch);
+			saved += batch.size();
+			batch.clear();
+			int tenth = toSave == 0 ? 10 : Math.min(10, (saved * 10) / toSave);
 			if (tenth != lastTenth) {
 				lastTenth = tenth;
 				Spout.getLogger().info("Saved " + tenth + "0% of queued chunks");
@@ -156,10 +197,11 @@ public class WorldSavingThread extends Thread {
 		}
 	}
 
-	private static class ChunkSaveTask implements Callable<SpoutServerWorld> {
+	private static class ChunkSaveTask {
 		final SpoutChunkSnapshot snapshot;
 		final List<DynamicBlockUpdate> blockUpdates;
 		final SpoutChunk chunk;
+		int attempts;
 
 		ChunkSaveTask(SpoutChunk chunk) {
 			this.snapshot = chunk.getSnapshot(SnapshotType.LIGHT_ONLY, EntityType.BOTH, ExtraData.DATATABLE, true);
@@ -167,13 +209,21 @@ public class WorldSavingThread extends Thread {
 			this.chunk = chunk;
 		}
 
-		@Override
-		public SpoutServerWorld call() {
-			SpoutServerWorld world = (SpoutServerWorld) chunk.getWorld();
+		public SpoutServerWorld getWorld() {
+			return (SpoutServerWorld) chunk.getWorld();
+		}
+
+		/**
+		 * Writes the chunk to its region file
+		 *
+		 * @return true if the chunk should be marked as saved once its world is committed
+		 */
+		public boolean write() {
+			SpoutServerWorld world = getWorld();
 			OutputStream out = world.getChunkOutputStream(snapshot);
 			if (out != null) {
 				try {
-					ChunkFiles.saveChunk((SpoutServerWorld) chunk.getWorld(), snapshot, blockUpdates, out);
+					ChunkFiles.saveChunk(world, snapshot, blockUpdates, out);
 				} finally {
 					try {
 						out.close();
@@ -182,11 +232,15 @@ public class WorldSavingThread extends Thread {
 						ioe.printStackTrace();
 					}
 				}
-				chunk.saveComplete();
+				return true;
 			} else {
 				Spout.getLogger().severe("World saving thread unable to open file for chunk " + chunk);
+				return false;
 			}
-			return world;
+		}
+
+		public void complete() {
+			chunk.saveComplete();
 		}
 	}
 
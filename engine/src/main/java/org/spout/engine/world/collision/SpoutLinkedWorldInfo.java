@@ -26,9 +26,15 @@
  */
 package org.spout.engine.world.collision;
 
+import java.util.HashMap;
+
 import org.spout.api.geo.cuboid.Block;
+import org.spout.api.geo.cuboid.BlockCursor;
 import org.spout.api.material.BlockMaterial;
+import org.spout.api.util.hashing.Int21TripleHashed;
+import org.spout.api.util.map.concurrent.TSyncLongObjectHashMap;
 import org.spout.engine.world.SpoutRegion;
+import org.spout.math.GenericMath;
 
 import org.spout.physics.body.GhostImmobileRigidBody;
 import org.spout.physics.body.ImmobileRigidBody;
@@ -36,35 +42,158 @@ import org.spout.physics.body.RigidBodyMaterial;
 import org.spout.physics.collision.shape.CollisionShape;
 import org.spout.physics.engine.linked.LinkedWorldInfo;
 import org.spout.physics.math.Matrix3x3;
+import org.spout.physics.math.Quaternion;
+import org.spout.physics.math.Transform;
+import org.spout.physics.math.Vector3;
 
+/**
+ * Supplies the static terrain bodies for the physics simulation of a region.<br> <br> The bodies only live for a single physics tick, and are given a fresh id each time, but everything else is
+ * cached. The inertia tensor and the material of the bodies are shared between all the blocks of a block material, and the block and its material are cached per position until the block changes or
+ * a chunk is unloaded.
+ */
 public final class SpoutLinkedWorldInfo implements LinkedWorldInfo {
-	private SpoutRegion region;
+	private static final Quaternion IDENTITY = new Quaternion(0, 0, 0, 1);
+	/**
+	 * The number of positions cached before the cache is cleared
+	 */
+	private static final int MAX_CACHED_BLOCKS = 1 << 14;
+	private static final int KEY_MASK = 0x1FFFFF;
+	private final SpoutRegion region;
+	private final TSyncLongObjectHashMap<CachedBlock> blocks = new TSyncLongObjectHashMap<>();
+	// Only accessed from the physics tick
+	private final HashMap<BlockMaterial, MaterialBody> materials = new HashMap<>();
+	private final BlockCursor cursor;
 
 	public SpoutLinkedWorldInfo(SpoutRegion region) {
 		this.region = region;
+		this.cursor = new BlockCursor(region.getWorld());
 	}
 
 	@Override
 	public ImmobileRigidBody getBody(int x, int y, int z) {
-		final Block block = region.getBlock(x - 0.5f, y - 0.5f, z - 0.5f);
-		final BlockMaterial material = block.getMaterial();
+		final int bx = GenericMath.floor(x - 0.5f);
+		final int by = GenericMath.floor(y - 0.5f);
+		final int bz = GenericMath.floor(z - 0.5f);
+		final long key = Int21TripleHashed.key(bx, by, bz);
+		CachedBlock cached = blocks.get(key);
+		if (cached == null) {
+			cursor.move(bx, by, bz);
+			cached = new CachedBlock(cursor.getBlock(), cursor.getMaterial());
+			if (blocks.size() >= MAX_CACHED_BLOCKS) {
+				blocks.clear();
+			}
+			blocks.put(key, cached);
+		}
+		final BlockMaterial material = cached.material;
 		final CollisionShape shape = material.getShape();
 		if (shape == null) {
 			return null;
 		}
-		final Matrix3x3 inertiaTensorLocal = new Matrix3x3();
-		final float mass = material.getMass();
-		shape.computeLocalInertiaTensor(inertiaTensorLocal, mass);
+		MaterialBody template = materials.get(material);
+		if (template == null || !template.matches(material, shape)) {
+			template = new MaterialBody(material, shape);
+			materials.put(material, template);
+		}
+		final Transform transform = new Transform(new Vector3(x + 0.5f, y + 0.5f, z + 0.5f), IDENTITY);
 		final ImmobileRigidBody body;
-		if (material.isGhost()) {
-			body = new GhostImmobileRigidBody(new org.spout.physics.math.Transform(new org.spout.physics.math.Vector3(x + 0.5f, y + 0.5f, z + 0.5f),
-					new org.spout.physics.math.Quaternion(0, 0, 0, 1)), mass, inertiaTensorLocal, shape, region.getSimulation().getNextFreeID());
+		if (template.ghost) {
+			body = new GhostImmobileRigidBody(transform, template.mass, template.inertiaTensorLocal, shape, region.getSimulation().getNextFreeID());
 		} else {
-			body = new ImmobileRigidBody(new org.spout.physics.math.Transform(new org.spout.physics.math.Vector3(x + 0.5f, y + 0.5f, z + 0.5f),
-					new org.spout.physics.math.Quaternion(0, 0, 0, 1)), mass, inertiaTensorLocal, shape, region.getSimulation().getNextFreeID());
+			body = new ImmobileRigidBody(transform, template.mass, template.inertiaTensorLocal, shape, region.getSimulation().getNextFreeID());
 		}
-		body.setMaterial(new RigidBodyMaterial(material.getRestitution(), material.getFriction()));
-		body.setUserPointer(block); //It is safe to use block as these bodies are destroyed at the end of the physics tick
+		body.setMaterial(template.material);
+		body.setUserPointer(cached.block); //It is safe to use block as these bodies are destroyed at the end of the physics tick
 		return body;
 	}
+
+	/**
+	 * Removes a block from the cache, this must be called whenever a block changes
+	 *
+	 * @param x the x coordinate of the block
+	 * @param y the y coordinate of the block
+	 * @param z the z coordinate of the block
+	 */
+	public void invalidate(int x, int y, int z) {
+		blocks.remove(Int21TripleHashed.key(x, y, z));
+	}
+
+	/**
+	 * Removes a cuboid of blocks from the cache. Small cuboids are removed block by block, large ones by scanning the
+	 * cached positions.
+	 *
+	 * @param x the x coordinate of the lowest block
+	 * @param y the y coordinate of the lowest block
+	 * @param z the z coordinate of the lowest block
+	 * @param sizeX the size of the cuboid along the x axis
+	 * @param sizeY the size of the cuboid along the y axis
+	 * @param sizeZ the size of the cuboid along the z axis
+	 */
+	public void invalidate(int x, int y, int z, int sizeX, int sizeY, int sizeZ) {
+		if (blocks.isEmpty()) {
+			return;
+		}
+		if ((long) sizeX * sizeY * sizeZ <= blocks.size()) {
+			for (int dx = x; dx < x + sizeX; dx++) {
+				for (int dy = y; dy < y + sizeY; dy++) {
+					for (int dz = z; dz < z + sizeZ; dz++) {
+						blocks.remove(Int21TripleHashed.key(dx, dy, dz));
+					}
+				}
+			}
+			return;
+		}
+		for (long key : blocks.keys()) {
+			// The keys only keep 21 bits of each coordinate, so the offsets are compared in 21 bits as well
+			if (((Int21TripleHashed.key1(key) - x) & KEY_MASK) < sizeX && ((Int21TripleHashed.key2(key) - y) & KEY_MASK) < sizeY && ((Int21TripleHashed.key3(key) - z) & KEY_MASK) < sizeZ) {
+				blocks.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Removes all blocks from the cache
+	 */
+	public void invalidateAll() {
+		blocks.clear();
+	}
+
+	private static class CachedBlock {
+		private final Block block;
+		private final BlockMaterial material;
+
+		public CachedBlock(Block block, BlockMaterial material) {
+			this.block = block;
+			this.material = material;
+		}
+	}
+
+	/**
+	 * The parts of a terrain body which only depend on the block material. These are never modified by the simulation, since the bodies are immobile.
+	 */
+	private static class MaterialBody {
+		private final CollisionShape shape;
+		private final float mass;
+		private final boolean ghost;
+		private final float restitution;
+		private final float friction;
+		private final Matrix3x3 inertiaTensorLocal = new Matrix3x3();
+		private final RigidBodyMaterial material;
+
+		public MaterialBody(BlockMaterial material, CollisionShape shape) {
+			this.shape = shape;
+			this.mass = material.getMass();
+			this.ghost = material.isGhost();
+			this.restitution = material.getRestitution();
+			this.friction = material.getFriction();
+			shape.computeLocalInertiaTensor(inertiaTensorLocal, mass);
+			this.material = new RigidBodyMaterial(restitution, friction);
+		}
+
+		/**
+		 * Checks if the physics properties of the material have changed since this was created
+		 */
+		public boolean matches(BlockMaterial material, CollisionShape shape) {
+			return this.shape == shape && mass == material.getMass() && ghost == material.isGhost() && restitution == material.getRestitution() && friction == material.getFriction();
+		}
+	}
 }
@@ -33,17 +33,20 @@ import org.spout.api.geo.cuboid.Region;
 import org.spout.api.geo.discrete.Point;
 import org.spout.api.material.DynamicUpdateEntry;
 import org.spout.api.util.hashing.SignedTenBitTripleHashed;
+import org.spout.api.util.list.TimingWheelEntry;
 
 /**
  * Represents a linked list entry value that contains location, next block update time, and data for the dynamic update
  */
-public class DynamicBlockUpdate implements Comparable<DynamicBlockUpdate>, DynamicUpdateEntry {
+public class DynamicBlockUpdate extends TimingWheelEntry implements Comparable<DynamicBlockUpdate>, DynamicUpdateEntry {
 	private final static AtomicInteger idCounter = new AtomicInteger(0);
 	private final int id;
 	private final int packed;
 	private final long nextUpdate;
 	private final int data;
 	private DynamicBlockUpdate next;
+	private DynamicBlockUpdate chunkPrev;
+	private DynamicBlockUpdate chunkNext;
 
 	public DynamicBlockUpdate(int packed, long nextUpdate, int data) {
 		this(unpackX(packed), unpackY(packed), unpackZ(packed), nextUpdate, data);
@@ -193,6 +196,44 @@ public class DynamicBlockUpdate implements Comparable<DynamicBlockUpdate>, Dynam
 		return next;
 	}
 
+	/**
+	 * Gets the next update in the list of updates for the chunk containing this update
+	 *
+	 * @return the next update, or null if this is the last update
+	 */
+	public DynamicBlockUpdate getChunkNext() {
+		return chunkNext;
+	}
+
+	/**
+	 * Links this update before the given root of the list of updates for its chunk
+	 *
+	 * @param root the current root, or null if the list is empty
+	 */
+	void linkChunk(DynamicBlockUpdate root) {
+		if (chunkPrev != null || chunkNext != null) {
+			throw new IllegalArgumentException("Linked list error in dynamic block update, updates must not already be part of a chunk list");
+		}
+		chunkNext = root;
+		if (root != null) {
+			root.chunkPrev = this;
+		}
+	}
+
+	/**
+	 * Removes this update from the list of updates for its chunk
+	 */
+	void unlinkChunk() {
+		if (chunkPrev != null) {
+			chunkPrev.chunkNext = chunkNext;
+		}
+		if (chunkNext != null) {
+			chunkNext.chunkPrev = chunkPrev;
+		}
+		chunkPrev = null;
+		chunkNext = null;
+	}
+
 	@Override
 	public String toString() {
 		return "DynamicBlockUpdate{ id: + " + id + " packed: " + getPacked() + " chunkPacked: " + getChunkPacked() +
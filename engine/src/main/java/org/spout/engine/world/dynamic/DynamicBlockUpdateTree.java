@@ -27,10 +27,7 @@
 package org.spout.engine.world.dynamic;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
@@ -47,6 +44,7 @@ import org.spout.api.material.DynamicUpdateEntry;
 import org.spout.api.material.Material;
 import org.spout.api.material.range.EffectRange;
 import org.spout.api.scheduler.TickStage;
+import org.spout.api.util.list.TimingWheel;
 import org.spout.engine.scheduler.SpoutScheduler;
 import org.spout.engine.world.SpoutChunk;
 import org.spout.engine.world.SpoutRegion;
@@ -54,15 +52,15 @@ import org.spout.engine.world.SpoutWorld;
 
 /**
  * This class contains the dynamic block updates.  There are 3 data structures that are kept in sync.<br> <br> blockToUpdateMap - This maps the packed (x, y, z) block coords to the DynamicBlockUpdates
- * for that block (stored as a linked list) chunkToUpdateMap - this maps the packed (x, y, z) chunk coords to the DynamicBlockUpdates for that chunk (stored as a hashset) queuedUpdates - the actual
- * queue of dynamic updates, stored in a TreeMap
+ * for that block (stored as a linked list) chunkToUpdateMap - this maps the packed (x, y, z) chunk coords to the DynamicBlockUpdates for that chunk (stored as a doubly linked list) queuedUpdates - the
+ * actual queue of dynamic updates, stored in a TimingWheel
  */
 public class DynamicBlockUpdateTree {
 	private final SpoutRegion region;
 	private final SpoutWorld world;
-	private final TreeSet<DynamicBlockUpdate> queuedUpdates = new TreeSet<>();
+	private final TimingWheel<DynamicBlockUpdate> queuedUpdates = new TimingWheel<>(0);
 	private final TIntObjectHashMap<DynamicBlockUpdate> blockToUpdateMap = new TIntObjectHashMap<>();
-	private final TIntObjectHashMap<HashSet<DynamicBlockUpdate>> chunkToUpdateMap = new TIntObjectHashMap<>();
+	private final TIntObjectHashMap<DynamicBlockUpdate> chunkToUpdateMap = new TIntObjectHashMap<>();
 	/**
 	 * Keeps a queue of a lists of DynamicBlockUpdates. Lists are only added when previously saved chunks are loaded, and added to the queue
 	 */
@@ -225,26 +223,28 @@ public class DynamicBlockUpdateTree {
 	}
 
 	/**
-	 * NOTE: Do NOT modify the returned set
+	 * Gets a copy of the updates queued for a chunk
+	 *
+	 * @param c the chunk
+	 * @return the list of updates
 	 */
-	public Set<DynamicBlockUpdate> getDynamicBlockUpdates(Chunk c) {
+	public List<DynamicBlockUpdate> getDynamicBlockUpdates(Chunk c) {
 		TickStage.checkStage(TickStage.SNAPSHOT);
 		int packed = DynamicBlockUpdate.getChunkPacked(c);
-		return chunkToUpdateMap.get(packed);
+		List<DynamicBlockUpdate> list = new ArrayList<>();
+		for (DynamicBlockUpdate current = chunkToUpdateMap.get(packed); current != null; current = current.getChunkNext()) {
+			list.add(current);
+		}
+		return list;
 	}
 
 	public boolean removeDynamicBlockUpdates(Chunk c) {
 		TickStage.checkStage(TickStage.SNAPSHOT, regionThread);
-		Set<DynamicBlockUpdate> toRemove = getDynamicBlockUpdates(c);
-		if (toRemove == null) {
-			return true;
-		}
-
-		if (toRemove.size() <= 0) {
+		List<DynamicBlockUpdate> list = getDynamicBlockUpdates(c);
+		if (list.isEmpty()) {
 			return true;
 		}
 
-		List<DynamicBlockUpdate> list = new ArrayList<>(toRemove);
 		for (DynamicBlockUpdate dm : list) {
 			if (remove(dm) == null) {
 				throw new IllegalStateException("Expected update not present when removing all updates for chunk " + c);
@@ -374,7 +374,7 @@ public class DynamicBlockUpdateTree {
 		if (queuedUpdates.isEmpty()) {
 			return SpoutScheduler.END_OF_THE_WORLD;
 		}
-		return queuedUpdates.first().getNextUpdate();
+		return queuedUpdates.getFirstTime();
 	}
 
 	/**
@@ -385,20 +385,12 @@ public class DynamicBlockUpdateTree {
 	 */
 	public DynamicBlockUpdate getNextUpdate(long thresholdTime) {
 		checkStages();
-		if (queuedUpdates.isEmpty()) {
-			return null;
-		}
-
-		DynamicBlockUpdate first = queuedUpdates.first();
+		DynamicBlockUpdate first = queuedUpdates.poll(thresholdTime);
 		if (first == null) {
 			return null;
 		}
 
-		if (first.getNextUpdate() > thresholdTime) {
-			return null;
-		}
-
-		if (remove(first) != first) {
+		if (remove(first, false) != first) {
 			throw new IllegalStateException("queued updates for dynamic block updates violated threading rules");
 		}
 
@@ -441,13 +433,11 @@ public class DynamicBlockUpdateTree {
 			blockToUpdateMap.put(key, update);
 		}
 
-		queuedUpdates.add(update);
-		HashSet<DynamicBlockUpdate> chunkSet = chunkToUpdateMap.get(update.getChunkPacked());
-		if (chunkSet == null) {
-			chunkSet = new HashSet<>();
-			chunkToUpdateMap.put(update.getChunkPacked(), chunkSet);
-		}
-		chunkSet.add(update);
+		queuedUpdates.add(update, update.getNextUpdate());
+		int chunkKey = update.getChunkPacked();
+		DynamicBlockUpdate chunkRoot = chunkToUpdateMap.get(chunkKey);
+		update.linkChunk(chunkRoot);
+		chunkToUpdateMap.put(chunkKey, update);
 
 		return previous;
 	}
@@ -459,6 +449,17 @@ public class DynamicBlockUpdateTree {
 	 * @return the update, if removed
 	 */
 	private DynamicBlockUpdate remove(DynamicBlockUpdate update) {
+		return remove(update, true);
+	}
+
+	/**
+	 * Removes a specific update
+	 *
+	 * @param update the update to remove
+	 * @param queued true if the update is still in the queue, false if it was already polled from it
+	 * @return the update, if removed
+	 */
+	private DynamicBlockUpdate remove(DynamicBlockUpdate update, boolean queued) {
 		boolean removed = false;
 		int packedKey = update.getPacked();
 		DynamicBlockUpdate root = blockToUpdateMap.get(packedKey);
@@ -475,20 +476,10 @@ public class DynamicBlockUpdateTree {
 				throw new IllegalStateException("Dynamic update appeared twice in the linked list");
 			}
 			removed = true;
-			if (!queuedUpdates.remove(current)) {
+			if (queued && !queuedUpdates.remove(current)) {
 				throw new IllegalStateException("Dynamic block update missing from queue when removed");
 			}
-			int currentPacked = current.getChunkPacked();
-			HashSet<DynamicBlockUpdate> chunkSet = chunkToUpdateMap.get(currentPacked);
-			if (chunkSet == null || !chunkSet.remove(current)) {
-				throw new IllegalStateException("Dynamic block update missing from chunk when removed");
-			}
-
-			if (chunkSet.isEmpty()) {
-				if (chunkToUpdateMap.remove(currentPacked) == null) {
-					throw new IllegalStateException("Removing updates for dynamic block updates violated threading rules");
-				}
-			}
+			unlinkChunk(current);
 			if (current == root) {
 				root = current.getNext();
 				current = root;
@@ -527,22 +518,34 @@ public class DynamicBlockUpdateTree {
 			if (!queuedUpdates.remove(current)) {
 				throw new IllegalStateException("Dynamic block update missing from queue when removed");
 			}
-			int previousPacked = current.getChunkPacked();
-			HashSet<DynamicBlockUpdate> chunkSet = chunkToUpdateMap.get(previousPacked);
-			if (chunkSet == null || !chunkSet.remove(current)) {
-				throw new IllegalStateException("Dynamic block update missing from chunk when removed");
-			}
-
-			if (chunkSet.isEmpty()) {
-				if (chunkToUpdateMap.remove(previousPacked) == null) {
-					throw new IllegalStateException("Removing updates for dynamic block updates violated threading rules");
-				}
-			}
+			unlinkChunk(current);
 			current = current.getNext();
 		}
 		return oldRoot;
 	}
 
+	/**
+	 * Removes an update from the list of updates of its chunk
+	 *
+	 * @param update the update to remove
+	 */
+	private void unlinkChunk(DynamicBlockUpdate update) {
+		int chunkKey = update.getChunkPacked();
+		DynamicBlockUpdate chunkRoot = chunkToUpdateMap.get(chunkKey);
+		if (chunkRoot == null) {
+			throw new IllegalStateException("Dynamic block update missing from chunk when removed");
+		}
+		if (chunkRoot == update) {
+			DynamicBlockUpdate newRoot = update.getChunkNext();
+			if (newRoot == null) {
+				chunkToUpdateMap.remove(chunkKey);
+			} else {
+				chunkToUpdateMap.put(chunkKey, newRoot);
+			}
+		}
+		update.unlinkChunk();
+	}
+
 	public static enum UpdateResult {
 		NON_LOCAL,
 		DONE,
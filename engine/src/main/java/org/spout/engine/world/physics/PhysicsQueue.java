@@ -38,6 +38,7 @@ import org.spout.api.material.range.EffectRange;
 import org.spout.api.math.IntVector3;
 import org.spout.api.scheduler.TickStage;
 import org.spout.engine.scheduler.SpoutScheduler;
+import org.spout.engine.world.ChunkNeighborhood;
 import org.spout.engine.world.SpoutChunk;
 import org.spout.engine.world.SpoutRegion;
 
@@ -66,6 +67,8 @@ public class PhysicsQueue {
 		boolean updated = false;
 		PhysicsUpdate update;
 		EffectIterator ei = new EffectIterator();
+		// Effect ranges rarely leave the neighbouring chunks, which are then only looked up once, and their blocks read directly
+		ChunkNeighborhood neighborhood = null;
 		while ((update = asyncQueue.poll()) != null) {
 			updated = true;
 			update.getRange().initEffectIterator(ei);
@@ -80,7 +83,21 @@ public class PhysicsQueue {
 				if ((ox & MASK) == (x & MASK) && (oy & MASK) == (y & MASK) && (oz & MASK) == (z & MASK)) {
 					queueForUpdate(ox, oy, oz, update.getOldMaterial());
 				} else if (ox >= 0 && ox < Region.BLOCKS.SIZE && oy >= 0 && oy < Region.BLOCKS.SIZE && oz >= 0 && oz < Region.BLOCKS.SIZE) {
-					region.updateBlockPhysics(ox, oy, oz, update.getOldMaterial());
+					int wx = region.getBlockX() + ox;
+					int wy = region.getBlockY() + oy;
+					int wz = region.getBlockZ() + oz;
+					if (neighborhood == null) {
+						neighborhood = new ChunkNeighborhood().center(chunk);
+					}
+					if (neighborhood.contains(wx, wy, wz)) {
+						// Blocks without physics would be skipped by the neighbour's update queue, so they are not queued there
+						// Blocks in unloaded chunks are read as ungenerated, which has no physics
+						if (neighborhood.getBlockMaterial(wx, wy, wz).hasPhysics()) {
+							neighborhood.getChunk(wx, wy, wz).updateBlockPhysics(wx, wy, wz, update.getOldMaterial());
+						}
+					} else {
+						region.updateBlockPhysics(ox, oy, oz, update.getOldMaterial());
+					}
 				} else {
 					region.getWorld().queueBlockPhysics(region.getBlockX() + ox, region.getBlockY() + oy, region.getBlockZ() + oz, EffectRange.THIS, update.getOldMaterial());
 				}
@@ -0,0 +1,177 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.engine.scheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import org.spout.engine.util.thread.threadfactory.NamedThreadFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncTaskExecutorTest {
+	@Test
+	public void testOwnerConcurrencyLimit() throws InterruptedException {
+		AsyncTaskExecutor executor = new AsyncTaskExecutor(8, 2, 100, new NamedThreadFactory("Test", true));
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		Object owner = new Object();
+		for (int i = 0; i < 20; i++) {
+			executor.submit(owner, new Runnable() {
+				@Override
+				public void run() {
+					int current = running.incrementAndGet();
+					int max;
+					while ((max = maxRunning.get()) < current && !maxRunning.compareAndSet(max, current)) {
+					}
+					sleep(5);
+					running.decrementAndGet();
+				}
+			});
+		}
+		assertTrue(executor.awaitIdle(10000));
+		assertEquals(2, maxRunning.get());
+		assertEquals(20, executor.getStats().get(0).getCompleted());
+		executor.shutdown();
+	}
+
+	@Test
+	public void testFairQueuing() throws InterruptedException {
+		AsyncTaskExecutor executor = new AsyncTaskExecutor(1, 1, 100, new NamedThreadFactory("Test", true));
+		final CountDownLatch blocker = new CountDownLatch(1);
+		executor.submit(null, new Runnable() {
+			@Override
+			public void run() {
+				try {
+					blocker.await();
+				} catch (InterruptedException e) {
+				}
+			}
+		});
+		final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+		final String busy = "busy";
+		final String quiet = "quiet";
+		for (int i = 0; i < 10; i++) {
+			executor.submit(busy, record(order, busy));
+		}
+		executor.submit(quiet, record(order, quiet));
+		blocker.countDown();
+		assertTrue(executor.awaitIdle(10000));
+		// The quiet owner is served after a single task of the busy owner, not after all of them
+		assertEquals(quiet, order.get(1));
+		executor.shutdown();
+	}
+
+	@Test
+	public void testBackPressure() throws InterruptedException {
+		AsyncTaskExecutor executor = new AsyncTaskExecutor(1, 1, 2, new NamedThreadFactory("Test", true));
+		final CountDownLatch blocker = new CountDownLatch(1);
+		Object owner = new Object();
+		executor.submit(owner, new Runnable() {
+			@Override
+			public void run() {
+				try {
+					blocker.await();
+				} catch (InterruptedException e) {
+				}
+			}
+		});
+		// Wait for the blocking task to leave the queue
+		while (executor.getQueueDepth() > 0) {
+			sleep(1);
+		}
+		executor.submit(owner, record(null, null));
+		executor.submit(owner, record(null, null));
+		try {
+			executor.submit(owner, record(null, null));
+			fail("The queue of the owner should be full");
+		} catch (RejectedExecutionException e) {
+		}
+		// Other owners are not affected
+		executor.submit(null, record(null, null));
+		blocker.countDown();
+		assertTrue(executor.awaitIdle(10000));
+		executor.shutdown();
+		try {
+			executor.submit(owner, record(null, null));
+			fail("A shutdown executor should reject tasks");
+		} catch (RejectedExecutionException e) {
+		}
+	}
+
+	@Test
+	public void testCancel() throws InterruptedException {
+		AsyncTaskExecutor executor = new AsyncTaskExecutor(1, 1, 10, new NamedThreadFactory("Test", true));
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch interrupted = new CountDownLatch(1);
+		Future<?> future = executor.submit(null, new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					Thread.sleep(10000);
+				} catch (InterruptedException e) {
+					interrupted.countDown();
+				}
+			}
+		});
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		future.cancel(true);
+		assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+		assertTrue(executor.awaitIdle(10000));
+		executor.shutdown();
+	}
+
+	private static Runnable record(final List<String> order, final String name) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				if (order != null) {
+					order.add(name);
+				}
+			}
+		};
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.engine.util.thread.snapshotable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SnapshotManagerTest {
+	private final int LENGTH = 1000;
+
+	@Test
+	public void testOnlyDirtyCopied() {
+		SnapshotManager manager = new SnapshotManager();
+		SnapshotableInt[] ints = new SnapshotableInt[LENGTH];
+		for (int i = 0; i < LENGTH; i++) {
+			ints[i] = new SnapshotableInt(manager, i);
+		}
+		assertEquals("Idle snapshotables should not be copied", 0, manager.copyAllSnapshots());
+
+		for (int i = 0; i < LENGTH; i += 10) {
+			ints[i].set(-i);
+			ints[i].set(-i - 1);
+		}
+		assertEquals("Each dirty snapshotable should be copied once", LENGTH / 10, manager.copyAllSnapshots());
+		assertEquals(LENGTH / 10, manager.getLastCopyCount());
+		for (int i = 0; i < LENGTH; i++) {
+			assertEquals(i % 10 == 0 ? -i - 1 : i, ints[i].get());
+		}
+
+		assertEquals("Copied snapshotables should not be copied again", 0, manager.copyAllSnapshots());
+		ints[5].set(7);
+		assertEquals(1, manager.copyAllSnapshots());
+		assertEquals(7, ints[5].get());
+	}
+
+	@Test
+	public void testUnmanagedAlwaysCopied() {
+		SnapshotManager manager = new SnapshotManager();
+		final int[] copies = new int[1];
+		manager.add(new Snapshotable() {
+			@Override
+			public void copySnapshot() {
+				copies[0]++;
+			}
+		});
+		new SnapshotableReference<>(manager, "value");
+		assertEquals(1, manager.copyAllSnapshots());
+		assertEquals(1, manager.copyAllSnapshots());
+		assertEquals(2, copies[0]);
+	}
+}
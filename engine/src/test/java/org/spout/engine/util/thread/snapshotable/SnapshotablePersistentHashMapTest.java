@@ -0,0 +1,191 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.engine.util.thread.snapshotable;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.spout.api.scheduler.TickStage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SnapshotablePersistentHashMapTest {
+	private final static int ENTRIES = 10000;
+	private final static int TICKS = 200;
+	private final static int UPDATES_PER_TICK = 50;
+	private final static boolean PRINT_BENCHMARKS = false;
+
+	@After
+	public void resetStage() {
+		TickStage.setStage(TickStage.STAGE1);
+	}
+
+	@Test
+	public void testMatchesSnapshotableHashMap() {
+		final Random random = new Random(42);
+		final SnapshotManager manager = new SnapshotManager();
+		final SnapshotableHashMap<Integer, Integer> expected = new SnapshotableHashMap<>(manager);
+		final SnapshotablePersistentHashMap<Integer, Integer> map = new SnapshotablePersistentHashMap<>(manager);
+		for (int tick = 0; tick < TICKS; tick++) {
+			for (int i = 0; i < UPDATES_PER_TICK; i++) {
+				final Integer key = random.nextInt(ENTRIES / 10);
+				if (random.nextInt(4) == 0) {
+					assertEquals(expected.remove(key), map.remove(key));
+				} else {
+					final Integer value = random.nextInt();
+					assertEquals(expected.put(key, value), map.put(key, value));
+				}
+			}
+			assertEquals(expected.getLive(), map.getLive());
+
+			TickStage.setStage(TickStage.PRESNAPSHOT);
+			final Set<Integer> dirty = new HashSet<>(map.getDirtyKeyList());
+			for (Integer key : dirty) {
+				assertTrue(expected.getDirtyKeyList().contains(key));
+			}
+			for (Integer key : expected.getDirtyKeyList()) {
+				// Keys which ended the tick in the same state as the snapshot are not reported by the diff
+				final boolean unchanged = expected.get().get(key) == expected.getLive().get(key);
+				assertEquals(!unchanged, dirty.contains(key));
+			}
+			TickStage.setStage(TickStage.SNAPSHOT);
+			manager.copyAllSnapshots();
+			assertEquals(expected.get(), map.get());
+		}
+	}
+
+	@Test
+	public void testSnapshotIsStable() {
+		final SnapshotManager manager = new SnapshotManager();
+		final SnapshotablePersistentHashMap<String, String> map = new SnapshotablePersistentHashMap<>(manager);
+		map.put("a", "1");
+		assertTrue(map.get().isEmpty());
+		manager.copyAllSnapshots();
+		final Map<String, String> snapshot = map.get();
+		map.put("b", "2");
+		map.remove("a");
+		assertEquals(1, snapshot.size());
+		assertEquals("1", snapshot.get("a"));
+		assertFalse(map.remove("b", "3"));
+		assertEquals("2", map.putIfAbsent("b", "3"));
+		manager.copyAllSnapshots();
+		assertEquals(1, map.get().size());
+		assertEquals("2", map.get().get("b"));
+	}
+
+	@Test
+	public void testPersistentSetAndList() {
+		final SnapshotManager manager = new SnapshotManager();
+		final SnapshotablePersistentHashSet<Integer> set = new SnapshotablePersistentHashSet<>(manager);
+		final SnapshotablePersistentArrayList<Integer> list = new SnapshotablePersistentArrayList<>(manager);
+		for (int i = 0; i < 10; i++) {
+			assertTrue(set.add(i));
+			assertTrue(list.add(i));
+		}
+		assertFalse(set.add(3));
+		assertTrue(set.remove(3));
+		assertTrue(list.remove(Integer.valueOf(3)));
+		list.remove(0);
+		assertTrue(set.get().isEmpty());
+		assertTrue(list.get().isEmpty());
+		assertTrue(list.isDirty());
+		TickStage.setStage(TickStage.PRESNAPSHOT);
+		assertEquals(9, set.getDirtyList().size());
+		TickStage.setStage(TickStage.SNAPSHOT);
+		assertEquals(2, manager.copyAllSnapshots());
+		assertEquals(9, set.get().size());
+		assertFalse(set.get().contains(3));
+		assertEquals(8, list.get().size());
+		assertEquals(Integer.valueOf(1), list.get().get(0));
+		assertFalse(list.isDirty());
+	}
+
+	@Test
+	public void benchmark() {
+		final SnapshotManager manager = new SnapshotManager();
+		final SnapshotableHashMap<Integer, Integer> hashMap = new SnapshotableHashMap<>(manager);
+		final SnapshotablePersistentHashMap<Integer, Integer> persistentMap = new SnapshotablePersistentHashMap<>(manager);
+
+		System.gc();
+		long memory = usedMemory();
+		for (int i = 0; i < ENTRIES; i++) {
+			hashMap.put(i, i);
+		}
+		manager.copyAllSnapshots();
+		System.gc();
+		final long hashMapMemory = usedMemory() - memory;
+		memory = usedMemory();
+		for (int i = 0; i < ENTRIES; i++) {
+			persistentMap.put(i, i);
+		}
+		manager.copyAllSnapshots();
+		System.gc();
+		final long persistentMemory = usedMemory() - memory;
+
+		final Random random = new Random(1);
+		long hashMapTime = 0;
+		long persistentTime = 0;
+		for (int tick = 0; tick < TICKS; tick++) {
+			hashMapTime -= System.nanoTime();
+			for (int i = 0; i < UPDATES_PER_TICK; i++) {
+				hashMap.put(random.nextInt(ENTRIES), tick);
+			}
+			TickStage.setStage(TickStage.PRESNAPSHOT);
+			hashMap.getDirtyKeyList();
+			hashMap.getDirtyValueList();
+			hashMap.copySnapshot();
+			hashMapTime += System.nanoTime();
+
+			persistentTime -= System.nanoTime();
+			for (int i = 0; i < UPDATES_PER_TICK; i++) {
+				persistentMap.put(random.nextInt(ENTRIES), tick);
+			}
+			persistentMap.getDirtyKeyList();
+			persistentMap.getDirtyValueList();
+			persistentMap.copySnapshot();
+			persistentTime += System.nanoTime();
+			TickStage.setStage(TickStage.STAGE1);
+		}
+
+		if (PRINT_BENCHMARKS) {
+			System.out.println("SnapshotableHashMap: " + hashMapMemory / 1024 + "kB, " + (hashMapTime / 1000000.0) / TICKS + "ms per tick");
+			System.out.println("SnapshotablePersistentHashMap: " + persistentMemory / 1024 + "kB, " + (persistentTime / 1000000.0) / TICKS + "ms per tick");
+		}
+	}
+
+	private static long usedMemory() {
+		final Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.engine.world;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.spout.api.geo.LoadOption;
+import org.spout.api.material.BlockMaterial;
+import org.spout.api.material.block.BlockFullState;
+import org.spout.api.util.map.concurrent.AtomicBlockStore;
+import org.spout.engine.faker.EngineFaker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ChunkNeighborhoodTest {
+	static {
+		EngineFaker.setupEngine();
+	}
+
+	private SpoutWorld world;
+	private SpoutChunk center;
+	private SpoutChunk west;
+
+	@Before
+	public void setUp() {
+		world = mock(SpoutWorld.class);
+		center = mockChunk(0, 0, 0);
+		west = mockChunk(-1, 0, 0);
+		when(world.getChunk(0, 0, 0, LoadOption.NO_LOAD)).thenReturn(center);
+		when(world.getChunk(-1, 0, 0, LoadOption.NO_LOAD)).thenReturn(west);
+	}
+
+	@Test
+	public void testContains() {
+		ChunkNeighborhood neighborhood = new ChunkNeighborhood();
+		assertFalse(neighborhood.contains(0, 0, 0));
+		neighborhood.center(center);
+		assertTrue(neighborhood.contains(0, 0, 0));
+		assertTrue(neighborhood.contains(-16, -16, -16));
+		assertTrue(neighborhood.contains(31, 31, 31));
+		assertFalse(neighborhood.contains(-17, 0, 0));
+		assertFalse(neighborhood.contains(0, 32, 0));
+		neighborhood.clear();
+		assertFalse(neighborhood.contains(0, 0, 0));
+	}
+
+	@Test
+	public void testCrossBorderLookups() {
+		ChunkNeighborhood neighborhood = new ChunkNeighborhood().center(center);
+		assertSame(center, neighborhood.getChunk(0, 5, 15));
+		assertSame(west, neighborhood.getChunk(-1, 5, 15));
+		assertSame(west, neighborhood.getChunk(-16, 0, 0));
+		// Each neighbour is only looked up once, and the centre never
+		verify(world, times(1)).getChunk(-1, 0, 0, LoadOption.NO_LOAD);
+		verify(world, never()).getChunk(0, 0, 0, LoadOption.NO_LOAD);
+	}
+
+	@Test
+	public void testMissingChunk() {
+		ChunkNeighborhood neighborhood = new ChunkNeighborhood().center(center);
+		assertNull(neighborhood.getChunk(16, 0, 0));
+		assertNull(neighborhood.getChunk(17, 0, 0));
+		verify(world, times(1)).getChunk(1, 0, 0, LoadOption.NO_LOAD);
+	}
+
+	@Test
+	public void testLoadOption() {
+		SpoutChunk generated = mockChunk(0, 1, 0);
+		when(world.getChunk(0, 1, 0, LoadOption.LOAD_GEN)).thenReturn(generated);
+		ChunkNeighborhood neighborhood = new ChunkNeighborhood(LoadOption.LOAD_GEN).center(center);
+		assertSame(generated, neighborhood.getChunk(0, 16, 0));
+		verify(world, never()).getChunk(0, 1, 0, LoadOption.NO_LOAD);
+	}
+
+	@Test
+	public void testRecenter() {
+		ChunkNeighborhood neighborhood = new ChunkNeighborhood().center(center);
+		assertSame(west, neighborhood.getChunk(-1, 0, 0));
+		neighborhood.center(west);
+		assertSame(west, neighborhood.getChunk(-1, 0, 0));
+		assertSame(center, neighborhood.getChunk(0, 0, 0));
+		verify(world, times(1)).getChunk(0, 0, 0, LoadOption.NO_LOAD);
+	}
+
+	@Test
+	public void testCrossBorderReads() {
+		center.blockStore = mock(AtomicBlockStore.class);
+		west.blockStore = mock(AtomicBlockStore.class);
+		when(center.blockStore.getFullData(0, 5, 15)).thenReturn(BlockFullState.getPacked((short) 7, (short) 1));
+		when(west.blockStore.getFullData(15, 5, 15)).thenReturn(BlockFullState.getPacked((short) 9, (short) 2));
+		ChunkNeighborhood neighborhood = new ChunkNeighborhood().center(center);
+		assertEquals(BlockFullState.getPacked((short) 7, (short) 1), neighborhood.getBlockFullState(0, 5, 15));
+		assertEquals(BlockFullState.getPacked((short) 9, (short) 2), neighborhood.getBlockFullState(-1, 5, 15));
+		assertEquals(2, neighborhood.getBlockData(-1, 5, 15));
+		verify(world, times(1)).getChunk(-1, 0, 0, LoadOption.NO_LOAD);
+	}
+
+	@Test
+	public void testNullMaterial() {
+		ChunkNeighborhood neighborhood = new ChunkNeighborhood().center(center);
+		assertSame(BlockMaterial.UNGENERATED, neighborhood.getBlockMaterial(16, 0, 0));
+		// A chunk which has been unloaded has no block store
+		assertSame(BlockMaterial.UNGENERATED, neighborhood.getBlockMaterial(-1, 0, 0));
+		neighborhood = new ChunkNeighborhood(LoadOption.NO_LOAD, BlockMaterial.AIR).center(center);
+		assertSame(BlockMaterial.AIR, neighborhood.getBlockMaterial(16, 0, 0));
+	}
+
+	@Test (expected = IllegalArgumentException.class)
+	public void testOutside() {
+		new ChunkNeighborhood().center(center).getChunk(32, 0, 0);
+	}
+
+	private SpoutChunk mockChunk(int x, int y, int z) {
+		SpoutChunk chunk = mock(SpoutChunk.class);
+		when(chunk.getWorld()).thenReturn(world);
+		when(chunk.getX()).thenReturn(x);
+		when(chunk.getY()).thenReturn(y);
+		when(chunk.getZ()).thenReturn(z);
+		return chunk;
+	}
+}
@@ -0,0 +1,220 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.engine.world;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.spout.api.io.bytearrayarray.BAAWrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RegionFileManagerTest {
+	private static final Executor DIRECT = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	};
+	private File directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = File.createTempFile("regions", "");
+		assertTrue(directory.delete());
+		assertTrue(directory.mkdirs());
+	}
+
+	@After
+	public void tearDown() {
+		delete(directory);
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	@Test
+	public void testOpenFileLimit() throws IOException {
+		RegionFileManager manager = new RegionFileManager(directory, "region", 2, null);
+		try {
+			BAAWrapper[] wrappers = new BAAWrapper[5];
+			for (int i = 0; i < wrappers.length; i++) {
+				wrappers[i] = manager.getBAAWrapper(i, 0, -i);
+				assertSame(wrappers[i], manager.getBAAWrapper(i, 0, -i));
+				write(wrappers[i], i);
+				assertTrue(manager.getOpenFileCount() <= 2);
+			}
+			assertEquals(3, manager.getEvictedCount());
+			assertFalse(wrappers[0].isOpen());
+			assertTrue(wrappers[4].isOpen());
+
+			for (int i = 0; i < wrappers.length; i++) {
+				assertEquals(i, read(wrappers[i]));
+				assertTrue(manager.getOpenFileCount() <= 2);
+			}
+		} finally {
+			manager.closeAll();
+		}
+	}
+
+	@Test
+	public void testPrefetch() throws IOException {
+		RegionFileManager writer = new RegionFileManager(directory, "region", 2, null);
+		try {
+			write(writer.getBAAWrapper(1, 2, 3), 7);
+		} finally {
+			writer.closeAll();
+		}
+
+		RegionFileManager manager = new RegionFileManager(directory, "region", 2, DIRECT);
+		try {
+			manager.prefetch(1, 2, 3);
+			assertEquals(1, manager.getPrefetchedCount());
+			assertEquals(1, manager.getOpenFileCount());
+			BAAWrapper wrapper = manager.getBAAWrapper(1, 2, 3);
+			assertTrue(wrapper.isOpen());
+			assertEquals(7, read(wrapper));
+			assertEquals(1, manager.getOpenedCount());
+
+			// Missing files are not created
+			manager.prefetch(4, 5, 6);
+			assertEquals(1, manager.getPrefetchedCount());
+			assertFalse(new File(new File(directory, "region"), "reg4_5_6.spr").exists());
+		} finally {
+			manager.closeAll();
+		}
+	}
+
+	@Test
+	public void testJournalCheckpoint() throws IOException {
+		RegionFileManager manager = new RegionFileManager(directory, "region", 2, null);
+		try {
+			assertTrue(manager.enableJournal(1 << 20, 3600000L));
+			BAAWrapper wrapper = manager.getBAAWrapper(1, 2, 3);
+			write(wrapper, 5);
+			write(wrapper, 6);
+			assertTrue(manager.commit());
+			// Journalled writes are read back before they reach the region file
+			assertEquals(6, read(wrapper));
+			assertTrue(wrapper.inputStreamExists(0));
+			assertFalse(new File(new File(directory, "region"), "reg1_2_3.spr").exists());
+			assertEquals(1, manager.getJournal().getPendingCount());
+		} finally {
+			manager.closeAll();
+		}
+		assertEquals(0, manager.getJournal().getPendingCount());
+		assertEquals(0, getJournalFiles().length);
+
+		RegionFileManager reader = new RegionFileManager(directory, "region", 2, null);
+		try {
+			assertEquals(6, read(reader.getBAAWrapper(1, 2, 3)));
+		} finally {
+			reader.closeAll();
+		}
+	}
+
+	@Test
+	public void testJournalReplay() throws IOException {
+		RegionFileManager crashed = new RegionFileManager(directory, "region", 2, null);
+		assertTrue(crashed.enableJournal(1 << 20, 3600000L));
+		write(crashed.getBAAWrapper(1, 2, 3), 8);
+		write(crashed.getBAAWrapper(-1, 0, 0), 9);
+		write(crashed.getBAAWrapper(1, 2, 3), 10);
+		assertTrue(crashed.commit());
+		crashed.stopTimeoutThread();
+
+		// Simulate a crash part way through appending a record
+		File[] journal = getJournalFiles();
+		assertEquals(1, journal.length);
+		FileOutputStream out = new FileOutputStream(journal[0], true);
+		try {
+			out.write(new byte[] {0x53, 0x50, 0x4A, 0x52, 0, 0, 0});
+		} finally {
+			out.close();
+		}
+
+		RegionFileManager manager = new RegionFileManager(directory, "region", 2, null);
+		try {
+			assertTrue(manager.enableJournal(1 << 20, 3600000L));
+			assertEquals(3, manager.getJournal().getReplayedCount());
+			assertEquals(0, manager.getJournal().getPendingCount());
+			assertEquals(10, read(manager.getBAAWrapper(1, 2, 3)));
+			assertEquals(9, read(manager.getBAAWrapper(-1, 0, 0)));
+		} finally {
+			manager.closeAll();
+		}
+		assertEquals(0, getJournalFiles().length);
+	}
+
+	private File[] getJournalFiles() {
+		return new File(directory, "region").listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.startsWith("journal-");
+			}
+		});
+	}
+
+	private static void write(BAAWrapper wrapper, int value) throws IOException {
+		DataOutputStream out = new DataOutputStream(wrapper.getBlockOutputStream(0));
+		try {
+			out.writeInt(value);
+		} finally {
+			out.close();
+		}
+	}
+
+	private static int read(BAAWrapper wrapper) throws IOException {
+		DataInputStream in = new DataInputStream(wrapper.getBlockInputStream(0));
+		assertNotNull(in);
+		try {
+			return in.readInt();
+		} finally {
+			in.close();
+		}
+	}
+}
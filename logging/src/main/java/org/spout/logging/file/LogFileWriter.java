@@ -0,0 +1,104 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.logging.file;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Appends text to a log file. Text is encoded into a reused buffer, and only reaches the file channel when the buffer
+ * is full or flushed, so many lines go out in a single write.
+ */
+final class LogFileWriter {
+	private final FileOutputStream stream;
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private final CharsetEncoder encoder;
+	private char[] chars = new char[256];
+	private CharBuffer charBuffer = CharBuffer.wrap(chars);
+
+	LogFileWriter(File file, int bufferSize) throws FileNotFoundException {
+		stream = new FileOutputStream(file, true);
+		channel = stream.getChannel();
+		buffer = ByteBuffer.allocateDirect(bufferSize);
+		encoder = Charset.defaultCharset().newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
+	/**
+	 * Encodes the text into the buffer, writing the buffer out whenever it fills up
+	 *
+	 * @param text the text to append
+	 * @throws IOException if the buffer could not be written
+	 */
+	void append(StringBuilder text) throws IOException {
+		int length = text.length();
+		if (length > chars.length) {
+			chars = new char[Math.max(length, chars.length << 1)];
+			charBuffer = CharBuffer.wrap(chars);
+		}
+		text.getChars(0, length, chars, 0);
+		charBuffer.limit(length).position(0);
+		while (true) {
+			CoderResult result = encoder.encode(charBuffer, buffer, true);
+			if (!result.isOverflow()) {
+				break;
+			}
+			flush();
+		}
+		encoder.reset();
+	}
+
+	/**
+	 * Writes the buffered bytes to the file
+	 *
+	 * @throws IOException if the bytes could not be written
+	 */
+	void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			stream.close();
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.logging.file;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.LogRecord;
+
+/**
+ * A bounded, lock-free queue of log records with any number of producers and a single consumer.<br>
+ * <br>
+ * Every slot carries a sequence number. A producer claims a slot by advancing the tail with a CAS, fills it in, and
+ * publishes it by setting the sequence of the slot, so a full queue is detected without any lock and a slow producer
+ * never blocks the others.
+ */
+final class LogRingBuffer {
+	private final int mask;
+	private final LogRecord[] records;
+	private final long[] enqueued;
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail = new AtomicLong();
+	private long head;
+
+	LogRingBuffer(int capacity) {
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		mask = size - 1;
+		records = new LogRecord[size];
+		enqueued = new long[size];
+		sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * Adds a record to the queue
+	 *
+	 * @param record the record
+	 * @param nanos the time the record was published, from {@link System#nanoTime()}
+	 * @return false if the queue is full
+	 */
+	boolean offer(LogRecord record, long nanos) {
+		long position;
+		int index;
+		while (true) {
+			position = tail.get();
+			index = (int) position & mask;
+			long difference = sequences.get(index) - position;
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					break;
+				}
+			} else if (difference < 0) {
+				return false;
+			}
+		}
+		records[index] = record;
+		enqueued[index] = nanos;
+		sequences.lazySet(index, position + 1);
+		return true;
+	}
+
+	/**
+	 * Moves the published records into the given arrays. This may only be called by one consumer at a time.
+	 *
+	 * @param records the array to store the records in
+	 * @param enqueued the array to store the publishing times in
+	 * @return the number of records moved
+	 */
+	int drainTo(LogRecord[] records, long[] enqueued) {
+		int count = 0;
+		while (count < records.length) {
+			int index = (int) head & mask;
+			if (sequences.get(index) != head + 1) {
+				break;
+			}
+			records[count] = this.records[index];
+			enqueued[count] = this.enqueued[index];
+			this.records[index] = null;
+			sequences.lazySet(index, head + mask + 1);
+			head++;
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Gets if no record is waiting in the queue. This may only be called by one consumer at a time.
+	 *
+	 * @return true if the queue is empty
+	 */
+	boolean isEmpty() {
+		return sequences.get((int) head & mask) != head + 1;
+	}
+
+	int getCapacity() {
+		return mask + 1;
+	}
+}
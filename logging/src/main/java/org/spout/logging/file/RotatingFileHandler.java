@@ -28,23 +28,33 @@ package org.spout.logging.file;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Formatter;
 import java.util.logging.Handler;
 import java.util.logging.LogRecord;
 
 /**
- * A formatted rotating file handler, with separate files for each day of logs
+ * A formatted rotating file handler, with separate files for each day of logs.<br>
+ * <br>
+ * The handler either writes on the logging thread, or, when created with a queue capacity, hands records to a single
+ * writer thread through a lock-free queue. In the asynchronous mode records are formatted and written by the writer
+ * thread, so a thread that logs never waits for the disk unless the queue is full and the {@link OverflowPolicy} says
+ * to block.
  */
 public class RotatingFileHandler extends Handler {
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int BATCH_SIZE = 256;
+	private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+	private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+	private static final long CLOSE_TIMEOUT = 5000;
 	private final SimpleDateFormat date;
 	private final String fileNameFormat;
 	private final File logDir;
@@ -52,9 +62,21 @@ public class RotatingFileHandler extends Handler {
 	private String logFileName;
 	private final LogFlushThread logFlush;
 	private final ReentrantLock writerLock = new ReentrantLock();
-	private OutputStreamWriter writer;
+	private LogFileWriter writer;
 	private DateFormat dateFormat;
 	private final AtomicBoolean closed = new AtomicBoolean(false);
+	private final StringBuilder lines = new StringBuilder(256);
+	private long cachedSecond;
+	private String cachedTimestamp;
+	private long nextRotationCheck;
+	private final LogRingBuffer queue;
+	private final OverflowPolicy overflowPolicy;
+	private final LogWriterThread logWriter;
+	private final AtomicLong dropped = new AtomicLong();
+	private long reportedDropped;
+	private volatile long written;
+	private volatile long totalLatency;
+	private volatile long maxLatency;
 
 	/**
 	 * Creates a rotating file handler with the specified date handler. Use %D for a placeholder for the date in the log name.
@@ -63,15 +85,43 @@ public class RotatingFileHandler extends Handler {
 	 * @param autoFlush whether to automatically flush after every log record
 	 */
 	public RotatingFileHandler(File logDir, String fileNameFormat, boolean autoFlush) {
+		this(logDir, fileNameFormat, autoFlush, 0, OverflowPolicy.BLOCK);
+	}
+
+	/**
+	 * Creates a rotating file handler with the specified date handler. Use %D for a placeholder for the date in the log name.<br>
+	 * <br>
+	 * With a positive queue capacity, records are written by a dedicated thread. Without auto flush, that thread writes
+	 * the records it has collected at most once a second.
+	 *
+	 * @param logDir the directory to create logs in
+	 * @param autoFlush whether to automatically flush after every log record, or batch of records
+	 * @param queueCapacity the number of records that may wait for the writer thread, or 0 to write on the logging thread
+	 * @param overflowPolicy what to do with a record when the queue is full
+	 */
+	public RotatingFileHandler(File logDir, String fileNameFormat, boolean autoFlush, int queueCapacity, OverflowPolicy overflowPolicy) {
+		if (overflowPolicy == null) {
+			throw new IllegalArgumentException("Overflow policy may not be null");
+		}
 		this.logDir = logDir;
 		this.fileNameFormat = fileNameFormat;
 		this.autoFlush = autoFlush;
+		this.overflowPolicy = overflowPolicy;
 		setDateFormat(new SimpleDateFormat("HH:mm:ss"));
 		date = new SimpleDateFormat("yyyy-MM-dd");
 		logFileName = calculateFilename();
 		initImpl();
-		logFlush = new LogFlushThread();
-		logFlush.start();
+		if (queueCapacity > 0) {
+			queue = new LogRingBuffer(queueCapacity);
+			logFlush = null;
+			logWriter = new LogWriterThread();
+			logWriter.start();
+		} else {
+			queue = null;
+			logWriter = null;
+			logFlush = new LogFlushThread();
+			logFlush.start();
+		}
 	}
 
 	private File getLogFile() {
@@ -88,7 +138,7 @@ public class RotatingFileHandler extends Handler {
 	private void initImpl() {
 		File logFile = getLogFile();
 		try {
-			writer = new OutputStreamWriter(new FileOutputStream(logFile, true));
+			writer = new LogFileWriter(logFile, BUFFER_SIZE);
 		} catch (FileNotFoundException ex) {
 			throw new RuntimeException("Unable to write to " + logFile.getName() + " at " + logFile.getPath());
 		}
@@ -97,17 +147,30 @@ public class RotatingFileHandler extends Handler {
 	@Override
 	public void close() throws SecurityException {
 		if (closed.compareAndSet(false, true)) {
+			if (logWriter != null) {
+				LockSupport.unpark(logWriter);
+				try {
+					logWriter.join(CLOSE_TIMEOUT);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				drainClosed();
+			}
 			closeImpl();
 		}
 	}
 
 	private void closeImpl() {
+		writerLock.lock();
 		try {
 			if (writer != null) {
 				writer.close();
+				writer = null;
 			}
 		} catch (IOException ex) {
 			ex.printStackTrace();
+		} finally {
+			writerLock.unlock();
 		}
 		if (logFlush != null) {
 			logFlush.interrupt();
@@ -118,14 +181,21 @@ public class RotatingFileHandler extends Handler {
 	public void flush() {
 		writerLock.lock();
 		try {
-			if (!logFileName.equals(calculateFilename())) {
-				logFileName = calculateFilename();
-				try {
-					writer.close();
-				} catch (IOException ex) {
-					ex.printStackTrace();
+			if (writer == null) {
+				return;
+			}
+			long now = System.currentTimeMillis();
+			if (now >= nextRotationCheck) {
+				nextRotationCheck = now + 1000;
+				if (!logFileName.equals(calculateFilename())) {
+					logFileName = calculateFilename();
+					try {
+						writer.close();
+					} catch (IOException ex) {
+						ex.printStackTrace();
+					}
+					initImpl();
 				}
-				initImpl();
 			}
 			try {
 				writer.flush();
@@ -137,33 +207,87 @@ public class RotatingFileHandler extends Handler {
 		}
 	}
 
+	/**
+	 * Sets the format of the timestamp in front of each line. The formatted timestamp is reused for all records within
+	 * the same second.
+	 *
+	 * @param format the timestamp format, or null for no timestamp
+	 */
 	public void setDateFormat(DateFormat format) {
-		this.dateFormat = format;
+		writerLock.lock();
+		try {
+			this.dateFormat = format;
+			cachedTimestamp = null;
+		} finally {
+			writerLock.unlock();
+		}
 	}
 
 	public DateFormat getDateFormat() {
 		return dateFormat;
 	}
 
+	/**
+	 * Gets if records are written by a dedicated writer thread
+	 *
+	 * @return true if the handler is asynchronous
+	 */
+	public boolean isAsynchronous() {
+		return queue != null;
+	}
+
+	/**
+	 * Gets the number of records discarded because the queue was full
+	 *
+	 * @return the number of dropped records
+	 */
+	public long getDroppedRecords() {
+		return dropped.get();
+	}
+
+	/**
+	 * Gets the number of records written to the log files
+	 *
+	 * @return the number of written records
+	 */
+	public long getWrittenRecords() {
+		return written;
+	}
+
+	/**
+	 * Gets the average time between a record being published and written, in nanoseconds. This is always 0 for a
+	 * synchronous handler.
+	 *
+	 * @return the average latency
+	 */
+	public long getAverageLatency() {
+		long count = written;
+		return count == 0 || queue == null ? 0 : totalLatency / count;
+	}
+
+	/**
+	 * Gets the longest time between a record being published and written, in nanoseconds. This is always 0 for a
+	 * synchronous handler.
+	 *
+	 * @return the maximum latency
+	 */
+	public long getMaxLatency() {
+		return maxLatency;
+	}
+
 	@Override
 	public void publish(LogRecord record) {
+		if (queue != null) {
+			enqueue(record);
+			return;
+		}
 		writerLock.lock();
 		try {
 			if (writer == null) {
 				return;
 			}
-			String message;
-			Formatter formatter = getFormatter();
-			if (formatter != null) {
-				message = formatter.format(record);
-			} else {
-				message = record.getMessage();
-			}
-			for (String line : message.split("\n")) {
-				appendDateFormat(writer);
-				writer.write(line);
-				writer.write('\n');
-			}
+			write(record);
+			written++;
 
 			if (autoFlush) {
 				flush();
@@ -175,12 +299,185 @@ public class RotatingFileHandler extends Handler {
 		}
 	}
 
-	private void appendDateFormat(Writer writer) throws IOException {
+	private void enqueue(LogRecord record) {
+		if (closed.get()) {
+			dropped.incrementAndGet();
+			return;
+		}
+		long now = System.nanoTime();
+		if (!queue.offer(record, now)) {
+			if (Thread.currentThread() == logWriter || !overflowPolicy.blocks(record)) {
+				dropped.incrementAndGet();
+				return;
+			}
+			do {
+				if (closed.get()) {
+					dropped.incrementAndGet();
+					return;
+				}
+				LockSupport.unpark(logWriter);
+				LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+			} while (!queue.offer(record, now));
+		}
+		if (closed.get()) {
+			// The writer thread may have exited before this record was offered
+			drainClosed();
+		} else if (logWriter.sleeping) {
+			LockSupport.unpark(logWriter);
+		}
+	}
+
+	/**
+	 * Writes the records left in the queue after the handler was closed, or counts them as dropped if the log file
+	 * has already been closed
+	 */
+	private void drainClosed() {
+		LogRecord[] records = new LogRecord[BATCH_SIZE];
+		long[] enqueued = new long[BATCH_SIZE];
+		writerLock.lock();
+		try {
+			if (writer != null) {
+				if (drain(records, enqueued)) {
+					flush();
+				}
+				return;
+			}
+			int count;
+			while ((count = queue.drainTo(records, enqueued)) > 0) {
+				dropped.addAndGet(count);
+			}
+		} finally {
+			writerLock.unlock();
+		}
+	}
+
+	/**
+	 * Formats a record and appends each of its lines, prefixed with the timestamp, to the writer. The writer lock must
+	 * be held.
+	 */
+	private void write(LogRecord record) throws IOException {
+		String message;
+		Formatter formatter = getFormatter();
+		if (formatter != null) {
+			message = formatter.format(record);
+		} else {
+			message = record.getMessage();
+		}
+		String timestamp = getTimestamp(record.getMillis());
+		lines.setLength(0);
+		int length = message.length();
+		int start = 0;
+		do {
+			int end = message.indexOf('\n', start);
+			if (end == -1) {
+				end = length;
+			}
+			if (timestamp != null) {
+				lines.append('[').append(timestamp).append("] ");
+			}
+			lines.append(message, start, end).append('\n');
+			start = end + 1;
+		} while (start < length);
+		writer.append(lines);
+	}
+
+	private String getTimestamp(long millis) {
 		DateFormat dateFormat = getDateFormat();
-		if (dateFormat != null) {
-			writer.write("[");
-			writer.write(dateFormat.format(new Date()));
-			writer.write("] ");
+		if (dateFormat == null) {
+			return null;
+		}
+		long second = millis / 1000;
+		if (cachedTimestamp == null || second != cachedSecond) {
+			cachedTimestamp = dateFormat.format(new Date(millis));
+			cachedSecond = second;
+		}
+		return cachedTimestamp;
+	}
+
+	/**
+	 * Writes the records waiting in the queue. The queue is only drained while holding the writer lock, so it has a
+	 * single consumer at a time.
+	 *
+	 * @return true if any record was written
+	 */
+	private boolean drain(LogRecord[] records, long[] enqueued) {
+		boolean any = false;
+		writerLock.lock();
+		try {
+			int count;
+			while ((count = queue.drainTo(records, enqueued)) > 0) {
+				any = true;
+				long now = System.nanoTime();
+				for (int i = 0; i < count; i++) {
+					try {
+						if (writer != null) {
+							write(records[i]);
+						}
+					} catch (IOException | RuntimeException ex) {
+						ex.printStackTrace();
+					}
+					records[i] = null;
+					long latency = now - enqueued[i];
+					totalLatency += latency;
+					if (latency > maxLatency) {
+						maxLatency = latency;
+					}
+				}
+				written += count;
+			}
+			long droppedNow = dropped.get();
+			if (droppedNow != reportedDropped && writer != null) {
+				lines.setLength(0);
+				lines.append("[Dropped ").append(droppedNow - reportedDropped).append(" log records, the log queue was full]\n");
+				reportedDropped = droppedNow;
+				try {
+					writer.append(lines);
+				} catch (IOException ex) {
+					ex.printStackTrace();
+				}
+			}
+		} finally {
+			writerLock.unlock();
+		}
+		return any;
+	}
+
+	private class LogWriterThread extends Thread {
+		private volatile boolean sleeping;
+
+		public LogWriterThread() {
+			super("Log Writer Thread");
+			this.setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			LogRecord[] records = new LogRecord[BATCH_SIZE];
+			long[] enqueued = new long[BATCH_SIZE];
+			long lastFlush = System.nanoTime();
+			while (true) {
+				boolean wrote = drain(records, enqueued);
+				long now = System.nanoTime();
+				if (autoFlush && wrote || now - lastFlush >= IDLE_PARK_NANOS) {
+					flush();
+					lastFlush = now;
+				}
+				if (wrote) {
+					continue;
+				}
+				if (closed.get()) {
+					if (queue.isEmpty()) {
+						flush();
+						return;
+					}
+					continue;
+				}
+				sleeping = true;
+				if (queue.isEmpty() && !closed.get()) {
+					LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+				}
+				sleeping = false;
+			}
 		}
 	}
 
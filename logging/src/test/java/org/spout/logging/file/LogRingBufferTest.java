@@ -0,0 +1,143 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.logging.file;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LogRingBufferTest {
+	private final static int PRODUCERS = 4;
+	private final static int RECORDS_PER_PRODUCER = 100000;
+
+	@Test
+	public void testOrdering() {
+		LogRingBuffer queue = new LogRingBuffer(16);
+		assertTrue(queue.isEmpty());
+		LogRecord[] offered = new LogRecord[10];
+		for (int i = 0; i < offered.length; i++) {
+			offered[i] = new LogRecord(Level.INFO, "Record " + i);
+			assertTrue(queue.offer(offered[i], i));
+		}
+		assertFalse(queue.isEmpty());
+
+		LogRecord[] records = new LogRecord[4];
+		long[] enqueued = new long[4];
+		int next = 0;
+		int count;
+		while ((count = queue.drainTo(records, enqueued)) > 0) {
+			for (int i = 0; i < count; i++) {
+				assertSame(offered[next], records[i]);
+				assertEquals(next, enqueued[i]);
+				next++;
+			}
+		}
+		assertEquals(offered.length, next);
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void testCapacity() {
+		assertEquals(2, new LogRingBuffer(0).getCapacity());
+		assertEquals(8, new LogRingBuffer(8).getCapacity());
+		assertEquals(16, new LogRingBuffer(9).getCapacity());
+
+		LogRingBuffer queue = new LogRingBuffer(8);
+		LogRecord record = new LogRecord(Level.INFO, "Record");
+		for (int i = 0; i < 8; i++) {
+			assertTrue(queue.offer(record, i));
+		}
+		assertFalse(queue.offer(record, 8));
+
+		LogRecord[] records = new LogRecord[1];
+		long[] enqueued = new long[1];
+		assertEquals(1, queue.drainTo(records, enqueued));
+		assertTrue(queue.offer(record, 8));
+		assertFalse(queue.offer(record, 9));
+	}
+
+	@Test
+	public void testConcurrentProducers() throws InterruptedException {
+		final LogRingBuffer queue = new LogRingBuffer(1024);
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] producers = new Thread[PRODUCERS];
+		for (int p = 0; p < PRODUCERS; p++) {
+			final int producer = p;
+			producers[p] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					LogRecord record = new LogRecord(Level.INFO, "Producer " + producer);
+					for (int i = 0; i < RECORDS_PER_PRODUCER; i++) {
+						// The sequence of each producer is stored in the publishing time
+						while (!queue.offer(record, i)) {
+							Thread.yield();
+						}
+					}
+				}
+			};
+			producers[p].start();
+		}
+		start.countDown();
+
+		long[] next = new long[PRODUCERS];
+		LogRecord[] records = new LogRecord[64];
+		long[] enqueued = new long[64];
+		int total = 0;
+		while (total < PRODUCERS * RECORDS_PER_PRODUCER) {
+			int count = queue.drainTo(records, enqueued);
+			for (int i = 0; i < count; i++) {
+				int producer = records[i].getMessage().charAt(9) - '0';
+				assertEquals("Records of a producer must stay in order", next[producer], enqueued[i]);
+				next[producer]++;
+			}
+			total += count;
+			if (count == 0) {
+				Thread.yield();
+			}
+		}
+		for (Thread producer : producers) {
+			producer.join();
+		}
+		long[] expected = new long[PRODUCERS];
+		Arrays.fill(expected, RECORDS_PER_PRODUCER);
+		assertTrue(Arrays.equals(expected, next));
+		assertTrue(queue.isEmpty());
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * This file is part of Spout.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Spout is licensed under the Spout License Version 1.
+ *
+ * Spout is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Spout is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.logging.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RotatingFileHandlerTest {
+	private final static String LOG_NAME = "test.log";
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testOrdering() throws IOException {
+		RotatingFileHandler handler = createHandler(16, OverflowPolicy.BLOCK);
+		for (int i = 0; i < 1000; i++) {
+			handler.publish(new LogRecord(Level.INFO, "Record " + i));
+		}
+		handler.close();
+
+		assertEquals(0, handler.getDroppedRecords());
+		assertEquals(1000, handler.getWrittenRecords());
+		List<String> lines = readLog();
+		assertEquals(1000, lines.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals("Record " + i, lines.get(i));
+		}
+	}
+
+	@Test
+	public void testOverflowCounting() throws IOException, InterruptedException {
+		final CountDownLatch writing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		RotatingFileHandler handler = createHandler(8, OverflowPolicy.DISCARD);
+		handler.setFormatter(new Formatter() {
+			@Override
+			public String format(LogRecord record) {
+				if (writing.getCount() > 0) {
+					writing.countDown();
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return record.getMessage();
+			}
+		});
+
+		// The writer thread holds the first record until released, so the queue fills up behind it
+		handler.publish(new LogRecord(Level.INFO, "First"));
+		assertTrue(writing.await(5, TimeUnit.SECONDS));
+		for (int i = 0; i < 8; i++) {
+			handler.publish(new LogRecord(Level.INFO, "Queued " + i));
+		}
+		for (int i = 0; i < 5; i++) {
+			handler.publish(new LogRecord(Level.INFO, "Dropped " + i));
+		}
+		assertEquals(5, handler.getDroppedRecords());
+		release.countDown();
+		handler.close();
+
+		assertEquals(9, handler.getWrittenRecords());
+		List<String> lines = readLog();
+		assertEquals("First", lines.get(0));
+		for (int i = 0; i < 8; i++) {
+			assertEquals("Queued " + i, lines.get(i + 1));
+		}
+		assertEquals("[Dropped 5 log records, the log queue was full]", lines.get(9));
+		assertEquals(10, lines.size());
+	}
+
+	@Test
+	public void testClose() throws IOException {
+		RotatingFileHandler handler = createHandler(4096, OverflowPolicy.DISCARD);
+		for (int i = 0; i < 4000; i++) {
+			handler.publish(new LogRecord(Level.INFO, "Record " + i));
+		}
+		handler.close();
+
+		assertEquals(0, handler.getDroppedRecords());
+		assertEquals(4000, handler.getWrittenRecords());
+		assertEquals(4000, readLog().size());
+
+		// Records published after closing are counted, not lost silently
+		handler.publish(new LogRecord(Level.INFO, "Late"));
+		assertEquals(1, handler.getDroppedRecords());
+		assertEquals(4000, handler.getWrittenRecords());
+	}
+
+	private RotatingFileHandler createHandler(int queueCapacity, OverflowPolicy overflowPolicy) {
+		RotatingFileHandler handler = new RotatingFileHandler(folder.getRoot(), LOG_NAME, false, queueCapacity, overflowPolicy);
+		handler.setDateFormat(null);
+		return handler;
+	}
+
+	private List<String> readLog() throws IOException {
+		return Files.readAllLines(new File(folder.getRoot(), LOG_NAME).toPath(), Charset.defaultCharset());
+	}
+}